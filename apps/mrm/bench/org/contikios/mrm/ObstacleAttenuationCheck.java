@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.mrm;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+import java.util.Vector;
+
+/**
+ * Standalone check of obstacle attenuation in the ray tracer.
+ *
+ * Computes the received signal strength between fixed points in a world of
+ * overlapping obstacles, and compares it with the values computed before
+ * obstacles near a point were found via ObstacleTree. Overlapping
+ * obstacles make the result depend on the order in which obstacles near a
+ * refraction point are tried, which must remain the registration order.
+ * Since few random rays hit such points, the order of obstacles near many
+ * points in a dense world is also compared with a scan of all obstacles.
+ *
+ * Run with: ant bench -Dbenchmark=org.contikios.mrm.ObstacleAttenuationCheck
+ */
+public class ObstacleAttenuationCheck {
+  private static final int OBSTACLES = 30;
+  private static final int PAIRS = 20;
+  private static final int DENSE_OBSTACLES = 2000;
+  private static final int POINTS = 2000;
+
+  /* Signal strength means computed by the baseline implementation */
+  private static final double[] EXPECTED = {
+    -85.2627091935785, -80.97239143068684, -87.82890854815028, -66.38904663320454,
+    Double.NEGATIVE_INFINITY, -91.68239680805505, -76.53431197692969, Double.NEGATIVE_INFINITY,
+    -94.00071058624766, -74.35319772266905, -80.44612343461196, -133.78288472654737,
+    -94.84701671140397, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, -83.35958796669091,
+    -136.1464096384276, -61.555522345287336, -91.7739488112237, -89.64858304696016
+  };
+
+  private static class Pair extends ChannelModel.TxPair {
+    private final double fromX, fromY, toX, toY;
+
+    Pair(double fromX, double fromY, double toX, double toY) {
+      this.fromX = fromX;
+      this.fromY = fromY;
+      this.toX = toX;
+      this.toY = toY;
+    }
+    public double getFromX() {
+      return fromX;
+    }
+    public double getFromY() {
+      return fromY;
+    }
+    public double getToX() {
+      return toX;
+    }
+    public double getToY() {
+      return toY;
+    }
+    public double getTxPower() {
+      return 0;
+    }
+    public double getTxGain() {
+      return 0;
+    }
+    public double getRxGain() {
+      return 0;
+    }
+  }
+
+  public static void main(String[] args) {
+    Random random = new Random(1);
+    ChannelModel channelModel = new ChannelModel(null);
+    channelModel.setParameterValue(ChannelModel.Parameter.rt_max_refractions, 8);
+    channelModel.setParameterValue(ChannelModel.Parameter.rt_max_rays, 4);
+    for (int i = 0; i < OBSTACLES; i++) {
+      channelModel.addRectObstacle(
+          5 * random.nextInt(16), 5 * random.nextInt(16),
+          5 * (1 + random.nextInt(3)), 5 * (1 + random.nextInt(3)), false);
+    }
+
+    int failed = 0;
+    for (int i = 0; i < PAIRS; i++) {
+      Pair pair = new Pair(
+          random.nextDouble() * 100, random.nextDouble() * 100,
+          random.nextDouble() * 100, random.nextDouble() * 100);
+      double signal = channelModel.getReceivedSignalStrength(pair)[0];
+      if (Double.compare(signal, EXPECTED[i]) != 0) {
+        System.out.println("Pair " + i + ": " + signal + " dBm, expected " + EXPECTED[i] + " dBm");
+        failed++;
+      }
+    }
+    if (failed > 0) {
+      throw new IllegalStateException(failed + " of " + PAIRS + " signal strengths differ from baseline");
+    }
+    System.out.println("Signal strengths of " + PAIRS + " pairs match baseline");
+
+    ObstacleWorld world = new ObstacleWorld();
+    for (int i = 0; i < DENSE_OBSTACLES; i++) {
+      world.addObstacle(
+          5 * random.nextInt(40), 5 * random.nextInt(40),
+          5 * (1 + random.nextInt(4)), 5 * (1 + random.nextInt(4)), false);
+    }
+    int overlapping = 0;
+    for (int i = 0; i < POINTS; i++) {
+      Point2D point = new Point2D.Double(
+          (random.nextBoolean()?5 * random.nextInt(40):random.nextDouble() * 200),
+          (random.nextBoolean()?5 * random.nextInt(40):random.nextDouble() * 200));
+      Vector<Rectangle2D> near = world.getAllObstaclesNear(point);
+      Vector<Rectangle2D> expected = new Vector<Rectangle2D>();
+      for (Rectangle2D obstacle: world.getAllObstacles()) {
+        if (obstacle.getMinX() <= point.getX() && obstacle.getMaxX() >= point.getX() &&
+            obstacle.getMinY() <= point.getY() && obstacle.getMaxY() >= point.getY()) {
+          expected.add(obstacle);
+        }
+      }
+      if (!near.equals(expected)) {
+        throw new IllegalStateException("Obstacles near " + point + " not in registration order: " +
+            near + ", expected " + expected);
+      }
+      if (near.size() > 1) {
+        overlapping++;
+      }
+    }
+    System.out.println("Obstacles near " + POINTS + " points in registration order (" +
+        overlapping + " points with overlapping obstacles)");
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.mrm;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.Vector;
+
+/**
+ * Standalone benchmark of finding obstacles near a point, as done for each
+ * refraction point when calculating obstacle attenuation.
+ *
+ * Compares the previous query, which collected the obstacles from the tree
+ * and sorted them by Vector.indexOf in the registered obstacles, with
+ * getAllObstaclesNear and visitObstaclesNear, which use the registration
+ * indexes stored in ObstacleTree. The world grows with the number of
+ * obstacles, so that one or two obstacles are near each query point.
+ *
+ * Run with: ant bench -Dbenchmark=org.contikios.mrm.ObstacleWorldBenchmark
+ */
+public class ObstacleWorldBenchmark {
+  private static final int[] SIZES = { 10, 1000, 10000 };
+  private static final int QUERIES = 200000;
+  private static final int ROUNDS = 5;
+
+  private static class ChecksumVisitor implements ObstacleWorld.ObstacleVisitor {
+    long checksum = 0;
+    public boolean visitObstacle(Rectangle2D obstacle) {
+      checksum = 31*checksum + obstacle.hashCode();
+      return true;
+    }
+  }
+
+  /**
+   * The previous query: collect from the tree, then sort by registration.
+   */
+  private static Vector<Rectangle2D> getAllObstaclesNearSorted(ObstacleTree tree,
+      final Vector<Rectangle2D> registered, Point2D center) {
+    final Vector<Rectangle2D> allNearObstacles = new Vector<Rectangle2D>();
+    tree.visitInArea(
+        center.getX(), center.getY(), center.getX(), center.getY(),
+        new ObstacleWorld.ObstacleVisitor() {
+          public boolean visitObstacle(Rectangle2D obstacle) {
+            allNearObstacles.add(obstacle);
+            return true;
+          }
+        });
+    if (allNearObstacles.size() > 1) {
+      Collections.sort(allNearObstacles, new Comparator<Rectangle2D>() {
+        public int compare(Rectangle2D r1, Rectangle2D r2) {
+          return Integer.compare(registered.indexOf(r1), registered.indexOf(r2));
+        }
+      });
+    }
+    return allNearObstacles;
+  }
+
+  private static long checksum(Vector<Rectangle2D> obstacles, long checksum) {
+    for (Rectangle2D obstacle: obstacles) {
+      checksum = 31*checksum + obstacle.hashCode();
+    }
+    return checksum;
+  }
+
+  public static void main(String[] args) {
+    System.out.println("obstacles, ns per query: sorted vs ordered vector vs visitor");
+    for (int size : SIZES) {
+      Random random = new Random(size);
+      double side = 10*Math.sqrt(size);
+      ObstacleWorld world = new ObstacleWorld();
+      for (int i = 0; i < size; i++) {
+        world.addObstacle(random.nextDouble() * side, random.nextDouble() * side,
+            2 + random.nextDouble() * 8, 2 + random.nextDouble() * 8, false);
+      }
+      world.reorganizeSpatialObstacles();
+      ObstacleTree tree = new ObstacleTree(world.getAllObstacles());
+      Vector<Rectangle2D> registered = world.getAllObstacles();
+
+      /* Query at obstacle corners, like refraction points on obstacle edges */
+      Point2D[] points = new Point2D[QUERIES];
+      for (int i = 0; i < QUERIES; i++) {
+        Rectangle2D obstacle = registered.get(random.nextInt(size));
+        points[i] = new Point2D.Double(
+            random.nextBoolean()?obstacle.getMinX():obstacle.getMaxX(),
+            random.nextBoolean()?obstacle.getMinY():obstacle.getMaxY());
+      }
+
+      long bestSorted = Long.MAX_VALUE;
+      long bestVector = Long.MAX_VALUE;
+      long bestVisitor = Long.MAX_VALUE;
+      long found = 0;
+      for (int round = 0; round < ROUNDS; round++) {
+        long sortedChecksum = 0, vectorChecksum = 0;
+        ChecksumVisitor visitor = new ChecksumVisitor();
+        found = 0;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+          Vector<Rectangle2D> near = getAllObstaclesNearSorted(tree, registered, points[i]);
+          sortedChecksum = checksum(near, sortedChecksum);
+          found += near.size();
+        }
+        long t1 = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+          vectorChecksum = checksum(world.getAllObstaclesNear(points[i]), vectorChecksum);
+        }
+        long t2 = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+          world.visitObstaclesNear(points[i], visitor);
+        }
+        long t3 = System.nanoTime();
+        if (sortedChecksum != vectorChecksum || sortedChecksum != visitor.checksum) {
+          throw new IllegalStateException("Obstacles found in different order");
+        }
+        bestSorted = Math.min(bestSorted, t1 - t0);
+        bestVector = Math.min(bestVector, t2 - t1);
+        bestVisitor = Math.min(bestVisitor, t3 - t2);
+      }
+      System.out.println(String.format("%5d (%.1f near): %8.1f ns vs %5.1f ns vs %5.1f ns (%.1fx, %.1fx)",
+          size, (double) found / QUERIES,
+          (double) bestSorted / QUERIES, (double) bestVector / QUERIES, (double) bestVisitor / QUERIES,
+          (double) bestSorted / bestVector, (double) bestSorted / bestVisitor));
+    }
+  }
+}
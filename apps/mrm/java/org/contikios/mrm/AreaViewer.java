@@ -68,6 +68,9 @@ import java.util.Enumeration;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.AbstractAction;
 import javax.swing.AbstractButton;
@@ -92,6 +95,7 @@ import javax.swing.JToolTip;
 import javax.swing.Popup;
 import javax.swing.PopupFactory;
 import javax.swing.ProgressMonitor;
+import javax.swing.SwingUtilities;
 import javax.swing.filechooser.FileFilter;
 
 import org.apache.log4j.Logger;
@@ -196,7 +200,10 @@ public class AreaViewer extends VisPlugin {
   private double coloringLowest = 0;
   private boolean coloringIsFixed = true;
 
-  private Thread attenuatorThread = null;
+  // Channel image calculation
+  private static final int RENDER_TILE_SIZE = 32;
+  private ForkJoinPool renderPool = null;
+  private ChannelRenderer channelRenderer = null;
 
   private JCheckBox showSettingsBox;
   private JCheckBox backgroundCheckBox;
@@ -417,7 +424,7 @@ public class AreaViewer extends VisPlugin {
         int textHeight = g.getFontMetrics().getHeight();
 
         // If computing
-        if (attenuatorThread != null && attenuatorThread.isAlive()) {
+        if (channelRenderer != null && !channelRenderer.isDone()) {
           g.setColor(Color.WHITE);
           g.fillRect(0, 0, width, height);
           g.setColor(Color.BLACK);
@@ -1671,6 +1678,7 @@ public class AreaViewer extends VisPlugin {
   private Observer radioMediumSettingsObserver = new Observer() {
     public void update(Observable obs, Object obj) {
       // Clear selected radio (if any selected) and radio medium coverage
+      cancelChannelRendering();
       selectedRadio = null;
       channelImage = null;
       trackModeButton.setEnabled(false);
@@ -1694,6 +1702,8 @@ public class AreaViewer extends VisPlugin {
    */
   private Observer channelModelSettingsObserver = new Observer() {
     public void update(Observable obs, Object obj) {
+      // Any ongoing channel image calculation is outdated
+      cancelChannelRendering();
       needToRepaintObstacleImage = true;
       canvas.repaint();
     }
@@ -1742,6 +1752,9 @@ public class AreaViewer extends VisPlugin {
   }
 
   private void repaintRadioEnvironment() {
+        // Abort any ongoing calculation
+        cancelChannelRendering();
+
         // Get resolution of new image
         final Dimension resolution = new Dimension(
             resolutionSlider.getValue(),
@@ -1761,235 +1774,295 @@ public class AreaViewer extends VisPlugin {
         final double width = canvas.getWidth() / currentZoomX;
         final double height = canvas.getHeight() / currentZoomY;
 
-        // Get sending radio position
-        Position radioPosition = selectedRadio.getPosition();
-        final double radioX = radioPosition.getXCoordinate();
-        final double radioY = radioPosition.getYCoordinate();
-
-        // Create temporary image
-        final BufferedImage tempChannelImage = new BufferedImage(resolution.width, resolution.height, BufferedImage.TYPE_INT_ARGB);
-
-        // Save time for later analysis
-        final long timeBeforeCalculating = System.currentTimeMillis();
-
         // Create progress monitor
+        int tiles = ((resolution.width + RENDER_TILE_SIZE - 1) / RENDER_TILE_SIZE) *
+            ((resolution.height + RENDER_TILE_SIZE - 1) / RENDER_TILE_SIZE);
         final ProgressMonitor pm = new ProgressMonitor(
             Cooja.getTopParentContainer(),
             "Calculating channel attenuation",
             null,
             0,
-            resolution.width - 1
+            tiles
         );
 
-        // Thread that will perform the work
-        final Runnable runnable = new Runnable() {
-          public void run() {
-            try {
-
-              // Available signal strength intervals
-              double lowestImageValue = Double.MAX_VALUE;
-              double highestImageValue = -Double.MAX_VALUE;
-
-              // Create image values (calculate each pixel)
-              double[][] imageValues = new double[resolution.width][resolution.height];
-              for (int x=0; x < resolution.width; x++) {
-                for (int y=0; y < resolution.height; y++) {
-                  final double xx = x;
-                  final double yy = y;
-                  TxPair txPair = new TxPair() {
-                    public double getDistance() {
-                      double w = getFromX() - getToX();
-                      double h = getFromY() - getToY();
-                      return Math.sqrt(w*w+h*h);
-                    }
-                    public double getFromX() { return radioX; }
-                    public double getFromY() { return radioY; }
-                    public double getToX() { return startX + width * xx/resolution.width; }
-                    public double getToY() { return startY + height * yy/resolution.height; }
-                    public double getTxPower() { return selectedRadio.getCurrentOutputPower(); }
-                    public double getTxGain() {
-                      if (!(selectedRadio instanceof DirectionalAntennaRadio)) {
-                        return 0;
-                      }
-                      DirectionalAntennaRadio r = (DirectionalAntennaRadio)selectedRadio;
-                      double txGain = r.getRelativeGain(r.getDirection() + getAngle(), getDistance());
-                      //logger.debug("tx gain: " + txGain + " (angle " + String.format("%1.1f", Math.toDegrees(r.getDirection() + getAngle())) + ")");
-                      return txGain;
-                    }
-                    public double getRxGain() {
-                      return 0;
-                    }
-                  };
-
-                  if (dataTypeToVisualize == ChannelModel.TransmissionData.SIGNAL_STRENGTH) {
-                    // Attenuate
-                    double[] signalStrength = currentChannelModel.getReceivedSignalStrength(txPair);
-
-                    // Collecting signal strengths
-                    if (signalStrength[0] < lowestImageValue) {
-                      lowestImageValue = signalStrength[0];
-                    }
-                    if (signalStrength[0] > highestImageValue) {
-                      highestImageValue = signalStrength[0];
-                    }
-
-                    imageValues[x][y] = signalStrength[0];
-
-                  } else if (dataTypeToVisualize == ChannelModel.TransmissionData.SIGNAL_STRENGTH_VAR) {
-                    // Attenuate
-                    double[] signalStrength = currentChannelModel.getReceivedSignalStrength(txPair);
-
-                    // Collecting variances
-                    if (signalStrength[1] < lowestImageValue) {
-                      lowestImageValue = signalStrength[1];
-                    }
-                    if (signalStrength[1] > highestImageValue) {
-                      highestImageValue = signalStrength[1];
-                    }
-
-                    imageValues[x][y] = signalStrength[1];
-
-                  } else if (dataTypeToVisualize == ChannelModel.TransmissionData.SNR) {
-                    // Get signal to noise ratio
-                    double[] snr = currentChannelModel.getSINR(
-                        txPair,
-                        -Double.MAX_VALUE
-                    );
-
-                    // Collecting signal to noise ratio
-                    if (snr[0] < lowestImageValue) {
-                      lowestImageValue = snr[0];
-                    }
-                    if (snr[0] > highestImageValue) {
-                      highestImageValue = snr[0];
-                    }
-
-                    imageValues[x][y] = snr[0];
-
-                  } else if (dataTypeToVisualize == ChannelModel.TransmissionData.SNR_VAR) {
-                    // Get signal to noise ratio
-                    double[] snr = currentChannelModel.getSINR(
-                        txPair,
-                        -Double.MAX_VALUE
-                    );
-
-                    // Collecting variances
-                    if (snr[1] < lowestImageValue) {
-                      lowestImageValue = snr[1];
-                    }
-                    if (snr[1] > highestImageValue) {
-                      highestImageValue = snr[1];
-                    }
-
-                    imageValues[x][y] = snr[1];
-                  } else if (dataTypeToVisualize == ChannelModel.TransmissionData.PROB_OF_RECEPTION) {
-                    // Get probability of receiving a packet TODO What size? Does it matter?
-                    double probability = currentChannelModel.getProbability(
-                        txPair, -Double.MAX_VALUE
-                    )[0];
-
-                    // Collecting variances
-                    if (probability < lowestImageValue) {
-                      lowestImageValue = probability;
-                    }
-                    if (probability > highestImageValue) {
-                      highestImageValue = probability;
-                    }
-
-                    imageValues[x][y] = probability;
-                  } else if (dataTypeToVisualize == ChannelModel.TransmissionData.DELAY_SPREAD_RMS) {
-                    // Get RMS delay spread of receiving a packet
-                    double rmsDelaySpread = currentChannelModel.getRMSDelaySpread(
-                        txPair
-                    );
-
-                    // Collecting variances
-                    if (rmsDelaySpread < lowestImageValue) {
-                      lowestImageValue = rmsDelaySpread;
-                    }
-                    if (rmsDelaySpread > highestImageValue) {
-                      highestImageValue = rmsDelaySpread;
-                    }
-
-                    imageValues[x][y] = rmsDelaySpread;
-                  }
-
-                  // Check if the dialog has been canceled
-                  if (pm.isCanceled()) {
-                    return;
-                  }
+        // Tiles are calculated in parallel, and painted as soon as they are done
+        channelStartX = startX;
+        channelStartY = startY;
+        channelWidth = width;
+        channelHeight = height;
+        channelRenderer = new ChannelRenderer(resolution, startX, startY, width, height, pm);
+        channelImage = channelRenderer.image;
 
-                  // Update progress
-                  pm.setProgress(x);
+        if (renderPool == null) {
+          renderPool = new ForkJoinPool();
+        }
+        renderPool.execute(channelRenderer);
+  }
 
-                }
-              }
+  /**
+   * Cancels any ongoing calculation of the channel image.
+   */
+  private void cancelChannelRendering() {
+    ChannelRenderer renderer = channelRenderer;
+    if (renderer != null && !renderer.isDone()) {
+      renderer.cancelRendering();
+      if (channelImage == renderer.image) {
+        channelImage = null;
+      }
+    }
+  }
 
-              // Adjust coloring signal strength limit
-              if (coloringIsFixed) {
-                if (dataTypeToVisualize == ChannelModel.TransmissionData.SIGNAL_STRENGTH) {
-                  lowestImageValue = -100;
-                  highestImageValue = 0;
-                } else if (dataTypeToVisualize == ChannelModel.TransmissionData.SIGNAL_STRENGTH_VAR) {
-                  lowestImageValue = 0;
-                  highestImageValue = 20;
-                } else if (dataTypeToVisualize == ChannelModel.TransmissionData.SNR) {
-                  lowestImageValue = -10;
-                  highestImageValue = 30;
-                } else if (dataTypeToVisualize == ChannelModel.TransmissionData.SNR_VAR) {
-                  lowestImageValue = 0;
-                  highestImageValue = 20;
-                } else if (dataTypeToVisualize == ChannelModel.TransmissionData.PROB_OF_RECEPTION) {
-                  lowestImageValue = 0;
-                  highestImageValue = 1;
-                } else if (dataTypeToVisualize == ChannelModel.TransmissionData.DELAY_SPREAD_RMS) {
-                  lowestImageValue = 0;
-                  highestImageValue = 5;
-                }
-              }
+  /**
+   * Calculates the channel image of the selected radio.
+   *
+   * The image is divided into tiles that are calculated in parallel.
+   * Each finished tile is painted directly, colored using the values
+   * calculated so far. When all tiles are done, the entire image is
+   * colored using the final value interval.
+   */
+  private class ChannelRenderer extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    final BufferedImage image;
+
+    private final Dimension resolution;
+    private final double startX, startY, width, height;
+    private final double radioX, radioY;
+    private final Radio radio;
+    private final ChannelModel.TransmissionData dataType;
+    private final boolean fixedColoring;
+    private final ProgressMonitor pm;
+
+    private final double[][] imageValues;
+    private double lowestImageValue = Double.MAX_VALUE;
+    private double highestImageValue = -Double.MAX_VALUE;
+    private final AtomicInteger tilesDone = new AtomicInteger();
+    private volatile boolean canceled = false;
+
+    private final long timeBeforeCalculating = System.currentTimeMillis();
+
+    public ChannelRenderer(Dimension resolution,
+        double startX, double startY, double width, double height,
+        ProgressMonitor pm) {
+      this.resolution = resolution;
+      this.startX = startX;
+      this.startY = startY;
+      this.width = width;
+      this.height = height;
+      this.pm = pm;
+
+      radio = selectedRadio;
+      radioX = radio.getPosition().getXCoordinate();
+      radioY = radio.getPosition().getYCoordinate();
+      dataType = dataTypeToVisualize;
+      fixedColoring = coloringIsFixed;
+
+      image = new BufferedImage(resolution.width, resolution.height, BufferedImage.TYPE_INT_ARGB);
+      imageValues = new double[resolution.width][resolution.height];
+    }
 
-              // Save coloring high-low interval
-              coloringHighest = highestImageValue;
-              coloringLowest = lowestImageValue;
+    public void cancelRendering() {
+      canceled = true;
+    }
 
-              // Create image
-              for (int x=0; x < resolution.width; x++) {
-                for (int y=0; y < resolution.height; y++) {
+    private boolean isCanceled() {
+      return canceled || pm.isCanceled();
+    }
 
-                  tempChannelImage.setRGB(
-                      x,
-                      y,
-                      getColorOfSignalStrength(imageValues[x][y], lowestImageValue, highestImageValue)
-                  );
-                }
+    protected void compute() {
+      try {
+        ArrayList<RecursiveAction> tiles = new ArrayList<RecursiveAction>();
+        for (int x=0; x < resolution.width; x += RENDER_TILE_SIZE) {
+          for (int y=0; y < resolution.height; y += RENDER_TILE_SIZE) {
+            final int tileX = x;
+            final int tileY = y;
+            tiles.add(new RecursiveAction() {
+              private static final long serialVersionUID = 1L;
+              protected void compute() {
+                calculateTile(tileX, tileY,
+                    Math.min(tileX + RENDER_TILE_SIZE, resolution.width),
+                    Math.min(tileY + RENDER_TILE_SIZE, resolution.height));
               }
-              logger.info("Attenuating area done, time=" + (System.currentTimeMillis() - timeBeforeCalculating));
+            });
+          }
+        }
+        invokeAll(tiles);
 
-              // Repaint to show the new channel propagation
-              channelStartX = startX;
-              channelStartY = startY;
-              channelWidth = width;
-              channelHeight = height;
-              channelImage = tempChannelImage;
+        if (isCanceled()) {
+          return;
+        }
 
-              AreaViewer.this.repaint();
-              coloringIntervalPanel.repaint();
+        // Adjust coloring signal strength limit
+        double[] fixedInterval = fixedColoring ? getFixedColoringInterval(dataType) : null;
+        double lowest, highest;
+        if (fixedInterval != null) {
+          lowest = fixedInterval[0];
+          highest = fixedInterval[1];
+        } else {
+          synchronized (this) {
+            lowest = lowestImageValue;
+            highest = highestImageValue;
+          }
+        }
 
-            } catch (Exception ex) {
-              if (pm.isCanceled()) {
-                return;
+        // Save coloring high-low interval
+        coloringHighest = highest;
+        coloringLowest = lowest;
+
+        // Create image
+        paintPixels(0, 0, resolution.width, resolution.height, lowest, highest);
+        logger.info("Attenuating area done, time=" + (System.currentTimeMillis() - timeBeforeCalculating));
+
+        // Repaint to show the new channel propagation
+        AreaViewer.this.repaint();
+        coloringIntervalPanel.repaint();
+      } catch (Exception ex) {
+        if (!isCanceled()) {
+          logger.fatal("Attenuation aborted: " + ex);
+          ex.printStackTrace();
+        }
+      } finally {
+        SwingUtilities.invokeLater(new Runnable() {
+          public void run() {
+            pm.close();
+            coloringIntervalPanel.repaint();
+          }
+        });
+      }
+    }
+
+    private void calculateTile(int x0, int y0, int x1, int y1) {
+      double lowest = Double.MAX_VALUE;
+      double highest = -Double.MAX_VALUE;
+      for (int x=x0; x < x1; x++) {
+        // Check if the calculation has been canceled
+        if (isCanceled()) {
+          return;
+        }
+        for (int y=y0; y < y1; y++) {
+          final double toX = startX + width * x/resolution.width;
+          final double toY = startY + height * y/resolution.height;
+          TxPair txPair = new TxPair() {
+            public double getDistance() {
+              double w = getFromX() - getToX();
+              double h = getFromY() - getToY();
+              return Math.sqrt(w*w+h*h);
+            }
+            public double getFromX() { return radioX; }
+            public double getFromY() { return radioY; }
+            public double getToX() { return toX; }
+            public double getToY() { return toY; }
+            public double getTxPower() { return radio.getCurrentOutputPower(); }
+            public double getTxGain() {
+              if (!(radio instanceof DirectionalAntennaRadio)) {
+                return 0;
               }
-              logger.fatal("Attenuation aborted: " + ex);
-              ex.printStackTrace();
-              pm.close();
+              DirectionalAntennaRadio r = (DirectionalAntennaRadio)radio;
+              double txGain = r.getRelativeGain(r.getDirection() + getAngle(), getDistance());
+              //logger.debug("tx gain: " + txGain + " (angle " + String.format("%1.1f", Math.toDegrees(r.getDirection() + getAngle())) + ")");
+              return txGain;
             }
-            pm.close();
+            public double getRxGain() {
+              return 0;
+            }
+          };
+
+          double value = calculateChannelValue(dataType, txPair);
+          if (value < lowest) {
+            lowest = value;
           }
-        };
+          if (value > highest) {
+            highest = value;
+          }
+          imageValues[x][y] = value;
+        }
+      }
+
+      // Paint tile using the values calculated so far
+      double[] fixedInterval = fixedColoring ? getFixedColoringInterval(dataType) : null;
+      double lowestSoFar, highestSoFar;
+      synchronized (this) {
+        lowestImageValue = Math.min(lowestImageValue, lowest);
+        highestImageValue = Math.max(highestImageValue, highest);
+        lowestSoFar = lowestImageValue;
+        highestSoFar = highestImageValue;
+      }
+      if (fixedInterval != null) {
+        lowestSoFar = fixedInterval[0];
+        highestSoFar = fixedInterval[1];
+      }
+      paintPixels(x0, y0, x1, y1, lowestSoFar, highestSoFar);
 
-        // Start thread
-        attenuatorThread = new Thread(runnable);
-        attenuatorThread.start();
+      // Update progress
+      final int progress = tilesDone.incrementAndGet();
+      SwingUtilities.invokeLater(new Runnable() {
+        public void run() {
+          pm.setProgress(progress);
+        }
+      });
+      AreaViewer.this.repaint();
+    }
+
+    private void paintPixels(int x0, int y0, int x1, int y1, double lowest, double highest) {
+      for (int x=x0; x < x1; x++) {
+        for (int y=y0; y < y1; y++) {
+          image.setRGB(
+              x,
+              y,
+              getColorOfSignalStrength(imageValues[x][y], lowest, highest)
+          );
+        }
+      }
+    }
+  }
+
+  /**
+   * @param dataType Visualized data type
+   * @param txPair Transmission pair
+   * @return Visualized channel value
+   */
+  private double calculateChannelValue(ChannelModel.TransmissionData dataType, TxPair txPair) {
+    if (dataType == ChannelModel.TransmissionData.SIGNAL_STRENGTH) {
+      // Attenuate
+      return currentChannelModel.getReceivedSignalStrength(txPair)[0];
+    } else if (dataType == ChannelModel.TransmissionData.SIGNAL_STRENGTH_VAR) {
+      // Attenuate, variance
+      return currentChannelModel.getReceivedSignalStrength(txPair)[1];
+    } else if (dataType == ChannelModel.TransmissionData.SNR) {
+      // Get signal to noise ratio
+      return currentChannelModel.getSINR(txPair, -Double.MAX_VALUE)[0];
+    } else if (dataType == ChannelModel.TransmissionData.SNR_VAR) {
+      // Get signal to noise ratio, variance
+      return currentChannelModel.getSINR(txPair, -Double.MAX_VALUE)[1];
+    } else if (dataType == ChannelModel.TransmissionData.PROB_OF_RECEPTION) {
+      // Get probability of receiving a packet TODO What size? Does it matter?
+      return currentChannelModel.getProbability(txPair, -Double.MAX_VALUE)[0];
+    } else if (dataType == ChannelModel.TransmissionData.DELAY_SPREAD_RMS) {
+      // Get RMS delay spread of receiving a packet
+      return currentChannelModel.getRMSDelaySpread(txPair);
+    }
+    return 0;
+  }
+
+  /**
+   * @param dataType Visualized data type
+   * @return Fixed coloring interval [lowest, highest], or null
+   */
+  private static double[] getFixedColoringInterval(ChannelModel.TransmissionData dataType) {
+    if (dataType == ChannelModel.TransmissionData.SIGNAL_STRENGTH) {
+      return new double[] { -100, 0 };
+    } else if (dataType == ChannelModel.TransmissionData.SIGNAL_STRENGTH_VAR) {
+      return new double[] { 0, 20 };
+    } else if (dataType == ChannelModel.TransmissionData.SNR) {
+      return new double[] { -10, 30 };
+    } else if (dataType == ChannelModel.TransmissionData.SNR_VAR) {
+      return new double[] { 0, 20 };
+    } else if (dataType == ChannelModel.TransmissionData.PROB_OF_RECEPTION) {
+      return new double[] { 0, 1 };
+    } else if (dataType == ChannelModel.TransmissionData.DELAY_SPREAD_RMS) {
+      return new double[] { 0, 5 };
+    }
+    return null;
   }
 
   /**
@@ -2329,6 +2402,13 @@ public class AreaViewer extends VisPlugin {
   }
 
   public void closePlugin() {
+    // Stop any channel image calculation
+    cancelChannelRendering();
+    if (renderPool != null) {
+      renderPool.shutdown();
+      renderPool = null;
+    }
+
     // Remove all our observers
 
     if (currentChannelModel != null && channelModelSettingsObserver != null) {
@@ -38,6 +38,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Properties;
@@ -80,8 +82,8 @@ public class ChannelModel {
   private Properties parameterDescriptions = new Properties();
 
   // Parameters used for speeding up calculations
-  private boolean needToPrecalculateFSPL = true;
-  private static double paramFSPL = 0;
+  private volatile boolean needToPrecalculateFSPL = true;
+  private static volatile double paramFSPL = 0;
   private boolean needToPrecalculateOutputPower = true;
   private static double paramOutputPower = 0;
 
@@ -95,17 +97,24 @@ public class ChannelModel {
   private Simulation simulation;
 
   
-  // Ray tracing components temporary vector
-  private Vector<Vector<Line2D>> calculatedVisibleSides = new Vector<Vector<Line2D>>();
-  private Vector<Point2D> calculatedVisibleSidesSources = new Vector<Point2D>();
-  private Vector<Line2D> calculatedVisibleSidesLines = new Vector<Line2D>();
-  private Vector<AngleInterval> calculatedVisibleSidesAngleIntervals = new Vector<AngleInterval>();
-  private static int maxSavedVisibleSides = 30; // Max size of lists above
+  // Ray tracing components temporary vector, most recently used first.
+  // Always replaced as a whole, so concurrent readers need no locking.
+  private volatile VisibleSides[] calculatedVisibleSides = new VisibleSides[0];
+  private static int maxSavedVisibleSides = 30; // Max size of list above
 
   /**
    * Notifies observers when this channel model has changed settings.
    */
   private ScnObservable settingsObservable = new ScnObservable();
+
+  /* Cached path data of radio pairs, least recently used first */
+  private static final int MAX_CACHED_PATHS = 100000;
+  private final LinkedHashMap<PathKey, double[]> pathCache = new LinkedHashMap<PathKey, double[]>(1024, 0.75f, true) {
+    protected boolean removeEldestEntry(Map.Entry<PathKey, double[]> eldest) {
+      return size() > MAX_CACHED_PATHS;
+    }
+  };
+
   public enum Parameter {
     apply_random,
     snr_threshold,
@@ -326,6 +335,7 @@ public class ChannelModel {
    */
   public void removeAllObstacles() {
     myObstacleWorld.removeAll();
+    clearPathCache();
     settingsObservable.setChangedAndNotify();
   }
 
@@ -354,6 +364,7 @@ public class ChannelModel {
    */
   public void addRectObstacle(double startX, double startY, double width, double height, boolean notify) {
     myObstacleWorld.addObstacle(startX, startY, width, height);
+    clearPathCache();
 
     if (notify) {
       settingsObservable.setChangedAndNotify();
@@ -437,6 +448,7 @@ public class ChannelModel {
     // Guessing we need to recalculate input to FSPL+Output power
     needToPrecalculateFSPL = true;
     needToPrecalculateOutputPower = true;
+    clearPathCache();
 
     settingsObservable.setChangedAndNotify();
   }
@@ -446,6 +458,7 @@ public class ChannelModel {
    * will be notified.
    */
   public void notifySettingsChanged() {
+    clearPathCache();
     settingsObservable.setChangedAndNotify();
   }
   
@@ -1009,37 +1022,21 @@ public class ChannelModel {
    * @param lookThrough Line to look through (or null)
    * @return All visible sides
    */
-  synchronized private Vector<Line2D> getAllVisibleSides(double sourceX, double sourceY, AngleInterval angleInterval, Line2D lookThrough) {
-    // synchronized because a race condition happens in this method when MRMVisualizerSkin accesses this module from another thread
-    Point2D source = new Point2D.Double(sourceX, sourceY);
+  private Vector<Line2D> getAllVisibleSides(double sourceX, double sourceY, AngleInterval angleInterval, Line2D lookThrough) {
+    // Not synchronized: this method is called concurrently by MRMVisualizerSkin and AreaViewer
+    final Point2D source = new Point2D.Double(sourceX, sourceY);
 
     // Check if results were already calculated earlier
-    for (int i=0; i < calculatedVisibleSidesSources.size(); i++) {
-      if (
-          // Compare sources
-          source.equals(calculatedVisibleSidesSources.get(i)) &&
-
-          // Compare angle intervals
-          (angleInterval == calculatedVisibleSidesAngleIntervals.get(i) ||
-              angleInterval != null && angleInterval.equals(calculatedVisibleSidesAngleIntervals.get(i)) ) &&
-
-              // Compare lines
-              (lookThrough == calculatedVisibleSidesLines.get(i) ||
-                  lookThrough != null && lookThrough.equals(calculatedVisibleSidesLines.get(i)) )
-      ) {
+    VisibleSides[] saved = calculatedVisibleSides;
+    for (int i=0; i < saved.length; i++) {
+      if (saved[i].matches(source, angleInterval, lookThrough)) {
         // Move to top of list
-        Point2D oldSource = calculatedVisibleSidesSources.remove(i);
-        Line2D oldLine = calculatedVisibleSidesLines.remove(i);
-        AngleInterval oldAngleInterval = calculatedVisibleSidesAngleIntervals.remove(i);
-        Vector<Line2D> oldVisibleLines = calculatedVisibleSides.remove(i);
-
-        calculatedVisibleSidesSources.add(0, oldSource);
-        calculatedVisibleSidesLines.add(0, oldLine);
-        calculatedVisibleSidesAngleIntervals.add(0, oldAngleInterval);
-        calculatedVisibleSides.add(0, oldVisibleLines);
+        if (i > 0) {
+          saveVisibleSides(saved[i]);
+        }
 
         // Return old results
-        return oldVisibleLines;
+        return saved[i].sides;
       }
     }
 
@@ -1075,43 +1072,35 @@ public class ChannelModel {
           break;
         }
 
-        // <<<< Get visible obstacle candidates inside this angle interval >>>>
-        Vector<Rectangle2D> visibleObstacleCandidates =
-          myObstacleWorld.getAllObstaclesInAngleInterval(source, angleIntervalToCheck);
+        // <<<< Get visible line candidates of obstacles inside this angle interval >>>>
+        final Vector<Line2D> visibleLineCandidates = new Vector<Line2D>();
+        myObstacleWorld.visitObstaclesInAngleInterval(source, angleIntervalToCheck,
+            new ObstacleWorld.ObstacleVisitor() {
+          public boolean visitObstacle(Rectangle2D obstacle) {
+            int outcode = obstacle.outcode(source);
 
-        //logger.info("Obstacle candidates count = " + visibleObstacleCandidates.size());
-        if (visibleObstacleCandidates.isEmpty()) {
-          //logger.info("Visible obstacles candidates empty");
-          unhandledAngles.remove(angleIntervalToCheck);
-          break; // Restart without this angle
-        }
-
-        // <<<< Get visible line candidates of these obstacles >>>>
-        Vector<Line2D> visibleLineCandidates = new Vector<Line2D>();
-        for (int i=0; i < visibleObstacleCandidates.size(); i++) {
-          Rectangle2D obstacle = visibleObstacleCandidates.get(i);
-          int outcode = obstacle.outcode(source);
-
-          if ((outcode & Rectangle2D.OUT_BOTTOM) != 0) {
-            visibleLineCandidates.add(
-                new Line2D.Double(obstacle.getMinX(), obstacle.getMaxY(), obstacle.getMaxX(), obstacle.getMaxY()));
-          }
+            if ((outcode & Rectangle2D.OUT_BOTTOM) != 0) {
+              visibleLineCandidates.add(
+                  new Line2D.Double(obstacle.getMinX(), obstacle.getMaxY(), obstacle.getMaxX(), obstacle.getMaxY()));
+            }
 
-          if ((outcode & Rectangle2D.OUT_TOP) != 0) {
-            visibleLineCandidates.add(
-                new Line2D.Double(obstacle.getMinX(), obstacle.getMinY(), obstacle.getMaxX(), obstacle.getMinY()));
-          }
+            if ((outcode & Rectangle2D.OUT_TOP) != 0) {
+              visibleLineCandidates.add(
+                  new Line2D.Double(obstacle.getMinX(), obstacle.getMinY(), obstacle.getMaxX(), obstacle.getMinY()));
+            }
 
-          if ((outcode & Rectangle2D.OUT_LEFT) != 0) {
-            visibleLineCandidates.add(
-                new Line2D.Double(obstacle.getMinX(), obstacle.getMinY(), obstacle.getMinX(), obstacle.getMaxY()));
-          }
+            if ((outcode & Rectangle2D.OUT_LEFT) != 0) {
+              visibleLineCandidates.add(
+                  new Line2D.Double(obstacle.getMinX(), obstacle.getMinY(), obstacle.getMinX(), obstacle.getMaxY()));
+            }
 
-          if ((outcode & Rectangle2D.OUT_RIGHT) != 0) {
-            visibleLineCandidates.add(
-                new Line2D.Double(obstacle.getMaxX(), obstacle.getMinY(), obstacle.getMaxX(), obstacle.getMaxY()));
+            if ((outcode & Rectangle2D.OUT_RIGHT) != 0) {
+              visibleLineCandidates.add(
+                  new Line2D.Double(obstacle.getMaxX(), obstacle.getMinY(), obstacle.getMaxX(), obstacle.getMaxY()));
+            }
+            return true;
           }
-        }
+        });
         //logger.info("Line candidates count = " + visibleLineCandidates.size());
         if (visibleLineCandidates.isEmpty()) {
           //logger.info("Visible line candidates empty");
@@ -1381,21 +1370,61 @@ public class ChannelModel {
     } // End of outer loop
 
     // Save results in order to speed up later calculations
-    int size = calculatedVisibleSides.size();
-    // Crop saved sides vectors
-    if (size >= maxSavedVisibleSides) {
-      calculatedVisibleSides.remove(size-1);
-      calculatedVisibleSidesSources.remove(size-1);
-      calculatedVisibleSidesAngleIntervals.remove(size-1);
-      calculatedVisibleSidesLines.remove(size-1);
+    saveVisibleSides(new VisibleSides(source, angleInterval, lookThrough, visibleLines));
+
+    return visibleLines;
+  }
+
+  /**
+   * Puts given visible sides first in the list of saved visible sides,
+   * and crops the list.
+   *
+   * @param visibleSides Visible sides
+   */
+  private synchronized void saveVisibleSides(VisibleSides visibleSides) {
+    VisibleSides[] saved = calculatedVisibleSides;
+    ArrayList<VisibleSides> newSaved = new ArrayList<VisibleSides>(saved.length + 1);
+    newSaved.add(visibleSides);
+    for (VisibleSides s: saved) {
+      if (newSaved.size() >= maxSavedVisibleSides) {
+        break;
+      }
+      if (s != visibleSides) {
+        newSaved.add(s);
+      }
     }
+    calculatedVisibleSides = newSaved.toArray(new VisibleSides[0]);
+  }
 
-    calculatedVisibleSides.add(0, visibleLines);
-    calculatedVisibleSidesSources.add(0, source);
-    calculatedVisibleSidesAngleIntervals.add(0, angleInterval);
-    calculatedVisibleSidesLines.add(0, lookThrough);
+  /**
+   * Visible sides from a source, in an angle interval and through a line.
+   */
+  private static class VisibleSides {
+    final Point2D source;
+    final AngleInterval angleInterval;
+    final Line2D lookThrough;
+    final Vector<Line2D> sides;
+
+    public VisibleSides(Point2D source, AngleInterval angleInterval, Line2D lookThrough, Vector<Line2D> sides) {
+      this.source = source;
+      this.angleInterval = angleInterval;
+      this.lookThrough = lookThrough;
+      this.sides = sides;
+    }
 
-    return visibleLines;
+    public boolean matches(Point2D source, AngleInterval angleInterval, Line2D lookThrough) {
+      return
+          // Compare sources
+          source.equals(this.source) &&
+
+          // Compare angle intervals
+          (angleInterval == this.angleInterval ||
+              angleInterval != null && angleInterval.equals(this.angleInterval) ) &&
+
+          // Compare lines
+          (lookThrough == this.lookThrough ||
+              lookThrough != null && lookThrough.equals(this.lookThrough) );
+    }
   }
 
   /**
@@ -1420,12 +1449,47 @@ public class ChannelModel {
   }
   
 
-  // TODO Fix better data type support
-  private double[] getTransmissionData(TxPair txPair, TransmissionData dataType) {
+  /**
+   * Returns the path gain and delay spreads between the two radios of given
+   * pair. Since ray tracing is expensive, results for radio pairs are cached
+   * until the radios move, or until obstacles or parameters change.
+   *
+   * @param txPair Transmission pair
+   * @return [Total path gain (dB), delay spread, RMS delay spread]
+   */
+  private double[] getPathData(TxPair txPair) {
     Point2D source = txPair.getFrom();
     Point2D dest = txPair.getTo();
-    double accumulatedVariance = 0;
+    if (logMode || !(txPair instanceof RadioPair)) {
+      return calculatePathData(source, dest);
+    }
 
+    PathKey key = new PathKey(source, dest);
+    synchronized (pathCache) {
+      double[] pathData = pathCache.get(key);
+      if (pathData != null) {
+        return pathData;
+      }
+    }
+    double[] pathData = calculatePathData(source, dest);
+    synchronized (pathCache) {
+      pathCache.put(key, pathData);
+    }
+    return pathData;
+  }
+
+  /**
+   * Removes all cached path data and visible sides.
+   * Must be called whenever obstacles or parameters change.
+   */
+  private void clearPathCache() {
+    synchronized (pathCache) {
+      pathCache.clear();
+    }
+    calculatedVisibleSides = new VisibleSides[0];
+  }
+
+  private double[] calculatePathData(Point2D source, Point2D dest) {
     // - Get all ray paths from source to destination -
     RayData originRayData = new RayData(
         RayData.RayType.ORIGIN,
@@ -1499,24 +1563,29 @@ public class ChannelModel {
           // Fetch attenuation constant
           double attenuationConstant = getParameterDoubleValue(Parameter.obstacle_attenuation);
 
-          Vector<Rectangle2D> allPossibleObstacles = myObstacleWorld.getAllObstaclesNear(subPath.getP1());
-
-          for (int k=0; k < allPossibleObstacles.size(); k++) {
-            Rectangle2D obstacle = allPossibleObstacles.get(k);
-
-            // Calculate the intersection distance
-            Line2D line = getIntersectionLine(
-                subPath.getP1().getX(),
-                subPath.getP1().getY(),
-                subPath.getP2().getX(),
-                subPath.getP2().getY(),
-                obstacle
-            );
-
-            if (line != null) {
-              pathGain[i] += attenuationConstant * line.getP1().distance(line.getP2());
-              break;
+          // Use first obstacle, in registration order, that the ray passes through
+          final Line2D throughPath = subPath;
+          final double[] wallDistance = new double[] { 0 };
+          boolean foundWall = !myObstacleWorld.visitObstaclesNear(subPath.getP1(), new ObstacleWorld.ObstacleVisitor() {
+            public boolean visitObstacle(Rectangle2D obstacle) {
+              // Calculate the intersection distance
+              Line2D line = getIntersectionLine(
+                  throughPath.getP1().getX(),
+                  throughPath.getP1().getY(),
+                  throughPath.getP2().getX(),
+                  throughPath.getP2().getY(),
+                  obstacle
+              );
+              if (line == null) {
+                return true;
+              }
+              wallDistance[0] = line.getP1().distance(line.getP2());
+              return false;
             }
+          });
+
+          if (foundWall) {
+            pathGain[i] += attenuationConstant * wallDistance[0];
           }
         }
 
@@ -1596,6 +1665,18 @@ public class ChannelModel {
         logInfo.append("RMS delay spread: " + String.format("%2.3f", delaySpreadRMS) + "\n");
     }
 
+    return new double[] {totalPathGain, delaySpread, delaySpreadRMS};
+  }
+
+  // TODO Fix better data type support
+  private double[] getTransmissionData(TxPair txPair, TransmissionData dataType) {
+    double accumulatedVariance = 0;
+
+    double[] pathData = getPathData(txPair);
+    double totalPathGain = pathData[0];
+    double delaySpread = pathData[1];
+    double delaySpreadRMS = pathData[2];
+
     // - Calculate received power -
     // Using formula (dB)
     //  Received power = Output power + System gain + Transmitter gain + Path Loss + Receiver gain
@@ -1881,10 +1962,44 @@ public class ChannelModel {
     }
     needToPrecalculateFSPL = true;
     needToPrecalculateOutputPower = true;
+    clearPathCache();
     settingsObservable.setChangedAndNotify();
     return true;
   }
 
+  /**
+   * Source and destination coordinates of a cached path.
+   */
+  private static class PathKey {
+    private final double fromX, fromY, toX, toY;
+
+    public PathKey(Point2D from, Point2D to) {
+      fromX = from.getX();
+      fromY = from.getY();
+      toX = to.getX();
+      toY = to.getY();
+    }
+
+    public int hashCode() {
+      long bits = Double.doubleToLongBits(fromX);
+      bits = 31*bits + Double.doubleToLongBits(fromY);
+      bits = 31*bits + Double.doubleToLongBits(toX);
+      bits = 31*bits + Double.doubleToLongBits(toY);
+      return (int) (bits ^ (bits >>> 32));
+    }
+
+    public boolean equals(Object obj) {
+      if (!(obj instanceof PathKey)) {
+        return false;
+      }
+      PathKey other = (PathKey) obj;
+      return Double.doubleToLongBits(fromX) == Double.doubleToLongBits(other.fromX)
+          && Double.doubleToLongBits(fromY) == Double.doubleToLongBits(other.fromY)
+          && Double.doubleToLongBits(toX) == Double.doubleToLongBits(other.toX)
+          && Double.doubleToLongBits(toY) == Double.doubleToLongBits(other.toY);
+    }
+  }
+
   public static abstract class TxPair {
     public abstract double getFromX();
     public abstract double getFromY();
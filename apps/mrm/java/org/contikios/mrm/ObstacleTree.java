@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.mrm;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Immutable bounding volume hierarchy over a set of rectangular obstacles.
+ *
+ * The tree is built once from a snapshot of the obstacles, and may then be
+ * queried concurrently. Queries report matching obstacles to a visitor, and
+ * do not allocate any intermediate collections.
+ *
+ * Queries are conservative: obstacles touching the query area are reported.
+ * Each obstacle keeps its registration index, the position it had in the
+ * collection the tree was built from, so that queries can report obstacles
+ * in registration order without sorting.
+ *
+ * @see ObstacleWorld
+ */
+final class ObstacleTree {
+  private static final int LEAF_SIZE = 4;
+
+  /* Angle tolerance (rad) for sector queries */
+  private static final double ANGLE_TOLERANCE = 1e-9;
+
+  /* Obstacles in leaf order, their registration indexes, and their bounds (minX, minY, maxX, maxY) */
+  private final Rectangle2D[] obstacles;
+  private final int[] registrationIndexes;
+  private final double[] obstacleBounds;
+
+  /* Nodes: bounds (minX, minY, maxX, maxY), children or obstacle range */
+  private final double[] nodeBounds;
+  private final int[] nodeLeft;
+  private final int[] nodeRight;
+  private final int[] nodeStart;
+  private final int[] nodeEnd;
+  private int nrNodes = 0;
+  private int depth = 0;
+
+  /**
+   * Builds a new tree over the given obstacles.
+   *
+   * @param allObstacles Obstacles
+   */
+  public ObstacleTree(Collection<Rectangle2D> allObstacles) {
+    final Rectangle2D[] registered = allObstacles.toArray(new Rectangle2D[allObstacles.size()]);
+    int maxNodes = Math.max(1, 2*registered.length);
+    nodeBounds = new double[4*maxNodes];
+    nodeLeft = new int[maxNodes];
+    nodeRight = new int[maxNodes];
+    nodeStart = new int[maxNodes];
+    nodeEnd = new int[maxNodes];
+
+    Integer[] order = new Integer[registered.length];
+    for (int i=0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Comparator<Integer> centerX = new Comparator<Integer>() {
+      public int compare(Integer i1, Integer i2) {
+        return Double.compare(registered[i1].getCenterX(), registered[i2].getCenterX());
+      }
+    };
+    Comparator<Integer> centerY = new Comparator<Integer>() {
+      public int compare(Integer i1, Integer i2) {
+        return Double.compare(registered[i1].getCenterY(), registered[i2].getCenterY());
+      }
+    };
+    build(registered, order, centerX, centerY, 0, registered.length, 1);
+
+    obstacles = new Rectangle2D[registered.length];
+    registrationIndexes = new int[registered.length];
+    obstacleBounds = new double[4*obstacles.length];
+    for (int i=0; i < obstacles.length; i++) {
+      registrationIndexes[i] = order[i];
+      obstacles[i] = registered[order[i]];
+      obstacleBounds[4*i] = obstacles[i].getMinX();
+      obstacleBounds[4*i+1] = obstacles[i].getMinY();
+      obstacleBounds[4*i+2] = obstacles[i].getMaxX();
+      obstacleBounds[4*i+3] = obstacles[i].getMaxY();
+    }
+  }
+
+  /**
+   * @return Number of obstacles in tree
+   */
+  public int getNrObstacles() {
+    return obstacles.length;
+  }
+
+  /**
+   * @return Number of nodes in tree
+   */
+  public int getNrNodes() {
+    return nrNodes;
+  }
+
+  /**
+   * @return Depth of tree
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  private int build(Rectangle2D[] registered, Integer[] order,
+      Comparator<Integer> centerX, Comparator<Integer> centerY, int start, int end, int level) {
+    int node = nrNodes++;
+    depth = Math.max(depth, level);
+
+    double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+    double minCX = Double.POSITIVE_INFINITY, minCY = Double.POSITIVE_INFINITY;
+    double maxCX = Double.NEGATIVE_INFINITY, maxCY = Double.NEGATIVE_INFINITY;
+    for (int i=start; i < end; i++) {
+      Rectangle2D r = registered[order[i]];
+      minX = Math.min(minX, r.getMinX());
+      minY = Math.min(minY, r.getMinY());
+      maxX = Math.max(maxX, r.getMaxX());
+      maxY = Math.max(maxY, r.getMaxY());
+      minCX = Math.min(minCX, r.getCenterX());
+      minCY = Math.min(minCY, r.getCenterY());
+      maxCX = Math.max(maxCX, r.getCenterX());
+      maxCY = Math.max(maxCY, r.getCenterY());
+    }
+    nodeBounds[4*node] = minX;
+    nodeBounds[4*node+1] = minY;
+    nodeBounds[4*node+2] = maxX;
+    nodeBounds[4*node+3] = maxY;
+    nodeStart[node] = start;
+    nodeEnd[node] = end;
+
+    if (end - start <= LEAF_SIZE) {
+      nodeLeft[node] = -1;
+      nodeRight[node] = -1;
+      return node;
+    }
+
+    /* Split at median center along the axis with the largest spread */
+    Arrays.sort(order, start, end, (maxCX - minCX >= maxCY - minCY)?centerX:centerY);
+    int mid = (start + end) >>> 1;
+    nodeLeft[node] = build(registered, order, centerX, centerY, start, mid, level + 1);
+    nodeRight[node] = build(registered, order, centerX, centerY, mid, end, level + 1);
+    return node;
+  }
+
+  /**
+   * Reports all obstacles intersecting the given area.
+   *
+   * @param minX Area min X
+   * @param minY Area min Y
+   * @param maxX Area max X
+   * @param maxY Area max Y
+   * @param visitor Visitor
+   * @return False if visitor aborted the query, true otherwise
+   */
+  public boolean visitInArea(double minX, double minY, double maxX, double maxY,
+      ObstacleWorld.ObstacleVisitor visitor) {
+    if (obstacles.length == 0) {
+      return true;
+    }
+    return visitInArea(0, minX, minY, maxX, maxY, visitor);
+  }
+
+  private boolean visitInArea(int node, double minX, double minY, double maxX, double maxY,
+      ObstacleWorld.ObstacleVisitor visitor) {
+    if (!boxIntersectsArea(nodeBounds, 4*node, minX, minY, maxX, maxY)) {
+      return true;
+    }
+    if (nodeLeft[node] >= 0) {
+      return visitInArea(nodeLeft[node], minX, minY, maxX, maxY, visitor) &&
+          visitInArea(nodeRight[node], minX, minY, maxX, maxY, visitor);
+    }
+    for (int i=nodeStart[node]; i < nodeEnd[node]; i++) {
+      if (boxIntersectsArea(obstacleBounds, 4*i, minX, minY, maxX, maxY) &&
+          !visitor.visitObstacle(obstacles[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reports all obstacles intersecting the given area, in registration order.
+   *
+   * Each reported obstacle costs one pass over the tree, so this is meant
+   * for small areas where only a few obstacles match.
+   *
+   * @param minX Area min X
+   * @param minY Area min Y
+   * @param maxX Area max X
+   * @param maxY Area max Y
+   * @param visitor Visitor
+   * @return False if visitor aborted the query, true otherwise
+   */
+  public boolean visitInAreaOrdered(double minX, double minY, double maxX, double maxY,
+      ObstacleWorld.ObstacleVisitor visitor) {
+    if (obstacles.length == 0) {
+      return true;
+    }
+    int last = -1;
+    while (true) {
+      int next = nextInArea(0, minX, minY, maxX, maxY, last, -1);
+      if (next < 0) {
+        return true;
+      }
+      if (!visitor.visitObstacle(obstacles[next])) {
+        return false;
+      }
+      last = registrationIndexes[next];
+    }
+  }
+
+  /* Returns position of matching obstacle with lowest registration index above after, or best */
+  private int nextInArea(int node, double minX, double minY, double maxX, double maxY,
+      int after, int best) {
+    if (!boxIntersectsArea(nodeBounds, 4*node, minX, minY, maxX, maxY)) {
+      return best;
+    }
+    if (nodeLeft[node] >= 0) {
+      best = nextInArea(nodeLeft[node], minX, minY, maxX, maxY, after, best);
+      return nextInArea(nodeRight[node], minX, minY, maxX, maxY, after, best);
+    }
+    for (int i=nodeStart[node]; i < nodeEnd[node]; i++) {
+      int index = registrationIndexes[i];
+      if (index > after && (best < 0 || index < registrationIndexes[best]) &&
+          boxIntersectsArea(obstacleBounds, 4*i, minX, minY, maxX, maxY)) {
+        best = i;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Reports all obstacles intersecting the given line segment.
+   *
+   * @param x1 Segment start X
+   * @param y1 Segment start Y
+   * @param x2 Segment end X
+   * @param y2 Segment end Y
+   * @param visitor Visitor
+   * @return False if visitor aborted the query, true otherwise
+   */
+  public boolean visitOnSegment(double x1, double y1, double x2, double y2,
+      ObstacleWorld.ObstacleVisitor visitor) {
+    if (obstacles.length == 0) {
+      return true;
+    }
+    return visitOnSegment(0, x1, y1, x2, y2, visitor);
+  }
+
+  private boolean visitOnSegment(int node, double x1, double y1, double x2, double y2,
+      ObstacleWorld.ObstacleVisitor visitor) {
+    if (!boxIntersectsSegment(nodeBounds, 4*node, x1, y1, x2, y2)) {
+      return true;
+    }
+    if (nodeLeft[node] >= 0) {
+      return visitOnSegment(nodeLeft[node], x1, y1, x2, y2, visitor) &&
+          visitOnSegment(nodeRight[node], x1, y1, x2, y2, visitor);
+    }
+    for (int i=nodeStart[node]; i < nodeEnd[node]; i++) {
+      if (boxIntersectsSegment(obstacleBounds, 4*i, x1, y1, x2, y2) &&
+          !visitor.visitObstacle(obstacles[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reports all obstacles inside the given angular sector, as seen from the
+   * given center point. Obstacles containing the center point are always
+   * reported. Obstacles are roughly reported in order of distance from the
+   * center point.
+   *
+   * @param centerX Center X
+   * @param centerY Center Y
+   * @param startAngle Sector start angle (rad), between 0 and 2*PI
+   * @param endAngle Sector end angle (rad), greater than start angle
+   * @param visitor Visitor
+   * @return False if visitor aborted the query, true otherwise
+   * @see AngleInterval#getStartAngle()
+   * @see AngleInterval#getEndAngle()
+   */
+  public boolean visitInSector(double centerX, double centerY, double startAngle, double endAngle,
+      ObstacleWorld.ObstacleVisitor visitor) {
+    if (obstacles.length == 0) {
+      return true;
+    }
+    if (endAngle - startAngle >= 2*Math.PI - ANGLE_TOLERANCE) {
+      return visitInArea(
+          Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+          Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+          visitor);
+    }
+    return visitInSector(0, centerX, centerY, startAngle, endAngle, visitor);
+  }
+
+  private boolean visitInSector(int node, double centerX, double centerY, double startAngle, double endAngle,
+      ObstacleWorld.ObstacleVisitor visitor) {
+    if (!boxIntersectsSector(nodeBounds, 4*node, centerX, centerY, startAngle, endAngle)) {
+      return true;
+    }
+    if (nodeLeft[node] >= 0) {
+      /* Visit closest child first */
+      int first = nodeLeft[node], second = nodeRight[node];
+      if (distanceSq(nodeBounds, 4*second, centerX, centerY) < distanceSq(nodeBounds, 4*first, centerX, centerY)) {
+        first = nodeRight[node];
+        second = nodeLeft[node];
+      }
+      return visitInSector(first, centerX, centerY, startAngle, endAngle, visitor) &&
+          visitInSector(second, centerX, centerY, startAngle, endAngle, visitor);
+    }
+    for (int i=nodeStart[node]; i < nodeEnd[node]; i++) {
+      if (boxIntersectsSector(obstacleBounds, 4*i, centerX, centerY, startAngle, endAngle) &&
+          !visitor.visitObstacle(obstacles[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean boxIntersectsArea(double[] b, int o,
+      double minX, double minY, double maxX, double maxY) {
+    return b[o] <= maxX && b[o+2] >= minX && b[o+1] <= maxY && b[o+3] >= minY;
+  }
+
+  private static boolean boxIntersectsSegment(double[] b, int o,
+      double x1, double y1, double x2, double y2) {
+    /* Liang-Barsky clipping of segment against box */
+    double t0 = 0, t1 = 1;
+    double dx = x2 - x1, dy = y2 - y1;
+
+    if (dx == 0) {
+      if (x1 < b[o] || x1 > b[o+2]) {
+        return false;
+      }
+    } else {
+      double ta = (b[o] - x1) / dx;
+      double tb = (b[o+2] - x1) / dx;
+      t0 = Math.max(t0, Math.min(ta, tb));
+      t1 = Math.min(t1, Math.max(ta, tb));
+      if (t0 > t1) {
+        return false;
+      }
+    }
+
+    if (dy == 0) {
+      if (y1 < b[o+1] || y1 > b[o+3]) {
+        return false;
+      }
+    } else {
+      double ta = (b[o+1] - y1) / dy;
+      double tb = (b[o+3] - y1) / dy;
+      t0 = Math.max(t0, Math.min(ta, tb));
+      t1 = Math.min(t1, Math.max(ta, tb));
+      if (t0 > t1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static double distanceSq(double[] b, int o, double x, double y) {
+    double dx = Math.max(0, Math.max(b[o] - x, x - b[o+2]));
+    double dy = Math.max(0, Math.max(b[o+1] - y, y - b[o+3]));
+    return dx*dx + dy*dy;
+  }
+
+  private static boolean boxIntersectsSector(double[] b, int o,
+      double centerX, double centerY, double startAngle, double endAngle) {
+    double minX = b[o] - centerX, minY = b[o+1] - centerY;
+    double maxX = b[o+2] - centerX, maxY = b[o+3] - centerY;
+    if (minX <= 0 && maxX >= 0 && minY <= 0 && maxY >= 0) {
+      /* Box contains center */
+      return true;
+    }
+
+    /* Angles of box corners relative to box center: box spans less than PI */
+    double ref = Math.atan2((minY + maxY)/2, (minX + maxX)/2);
+    double d1 = relativeAngle(Math.atan2(minY, minX), ref);
+    double d2 = relativeAngle(Math.atan2(minY, maxX), ref);
+    double d3 = relativeAngle(Math.atan2(maxY, minX), ref);
+    double d4 = relativeAngle(Math.atan2(maxY, maxX), ref);
+    double low = ref + Math.min(Math.min(d1, d2), Math.min(d3, d4));
+    double high = ref + Math.max(Math.max(d1, d2), Math.max(d3, d4));
+
+    while (low < 0) {
+      low += 2*Math.PI;
+      high += 2*Math.PI;
+    }
+    while (low >= 2*Math.PI) {
+      low -= 2*Math.PI;
+      high -= 2*Math.PI;
+    }
+
+    double start = startAngle - ANGLE_TOLERANCE;
+    double end = endAngle + ANGLE_TOLERANCE;
+    for (int k=-1; k <= 1; k++) {
+      if (low + k*2*Math.PI <= end && high + k*2*Math.PI >= start) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static double relativeAngle(double angle, double ref) {
+    double d = angle - ref;
+    if (d > Math.PI) {
+      d -= 2*Math.PI;
+    } else if (d < -Math.PI) {
+      d += 2*Math.PI;
+    }
+    return d;
+  }
+}
@@ -30,10 +30,8 @@
 
 package org.contikios.mrm;
 
-import java.awt.Point;
 import java.awt.geom.*;
 import java.util.Collection;
-import java.util.Enumeration;
 import java.util.Vector;
 import org.apache.log4j.Logger;
 import org.jdom.Element;
@@ -50,13 +48,22 @@ class ObstacleWorld {
   // All registered obstacles
   private Vector<Rectangle2D> allObstacles = null;
   
-  // All registered obstacles, with spatial information
-  private int spatialResolution = 10;
-  private Vector<Rectangle2D>[][] allObstaclesSpatial = new Vector[spatialResolution][spatialResolution];
-  private boolean obstaclesOrganized = false;
+  // All registered obstacles, with spatial information (null if not organized)
+  private volatile ObstacleTree obstacleTree = null;
   
   // Outer bounds of all obstacles
   private Rectangle2D outerBounds = null;
+
+  /**
+   * Visitor of obstacles found by spatial queries.
+   */
+  public interface ObstacleVisitor {
+    /**
+     * @param obstacle Found obstacle, should not be changed
+     * @return True to continue query, false to abort
+     */
+    public boolean visitObstacle(Rectangle2D obstacle);
+  }
   
   
   /**
@@ -66,10 +73,6 @@ class ObstacleWorld {
     // No obstacles present so far
     allObstacles = new Vector<Rectangle2D>();
     
-    for (int x=0; x < spatialResolution; x++)
-      for (int y=0; y < spatialResolution; y++) 
-        allObstaclesSpatial[x][y] = new Vector<Rectangle2D>();
-    
     outerBounds = new Rectangle2D.Double(0,0,0,0);
   }
   
@@ -112,59 +115,71 @@ class ObstacleWorld {
    * Returns at least all registered obstacles that contains given point.
    * Note that obstacles close to but not containing the point may also
    * be returned.
+   * The obstacles are returned in the order they were registered.
    * 
    * @param center Center point
    * @return All obstacles containing or near center
    */
   public Vector<Rectangle2D> getAllObstaclesNear(Point2D center) {
-    double boxWidth = outerBounds.getWidth() / (double) spatialResolution;
-    double boxHeight = outerBounds.getHeight() / (double) spatialResolution;
-    double areaStartX = outerBounds.getMinX();
-    double areaStartY = outerBounds.getMinY();
-    
-    double centerX = (center.getX() - areaStartX)/boxWidth;
-    double centerY = (center.getY() - areaStartY)/boxHeight;
-
-    Vector<Rectangle2D> allNearObstacles = new Vector<Rectangle2D>();
+    final Vector<Rectangle2D> allNearObstacles = new Vector<Rectangle2D>();
+    visitObstaclesNear(center, new ObstacleVisitor() {
+      public boolean visitObstacle(Rectangle2D obstacle) {
+        allNearObstacles.add(obstacle);
+        return true;
+      }
+    });
+    return allNearObstacles;
+  }
 
-    Point pointToAdd = new Point((int) centerX, (int) centerY);
-    if (pointToAdd.x >= 0 &&
-        pointToAdd.x < allObstaclesSpatial.length &&
-        pointToAdd.y >= 0 &&
-        pointToAdd.y < allObstaclesSpatial[0].length)
-      allNearObstacles.addAll(allObstaclesSpatial[pointToAdd.x][pointToAdd.y]);
+  /**
+   * Visits at least all registered obstacles that contains given point.
+   * Note that obstacles close to but not containing the point may also
+   * be visited.
+   * The obstacles are visited in the order they were registered.
+   *
+   * @param center Center point
+   * @param visitor Obstacle visitor
+   * @return False if visitor aborted, true otherwise
+   */
+  public boolean visitObstaclesNear(Point2D center, ObstacleVisitor visitor) {
+    return getObstacleTree().visitInAreaOrdered(
+        center.getX(), center.getY(), center.getX(), center.getY(),
+        visitor);
+  }
 
-    // Add borders if needed
-    boolean addedXBorder = false;
-    boolean addedYBorder = false;
-    if (Math.floor(centerX) == centerX) {
-      pointToAdd = new Point((int) centerX-1, (int) centerY);
-      if (pointToAdd.x >= 0 &&
-          pointToAdd.x < allObstaclesSpatial.length &&
-          pointToAdd.y >= 0 &&
-          pointToAdd.y < allObstaclesSpatial[0].length) {
-        allNearObstacles.addAll(allObstaclesSpatial[pointToAdd.x][pointToAdd.y]);
-        addedXBorder = true;
-      }
-    }
+  /**
+   * Visits all registered obstacles intersecting the given line segment.
+   * The obstacles are visited in no particular order.
+   *
+   * @param line Line segment
+   * @param visitor Obstacle visitor
+   * @return False if visitor aborted, true otherwise
+   */
+  public boolean visitObstaclesOnLine(Line2D line, ObstacleVisitor visitor) {
+    return getObstacleTree().visitOnSegment(
+        line.getX1(), line.getY1(), line.getX2(), line.getY2(), visitor);
+  }
 
-    if (Math.floor(centerY) == centerY) {
-      pointToAdd = new Point((int) centerX, (int) centerY-1);
-      if (pointToAdd.x >= 0 &&
-          pointToAdd.x < allObstaclesSpatial.length &&
-          pointToAdd.y >= 0 &&
-          pointToAdd.y < allObstaclesSpatial[0].length) {
-        allNearObstacles.addAll(allObstaclesSpatial[pointToAdd.x][pointToAdd.y]);
-        addedYBorder = true;
-      }
-    }
-    
-    if (addedXBorder && addedYBorder) {
-      pointToAdd = new Point((int) centerX-1, (int) centerY-1);
-      allNearObstacles.addAll(allObstaclesSpatial[pointToAdd.x][pointToAdd.y]);
+  /**
+   * Visits all registered obstacles inside the given angle interval when at
+   * the given center point, including obstacles containing the center point.
+   * Note that obstacles just outside the interval may also be visited.
+   * The obstacles are visited roughly in order of distance from the center point.
+   *
+   * @param center Center point
+   * @param angleInterval Angle interval
+   * @param visitor Obstacle visitor
+   * @return False if visitor aborted, true otherwise
+   */
+  public boolean visitObstaclesInAngleInterval(Point2D center, AngleInterval angleInterval,
+      ObstacleVisitor visitor) {
+    if (angleInterval.getSize() <= 0) {
+      return true;
     }
-      
-    return allNearObstacles;
+    return getObstacleTree().visitInSector(
+        center.getX(), center.getY(),
+        angleInterval.getStartAngle(), angleInterval.getEndAngle(),
+        visitor);
   }
 
   /**
@@ -179,141 +194,13 @@ class ObstacleWorld {
    * @return All obstacles in given angle interval
    */
   public Vector<Rectangle2D> getAllObstaclesInAngleInterval(Point2D center, AngleInterval angleInterval) {
-    Vector<Rectangle2D> obstaclesToReturn = new Vector<Rectangle2D>();
-    if (!obstaclesOrganized) {
-      reorganizeSpatialObstacles();
-    }
-    
-    double boxWidth = outerBounds.getWidth() / (double) spatialResolution;
-    double boxHeight = outerBounds.getHeight() / (double) spatialResolution;
-    double areaStartX = outerBounds.getMinX();
-    double areaStartY = outerBounds.getMinY();
-    
-    // Calculate which boxes to check (and in which order)
-    Point centerInArray = new Point(
-        (int) ((center.getX() - areaStartX)/boxWidth),
-        (int) ((center.getY() - areaStartY)/boxHeight)
-    );
-    Vector<Point> pointsToCheck = new Vector<Point>();
-    
-    int currentDistance = 0;
-    while (currentDistance < 2*spatialResolution) {
-      
-      if (currentDistance > 0) {
-        int currentX = centerInArray.x - currentDistance;
-        int currentY = centerInArray.y - currentDistance;
-        
-        // Step right
-        while (currentX < centerInArray.x + currentDistance) {
-          if (currentX >= 0 &&
-              currentX < allObstaclesSpatial.length &&
-              currentY >= 0 &&
-              currentY < allObstaclesSpatial[0].length)
-            pointsToCheck.add(new Point(currentX, currentY));
-          currentX++;
-        }
-        
-        // Step right
-        while (currentY < centerInArray.y + currentDistance) {
-          if (currentX >= 0 &&
-              currentX < allObstaclesSpatial.length &&
-              currentY >= 0 &&
-              currentY < allObstaclesSpatial[0].length)
-            pointsToCheck.add(new Point(currentX, currentY));
-          currentY++;
-        }
-        
-        // Step left
-        while (currentX > centerInArray.x - currentDistance) {
-          if (currentX >= 0 &&
-              currentX < allObstaclesSpatial.length &&
-              currentY >= 0 &&
-              currentY < allObstaclesSpatial[0].length)
-            pointsToCheck.add(new Point(currentX, currentY));
-          currentX--;
-        }
-        
-        // Step up
-        while (currentY > centerInArray.y - currentDistance) {
-          if (currentX >= 0 &&
-              currentX < allObstaclesSpatial.length &&
-              currentY >= 0 &&
-              currentY < allObstaclesSpatial[0].length)
-            pointsToCheck.add(new Point(currentX, currentY));
-          currentY--;
-        }
-            
-      } else {
-        if (centerInArray.x >= 0 &&
-            centerInArray.x < allObstaclesSpatial.length &&
-            centerInArray.y >= 0 &&
-            centerInArray.y < allObstaclesSpatial[0].length) {
-          pointsToCheck.add(new Point(centerInArray.x, centerInArray.y));
-        }
-      }
-      currentDistance++;  
-    }
-      
-    for (int pointNr=0; pointNr < pointsToCheck.size(); pointNr++) {
-      // Check which obstacles should be in this box
-      boolean hit = false;
-      int x = pointsToCheck.get(pointNr).x;
-      int y = pointsToCheck.get(pointNr).y;
-      
-      // Test if we are inside test box
-      if (!hit) {
-        if (new Rectangle2D.Double(
-            areaStartX + x*boxWidth, 
-            areaStartY + y*boxHeight, 
-            boxWidth, 
-            boxHeight).contains(center)) {
-          hit = true;
-          for (int i=0; i < allObstaclesSpatial[x][y].size(); i++) {
-            if (!obstaclesToReturn.contains(allObstaclesSpatial[x][y].get(i)))
-              obstaclesToReturn.add(allObstaclesSpatial[x][y].get(i));
-          }
-        }
-      }
-      
-      // Test first diagonal
-      if (!hit) {
-        AngleInterval testInterval = AngleInterval.getAngleIntervalOfLine(
-            center,
-            new Line2D.Double(
-                areaStartX + x*boxWidth, 
-                areaStartY + y*boxHeight, 
-                areaStartX + (x+1)*boxWidth, 
-                areaStartY + (y+1)*boxHeight)
-        );
-        if (testInterval.intersects(angleInterval)) {
-          hit = true;
-          for (int i=0; i < allObstaclesSpatial[x][y].size(); i++) {
-            if (!obstaclesToReturn.contains(allObstaclesSpatial[x][y].get(i)))
-              obstaclesToReturn.add(allObstaclesSpatial[x][y].get(i));
-          }
-        }
+    final Vector<Rectangle2D> obstaclesToReturn = new Vector<Rectangle2D>();
+    visitObstaclesInAngleInterval(center, angleInterval, new ObstacleVisitor() {
+      public boolean visitObstacle(Rectangle2D obstacle) {
+        obstaclesToReturn.add(obstacle);
+        return true;
       }
-        
-      // Test second diagonal
-      if (!hit) {
-        AngleInterval testInterval = AngleInterval.getAngleIntervalOfLine(
-            center,
-            new Line2D.Double(
-                areaStartX + x*boxWidth, 
-                areaStartY + (y+1)*boxHeight,
-                areaStartX + (x+1)*boxWidth, 
-                areaStartY + y*boxHeight)
-        );
-        if (testInterval.intersects(angleInterval)) {
-          hit = true;
-          for (int i=0; i < allObstaclesSpatial[x][y].size(); i++) {
-            if (!obstaclesToReturn.contains(allObstaclesSpatial[x][y].get(i)))
-              obstaclesToReturn.add(allObstaclesSpatial[x][y].get(i));
-          }
-        }
-      }
-    }
-        
+    });
     return obstaclesToReturn;
   }
   
@@ -322,11 +209,9 @@ class ObstacleWorld {
    */
   public void removeAll() {
     allObstacles.removeAllElements();
-    for (int x=0; x < spatialResolution; x++)
-      for (int y=0; y < spatialResolution; y++) 
-        allObstaclesSpatial[x][y].removeAllElements();
     
     outerBounds = new Rectangle2D.Double(0,0,0,0);
+    obstacleTree = null;
   }
   
   /**
@@ -341,59 +226,31 @@ class ObstacleWorld {
    * @return True of point is on a corner, false otherwise
    */
   public boolean pointIsNearCorner(Point2D point) {
-    double boxWidth = outerBounds.getWidth() / (double) spatialResolution;
-    double boxHeight = outerBounds.getHeight() / (double) spatialResolution;
-    double areaStartX = outerBounds.getMinX();
-    double areaStartY = outerBounds.getMinY();
-
-    // Which obstacles should be checked
-    Point centerInArray = new Point(
-        (int) ((point.getX() - areaStartX)/boxWidth),
-        (int) ((point.getY() - areaStartY)/boxHeight)
-    );
-    Vector<Rectangle2D> allObstaclesToCheck = null;
-    if (centerInArray.x < 0)
-      centerInArray.x = 0;
-    if (centerInArray.x >= spatialResolution)
-      centerInArray.x = spatialResolution-1;
-    if (centerInArray.y < 0)
-      centerInArray.y = 0;
-    if (centerInArray.y >= spatialResolution)
-      centerInArray.y = spatialResolution-1;
-    
-    allObstaclesToCheck = allObstaclesSpatial[centerInArray.x][centerInArray.y];
-
-    if (allObstaclesToCheck.size() == 0) {
-      return false;
-    } 
-    
     // Create the four point to check
-    double deltaDistance = 0.01; // 1 cm TODO Change this?
-    Point2D point1 = new Point2D.Double(point.getX() - deltaDistance, point.getY() - deltaDistance);
-    Point2D point2 = new Point2D.Double(point.getX() - deltaDistance, point.getY() + deltaDistance);
-    Point2D point3 = new Point2D.Double(point.getX() + deltaDistance, point.getY() - deltaDistance);
-    Point2D point4 = new Point2D.Double(point.getX() + deltaDistance, point.getY() + deltaDistance);
+    final double deltaDistance = 0.01; // 1 cm TODO Change this?
+    final double x = point.getX();
+    final double y = point.getY();
 
-    int containedPoints = 0;
-    Enumeration<Rectangle2D> allObstaclesToCheckEnum = allObstaclesToCheck.elements();
-    while (allObstaclesToCheckEnum.hasMoreElements()) {
-      Rectangle2D obstacleToCheck = allObstaclesToCheckEnum.nextElement();
-      if (obstacleToCheck.contains(point1))
-        containedPoints++;
-      if (obstacleToCheck.contains(point2))
-        containedPoints++;
-      if (obstacleToCheck.contains(point3))
-        containedPoints++;
-      if (obstacleToCheck.contains(point4))
-        containedPoints++;
+    final int[] containedPoints = new int[] { 0 };
+    getObstacleTree().visitInArea(
+        x - deltaDistance, y - deltaDistance, x + deltaDistance, y + deltaDistance,
+        new ObstacleVisitor() {
+          public boolean visitObstacle(Rectangle2D obstacleToCheck) {
+            if (obstacleToCheck.contains(x - deltaDistance, y - deltaDistance))
+              containedPoints[0]++;
+            if (obstacleToCheck.contains(x - deltaDistance, y + deltaDistance))
+              containedPoints[0]++;
+            if (obstacleToCheck.contains(x + deltaDistance, y - deltaDistance))
+              containedPoints[0]++;
+            if (obstacleToCheck.contains(x + deltaDistance, y + deltaDistance))
+              containedPoints[0]++;
 
-      // Abort if already to many contained points
-      if (containedPoints > 1) {
-        return false;
-      }
-    }
+            // Abort if already to many contained points
+            return containedPoints[0] <= 1;
+          }
+        });
     
-    return (containedPoints == 1);
+    return (containedPoints[0] == 1);
   }
   
   /**
@@ -433,7 +290,7 @@ class ObstacleWorld {
           removeObstacle(existingObstacle);
           addObstacle(unionObstacle, false);
           
-          obstaclesOrganized = false;
+          obstacleTree = null;
           return unionObstacle;
         }
       }
@@ -509,7 +366,7 @@ class ObstacleWorld {
         mergedObstacle = mergeObstacle(mergedObstacle);
     }
     
-    obstaclesOrganized = false;
+    obstacleTree = null;
   }
   
   /**
@@ -521,7 +378,7 @@ class ObstacleWorld {
     allObstacles.remove(obstacle);
     
     recreateOuterBounds();
-    obstaclesOrganized = false;
+    obstacleTree = null;
   }
   
   /**
@@ -536,7 +393,7 @@ class ObstacleWorld {
     for (int i=0; i < allObstacles.size(); i++) {
       outerBounds = outerBounds.createUnion(allObstacles.get(i));
     }
-    obstaclesOrganized = false;
+    obstacleTree = null;
   }
   
   /**
@@ -544,66 +401,41 @@ class ObstacleWorld {
    * searches for obstacles in spatial areas.
    * This method is run automatically 
    */
-  public void reorganizeSpatialObstacles() {
-    // Remove all spatial obstacles
-    for (int x=0; x < spatialResolution; x++)
-      for (int y=0; y < spatialResolution; y++) 
-        allObstaclesSpatial[x][y].removeAllElements();
-    
-    double boxWidth = outerBounds.getWidth() / (double) spatialResolution;
-    double boxHeight = outerBounds.getHeight() / (double) spatialResolution;
-    double currentBoxMinX = outerBounds.getMinX();
-    double currentBoxMinY = outerBounds.getMinY();
+  public synchronized void reorganizeSpatialObstacles() {
+    obstacleTree = new ObstacleTree(allObstacles);
     
-    // For each box, add obstacles that belong there
-    for (int x=0; x < spatialResolution; x++)
-      for (int y=0; y < spatialResolution; y++) {
-        // Check which obstacles should be in this box
-        Rectangle2D boxToCheck = new Rectangle2D.Double(currentBoxMinX + x*boxWidth, currentBoxMinY + y*boxHeight, boxWidth, boxHeight);
-        for (int i=0; i < allObstacles.size(); i++) {
-          if (allObstacles.get(i).intersects(boxToCheck)) {
-            allObstaclesSpatial[x][y].add(allObstacles.get(i));
-          }
+    //printObstacleGridToConsole();
+  }
+
+  /**
+   * @return Spatial organization of all registered obstacles
+   */
+  private ObstacleTree getObstacleTree() {
+    ObstacleTree tree = obstacleTree;
+    if (tree == null) {
+      synchronized (this) {
+        tree = obstacleTree;
+        if (tree == null) {
+          tree = new ObstacleTree(allObstacles);
+          obstacleTree = tree;
         }
       }
-    
-    obstaclesOrganized = true;
-    
-    //printObstacleGridToConsole();
+    }
+    return tree;
   }
   
   /**
    * Prints a description of all obstacles to the console
    */
   public void printObstacleGridToConsole() {
+    ObstacleTree tree = getObstacleTree();
     logger.info("<<<<<<< printObstacleGridToConsole >>>>>>>");
     logger.info(". Number of obstacles:\t" + getNrObstacles());
     logger.info(". Outer boundary min:\t" + getOuterBounds().getMinX() + ", " + getOuterBounds().getMinY());
     logger.info(". Outer boundary max:\t" + getOuterBounds().getMaxX() + ", " + getOuterBounds().getMaxY());
-    
-    Vector<Rectangle2D> uniqueSpatialObstacles = new Vector<Rectangle2D>();
-    for (int x=0; x < spatialResolution; x++)
-      for (int y=0; y < spatialResolution; y++) 
-        for (int i=0; i < allObstaclesSpatial[x][y].size(); i++) 
-          if (!uniqueSpatialObstacles.contains(allObstaclesSpatial[x][y].get(i)))
-            uniqueSpatialObstacles.add(allObstaclesSpatial[x][y].get(i));
-    logger.info(". Unique spatial obstacles:\t" + uniqueSpatialObstacles.size());
-    
-    int allSpatialObstacles = 0;
-    for (int x=0; x < spatialResolution; x++)
-      for (int y=0; y < spatialResolution; y++) 
-        for (int i=0; i < allObstaclesSpatial[x][y].size(); i++) 
-          allSpatialObstacles++;
-    logger.debug(". All spatial obstacles:\t" + allSpatialObstacles);
-    
-    logger.info(". Spatial map counts:");
-    for (int y=0; y < spatialResolution; y++) {
-      for (int x=0; x < spatialResolution; x++) {
-        System.out.print(allObstaclesSpatial[x][y].size() + " ");
-      }
-      System.out.println("");
-    }
-    
+    logger.info(". Spatial obstacles:\t" + tree.getNrObstacles());
+    logger.info(". Spatial tree nodes:\t" + tree.getNrNodes());
+    logger.info(". Spatial tree depth:\t" + tree.getDepth());
   }
   
   /**
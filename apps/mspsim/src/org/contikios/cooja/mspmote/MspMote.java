@@ -75,7 +75,6 @@ import se.sics.mspsim.util.ConfigManager;
 import se.sics.mspsim.util.DebugInfo;
 import se.sics.mspsim.util.ELF;
 import se.sics.mspsim.util.MapEntry;
-import se.sics.mspsim.util.MapTable;
 import se.sics.mspsim.profiler.SimpleProfiler;
 
 import org.contikios.cooja.mspmote.interfaces.MspClock;
@@ -240,9 +239,7 @@ public abstract class MspMote extends AbstractEmulatedMote implements Mote, Watc
     /*myCpu.setThrowIfWarning(true);*/
 
     /* Create mote address memory */
-    MapTable map = ((MspMoteType)getType()).getELF().getMap();
-    MapEntry[] allEntries = map.getAllEntries();
-    myMemory = new MspMoteMemory(this, allEntries, myCpu);
+    myMemory = new MspMoteMemory(this, ((MspMoteType)getType()).getSymbolMap(), myCpu);
 
     myCpu.reset();
   }
@@ -30,8 +30,8 @@
 package org.contikios.cooja.mspmote;
 
 import java.nio.ByteOrder;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -41,6 +41,7 @@ import org.contikios.cooja.Mote;
 import org.contikios.cooja.mote.memory.MemoryInterface;
 import org.contikios.cooja.mote.memory.MemoryInterface.SegmentMonitor.EventType;
 import org.contikios.cooja.mote.memory.MemoryLayout;
+import org.contikios.cooja.mote.memory.SegmentMonitorTable;
 import se.sics.mspsim.core.MSP430;
 import se.sics.mspsim.core.Memory.AccessMode;
 import se.sics.mspsim.core.Memory.AccessType;
@@ -48,24 +49,47 @@ import se.sics.mspsim.util.MapEntry;
 
 public class MspMoteMemory implements MemoryInterface {
   private static Logger logger = Logger.getLogger(MspMoteMemory.class);
-  private final ArrayList<MapEntry> mapEntries;
+  private final Map<String, Symbol> symbols;
   private final MemoryLayout memLayout;
 
   private final MSP430 cpu;
 
   public MspMoteMemory(Mote mote, MapEntry[] allEntries, MSP430 cpu) {
-    this.mapEntries = new ArrayList<MapEntry>();
-
-    for (MapEntry entry: allEntries) {
-      if (entry.getType() == MapEntry.TYPE.variable) {
-        mapEntries.add(entry);
-      }
-    }
+    this(mote, createSymbolMap(allEntries), cpu);
+  }
 
+  /**
+   * @param mote Mote
+   * @param symbols Variables, typically shared by all motes of a mote type
+   * @param cpu CPU
+   */
+  public MspMoteMemory(Mote mote, Map<String, Symbol> symbols, MSP430 cpu) {
+    this.symbols = symbols;
     this.cpu = cpu;
     memLayout = new MemoryLayout(ByteOrder.LITTLE_ENDIAN, MemoryLayout.ARCH_16BIT, 2);
   }
 
+  /**
+   * Creates an immutable map of all variables in given map entries.
+   *
+   * @param allEntries ELF map entries
+   * @return Variables
+   */
+  public static Map<String, Symbol> createSymbolMap(MapEntry[] allEntries) {
+    Map<String, Symbol> vars = new HashMap<>();
+    for (MapEntry entry : allEntries) {
+      if (entry.getType() != MapEntry.TYPE.variable) {
+        continue;
+      }
+      vars.put(entry.getName(), new Symbol(
+              Symbol.Type.VARIABLE,
+              entry.getName(),
+              entry.getAddress(),
+              entry.getSize()));
+    }
+    return Collections.unmodifiableMap(vars);
+  }
+
   @Override
   public int getTotalSize() {
     return cpu.memory.length;
@@ -78,28 +102,22 @@ public class MspMoteMemory implements MemoryInterface {
 
   @Override
   public byte[] getMemorySegment(long address, int size) {
-    int[] memInts = new int[size];
-
-    System.arraycopy(cpu.memory, (int) address, memInts, 0, size);
-
-    /* Convert to byte array */
+    int[] memory = cpu.memory;
+    int start = (int) address;
     byte[] memBytes = new byte[size];
     for (int i = 0; i < size; i++) {
-      memBytes[i] = (byte) memInts[i];
+      memBytes[i] = (byte) memory[start + i];
     }
-
     return memBytes;
   }
 
   @Override
   public void setMemorySegment(long address, byte[] data) {
-    /* Convert to int array */
-    int[] memInts = new int[data.length];
+    int[] memory = cpu.memory;
+    int start = (int) address;
     for (int i = 0; i < data.length; i++) {
-      memInts[i] = data[i];
+      memory[start + i] = data[i] & 0xff;
     }
-
-    System.arraycopy(memInts, 0, cpu.memory, (int) address, data.length);
   }
 
   @Override
@@ -114,18 +132,7 @@ public class MspMoteMemory implements MemoryInterface {
 
   @Override
   public Map<String, Symbol> getSymbolMap() {
-    Map<String, Symbol> vars = new HashMap<>();
-    for (MapEntry entry : mapEntries) {
-      if (entry.getType() != MapEntry.TYPE.variable) {
-        continue;
-      }
-      vars.put(entry.getName(), new Symbol(
-              Symbol.Type.VARIABLE,
-              entry.getName(), 
-              entry.getAddress(), 
-              entry.getSize()));
-    }
-    return vars;
+    return symbols;
   }
 
   @Override
@@ -133,55 +140,47 @@ public class MspMoteMemory implements MemoryInterface {
     return memLayout;
   }
 
-  private final ArrayList<MemoryCPUMonitor> cpuMonitorArray = new ArrayList<>();
-
-  class MemoryCPUMonitor extends se.sics.mspsim.core.MemoryMonitor.Adapter {
-
-    public final SegmentMonitor mm;
-    public final int address;
-    public final int size;
-
-    public MemoryCPUMonitor(SegmentMonitor mm, int address, int size) {
-      this.mm = mm;
-      this.address = address;
-      this.size = size;
-    }
+  private final SegmentMonitorTable monitors = new SegmentMonitorTable();
 
+  /**
+   * Watches all monitored addresses, and dispatches each access once to the
+   * segment monitors of the accessed address.
+   */
+  private final se.sics.mspsim.core.MemoryMonitor cpuMonitor = new se.sics.mspsim.core.MemoryMonitor.Adapter() {
     @Override
     public void notifyReadAfter(int address, AccessMode mode, AccessType type) {
-      mm.memoryChanged(MspMoteMemory.this, EventType.READ, address);
+      monitors.notify(MspMoteMemory.this, EventType.READ, address, 1);
     }
 
     @Override
     public void notifyWriteAfter(int dstAddress, int data, AccessMode mode) {
-      mm.memoryChanged(MspMoteMemory.this, EventType.WRITE, dstAddress);
+      monitors.notify(MspMoteMemory.this, EventType.WRITE, dstAddress, 1);
     }
-  }
+  };
 
   @Override
   public boolean addSegmentMonitor(EventType type, long address, int size, SegmentMonitor mm) {
-    MemoryCPUMonitor t = new MemoryCPUMonitor(mm, (int) address, size);
-    cpuMonitorArray.add(t);
-
+    /* Watch addresses not already watched for another segment */
     for (int a = (int) address; a < address + size; a++) {
-      cpu.addWatchPoint(a, t);
+      if (!monitors.isMonitored(a)) {
+        cpu.addWatchPoint(a, cpuMonitor);
+      }
     }
-
+    monitors.add(type, address, size, mm);
     return true;
   }
 
   @Override
   public boolean removeSegmentMonitor(long address, int size, SegmentMonitor mm) {
-    for (MemoryCPUMonitor mcm : cpuMonitorArray) {
-      if (mcm.mm != mm || mcm.address != address || mcm.size != size) {
-        continue;
-      }
-      for (int a = (int) address; a < (int) address + size; a++) {
-        cpu.removeWatchPoint(a, mcm);
+    if (!monitors.remove(address, size, mm)) {
+      return false;
+    }
+    /* Stop watching addresses no longer in any segment */
+    for (int a = (int) address; a < (int) address + size; a++) {
+      if (!monitors.isMonitored(a)) {
+        cpu.removeWatchPoint(a, cpuMonitor);
       }
-      cpuMonitorArray.remove(mcm);
-      return true;
     }
-    return false;
+    return true;
   }
 }
@@ -34,6 +34,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Hashtable;
+import java.util.Map;
 
 import javax.swing.Icon;
 import javax.swing.JComponent;
@@ -50,6 +51,7 @@ import org.contikios.cooja.MoteType;
 import org.contikios.cooja.ProjectConfig;
 import org.contikios.cooja.Simulation;
 import org.contikios.cooja.interfaces.IPAddress;
+import org.contikios.cooja.mote.memory.MemoryInterface.Symbol;
 import org.contikios.cooja.mspmote.interfaces.Msp802154Radio;
 import org.contikios.cooja.mspmote.interfaces.MspSerial;
 import se.sics.mspsim.util.DebugInfo;
@@ -343,6 +345,21 @@ public abstract class MspMoteType implements MoteType {
     return elf;
   }
 
+  private Map<String, Symbol> symbols = null; /* cached */
+  /**
+   * Returns all firmware variables. The returned map is immutable and shared
+   * by all motes of this type.
+   *
+   * @return Variables
+   * @throws IOException If the firmware could not be loaded
+   */
+  public Map<String, Symbol> getSymbolMap() throws IOException {
+    if (symbols == null) {
+      symbols = MspMoteMemory.createSymbolMap(getELF().getMap().getAllEntries());
+    }
+    return symbols;
+  }
+
   private Hashtable<File, Hashtable<Integer, Integer>> debuggingInfo = null; /* cached */
   public Hashtable<File, Hashtable<Integer, Integer>> getFirmwareDebugInfo()
   throws IOException {
@@ -83,8 +83,11 @@ public class Msp802154Radio extends Radio implements CustomDataRadio {
   private RadioPacket lastOutgoingPacket = null;
   private RadioPacket lastIncomingPacket = null;
 
+  private final ByteDelivery incomingBytes;
+
   public Msp802154Radio(Mote m) {
     this.mote = (MspMote)m;
+    this.incomingBytes = new ByteDelivery();
     this.radio = this.mote.getCPU().getChip(Radio802154.class);
     if (radio == null) {
       throw new IllegalStateException("Mote is not equipped with an IEEE 802.15.4 radio");
@@ -224,14 +227,7 @@ public class Msp802154Radio extends Radio implements CustomDataRadio {
         b = (byte) 0xFF;
       }
 
-      final byte byteToDeliver = b;
-      getMote().getSimulation().scheduleEvent(new MspMoteTimeEvent(mote, 0) {
-        public void execute(long t) {
-          super.execute(t);
-          radio.receivedByte(byteToDeliver);
-          mote.requestImmediateWakeup();
-        }
-      }, deliveryTime);
+      incomingBytes.add(b, deliveryTime);
       deliveryTime += DELAY_BETWEEN_BYTES;
     }
   }
@@ -258,14 +254,72 @@ public class Msp802154Radio extends Radio implements CustomDataRadio {
     } else {
       inputByte = lastIncomingByte;
     }
-    mote.getSimulation().scheduleEvent(new MspMoteTimeEvent(mote, 0) {
-      public void execute(long t) {
-        super.execute(t);
-        radio.receivedByte(inputByte);
-        mote.requestImmediateWakeup();
+    incomingBytes.add(inputByte, mote.getSimulation().getSimulationTime());
+  }
+
+  /**
+   * Delivers incoming bytes to the radio chip at their delivery times.
+   * Bytes are kept in a ring buffer ordered by delivery time, and are delivered
+   * by a single reusable event instead of one new event per byte.
+   */
+  private class ByteDelivery extends MspMoteTimeEvent {
+    private byte[] bytes = new byte[128];
+    private long[] times = new long[128];
+    private int first = 0;
+    private int count = 0;
+
+    public ByteDelivery() {
+      super(mote, 0);
+    }
+
+    public void add(byte data, long deliveryTime) {
+      if (count == bytes.length) {
+        byte[] newBytes = new byte[bytes.length * 2];
+        long[] newTimes = new long[times.length * 2];
+        for (int i=0; i < count; i++) {
+          newBytes[i] = bytes[(first + i) % bytes.length];
+          newTimes[i] = times[(first + i) % times.length];
+        }
+        bytes = newBytes;
+        times = newTimes;
+        first = 0;
+      }
+
+      /* Keep delivery order: bytes with equal delivery times are delivered in
+       * the order they were added */
+      int pos = count;
+      while (pos > 0 && times[(first + pos - 1) % times.length] > deliveryTime) {
+        bytes[(first + pos) % bytes.length] = bytes[(first + pos - 1) % bytes.length];
+        times[(first + pos) % times.length] = times[(first + pos - 1) % times.length];
+        pos--;
+      }
+      bytes[(first + pos) % bytes.length] = data;
+      times[(first + pos) % times.length] = deliveryTime;
+      count++;
+
+      if (pos == 0) {
+        /* New first byte: (re)schedule delivery */
+        if (isScheduled()) {
+          remove();
+        }
+        mote.getSimulation().scheduleEvent(this, deliveryTime);
       }
-    }, mote.getSimulation().getSimulationTime());
+    }
+
+    public void execute(long t) {
+      super.execute(t);
+      while (count > 0 && times[first] <= t) {
+        byte data = bytes[first];
+        first = (first + 1) % bytes.length;
+        count--;
+        radio.receivedByte(data);
+      }
+      mote.requestImmediateWakeup();
 
+      if (count > 0 && !isScheduled()) {
+        mote.getSimulation().scheduleEvent(this, times[first]);
+      }
+    }
   }
 
   /* General radio support */
@@ -297,7 +297,7 @@ public class PowerTracker extends VisPlugin {
     return sb.toString();
   }
 
-  public static class MoteTracker implements Observer {
+  public static class MoteTracker implements Observer, Radio.RadioEventListener {
     /* last radio state */
     private boolean radioWasOn;
     private RadioState lastRadioState;
@@ -331,9 +331,12 @@ public class PowerTracker extends VisPlugin {
       }
       lastUpdateTime = simulation.getSimulationTime();
 
-      radio.addObserver(this);
+      radio.addRadioEventListener(this);
     }
 
+    public void radioEventOccurred(Radio radio, Radio.RadioEvent event) {
+      update();
+    }
     public void update(Observable o, Object arg) {
       update();
     }
@@ -409,7 +412,7 @@ public class PowerTracker extends VisPlugin {
     }
 
     public void dispose() {
-      radio.deleteObserver(this);
+      radio.removeRadioEventListener(this);
       radio = null;
       mote = null;
     }
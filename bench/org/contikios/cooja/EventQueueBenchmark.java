@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja;
+
+import java.util.Random;
+
+/**
+ * Standalone benchmark of the simulation event queue.
+ *
+ * Compares EventQueue with the sorted linked list it replaced, at 100, 1k
+ * and 10k pending events. Each step pops the first event and schedules it
+ * again, and reschedules one other queued event, as a mote wakeup does.
+ *
+ * Run with: ant bench -Dbenchmark=org.contikios.cooja.EventQueueBenchmark
+ */
+public class EventQueueBenchmark {
+  private static final int[] SIZES = { 100, 1000, 10000 };
+  private static final int STEPS = 50000;
+  private static final int ROUNDS = 5;
+  private static final long MAX_DELAY = 1000000;
+
+  private static class BenchmarkEvent extends TimeEvent {
+    /* Baseline list link */
+    BenchmarkEvent next;
+    long listTime;
+    boolean listed;
+
+    public BenchmarkEvent() {
+      super(0);
+    }
+    public void execute(long t) {
+    }
+  }
+
+  /**
+   * The previous EventQueue implementation: a sorted singly linked list.
+   */
+  private static class ListQueue {
+    private BenchmarkEvent first;
+
+    void addEvent(BenchmarkEvent event, long time) {
+      if (event.listed) {
+        removeFromQueue(event);
+      }
+      event.listTime = time;
+      if (first == null) {
+        first = event;
+      } else {
+        BenchmarkEvent pos = first;
+        BenchmarkEvent lastPos = first;
+        while (pos != null && pos.listTime <= time) {
+          lastPos = pos;
+          pos = pos.next;
+        }
+        if (pos == first) {
+          event.next = pos;
+          first = event;
+        } else {
+          event.next = pos;
+          lastPos.next = event;
+        }
+      }
+      event.listed = true;
+    }
+
+    private void removeFromQueue(BenchmarkEvent event) {
+      BenchmarkEvent pos = first;
+      BenchmarkEvent lastPos = first;
+      while (pos != null && pos != event) {
+        lastPos = pos;
+        pos = pos.next;
+      }
+      if (pos == null) {
+        return;
+      }
+      if (pos == first) {
+        first = pos.next;
+      } else {
+        lastPos.next = pos.next;
+      }
+      pos.next = null;
+      event.listed = false;
+    }
+
+    BenchmarkEvent popFirst() {
+      BenchmarkEvent tmp = first;
+      if (tmp != null) {
+        first = tmp.next;
+        tmp.next = null;
+        tmp.listed = false;
+      }
+      return tmp;
+    }
+  }
+
+  private static long runList(int size, long seed) {
+    Random random = new Random(seed);
+    ListQueue queue = new ListQueue();
+    BenchmarkEvent[] events = new BenchmarkEvent[size];
+    for (int i = 0; i < size; i++) {
+      events[i] = new BenchmarkEvent();
+      queue.addEvent(events[i], random.nextInt((int) MAX_DELAY));
+    }
+    long checksum = 0;
+    for (int i = 0; i < STEPS; i++) {
+      BenchmarkEvent event = queue.popFirst();
+      long now = event.listTime;
+      checksum += now;
+      queue.addEvent(event, now + 1 + random.nextInt((int) MAX_DELAY));
+
+      /* Reschedule another event */
+      BenchmarkEvent other = events[random.nextInt(size)];
+      queue.addEvent(other, now + 1 + random.nextInt((int) MAX_DELAY));
+    }
+    return checksum;
+  }
+
+  private static long runHeap(int size, long seed) {
+    Random random = new Random(seed);
+    EventQueue queue = new EventQueue();
+    BenchmarkEvent[] events = new BenchmarkEvent[size];
+    for (int i = 0; i < size; i++) {
+      events[i] = new BenchmarkEvent();
+      queue.addEvent(events[i], random.nextInt((int) MAX_DELAY));
+    }
+    long checksum = 0;
+    for (int i = 0; i < STEPS; i++) {
+      TimeEvent event = queue.popFirst();
+      long now = event.getTime();
+      checksum += now;
+      queue.addEvent(event, now + 1 + random.nextInt((int) MAX_DELAY));
+
+      /* Reschedule another event */
+      BenchmarkEvent other = events[random.nextInt(size)];
+      other.remove();
+      queue.addEvent(other, now + 1 + random.nextInt((int) MAX_DELAY));
+    }
+    return checksum;
+  }
+
+  public static void main(String[] args) {
+    System.out.println("pending events, ns per step: linked list vs heap");
+    for (int size: SIZES) {
+      long bestList = Long.MAX_VALUE;
+      long bestHeap = Long.MAX_VALUE;
+      for (int round = 0; round < ROUNDS; round++) {
+        long t0 = System.nanoTime();
+        long listChecksum = runList(size, round);
+        long t1 = System.nanoTime();
+        long heapChecksum = runHeap(size, round);
+        long t2 = System.nanoTime();
+        if (listChecksum != heapChecksum) {
+          throw new IllegalStateException("Queues executed events in different order");
+        }
+        bestList = Math.min(bestList, t1 - t0);
+        bestHeap = Math.min(bestHeap, t2 - t1);
+      }
+      System.out.println(String.format("%6d: %8.1f ns vs %6.1f ns (%.1fx)",
+          size, (double) bestList / STEPS, (double) bestHeap / STEPS,
+          (double) bestList / bestHeap));
+    }
+  }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.contikimote;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+
+import org.contikios.cooja.Cooja;
+import org.contikios.cooja.CoreComm;
+import org.contikios.cooja.mote.memory.ArrayMemory;
+import org.contikios.cooja.mote.memory.MemoryInterface;
+import org.contikios.cooja.mote.memory.MemoryInterface.Symbol;
+import org.contikios.cooja.mote.memory.MemoryLayout;
+import org.contikios.cooja.mote.memory.SectionMoteMemory;
+
+/**
+ * Standalone benchmark of the memory swap around Contiki mote ticks.
+ *
+ * Compares the full and the paged memory swap of ContikiMoteType, for
+ * motes sharing one Contiki system. The Contiki system is simulated by a
+ * Java array. Each tick, a mote interface writes a few bytes, and the
+ * Contiki system modifies a few bytes of its own and of the mote's state.
+ *
+ * Motes are either ticked in turn, or in bursts of consecutive ticks, as
+ * when a mote with pending Contiki processes wakes up immediately again.
+ *
+ * Also compares copying all memory from a private Contiki system after each
+ * tick with fetching memory pages when accessed, as MoteCore does. After
+ * each tick, mote interfaces read two variables.
+ *
+ * Run with: ant bench -Dbenchmark=org.contikios.cooja.contikimote.MemorySwapBenchmark
+ */
+public class MemorySwapBenchmark {
+  private static final int MOTES = 20;
+  private static final int DATA_SIZE = 2048;
+  private static final int BSS_SIZE = 30720;
+  private static final int TICKS = 100000;
+  private static final int ROUNDS = 5;
+  private static final int[] BURSTS = { 1, 4 };
+  private static final long OFFSET = 0x10000;
+
+  /**
+   * Contiki system simulated by an array, at relative address 0.
+   */
+  private static class ArrayCoreComm extends CoreComm {
+    private final byte[] memory = new byte[DATA_SIZE + BSS_SIZE];
+    private int ticks = 0;
+
+    public void tick() {
+      /* Timer state, and the state of the ticked mote's process */
+      ticks++;
+      memory[16] = (byte) ticks;
+      int moteState = DATA_SIZE + 1024 + (memory[DATA_SIZE] & 0xff) * 64;
+      for (int i = 0; i < 32; i++) {
+        memory[moteState + i] += ticks;
+      }
+    }
+    protected void init() {
+    }
+    public void setReferenceAddress(int addr) {
+    }
+    public void getMemory(int relAddr, int length, byte[] mem) {
+      System.arraycopy(memory, relAddr, mem, 0, length);
+    }
+    public void setMemory(int relAddr, int length, byte[] mem) {
+      System.arraycopy(mem, 0, memory, relAddr, length);
+    }
+  }
+
+  private static ContikiMoteType createMoteType(boolean paged) throws Exception {
+    ContikiMoteType moteType = new ContikiMoteType();
+    moteType.offset = OFFSET;
+    Field coreComm = ContikiMoteType.class.getDeclaredField("myCoreComm");
+    coreComm.setAccessible(true);
+    coreComm.set(moteType, new ArrayCoreComm());
+    Field pagedSwap = ContikiMoteType.class.getDeclaredField("pagedMemorySwap");
+    pagedSwap.setAccessible(true);
+    pagedSwap.setBoolean(moteType, paged);
+    return moteType;
+  }
+
+  private static SectionMoteMemory[] createMemories() {
+    MemoryLayout layout = MemoryLayout.getNative();
+    SectionMoteMemory[] memories = new SectionMoteMemory[MOTES];
+    for (int m = 0; m < MOTES; m++) {
+      SectionMoteMemory mem = new SectionMoteMemory(new HashMap<String, Symbol>());
+      mem.addMemorySection("data", new ArrayMemory(OFFSET, DATA_SIZE, layout,
+          new HashMap<String, Symbol>()));
+      ArrayMemory bss = new ArrayMemory(OFFSET + DATA_SIZE, BSS_SIZE, layout,
+          new HashMap<String, Symbol>());
+      /* Mote ID, selecting the state modified by the Contiki system */
+      bss.setMemorySegment(OFFSET + DATA_SIZE, new byte[] { (byte) m });
+      mem.addMemorySection("bss", bss);
+      memories[m] = mem;
+    }
+    return memories;
+  }
+
+  private static long run(ContikiMoteType moteType, SectionMoteMemory[] memories, int burst) {
+    byte[] interfaceData = new byte[8];
+    for (int t = 0; t < TICKS; t++) {
+      SectionMoteMemory mem = memories[(t / burst) % MOTES];
+      interfaceData[0] = (byte) t;
+      mem.setMemorySegment(OFFSET + DATA_SIZE + 256, interfaceData);
+      moteType.setCoreMemory(mem);
+      moteType.tick();
+      moteType.getCoreMemory(mem);
+    }
+    return checksum(memories);
+  }
+
+  private static long runPrivate(ContikiMoteType moteType, SectionMoteMemory[] memories,
+      boolean lazy) throws Exception {
+    Constructor<ContikiMoteType.MoteCore> constr = ContikiMoteType.MoteCore.class.getDeclaredConstructor(
+        ContikiMoteType.class, CoreComm.class, long.class, File.class);
+    constr.setAccessible(true);
+    ArrayCoreComm[] coreComms = new ArrayCoreComm[MOTES];
+    ContikiMoteType.MoteCore[] cores = new ContikiMoteType.MoteCore[MOTES];
+    for (int m = 0; m < MOTES; m++) {
+      coreComms[m] = new ArrayCoreComm();
+      cores[m] = constr.newInstance(moteType, coreComms[m], OFFSET, null);
+      /* Copy all of the initial memory */
+      for (MemoryInterface section : memories[m].getSections().values()) {
+        section.getMemory();
+      }
+    }
+
+    byte[] interfaceData = new byte[8];
+    long checksum = 0;
+    for (int t = 0; t < TICKS; t++) {
+      SectionMoteMemory mem = memories[t % MOTES];
+      ContikiMoteType.MoteCore core = cores[t % MOTES];
+      interfaceData[0] = (byte) t;
+      mem.setMemorySegment(OFFSET + DATA_SIZE + 256, interfaceData);
+      core.setMemory(mem);
+      core.tick();
+      if (lazy) {
+        core.getMemory(mem);
+      } else {
+        /* Copy all memory, as before */
+        for (MemoryInterface section : mem.getSections().values()) {
+          coreComms[t % MOTES].getMemory((int) (section.getStartAddr() - OFFSET),
+              section.getTotalSize(), section.getMemory());
+          ((ArrayMemory) section).clearDirtyPages();
+        }
+      }
+      checksum += mem.getMemorySegment(OFFSET + 16, 4)[0];
+      checksum += mem.getMemorySegment(OFFSET + DATA_SIZE + 8192, 16)[0];
+    }
+    return checksum + checksum(memories);
+  }
+
+  private static long checksum(SectionMoteMemory[] memories) {
+    long checksum = 0;
+    for (SectionMoteMemory mem : memories) {
+      for (MemoryInterface section : mem.getSections().values()) {
+        byte[] data = section.getMemory();
+        for (int i = 0; i < data.length; i++) {
+          checksum = checksum * 31 + data[i];
+        }
+      }
+    }
+    return checksum;
+  }
+
+  public static void main(String[] args) throws Exception {
+    Cooja.loadExternalToolsDefaultSettings();
+    System.out.println(MOTES + " motes, " + (DATA_SIZE + BSS_SIZE)
+        + " bytes each, ns per tick: full vs paged swap");
+    for (int burst : BURSTS) {
+      long bestFull = Long.MAX_VALUE;
+      long bestPaged = Long.MAX_VALUE;
+      for (int round = 0; round < ROUNDS; round++) {
+        ContikiMoteType full = createMoteType(false);
+        ContikiMoteType paged = createMoteType(true);
+        SectionMoteMemory[] fullMemories = createMemories();
+        SectionMoteMemory[] pagedMemories = createMemories();
+        long t0 = System.nanoTime();
+        long fullChecksum = run(full, fullMemories, burst);
+        long t1 = System.nanoTime();
+        long pagedChecksum = run(paged, pagedMemories, burst);
+        long t2 = System.nanoTime();
+        if (fullChecksum != pagedChecksum) {
+          throw new IllegalStateException("Paged swap lost memory state");
+        }
+        bestFull = Math.min(bestFull, t1 - t0);
+        bestPaged = Math.min(bestPaged, t2 - t1);
+      }
+      System.out.println(String.format("%d tick bursts: %6.1f ns vs %6.1f ns (%.1fx)",
+          burst, (double) bestFull / TICKS, (double) bestPaged / TICKS,
+          (double) bestFull / bestPaged));
+    }
+
+    System.out.println("private Contiki systems, ns per tick: full vs lazy fetch");
+    long bestFull = Long.MAX_VALUE;
+    long bestLazy = Long.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      ContikiMoteType moteType = createMoteType(true);
+      SectionMoteMemory[] fullMemories = createMemories();
+      SectionMoteMemory[] lazyMemories = createMemories();
+      long t0 = System.nanoTime();
+      long fullChecksum = runPrivate(moteType, fullMemories, false);
+      long t1 = System.nanoTime();
+      long lazyChecksum = runPrivate(moteType, lazyMemories, true);
+      long t2 = System.nanoTime();
+      if (fullChecksum != lazyChecksum) {
+        throw new IllegalStateException("Lazy fetch lost memory state");
+      }
+      bestFull = Math.min(bestFull, t1 - t0);
+      bestLazy = Math.min(bestLazy, t2 - t1);
+    }
+    System.out.println(String.format("%6.1f ns vs %6.1f ns (%.1fx)",
+        (double) bestFull / TICKS, (double) bestLazy / TICKS,
+        (double) bestFull / bestLazy));
+  }
+}
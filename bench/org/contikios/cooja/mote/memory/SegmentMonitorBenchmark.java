@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.mote.memory;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.contikios.cooja.mote.memory.MemoryInterface.SegmentMonitor;
+import org.contikios.cooja.mote.memory.MemoryInterface.SegmentMonitor.EventType;
+
+/**
+ * Standalone benchmark of segment monitor dispatch.
+ *
+ * Compares SegmentMonitorTable with the monitor list it replaced in
+ * ByteBufferMemory, which copied the list and tested every monitor on each
+ * access. Monitors watch 16 byte segments, and each step is a 2 byte write
+ * at a random monitored address.
+ *
+ * Run with: ant bench -Dbenchmark=org.contikios.cooja.mote.memory.SegmentMonitorBenchmark
+ */
+public class SegmentMonitorBenchmark {
+  private static final int[] SIZES = { 10, 100, 1000 };
+  private static final int SEGMENT_SIZE = 16;
+  private static final int STEPS = 1000000;
+  private static final int ROUNDS = 5;
+
+  private static class CountingMonitor implements SegmentMonitor {
+    long count = 0;
+    public void memoryChanged(MemoryInterface memory, EventType type, long address) {
+      count += address;
+    }
+  }
+
+  private static class ListEntry {
+    final EventType flag;
+    final long address;
+    final int size;
+    final SegmentMonitor monitor;
+
+    ListEntry(EventType flag, long address, int size, SegmentMonitor monitor) {
+      this.flag = flag;
+      this.address = address;
+      this.size = size;
+      this.monitor = monitor;
+    }
+  }
+
+  /**
+   * The previous dispatch: a list copied and scanned on every access.
+   */
+  private static void notifyList(ArrayList<ListEntry> monitors, EventType type, long address, int size) {
+    if (monitors.isEmpty()) {
+      return;
+    }
+    for (ListEntry m : monitors.toArray(new ListEntry[0])) {
+      if (m.address >= address + size || address >= m.address + m.size) {
+        continue;
+      }
+      if (m.flag != type && m.flag != EventType.READWRITE) {
+        continue;
+      }
+      m.monitor.memoryChanged(null, type, Math.max(address, m.address));
+    }
+  }
+
+  public static void main(String[] args) {
+    System.out.println("monitors, ns per access: list vs table");
+    for (int size : SIZES) {
+      long[] addresses = new long[STEPS];
+      Random random = new Random(size);
+      for (int i = 0; i < STEPS; i++) {
+        addresses[i] = (long) random.nextInt(size) * SEGMENT_SIZE * 2 + random.nextInt(SEGMENT_SIZE - 1);
+      }
+
+      CountingMonitor listMonitor = new CountingMonitor();
+      CountingMonitor tableMonitor = new CountingMonitor();
+      ArrayList<ListEntry> list = new ArrayList<>();
+      SegmentMonitorTable table = new SegmentMonitorTable();
+      for (int s = 0; s < size; s++) {
+        long address = (long) s * SEGMENT_SIZE * 2;
+        list.add(new ListEntry(EventType.WRITE, address, SEGMENT_SIZE, listMonitor));
+        table.add(EventType.WRITE, address, SEGMENT_SIZE, tableMonitor);
+      }
+
+      long bestList = Long.MAX_VALUE;
+      long bestTable = Long.MAX_VALUE;
+      for (int round = 0; round < ROUNDS; round++) {
+        listMonitor.count = 0;
+        tableMonitor.count = 0;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < STEPS; i++) {
+          notifyList(list, EventType.WRITE, addresses[i], 2);
+        }
+        long t1 = System.nanoTime();
+        for (int i = 0; i < STEPS; i++) {
+          table.notify(null, EventType.WRITE, addresses[i], 2);
+        }
+        long t2 = System.nanoTime();
+        if (listMonitor.count != tableMonitor.count) {
+          throw new IllegalStateException("Table notified different monitors");
+        }
+        bestList = Math.min(bestList, t1 - t0);
+        bestTable = Math.min(bestTable, t2 - t1);
+      }
+      System.out.println(String.format("%5d: %7.1f ns vs %5.1f ns (%.1fx)",
+          size, (double) bestList / STEPS, (double) bestTable / STEPS,
+          (double) bestList / bestTable));
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.mote.memory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+
+import org.contikios.cooja.mote.memory.MemoryInterface.Symbol;
+
+/**
+ * Standalone benchmark of VarMemory variable access.
+ *
+ * Compares name-based VarMemory calls with pre-resolved MemoryVariable
+ * handles, for array-backed and direct buffer sections. Each step does
+ * what a Contiki radio interface does around a tick: reads four integers
+ * and a byte, writes two integers, and copies a 128 byte packet buffer.
+ *
+ * Run with: ant bench -Dbenchmark=org.contikios.cooja.mote.memory.VarMemoryBenchmark
+ */
+public class VarMemoryBenchmark {
+  private static final int VARIABLES = 200;
+  private static final int SECTION_SIZE = 8192;
+  private static final int PACKET_SIZE = 128;
+  private static final int STEPS = 1000000;
+  private static final int ROUNDS = 5;
+
+  private static SectionMoteMemory createMemory(boolean direct) {
+    MemoryLayout layout = MemoryLayout.getNative();
+    HashMap<String, Symbol> symbols = new HashMap<>();
+    for (int i = 0; i < VARIABLES; i++) {
+      String name = "var_" + i;
+      symbols.put(name, new Symbol(Symbol.Type.VARIABLE, name, ".data", 0x1000 + i * 8, 8));
+    }
+    symbols.put("packet", new Symbol(Symbol.Type.VARIABLE, "packet", ".data", 0x1000 + VARIABLES * 8, PACKET_SIZE));
+
+    /* Data and bss sections, as in a Contiki mote type */
+    SectionMoteMemory mem = new SectionMoteMemory(new HashMap<String, Symbol>());
+    mem.addMemorySection(".data", createSection(0x1000, layout, direct, symbols));
+    mem.addMemorySection(".bss", createSection(0x1000 + SECTION_SIZE, layout, direct,
+        new HashMap<String, Symbol>()));
+    return mem;
+  }
+
+  private static MemoryInterface createSection(long address, MemoryLayout layout,
+      boolean direct, HashMap<String, Symbol> symbols) {
+    if (direct) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(SECTION_SIZE).order(ByteOrder.nativeOrder());
+      return new ByteBufferMemory(address, layout, buffer, symbols);
+    }
+    return new ArrayMemory(address, SECTION_SIZE, layout, symbols);
+  }
+
+  private static long runNames(VarMemory mem) {
+    long checksum = 0;
+    for (int i = 0; i < STEPS; i++) {
+      checksum += mem.getIntValueOf("var_10");
+      checksum += mem.getIntValueOf("var_20");
+      checksum += mem.getIntValueOf("var_30");
+      checksum += mem.getIntValueOf("var_40");
+      checksum += mem.getByteValueOf("var_50");
+      mem.setIntValueOf("var_60", i);
+      mem.setIntValueOf("var_70", (int) checksum);
+      byte[] packet = mem.getByteArray("packet", PACKET_SIZE);
+      checksum += packet[i & (PACKET_SIZE - 1)];
+    }
+    return checksum;
+  }
+
+  private static long runHandles(VarMemory mem) {
+    MemoryVariable.IntVar v10 = mem.intVar("var_10");
+    MemoryVariable.IntVar v20 = mem.intVar("var_20");
+    MemoryVariable.IntVar v30 = mem.intVar("var_30");
+    MemoryVariable.IntVar v40 = mem.intVar("var_40");
+    MemoryVariable.ByteVar v50 = mem.byteVar("var_50");
+    MemoryVariable.IntVar v60 = mem.intVar("var_60");
+    MemoryVariable.IntVar v70 = mem.intVar("var_70");
+    MemoryVariable.ByteArrayVar packetVar = mem.byteArrayVar("packet");
+    byte[] packet = new byte[PACKET_SIZE];
+
+    long checksum = 0;
+    for (int i = 0; i < STEPS; i++) {
+      checksum += v10.get();
+      checksum += v20.get();
+      checksum += v30.get();
+      checksum += v40.get();
+      checksum += v50.get();
+      v60.set(i);
+      v70.set((int) checksum);
+      packetVar.get(packet, PACKET_SIZE);
+      checksum += packet[i & (PACKET_SIZE - 1)];
+    }
+    return checksum;
+  }
+
+  public static void main(String[] args) {
+    System.out.println("section, ns per step: variable names vs handles");
+    for (boolean direct: new boolean[] { false, true }) {
+      long bestNames = Long.MAX_VALUE;
+      long bestHandles = Long.MAX_VALUE;
+      for (int round = 0; round < ROUNDS; round++) {
+        VarMemory namesMem = new VarMemory(createMemory(direct));
+        VarMemory handlesMem = new VarMemory(createMemory(direct));
+        long t0 = System.nanoTime();
+        long namesChecksum = runNames(namesMem);
+        long t1 = System.nanoTime();
+        long handlesChecksum = runHandles(handlesMem);
+        long t2 = System.nanoTime();
+        if (namesChecksum != handlesChecksum) {
+          throw new IllegalStateException("Handles read different values");
+        }
+        bestNames = Math.min(bestNames, t1 - t0);
+        bestHandles = Math.min(bestHandles, t2 - t1);
+      }
+      System.out.println(String.format("%6s: %6.1f ns vs %6.1f ns (%.1fx)",
+          direct ? "direct" : "array", (double) bestNames / STEPS,
+          (double) bestHandles / STEPS, (double) bestNames / bestHandles));
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Standalone benchmark of AsyncLogWriter.
+ *
+ * Measures the time the writing thread spends per log line: with a
+ * BufferedWriter flushed after every line, as the test log was written
+ * before, and with AsyncLogWriter, both for preformatted text and for
+ * entries formatted by the writer thread. Also checks that lines queued
+ * concurrently by several threads are all written, in order per thread.
+ *
+ * Run with: ant bench -Dbenchmark=org.contikios.cooja.util.AsyncLogWriterBenchmark
+ */
+public class AsyncLogWriterBenchmark {
+  private static final int LINES = 2000000;
+  private static final int THREADS = 4;
+  private static final int ROUNDS = 3;
+
+  private static class Line {
+    final long time;
+    final int id;
+    final String msg;
+
+    Line(long time, int id, String msg) {
+      this.time = time;
+      this.id = id;
+      this.msg = msg;
+    }
+  }
+
+  private static final AsyncLogWriter.EntryFormatter LINE_FORMAT = new AsyncLogWriter.EntryFormatter() {
+    public String format(Object entry) {
+      Line line = (Line) entry;
+      return line.time + "\tID:" + line.id + "\t" + line.msg + "\n";
+    }
+  };
+
+  private static final String[] MESSAGES = {
+    "Sending unicast to 1", "DATA recv 'Hello 12' from 2", "rpl: parent switch", "csma: retransmit"
+  };
+
+  private static long writeSync(File file) throws IOException {
+    BufferedWriter out = new BufferedWriter(new FileWriter(file));
+    long t0 = System.nanoTime();
+    for (int i = 0; i < LINES; i++) {
+      out.write(i + "\tID:" + (i % 1000) + "\t" + MESSAGES[i & 3] + "\n");
+      out.flush();
+    }
+    long t1 = System.nanoTime();
+    out.close();
+    return t1 - t0;
+  }
+
+  private static long writeText(File file) throws IOException {
+    AsyncLogWriter writer = new AsyncLogWriter(file, false);
+    long t0 = System.nanoTime();
+    for (int i = 0; i < LINES; i++) {
+      writer.write(i + "\tID:" + (i % 1000) + "\t" + MESSAGES[i & 3] + "\n");
+    }
+    long t1 = System.nanoTime();
+    writer.close();
+    return t1 - t0;
+  }
+
+  private static long writeEntries(File file) throws IOException {
+    AsyncLogWriter writer = new AsyncLogWriter(file, false, LINE_FORMAT);
+    long t0 = System.nanoTime();
+    for (int i = 0; i < LINES; i++) {
+      writer.writeEntry(new Line(i, i % 1000, MESSAGES[i & 3]));
+    }
+    long t1 = System.nanoTime();
+    writer.close();
+    return t1 - t0;
+  }
+
+  private static void checkConcurrent(File file) throws Exception {
+    final AsyncLogWriter writer = new AsyncLogWriter(file, false, LINE_FORMAT);
+    Thread[] threads = new Thread[THREADS];
+    for (int t = 0; t < THREADS; t++) {
+      final int id = t;
+      threads[t] = new Thread(new Runnable() {
+        public void run() {
+          for (int i = 0; i < LINES / THREADS; i++) {
+            writer.writeEntry(new Line(i, id, MESSAGES[i & 3]));
+          }
+          writer.flush();
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread: threads) {
+      thread.join();
+    }
+    writer.close();
+
+    long[] next = new long[THREADS];
+    BufferedReader in = new BufferedReader(new FileReader(file));
+    try {
+      String line;
+      while ((line = in.readLine()) != null) {
+        String[] fields = line.split("\t");
+        int id = Integer.parseInt(fields[1].substring(3));
+        if (Long.parseLong(fields[0]) != next[id]++) {
+          throw new IllegalStateException("Line out of order: " + line);
+        }
+      }
+    } finally {
+      in.close();
+    }
+    for (int t = 0; t < THREADS; t++) {
+      if (next[t] != LINES / THREADS) {
+        throw new IllegalStateException("Thread " + t + " wrote " + next[t] + " lines");
+      }
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    File file = File.createTempFile("asynclog", ".txt");
+    try {
+      long bestSync = Long.MAX_VALUE, bestText = Long.MAX_VALUE, bestEntries = Long.MAX_VALUE;
+      for (int round = 0; round < ROUNDS; round++) {
+        bestSync = Math.min(bestSync, writeSync(file));
+        long size = file.length();
+        bestText = Math.min(bestText, writeText(file));
+        if (file.length() != size) {
+          throw new IllegalStateException("Text: " + file.length() + " bytes written, expected " + size);
+        }
+        bestEntries = Math.min(bestEntries, writeEntries(file));
+        if (file.length() != size) {
+          throw new IllegalStateException("Entries: " + file.length() + " bytes written, expected " + size);
+        }
+      }
+      System.out.println(String.format(
+          "%d lines, ns per line in writing thread: flushed writer %.1f, text %.1f, entries %.1f",
+          LINES, (double) bestSync / LINES, (double) bestText / LINES, (double) bestEntries / LINES));
+
+      checkConcurrent(file);
+      System.out.println(THREADS + " threads: all lines written, in order per thread");
+    } finally {
+      file.delete();
+    }
+  }
+}
@@ -78,6 +78,15 @@ Java_org_contikios_cooja_corecomm_[CLASS_NAME]_setMemory(JNIEnv *env, jobject ob
   (*env)->ReleaseByteArrayElements(env, mem_arr, mem, 0);
 }
 /*---------------------------------------------------------------------------*/
+JNIEXPORT jobject JNICALL
+Java_org_contikios_cooja_corecomm_[CLASS_NAME]_getMemoryBuffer(JNIEnv *env, jobject obj, jint rel_addr, jint length)
+{
+  return (*env)->NewDirectByteBuffer(
+      env,
+      (void *) (((long)rel_addr) + referenceVar),
+      (jlong) length);
+}
+/*---------------------------------------------------------------------------*/
 JNIEXPORT void JNICALL
 Java_org_contikios_cooja_corecomm_[CLASS_NAME]_tick(JNIEnv *env, jobject obj)
 {
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.log4j.Logger;
+import org.jdom.Element;
+import org.jdom.JDOMException;
+import org.jdom.input.SAXBuilder;
+
+/**
+ * Runs one simulation config several times without GUI, with consecutive
+ * random seeds, concurrently in a single JVM.
+ *
+ * The config is parsed once, and Contiki mote types of later runs reuse the
+ * firmware compiled by the first run. Every run loads a private copy of the
+ * Contiki library, so runs share no native state.
+ *
+ * Each run writes its test log to its own directory in the output directory,
+ * and the exit codes of all runs are summarized in summary.txt.
+ *
+ * @see Cooja#main(String[])
+ */
+public class BatchRunner {
+  private static final Logger logger = Logger.getLogger(BatchRunner.class);
+
+  /* Run is aborted if simulation stays stopped without the test script quitting */
+  private static final long STOPPED_TIMEOUT = 5000;
+
+  /* Simulations are loaded one at a time: loading uses static state such as
+   * the external tools settings and the core communicator classes */
+  private static final Object loadLock = new Object();
+
+  private final File configFile;
+  private final Element config;
+  private final File outputDir;
+
+  /**
+   * @param configFile Simulation config
+   * @param outputDir Directory for test logs and summary
+   * @throws IOException If config could not be read
+   * @throws JDOMException If config is not wellformed
+   */
+  public BatchRunner(File configFile, File outputDir) throws IOException, JDOMException {
+    this.configFile = configFile.getCanonicalFile();
+    InputStream in = new FileInputStream(configFile);
+    if (configFile.getName().endsWith(".gz")) {
+      in = new GZIPInputStream(in);
+    }
+    config = new SAXBuilder().build(in).getRootElement();
+    in.close();
+    this.outputDir = outputDir;
+  }
+
+  /**
+   * Runs the simulation once per random seed, and waits for all runs to quit.
+   *
+   * @param firstSeed Random seed of first run, or null for a random seed
+   * @param runs Number of runs
+   * @param threads Maximum number of concurrent runs
+   * @return 0 if all runs succeeded, otherwise 1
+   */
+  public int run(Long firstSeed, int runs, int threads) {
+    if (firstSeed == null) {
+      firstSeed = new Random().nextLong();
+    }
+    if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+      logger.fatal("Could not create batch output directory: " + outputDir);
+      return 1;
+    }
+    logger.info("Running " + configFile.getName() + " " + runs + " times, " +
+        threads + " at a time, first random seed " + firstSeed);
+
+    long startTime = System.currentTimeMillis();
+
+    ArrayList<Run> allRuns = new ArrayList<Run>();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    for (int i = 0; i < runs; i++) {
+      Run run = new Run(firstSeed + i);
+      allRuns.add(run);
+      executor.execute(run);
+    }
+    executor.shutdown();
+    try {
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      logger.fatal("Interrupted while waiting for batch runs");
+      return 1;
+    }
+
+    return writeSummary(allRuns, System.currentTimeMillis() - startTime);
+  }
+
+  private int writeSummary(ArrayList<Run> runs, long realTime) {
+    int ok = 0, failed = 0, timedOut = 0, errors = 0;
+    for (Run run: runs) {
+      switch (run.getStatus()) {
+        case "OK": ok++; break;
+        case "FAILED": failed++; break;
+        case "TIMEOUT": timedOut++; break;
+        default: errors++; break;
+      }
+    }
+    String result = runs.size() + " runs in " + realTime + " ms: " + ok + " OK, " +
+        failed + " failed, " + timedOut + " timed out, " + errors + " errors";
+
+    File summaryFile = new File(outputDir, "summary.txt");
+    try {
+      PrintWriter out = new PrintWriter(new FileWriter(summaryFile));
+      out.println("# " + configFile.getPath());
+      out.println("# seed exit_code status real_time_ms simulation_time_ms");
+      for (Run run: runs) {
+        out.println(run.seed + " " + run.exitCode + " " + run.getStatus() + " " +
+            run.realTime + " " + run.simulationTime);
+      }
+      out.println("# " + result);
+      out.close();
+    } catch (IOException e) {
+      logger.fatal("Could not write batch summary: " + summaryFile, e);
+    }
+
+    logger.info(result);
+    return (ok == runs.size()) ? 0 : 1;
+  }
+
+  /**
+   * One run of the simulation config, with its own Cooja instance.
+   */
+  public class Run implements Runnable {
+    private final long seed;
+    private final File logDirectory;
+    private final CountDownLatch quit = new CountDownLatch(1);
+
+    private int exitCode = -1;
+    private long realTime = 0;
+    private long simulationTime = 0;
+
+    private Run(long seed) {
+      this.seed = seed;
+      this.logDirectory = new File(outputDir, "seed-" + seed);
+    }
+
+    /**
+     * @return Directory for test output of this run
+     */
+    public File getLogDirectory() {
+      return logDirectory;
+    }
+
+    /**
+     * Called when the test script quits this run's Cooja instance.
+     *
+     * @param exitCode Test script exit code
+     */
+    void quit(int exitCode) {
+      if (quit.getCount() > 0) {
+        this.exitCode = exitCode;
+        quit.countDown();
+      }
+    }
+
+    /**
+     * @return OK, FAILED or TIMEOUT from the test script exit code,
+     * or ERROR if the run did not complete
+     */
+    public String getStatus() {
+      switch (exitCode) {
+        case 0: return "OK";
+        case 1: return "FAILED";
+        case 2: return "TIMEOUT";
+        default: return "ERROR";
+      }
+    }
+
+    public void run() {
+      Thread.currentThread().setName("batch-" + seed);
+      long startTime = System.currentTimeMillis();
+      if (!logDirectory.isDirectory() && !logDirectory.mkdirs()) {
+        logger.fatal("Could not create log directory: " + logDirectory);
+        return;
+      }
+
+      Simulation sim;
+      try {
+        synchronized (loadLock) {
+          sim = Cooja.loadBatchSimulation(configFile, (Element) config.clone(), seed, this);
+        }
+      } catch (Exception e) {
+        logger.fatal("Seed " + seed + ": exception when loading simulation: ", e);
+        return;
+      }
+      if (sim == null) {
+        logger.fatal("Seed " + seed + ": simulation not loaded");
+        return;
+      }
+
+      /* Wait until the test script quits, or the simulation stops without it */
+      try {
+        long stoppedSince = -1;
+        while (!quit.await(1, TimeUnit.SECONDS)) {
+          long now = System.currentTimeMillis();
+          if (sim.isRunning()) {
+            stoppedSince = -1;
+          } else if (stoppedSince < 0) {
+            stoppedSince = now;
+          } else if (now - stoppedSince > STOPPED_TIMEOUT) {
+            logger.fatal("Seed " + seed + ": simulation stopped without test result");
+            sim.getCooja().doQuit(false, -1);
+            break;
+          }
+        }
+      } catch (InterruptedException e) {
+        return;
+      }
+
+      realTime = System.currentTimeMillis() - startTime;
+      simulationTime = sim.getSimulationTimeMillis();
+      logger.info("Seed " + seed + ": " + getStatus() + " after " + simulationTime +
+          " ms simulation time, " + realTime + " ms real time");
+    }
+  }
+}
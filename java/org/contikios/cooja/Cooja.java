@@ -271,6 +271,8 @@ public class Cooja extends Observable {
 
     "DEFAULT_PROJECTDIRS",
     "CORECOMM_TEMPLATE_FILENAME",
+    "CONTIKI_MEMORY_SWAP",
+    "CONTIKI_MEMORY_MAP",
 
     "PARSE_WITH_COMMAND",
 
@@ -1335,7 +1337,12 @@ public class Cooja extends Observable {
       return gui.getSimulation();
     } else {
       try {
-        Simulation newSim = gui.loadSimulationConfig(config, true, manualRandomSeed);
+        Simulation newSim;
+        if (SimulationSnapshot.isSnapshot(config)) {
+          newSim = gui.loadSimulationSnapshot(config, true);
+        } else {
+          newSim = gui.loadSimulationConfig(config, true, manualRandomSeed);
+        }
         if (newSim == null) {
           return null;
         }
@@ -1348,6 +1355,36 @@ public class Cooja extends Observable {
     }
   }
 
+  /**
+   * Loads a simulation config without GUI, as one run of a batch.
+   *
+   * @see BatchRunner
+   * @param configFile Simulation config file
+   * @param root Simulation config
+   * @param randomSeed Random seed
+   * @param batchRun Batch run notified when the simulation quits
+   * @return Started simulation, or null
+   * @throws SimulationCreationException If simulation could not be loaded
+   */
+  static Simulation loadBatchSimulation(File configFile, Element root, long randomSeed,
+      BatchRunner.Run batchRun)
+  throws SimulationCreationException {
+    Cooja gui = new Cooja(createDesktopPane());
+    gui.batchRun = batchRun;
+    gui.currentConfigFile = configFile;
+
+    Simulation sim = gui.loadSimulationConfig(root, true, randomSeed);
+    if (sim == null) {
+      return null;
+    }
+    gui.setSimulation(sim, false);
+    if (!startSimulationController(gui, sim, configFile.getPath())) {
+      gui.doRemoveSimulation(false);
+      return null;
+    }
+    return sim;
+  }
+
   /**
    * Allows user to create a simulation with a single mote type.
    *
@@ -2250,6 +2287,13 @@ public class Cooja extends Observable {
     mySimulation.stopSimulation();
     mySimulation.removed();
 
+    /* Delete library copies of Contiki mote types */
+    for (MoteType type: mySimulation.getMoteTypes()) {
+      if (type instanceof ContikiMoteType) {
+        ((ContikiMoteType) type).removed();
+      }
+    }
+
     /* Clear current mote relations */
     MoteRelation relations[] = getMoteRelations();
     for (MoteRelation r: relations) {
@@ -2735,6 +2779,12 @@ public class Cooja extends Observable {
       removePlugin((Plugin) plugin, false);
     }
 
+    if (batchRun != null) {
+      /* Other runs of the batch continue in this JVM */
+      batchRun.quit(exitCode);
+      return;
+    }
+
     /* Store frame size and position */
     if (isVisualizedInFrame()) {
       setExternalToolsSetting("FRAME_SCREEN", frame.getGraphicsConfiguration().getDevice().getIDstring());
@@ -3158,6 +3208,9 @@ public class Cooja extends Observable {
   public static void main(String[] args) {
     String logConfigFile = null;
     Long randomSeed = null;
+    int batchRuns = 0;
+    int batchThreads = Runtime.getRuntime().availableProcessors();
+    String batchDir = "batch";
     
     
     for (String element : args) {
@@ -3223,6 +3276,28 @@ public class Cooja extends Observable {
         }
       }
       
+      if (element.startsWith("-batch=")) {
+        String arg = element.substring("-batch=".length());
+        try {
+          batchRuns = Integer.parseInt(arg);
+        } catch (NumberFormatException e) {
+          logger.error("Failed to convert \"" + arg +"\" to an integer.");
+        }
+      }
+
+      if (element.startsWith("-batch-threads=")) {
+        String arg = element.substring("-batch-threads=".length());
+        try {
+          batchThreads = Integer.parseInt(arg);
+        } catch (NumberFormatException e) {
+          logger.error("Failed to convert \"" + arg +"\" to an integer.");
+        }
+      }
+
+      if (element.startsWith("-batch-dir=")) {
+        batchDir = element.substring("-batch-dir=".length());
+      }
+
       if (element.startsWith("-random-seed=")) {
         String arg = element.substring("-random-seed=".length());
         try {          
@@ -3290,47 +3365,25 @@ public class Cooja extends Observable {
       /* Load simulation */
       String config = args[0].substring("-nogui=".length());
       File configFile = new File(config);
+
+      if (batchRuns > 0) {
+        /* Run simulation once per random seed */
+        try {
+          BatchRunner runner = new BatchRunner(configFile, new File(batchDir));
+          System.exit(runner.run(randomSeed, batchRuns, Math.max(1, batchThreads)));
+        } catch (Exception e) {
+          logger.fatal("Exception when loading simulation: ", e);
+          System.exit(1);
+        }
+      }
       Simulation sim = quickStartSimulationConfig(configFile, false, randomSeed);
       if (sim == null) {
         System.exit(1);
       }
-      Cooja gui = sim.getCooja();
-
-      /* Make sure at least one plugin controlling the simulation */
-      boolean hasController = false;
-      for (Plugin startedPlugin : gui.startedPlugins) {
-    	int pluginType = startedPlugin.getClass().getAnnotation(PluginType.class).value();
-    	if (pluginType == PluginType.SIM_CONTROL_PLUGIN) {
-    	  hasController = true;
-    	}
-      }
-
-      /* Backwards compatibility:
-       * simulation has no control plugin, but has external (old style) test script.
-       * We will manually start a test editor from here. */
-      if (!hasController) {
-        File scriptFile = new File(config.substring(0, config.length()-4) + ".js");
-        if (scriptFile.exists()) {
-          logger.info("Detected old simulation test, starting test editor manually from: " + scriptFile);
-          ScriptRunner plugin = (ScriptRunner) gui.tryStartPlugin(ScriptRunner.class, gui, sim, null);
-          if (plugin == null) {
-            System.exit(1);
-          }
-          plugin.updateScript(scriptFile);
-          try {
-            plugin.setScriptActive(true);
-          } catch (Exception e) {
-            logger.fatal("Error: " + e.getMessage(), e);
-            System.exit(1);
-          }
-        } else {
-          logger.fatal("No plugin controlling simulation, aborting");
-          System.exit(1);
-        }
+      if (!startSimulationController(sim.getCooja(), sim, config)) {
+        System.exit(1);
       }
 
-
-      
     } else if (args.length > 0 && args[0].startsWith("-applet")) {
 
       String tmpWebPath=null, tmpBuildPath=null, tmpEsbFirmware=null, tmpSkyFirmware=null;
@@ -3381,6 +3434,49 @@ public class Cooja extends Observable {
     }
   }
 
+  /**
+   * Makes sure at least one plugin is controlling a simulation without GUI.
+   *
+   * @param gui Cooja
+   * @param sim Loaded simulation
+   * @param config Simulation config file name
+   * @return True if a plugin is controlling the simulation
+   */
+  private static boolean startSimulationController(Cooja gui, Simulation sim, String config) {
+    boolean hasController = false;
+    for (Plugin startedPlugin : gui.startedPlugins) {
+      int pluginType = startedPlugin.getClass().getAnnotation(PluginType.class).value();
+      if (pluginType == PluginType.SIM_CONTROL_PLUGIN) {
+        hasController = true;
+      }
+    }
+    if (hasController) {
+      return true;
+    }
+
+    /* Backwards compatibility:
+     * simulation has no control plugin, but has external (old style) test script.
+     * We will manually start a test editor from here. */
+    File scriptFile = new File(config.substring(0, config.length()-4) + ".js");
+    if (!scriptFile.exists()) {
+      logger.fatal("No plugin controlling simulation, aborting");
+      return false;
+    }
+    logger.info("Detected old simulation test, starting test editor manually from: " + scriptFile);
+    ScriptRunner plugin = (ScriptRunner) gui.tryStartPlugin(ScriptRunner.class, gui, sim, null);
+    if (plugin == null) {
+      return false;
+    }
+    plugin.updateScript(scriptFile);
+    try {
+      plugin.setScriptActive(true);
+    } catch (Exception e) {
+      logger.fatal("Error: " + e.getMessage(), e);
+      return false;
+    }
+    return true;
+  }
+
   /**
    * Loads a simulation configuration from given file.
    *
@@ -3421,6 +3517,47 @@ public class Cooja extends Observable {
   }
 
   public Simulation loadSimulationConfig(Element root, boolean quick, Long manualRandomSeed)
+  throws SimulationCreationException {
+    return loadSimulationConfig(root, quick, manualRandomSeed, null);
+  }
+
+  /**
+   * Loads a simulation snapshot, and restores the simulation state at the
+   * time the snapshot was saved.
+   *
+   * @see Simulation#saveSnapshot(File)
+   * @param file Snapshot file
+   * @param quick Quick-load simulation
+   * @return New simulation or null if recompiling failed or aborted
+   * @throws SimulationCreationException If snapshot could not be restored
+   */
+  public Simulation loadSimulationSnapshot(File file, boolean quick)
+  throws SimulationCreationException {
+    long startTime = System.currentTimeMillis();
+    SimulationSnapshot snapshot;
+    try {
+      snapshot = SimulationSnapshot.read(file);
+    } catch (IOException e) {
+      throw (SimulationCreationException) new SimulationCreationException(
+          "Snapshot read error: " + e.getMessage()).initCause(e);
+    }
+
+    this.currentConfigFile = file; /* Used to generate config relative paths */
+    try {
+      this.currentConfigFile = this.currentConfigFile.getCanonicalFile();
+    } catch (IOException e) {
+    }
+
+    Simulation sim = loadSimulationConfig(snapshot.getConfig(), quick, null, snapshot);
+    if (sim != null) {
+      logger.info("Restored simulation at " + sim.getSimulationTimeMillis() + " ms from snapshot in " +
+          (System.currentTimeMillis() - startTime) + " ms");
+    }
+    return sim;
+  }
+
+  private Simulation loadSimulationConfig(Element root, boolean quick, Long manualRandomSeed,
+      SimulationSnapshot snapshot)
   throws SimulationCreationException {
     Simulation newSim = null;
 
@@ -3481,13 +3618,28 @@ public class Cooja extends Observable {
         if (((Element) element).getName().equals("simulation")) {
           Collection<Element> config = ((Element) element).getChildren();
           newSim = new Simulation(this);
+          /* Mote types of batch runs reuse the firmware compiled by the first run */
+          newSim.setReuseCompiledFirmware(isBatchRun());
           System.gc();
+          if (snapshot != null) {
+            /* Motes and plugins are created at the snapshot time */
+            newSim.setSimulationTime(snapshot.getSimulationTime());
+          }
           
           boolean createdOK = newSim.setConfigXML(config, isVisualized(), quick, manualRandomSeed);
           if (!createdOK) {
             logger.info("Simulation not loaded");
             return null;
           }
+
+          if (snapshot != null) {
+            try {
+              snapshot.restore(newSim);
+            } catch (IOException e) {
+              throw (SimulationCreationException) new SimulationCreationException(
+                  "Snapshot restore error: " + e.getMessage()).initCause(e);
+            }
+          }
         }
       }
 
@@ -3503,6 +3655,8 @@ public class Cooja extends Observable {
     } catch (MoteTypeCreationException e) {
       throw (SimulationCreationException) new SimulationCreationException(
           "Mote type creation error: " + e.getMessage()).initCause(e);
+    } catch (SimulationCreationException e) {
+      throw e;
     } catch (Exception e) {
       throw (SimulationCreationException) new SimulationCreationException(
           "Unknown error: " + e.getMessage()).initCause(e);
@@ -4324,6 +4478,27 @@ public class Cooja extends Observable {
 
   private final static String PATH_CONFIG_IDENTIFIER = "[CONFIG_DIR]";
   public File currentConfigFile = null; /* Used to generate config relative paths */
+
+  private BatchRunner.Run batchRun = null;
+
+  /**
+   * @return True if this Cooja instance runs a simulation of a batch,
+   * and must not terminate the JVM when quitting
+   * @see BatchRunner
+   */
+  public boolean isBatchRun() {
+    return batchRun != null;
+  }
+
+  /**
+   * @return Directory for test output files, or null for the working directory
+   */
+  public File getLogDirectory() {
+    if (batchRun == null) {
+      return null;
+    }
+    return batchRun.getLogDirectory();
+  }
   private File createConfigRelativePath(File file) {
     String id = PATH_CONFIG_IDENTIFIER;
     if (currentConfigFile == null) {
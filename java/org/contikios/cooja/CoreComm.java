@@ -31,6 +31,8 @@ package org.contikios.cooja;
 import java.io.*;
 import java.lang.reflect.*;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
 import java.util.Vector;
 
 import org.contikios.cooja.MoteType.MoteTypeCreationException;
@@ -55,6 +57,10 @@ import org.contikios.cooja.dialogs.MessageList;
  * same corecomm class without restarting the JVM and thus the entire
  * simulation.
  *
+ * Core communicator classes are generated from the corecomm template in
+ * memory, see {@link CoreCommClassGenerator}. Without an in-process Java
+ * compiler, the template is instead compiled with the configured javac.
+ *
  * Each implemented CoreComm class needs read access to the following core
  * variables:
  * <ul>
@@ -67,6 +73,11 @@ import org.contikios.cooja.dialogs.MessageList;
  * <li>getReferenceAbsAddr()
  * <li>getMemory(int start, int length, byte[] mem)
  * <li>setMemory(int start, int length, byte[] mem)
+ * </ul>
+ * and optionally:
+ * <ul>
+ * <li>getMemoryBuffer(int start, int length)
+ * </ul>
  *
  * @author Fredrik Osterlind
  */
@@ -79,6 +90,9 @@ public abstract class CoreComm {
 
   private static int fileCounter = 1;
 
+  /* Directory of the class files of each compiled core communicator class */
+  private final static HashMap<String, File> classDirectories = new HashMap<String, File>();
+
   /**
    * Has any library been loaded? Since libraries can't be unloaded the entire
    * simulator may have to be restarted.
@@ -119,6 +133,47 @@ public abstract class CoreComm {
     return "Lib" + fileCounter;
   }
 
+  /**
+   * Generates core communicator source by reading default source template and
+   * replacing the class name field.
+   *
+   * @param className
+   *          Java class name (without extension)
+   * @return Java source
+   * @throws IOException
+   *           If the template could not be read
+   */
+  static String getLibSource(String className) throws IOException {
+    Reader reader;
+    String mainTemplate = Cooja
+        .getExternalToolsSetting("CORECOMM_TEMPLATE_FILENAME");
+
+    if ((new File(mainTemplate)).exists()) {
+      reader = new FileReader(mainTemplate);
+    } else {
+      InputStream input = CoreComm.class
+          .getResourceAsStream('/' + mainTemplate);
+      if (input == null) {
+        throw new FileNotFoundException(mainTemplate + " not found");
+      }
+      reader = new InputStreamReader(input);
+    }
+
+    BufferedReader templateFileReader = new BufferedReader(reader);
+    StringBuilder source = new StringBuilder();
+    try {
+      // Replace special fields in template
+      String line;
+      while ((line = templateFileReader.readLine()) != null) {
+        line = line.replaceFirst("\\[CLASSNAME\\]", className);
+        source.append(line).append("\n");
+      }
+    } finally {
+      templateFileReader.close();
+    }
+    return source.toString();
+  }
+
   /**
    * Generates new source file by reading default source template and replacing
    * the class name field.
@@ -130,54 +185,42 @@ public abstract class CoreComm {
    */
   public static void generateLibSourceFile(String className)
       throws MoteTypeCreationException {
+    generateLibSourceFile(className, new File("."));
+  }
+
+  /**
+   * Generates new source file in the given directory by reading default
+   * source template and replacing the class name field.
+   *
+   * @param className
+   *          Java class name (without extension)
+   * @param classDir
+   *          Root directory of generated source
+   * @throws MoteTypeCreationException
+   *           If error occurs
+   */
+  public static void generateLibSourceFile(String className, File classDir)
+      throws MoteTypeCreationException {
     BufferedWriter sourceFileWriter = null;
-    BufferedReader templateFileReader = null;
-    String destFilename = null;
+    String destFilename = className + ".java";
 
     try {
-      Reader reader;
-      String mainTemplate = Cooja
-          .getExternalToolsSetting("CORECOMM_TEMPLATE_FILENAME");
-
-      if ((new File(mainTemplate)).exists()) {
-        reader = new FileReader(mainTemplate);
-      } else {
-        InputStream input = CoreComm.class
-            .getResourceAsStream('/' + mainTemplate);
-        if (input == null) {
-          throw new FileNotFoundException(mainTemplate + " not found");
-        }
-        reader = new InputStreamReader(input);
-      }
-
-      templateFileReader = new BufferedReader(reader);
-      destFilename = className + ".java";
+      String source = getLibSource(className);
 
-      File dir = new File("org/contikios/cooja/corecomm");
+      File dir = new File(classDir, "org/contikios/cooja/corecomm");
       if (!dir.exists()) {
         dir.mkdirs();
       }
 
       sourceFileWriter = new BufferedWriter(new OutputStreamWriter(
-          new FileOutputStream("org/contikios/cooja/corecomm/" + destFilename)));
-
-      // Replace special fields in template
-      String line;
-      while ((line = templateFileReader.readLine()) != null) {
-        line = line.replaceFirst("\\[CLASSNAME\\]", className);
-        sourceFileWriter.write(line + "\n");
-      }
-
+          new FileOutputStream(new File(dir, destFilename))));
+      sourceFileWriter.write(source);
       sourceFileWriter.close();
-      templateFileReader.close();
     } catch (Exception e) {
       try {
         if (sourceFileWriter != null) {
           sourceFileWriter.close();
         }
-        if (templateFileReader != null) {
-          templateFileReader.close();
-        }
       } catch (Exception e2) {
       }
 
@@ -186,7 +229,7 @@ public abstract class CoreComm {
           .initCause(e);
     }
 
-    File genFile = new File("org/contikios/cooja/corecomm/" + destFilename);
+    File genFile = new File(classDir, "org/contikios/cooja/corecomm/" + destFilename);
     if (genFile.exists()) {
       return;
     }
@@ -205,6 +248,21 @@ public abstract class CoreComm {
    */
   public static void compileSourceFile(String className)
       throws MoteTypeCreationException {
+    compileSourceFile(className, new File("."));
+  }
+
+  /**
+   * Compiles Java class, generated in the given directory.
+   *
+   * @param className
+   *          Java class name (without extension)
+   * @param classDir
+   *          Root directory of generated source
+   * @throws MoteTypeCreationException
+   *           If Java class compilation error occurs
+   */
+  public static void compileSourceFile(String className, File classDir)
+      throws MoteTypeCreationException {
       /* Try to create a message list with support for GUI - will give not UI if headless */
     MessageList compilationOutput = MessageContainer.createMessageList(true);
     OutputStream compilationStandardStream = compilationOutput
@@ -212,7 +270,7 @@ public abstract class CoreComm {
     OutputStream compilationErrorStream = compilationOutput
         .getInputStream(MessageList.ERROR);
 
-    File classFile = new File("org/contikios/cooja/corecomm/" + className + ".class");
+    File classFile = new File(classDir, "org/contikios/cooja/corecomm/" + className + ".class");
 
     try {
       int b;
@@ -220,11 +278,11 @@ public abstract class CoreComm {
           Cooja.getExternalToolsSetting("PATH_JAVAC"),
           "-cp",
           "." + File.pathSeparator +
-          Cooja.getExternalToolsSetting("PATH_CONTIKI")
-          + "/tools/cooja/dist/cooja.jar",
+          new File(Cooja.getExternalToolsSetting("PATH_CONTIKI")
+          + "/tools/cooja/dist/cooja.jar").getAbsolutePath(),
           "org/contikios/cooja/corecomm/" + className + ".java" };
 
-      Process p = Runtime.getRuntime().exec(cmd, null, null);
+      Process p = Runtime.getRuntime().exec(cmd, null, classDir);
       InputStream outputStream = p.getInputStream();
       InputStream errorStream = p.getErrorStream();
       while ((b = outputStream.read()) >= 0) {
@@ -268,10 +326,23 @@ public abstract class CoreComm {
    */
   public static Class<?> loadClassFile(String className)
       throws MoteTypeCreationException {
+    return loadClassFile(className, new File("."));
+  }
+
+  /**
+   * Loads given Java class file from the given directory.
+   *
+   * @param className Java class name
+   * @param classDir Root directory of class file
+   * @return Loaded class
+   * @throws MoteTypeCreationException If error occurs
+   */
+  public static Class<?> loadClassFile(String className, File classDir)
+      throws MoteTypeCreationException {
     Class<?> loadedClass = null;
     try {
       ClassLoader urlClassLoader = new URLClassLoader(
-          new URL[] { new File(".").toURI().toURL() },
+          new URL[] { classDir.toURI().toURL() },
           CoreComm.class.getClassLoader());
       loadedClass = urlClassLoader.loadClass("org.contikios.cooja.corecomm."
           + className);
@@ -305,11 +376,20 @@ public abstract class CoreComm {
    */
   public static CoreComm createCoreComm(String className, File libFile)
       throws MoteTypeCreationException {
-    generateLibSourceFile(className);
-
-    compileSourceFile(className);
-
-    Class newCoreCommClass = loadClassFile(className);
+    Class newCoreCommClass;
+    File classDir = libFile.getAbsoluteFile().getParentFile();
+    if (CoreCommClassGenerator.generateClass(className)) {
+      /* Generated in memory */
+      newCoreCommClass = loadInstanceClass(className, classDir);
+    } else {
+      /* No in-process compiler: compile with external javac, next to the library */
+      generateLibSourceFile(className, classDir);
+
+      compileSourceFile(className, classDir);
+
+      newCoreCommClass = loadClassFile(className, classDir);
+    }
+    classDirectories.put(className, classDir);
 
     try {
       Constructor constr = newCoreCommClass
@@ -328,6 +408,107 @@ public abstract class CoreComm {
     }
   }
 
+  /**
+   * Create and return a new instance of an already created core communicator
+   * class. The instance is defined by its own class loader, and therefore
+   * loads its own copy of the native library. This allows several Contiki
+   * systems compiled for the same core communicator class to be loaded
+   * simultaneously, as long as each is loaded from a separate library file.
+   *
+   * Instances created this way are owned by their caller and are not
+   * registered as loaded libraries, since a private copy is only loaded after
+   * the library it was copied from.
+   *
+   * @param className
+   *          Class name of core communicator, previously created via
+   *          {@link #createCoreComm(String, File)}
+   * @param libFile
+   *          Native library file (copy)
+   * @return Core Communicator
+   */
+  public static CoreComm createCoreCommInstance(String className, File libFile)
+      throws MoteTypeCreationException {
+    File classDir = classDirectories.get(className);
+    if (classDir == null) {
+      classDir = libFile.getAbsoluteFile().getParentFile();
+    }
+    Class<?> instanceClass = loadInstanceClass(className, classDir);
+
+    try {
+      Constructor<?> constr = instanceClass.getConstructor(new Class[] { File.class });
+      return (CoreComm) constr.newInstance(new Object[] { libFile });
+    } catch (Exception e) {
+      throw (MoteTypeCreationException) new MoteTypeCreationException(
+          "Error when creating corecomm instance: " + className).initCause(e);
+    }
+  }
+
+  /**
+   * Loads a core communicator class in its own class loader.
+   * Classes generated in memory are preferred over class files.
+   *
+   * @param className Class name of core communicator
+   * @param classDir Root directory of class file
+   * @return Loaded class
+   * @throws MoteTypeCreationException If error occurs
+   */
+  private static Class<?> loadInstanceClass(String className, File classDir)
+      throws MoteTypeCreationException {
+    try {
+      ClassLoader instanceClassLoader = new CoreCommClassLoader(
+          new URL[] { classDir.toURI().toURL() },
+          CoreComm.class.getClassLoader());
+      return instanceClassLoader.loadClass("org.contikios.cooja.corecomm."
+          + className);
+    } catch (MalformedURLException e) {
+      throw (MoteTypeCreationException) new MoteTypeCreationException(
+          "Could not load corecomm class file: " + className + ".class")
+          .initCause(e);
+    } catch (ClassNotFoundException e) {
+      throw (MoteTypeCreationException) new MoteTypeCreationException(
+          "Could not load corecomm class file: " + className + ".class")
+          .initCause(e);
+    }
+  }
+
+  /**
+   * Class loader that defines corecomm classes itself instead of first
+   * delegating to its parent. Every loader hence gets its own copy of the
+   * class, and native methods are bound to the library loaded by that copy.
+   */
+  private static class CoreCommClassLoader extends URLClassLoader {
+    public CoreCommClassLoader(URL[] urls, ClassLoader parent) {
+      super(urls, parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve)
+        throws ClassNotFoundException {
+      if (!name.startsWith("org.contikios.cooja.corecomm.")) {
+        return super.loadClass(name, resolve);
+      }
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> c = findLoadedClass(name);
+        if (c == null) {
+          c = findClass(name);
+        }
+        if (resolve) {
+          resolveClass(c);
+        }
+        return c;
+      }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+      byte[] classFile = CoreCommClassGenerator.getGeneratedClass(name);
+      if (classFile != null) {
+        return defineClass(name, classFile, 0, classFile.length);
+      }
+      return super.findClass(name);
+    }
+  }
+
   /**
    * Ticks a mote once. This should not be used directly, but instead via
    * {@link ContikiMoteType#tick()}.
@@ -366,4 +547,21 @@ public abstract class CoreComm {
    */
   public abstract void setMemory(int relAddr, int length, byte[] mem);
 
+  /**
+   * Returns a direct byte buffer mapping a memory segment identified by start
+   * and length. Reads and writes of the buffer access the Contiki system's
+   * memory in place.
+   *
+   * Requires a Contiki system implementing the native getMemoryBuffer function.
+   * The default implementation returns null.
+   *
+   * @param relAddr Relative memory start address
+   * @param length Length of segment
+   * @return Direct byte buffer, or null if not supported
+   * @throws UnsatisfiedLinkError If the loaded library lacks getMemoryBuffer
+   */
+  public ByteBuffer getMemoryBuffer(int relAddr, int length) {
+    return null;
+  }
+
 }
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.apache.log4j.Logger;
+
+import org.contikios.cooja.MoteType.MoteTypeCreationException;
+import org.contikios.cooja.dialogs.MessageContainer;
+import org.contikios.cooja.dialogs.MessageList;
+
+/**
+ * Generates core communicator classes in memory.
+ *
+ * The corecomm template is compiled once per JVM, in-process, with a
+ * placeholder class name. Each core communicator class is then created by
+ * renaming the placeholder in the compiled class' constant pool, which takes
+ * far less time than running javac.
+ *
+ * Generated classes are defined by the core communicator class loaders,
+ * and are never written to disk.
+ *
+ * @see CoreComm
+ */
+class CoreCommClassGenerator {
+  private static Logger logger = Logger.getLogger(CoreCommClassGenerator.class);
+
+  private static final String PACKAGE = "org.contikios.cooja.corecomm";
+  private static final String TEMPLATE_CLASS = "CoreCommTemplateClass";
+
+  /* Compiled template, and the template source it was compiled from */
+  private static String templateSource = null;
+  private static byte[] templateBytes = null;
+  private static boolean noCompiler = false;
+
+  /* Generated classes: binary name -> class file */
+  private static final HashMap<String, byte[]> generatedClasses = new HashMap<String, byte[]>();
+
+  /**
+   * Generates a core communicator class, unless already generated.
+   *
+   * @param className Core communicator class name, e.g. "Lib1"
+   * @return True if generated, false if no in-process Java compiler is available
+   * @throws MoteTypeCreationException If the template could not be compiled
+   */
+  static synchronized boolean generateClass(String className)
+      throws MoteTypeCreationException {
+    String binaryName = PACKAGE + "." + className;
+    if (generatedClasses.containsKey(binaryName)) {
+      return true;
+    }
+    if (noCompiler) {
+      return false;
+    }
+
+    String source;
+    try {
+      source = CoreComm.getLibSource(TEMPLATE_CLASS);
+    } catch (IOException e) {
+      throw (MoteTypeCreationException) new MoteTypeCreationException(
+          "Could not generate corecomm source: " + e.getMessage()).initCause(e);
+    }
+    if (templateBytes == null || !source.equals(templateSource)) {
+      templateBytes = compile(source);
+      if (templateBytes == null) {
+        noCompiler = true;
+        return false;
+      }
+      templateSource = source;
+    }
+
+    try {
+      generatedClasses.put(binaryName, renameClass(templateBytes, TEMPLATE_CLASS, className));
+    } catch (IOException e) {
+      throw (MoteTypeCreationException) new MoteTypeCreationException(
+          "Could not generate corecomm class: " + className).initCause(e);
+    }
+    return true;
+  }
+
+  /**
+   * @param binaryName Class binary name, e.g. "org.contikios.cooja.corecomm.Lib1"
+   * @return Class file, or null if not generated
+   */
+  static synchronized byte[] getGeneratedClass(String binaryName) {
+    return generatedClasses.get(binaryName);
+  }
+
+  /**
+   * Compiles the template source in memory.
+   *
+   * @return Class file, or null if no Java compiler is available
+   */
+  private static byte[] compile(String source) throws MoteTypeCreationException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      logger.info("No in-process Java compiler available, using " + Cooja.getExternalToolsSetting("PATH_JAVAC"));
+      return null;
+    }
+
+    final String path = PACKAGE.replace('.', '/') + "/" + TEMPLATE_CLASS;
+    final String templateCode = source;
+    JavaFileObject sourceFile = new SimpleJavaFileObject(
+        URI.create("string:///" + path + Kind.SOURCE.extension), Kind.SOURCE) {
+      public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return templateCode;
+      }
+    };
+
+    final HashMap<String, ByteArrayOutputStream> output = new HashMap<String, ByteArrayOutputStream>();
+    StandardJavaFileManager standardManager = compiler.getStandardFileManager(null, null, null);
+    JavaFileManager fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(standardManager) {
+      public JavaFileObject getJavaFileForOutput(Location location, final String className,
+          Kind kind, FileObject sibling) {
+        return new SimpleJavaFileObject(
+            URI.create("bytes:///" + className.replace('.', '/') + kind.extension), kind) {
+          public OutputStream openOutputStream() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            output.put(className, out);
+            return out;
+          }
+        };
+      }
+    };
+
+    /* Compile against the classes Cooja is running from */
+    String classPath = System.getProperty("java.class.path");
+    try {
+      File coojaClasses = new File(CoreComm.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+      classPath = coojaClasses.getPath() + File.pathSeparator + classPath;
+    } catch (Exception e) {
+      /* Use class path only */
+    }
+
+    MessageList compilationOutput = MessageContainer.createMessageList(true);
+    Writer errorWriter = new OutputStreamWriter(compilationOutput.getInputStream(MessageList.ERROR));
+    boolean success = compiler.getTask(
+        errorWriter,
+        fileManager,
+        null,
+        Arrays.asList("-classpath", classPath, "-nowarn"),
+        null,
+        Arrays.asList(sourceFile)).call();
+    try {
+      errorWriter.flush();
+      fileManager.close();
+    } catch (IOException e) {
+    }
+
+    ByteArrayOutputStream classFile = output.get(PACKAGE + "." + TEMPLATE_CLASS);
+    if (!success || classFile == null) {
+      MoteTypeCreationException exception = new MoteTypeCreationException(
+          "Could not compile corecomm template");
+      exception.setCompilationOutput(compilationOutput);
+      throw exception;
+    }
+    return classFile.toByteArray();
+  }
+
+  /**
+   * Renames a class by replacing its name in all UTF-8 constants of the
+   * class file's constant pool. Constant pool indices are unchanged, so the
+   * remainder of the class file is copied as is.
+   */
+  private static byte[] renameClass(byte[] classFile, String oldName, String newName)
+      throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(classFile.length + 256);
+    DataOutputStream out = new DataOutputStream(bytes);
+
+    out.writeInt(in.readInt()); /* Magic */
+    out.writeShort(in.readUnsignedShort()); /* Minor version */
+    out.writeShort(in.readUnsignedShort()); /* Major version */
+    int count = in.readUnsignedShort();
+    out.writeShort(count);
+    for (int i=1; i < count; i++) {
+      int tag = in.readUnsignedByte();
+      out.writeByte(tag);
+      switch (tag) {
+      case 1: /* Utf8 */
+        out.writeUTF(in.readUTF().replace(oldName, newName));
+        break;
+      case 7: case 8: case 16: case 19: case 20: /* Class, String, MethodType, Module, Package */
+        copy(in, out, 2);
+        break;
+      case 15: /* MethodHandle */
+        copy(in, out, 3);
+        break;
+      case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+        copy(in, out, 4);
+        break;
+      case 5: case 6: /* Long, Double: two entries */
+        copy(in, out, 8);
+        i++;
+        break;
+      default:
+        throw new IOException("Unknown constant pool tag: " + tag);
+      }
+    }
+
+    /* Remainder of class file */
+    byte[] buf = new byte[4096];
+    int read;
+    while ((read = in.read(buf)) > 0) {
+      out.write(buf, 0, read);
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private static void copy(DataInputStream in, DataOutputStream out, int length)
+      throws IOException {
+    byte[] buf = new byte[length];
+    in.readFully(buf);
+    out.write(buf);
+  }
+}
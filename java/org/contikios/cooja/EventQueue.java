@@ -31,13 +31,25 @@
 package org.contikios.cooja;
 
 /**
+ * Simulation event queue.
+ *
+ * Events are kept in a binary min-heap ordered by execution time. Events
+ * scheduled for the same time are executed in the order they were added.
+ * Each scheduled event knows its own position in the heap, so rescheduling
+ * an already queued event is O(log n).
+ *
  * @author Joakim Eriksson (ported to COOJA by Fredrik Osterlind)
  */
 public class EventQueue {
 
-  private TimeEvent first;
+  private static final int INITIAL_CAPACITY = 64;
+
+  private TimeEvent[] heap = new TimeEvent[INITIAL_CAPACITY];
   private int eventCount = 0;
 
+  /* Insertion counter, used to keep FIFO order among events with equal time */
+  private long insertCounter = 0;
+
   /**
    * Should only be called from simulation thread!
    *
@@ -45,11 +57,6 @@ public class EventQueue {
    * @param time Time
    */
   public void addEvent(TimeEvent event, long time) {
-    event.time = time;
-    addEvent(event);
-  }
-
-  private void addEvent(TimeEvent event) {
     if (event.queue != null) {
       if (event.isScheduled) {
         throw new IllegalStateException("Event is already scheduled: " + event);
@@ -57,29 +64,17 @@ public class EventQueue {
       removeFromQueue(event);
     }
 
-    if (first == null) {
-      first = event;
-    } else {
-      TimeEvent pos = first;
-      TimeEvent lastPos = first;
-      while (pos != null && pos.time <= event.time) {
-        lastPos = pos;
-        pos = pos.nextEvent;
-      }
-      // Here pos will be the first TE after event
-      // and lastPos the first before
-      if (pos == first) {
-        // Before all other
-        event.nextEvent = pos;
-        first = event;
-      } else {
-        event.nextEvent = pos;
-        lastPos.nextEvent = event;
-      }
+    event.time = time;
+    event.queueOrder = insertCounter++;
+
+    if (eventCount == heap.length) {
+      TimeEvent[] newHeap = new TimeEvent[heap.length * 2];
+      System.arraycopy(heap, 0, newHeap, 0, eventCount);
+      heap = newHeap;
     }
     event.queue = this;
     event.isScheduled = true;
-    eventCount++;
+    siftUp(eventCount++, event);
   }
 
   /**
@@ -89,38 +84,72 @@ public class EventQueue {
    * @return True if event was removed
    */
   private boolean removeFromQueue(TimeEvent event) {
-    TimeEvent pos = first;
-    TimeEvent lastPos = first;
-
-    while (pos != null && pos != event) {
-      lastPos = pos;
-      pos = pos.nextEvent;
-    }
-    if (pos == null) {
+    int index = event.queueIndex;
+    if (event.queue != this || index < 0 || index >= eventCount || heap[index] != event) {
       return false;
     }
-    // pos == event!
-    if (pos == first) {
-      // remove it from first pos.
-      first = pos.nextEvent;
-    } else {
-      // else link prev to next...
-      lastPos.nextEvent = pos.nextEvent;
+
+    eventCount--;
+    TimeEvent last = heap[eventCount];
+    heap[eventCount] = null;
+    if (index != eventCount) {
+      siftDown(index, last);
+      if (heap[index] == last) {
+        siftUp(index, last);
+      }
     }
-    // unlink
-    pos.nextEvent = null;
 
+    event.queueIndex = -1;
     event.queue = null;
     event.isScheduled = false;
-    eventCount--;
     return true;
   }
 
   public void removeAll() {
-    TimeEvent event = popFirst();
-    while (event != null) {
-      event = popFirst();
+    for (int i = 0; i < eventCount; i++) {
+      TimeEvent event = heap[i];
+      heap[i] = null;
+      event.queueIndex = -1;
+      event.queue = null;
+      event.isScheduled = false;
+    }
+    eventCount = 0;
+  }
+
+  /**
+   * Marks all scheduled events belonging to given mote as removed.
+   * Should only be called from simulation thread!
+   *
+   * @param mote Mote
+   */
+  public void removeMoteEvents(Mote mote) {
+    for (int i = 0; i < eventCount; i++) {
+      TimeEvent event = heap[i];
+      if (event instanceof MoteTimeEvent && ((MoteTimeEvent)event).getMote() == mote) {
+        event.remove();
+      }
+    }
+  }
+
+  /**
+   * Should only be called from simulation thread!
+   *
+   * @return All scheduled events, in no particular order
+   */
+  public TimeEvent[] getScheduledEvents() {
+    int count = 0;
+    TimeEvent[] events = new TimeEvent[eventCount];
+    for (int i = 0; i < eventCount; i++) {
+      if (heap[i].isScheduled) {
+        events[count++] = heap[i];
+      }
     }
+    if (count == events.length) {
+      return events;
+    }
+    TimeEvent[] scheduled = new TimeEvent[count];
+    System.arraycopy(events, 0, scheduled, 0, count);
+    return scheduled;
   }
 
   /**
@@ -129,29 +158,77 @@ public class EventQueue {
    * @return Event
    */
   public TimeEvent popFirst() {
-    TimeEvent tmp = first;
-    if (tmp == null) {
-      return null;
+    while (eventCount > 0) {
+      TimeEvent tmp = heap[0];
+
+      eventCount--;
+      TimeEvent last = heap[eventCount];
+      heap[eventCount] = null;
+      if (eventCount > 0) {
+        siftDown(0, last);
+      }
+
+      /* No longer scheduled */
+      tmp.queueIndex = -1;
+      tmp.queue = null;
+
+      if (tmp.isScheduled) {
+        tmp.isScheduled = false;
+        return tmp;
+      }
+      /* Event was removed: pop and return another event instead */
     }
+    return null;
+  }
 
-    first = tmp.nextEvent;
-    // Unlink.
-    tmp.nextEvent = null;
+  public TimeEvent peekFirst() {
+    if (eventCount == 0) {
+      return null;
+    }
+    return heap[0];
+  }
 
-    // No longer scheduled!
-    tmp.queue = null;
-    eventCount--;
+  private static boolean before(TimeEvent a, TimeEvent b) {
+    if (a.time != b.time) {
+      return a.time < b.time;
+    }
+    return a.queueOrder < b.queueOrder;
+  }
 
-    if (!tmp.isScheduled) {
-      /* pop and return another event instead */
-      return popFirst();
+  private void siftUp(int index, TimeEvent event) {
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      TimeEvent p = heap[parent];
+      if (!before(event, p)) {
+        break;
+      }
+      heap[index] = p;
+      p.queueIndex = index;
+      index = parent;
     }
-    tmp.isScheduled = false;
-    return tmp;
+    heap[index] = event;
+    event.queueIndex = index;
   }
 
-  public TimeEvent peekFirst() {
-    return first;
+  private void siftDown(int index, TimeEvent event) {
+    int half = eventCount >>> 1;
+    while (index < half) {
+      int child = 2*index + 1;
+      TimeEvent c = heap[child];
+      int right = child + 1;
+      if (right < eventCount && before(heap[right], c)) {
+        child = right;
+        c = heap[child];
+      }
+      if (!before(c, event)) {
+        break;
+      }
+      heap[index] = c;
+      c.queueIndex = index;
+      index = child;
+    }
+    heap[index] = event;
+    event.queueIndex = index;
   }
 
   public String toString() {
@@ -30,8 +30,10 @@
 
 package org.contikios.cooja;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Observable;
+import java.util.Observer;
 import javax.swing.JPanel;
 import org.apache.log4j.Logger;
 import org.jdom.Element;
@@ -54,6 +56,12 @@ import org.contikios.cooja.interfaces.PolledBeforeAllTicks;
  * This is controlled by implementing the correct Java interfaces,
  * such as PolledBeforeActiveTicks.
  *
+ * Changes are dispatched to registered interface listeners. Listeners are
+ * stored in a copy-on-write array, so notifying them requires neither locking
+ * nor copying. The Observable methods are kept for compatibility: observers
+ * are registered as interface listeners.
+ *
+ * @see InterfaceListener
  * @see PolledBeforeActiveTicks
  * @see PolledAfterActiveTicks
  * @see PolledBeforeAllTicks
@@ -64,6 +72,160 @@ import org.contikios.cooja.interfaces.PolledBeforeAllTicks;
 public abstract class MoteInterface extends Observable {
   private static Logger logger = Logger.getLogger(MoteInterface.class);
 
+  private static final InterfaceListener[] NO_LISTENERS = new InterfaceListener[0];
+
+  /**
+   * Listener for mote interface changes.
+   */
+  public interface InterfaceListener {
+    /**
+     * Called when the mote interface has changed.
+     *
+     * @param moteInterface Mote interface
+     * @param arg Argument passed by the mote interface, may be null
+     */
+    public void interfaceChanged(MoteInterface moteInterface, Object arg);
+  }
+
+  private volatile InterfaceListener[] interfaceListeners = NO_LISTENERS;
+  private boolean changed = false;
+
+  /**
+   * Adds a listener notified on interface changes.
+   * Listeners equal to an already added listener are ignored.
+   *
+   * @param listener Listener
+   */
+  public synchronized void addInterfaceListener(InterfaceListener listener) {
+    if (listener == null) {
+      throw new NullPointerException();
+    }
+    InterfaceListener[] listeners = interfaceListeners;
+    for (InterfaceListener l: listeners) {
+      if (l.equals(listener)) {
+        return;
+      }
+    }
+    InterfaceListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+    newListeners[listeners.length] = listener;
+    interfaceListeners = newListeners;
+  }
+
+  /**
+   * @param listener Listener to remove
+   */
+  public synchronized void removeInterfaceListener(InterfaceListener listener) {
+    InterfaceListener[] listeners = interfaceListeners;
+    for (int i = 0; i < listeners.length; i++) {
+      if (listeners[i].equals(listener)) {
+        InterfaceListener[] newListeners = new InterfaceListener[listeners.length - 1];
+        System.arraycopy(listeners, 0, newListeners, 0, i);
+        System.arraycopy(listeners, i + 1, newListeners, i, listeners.length - i - 1);
+        interfaceListeners = newListeners;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Notifies all interface listeners, the most recently added listener first.
+   * Should only be called from the simulation thread.
+   *
+   * @param arg Argument passed to listeners
+   */
+  protected void notifyInterfaceListeners(Object arg) {
+    InterfaceListener[] listeners = interfaceListeners;
+    for (int i = listeners.length - 1; i >= 0; i--) {
+      listeners[i].interfaceChanged(this, arg);
+    }
+  }
+
+  @Override
+  public void addObserver(Observer o) {
+    if (o == null) {
+      throw new NullPointerException();
+    }
+    addInterfaceListener(new ObserverAdapter(o));
+  }
+
+  @Override
+  public void deleteObserver(Observer o) {
+    removeInterfaceListener(new ObserverAdapter(o));
+  }
+
+  @Override
+  public synchronized void deleteObservers() {
+    InterfaceListener[] listeners = interfaceListeners;
+    int count = 0;
+    InterfaceListener[] newListeners = new InterfaceListener[listeners.length];
+    for (InterfaceListener l: listeners) {
+      if (!(l instanceof ObserverAdapter)) {
+        newListeners[count++] = l;
+      }
+    }
+    interfaceListeners = Arrays.copyOf(newListeners, count);
+  }
+
+  @Override
+  public int countObservers() {
+    return interfaceListeners.length;
+  }
+
+  @Override
+  protected void setChanged() {
+    changed = true;
+  }
+
+  @Override
+  protected void clearChanged() {
+    changed = false;
+  }
+
+  @Override
+  public boolean hasChanged() {
+    return changed;
+  }
+
+  @Override
+  public void notifyObservers() {
+    notifyObservers(null);
+  }
+
+  @Override
+  public void notifyObservers(Object arg) {
+    if (!changed) {
+      return;
+    }
+    changed = false;
+    notifyInterfaceListeners(arg);
+  }
+
+  /**
+   * Registers an observer as an interface listener.
+   */
+  private static final class ObserverAdapter implements InterfaceListener {
+    private final Observer observer;
+
+    ObserverAdapter(Observer observer) {
+      this.observer = observer;
+    }
+
+    public void interfaceChanged(MoteInterface moteInterface, Object arg) {
+      observer.update(moteInterface, arg);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof ObserverAdapter
+          && ((ObserverAdapter) obj).observer.equals(observer);
+    }
+
+    @Override
+    public int hashCode() {
+      return observer.hashCode();
+    }
+  }
+
   /**
    * This method creates an instance of the given class with the given mote as
    * constructor argument. Instead of calling the interface constructors
@@ -30,7 +30,7 @@
 
 package org.contikios.cooja;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.apache.log4j.Logger;
 
@@ -50,6 +50,10 @@ import org.contikios.cooja.interfaces.Radio;
  * receive the connection data.
  * And the interfered non-destination radios do not receive the connection data.
  * 
+ * Membership and propagation delays are kept in a small hash table on radio
+ * identity, so membership checks do not scan the destination lists.
+ * The returned radio arrays are shared between calls and must not be modified.
+ * 
  * @see RadioMedium
  * @author Fredrik Osterlind
  */
@@ -60,14 +64,24 @@ public class RadioConnection {
   private int id;
 
   private Radio source;
-  
-  private ArrayList<Radio> allDestinations = new ArrayList<Radio>();
-  private ArrayList<Long> allDestinationDelays = new ArrayList<Long>();
 
-  private ArrayList<Radio> allInterfered = new ArrayList<Radio>();
-  private ArrayList<Radio> onlyInterfered = new ArrayList<Radio>();
-  private ArrayList<Radio> destinationsNonInterfered = new ArrayList<Radio>();
-  
+  /* Member flags */
+  private static final byte DESTINATION = 1;
+  private static final byte DESTINATION_NON_INTERFERED = 2;
+  private static final byte INTERFERED = 4;
+  private static final byte ONLY_INTERFERED = 8;
+
+  /* Open addressing hash table of all destination and interfered radios */
+  private Radio[] members = null;
+  private byte[] memberFlags = null;
+  private long[] memberDelays = null;
+  private int memberCount = 0;
+
+  private final RadioList allDestinations = new RadioList();
+  private final RadioList allInterfered = new RadioList();
+  private final RadioList onlyInterfered = new RadioList();
+  private final RadioList destinationsNonInterfered = new RadioList();
+
   private long startTime;
 
   /**
@@ -104,7 +118,7 @@ public class RadioConnection {
    * @param radio Radio
    */
   public void addDestination(Radio radio) {
-    addDestination(radio, new Long(0));
+    addDestination(radio, 0L);
   }
   
   /**
@@ -113,16 +127,16 @@ public class RadioConnection {
    * @param radio Radio
    */
   public void removeDestination(Radio radio) {
-    int idx = allDestinations.indexOf(radio);
-    if (idx < 0) {
+    int slot = findMember(radio);
+    if (slot < 0 || (memberFlags[slot] & DESTINATION) == 0) {
       logger.fatal("Radio is not a connection destination: " + radio);
       return;
     }
-    
-    allDestinations.remove(idx);
-    allDestinationDelays.remove(idx);
+
+    allDestinations.remove(radio);
     destinationsNonInterfered.remove(radio);
     onlyInterfered.remove(radio);
+    memberFlags[slot] &= ~(DESTINATION | DESTINATION_NON_INTERFERED | ONLY_INTERFERED);
   }
 
   /**
@@ -132,14 +146,30 @@ public class RadioConnection {
    * @param delay Radio propagation delay (us)
    */
   public void addDestination(Radio radio, Long delay) {
+    addDestination(radio, delay.longValue());
+  }
+
+  /**
+   * Add (non-interfered) destination radio to connection.
+   * 
+   * @param radio Radio
+   * @param delay Radio propagation delay (us)
+   */
+  public void addDestination(Radio radio, long delay) {
     if (isDestination(radio)) {
       logger.fatal("Radio is already a destination: " + radio);
       return;
     }
-    allDestinations.add(radio);
-    allDestinationDelays.add(delay);
+    int slot = addMember(radio);
+    if ((memberFlags[slot] & DESTINATION) == 0) {
+      allDestinations.add(radio);
+      memberDelays[slot] = delay;
+    }
     destinationsNonInterfered.add(radio);
-    onlyInterfered.remove(radio);
+    if ((memberFlags[slot] & ONLY_INTERFERED) != 0) {
+      onlyInterfered.remove(radio);
+    }
+    memberFlags[slot] = (byte) ((memberFlags[slot] | DESTINATION | DESTINATION_NON_INTERFERED) & ~ONLY_INTERFERED);
   }
 
   /**
@@ -147,13 +177,12 @@ public class RadioConnection {
    * @return Radio propagation delay (us)
    */
   public long getDestinationDelay(Radio radio) {
-    int idx = allDestinations.indexOf(radio);
-    if (idx < 0) {
+    int slot = findMember(radio);
+    if (slot < 0 || (memberFlags[slot] & DESTINATION) == 0) {
       logger.fatal("Radio is not a connection destination: " + radio);
       return 0;
     }
-    return allDestinationDelays.get(idx);
-
+    return memberDelays[slot];
   }
 
   /**
@@ -170,10 +199,16 @@ public class RadioConnection {
       return;
     }
 
+    int slot = addMember(radio);
     allInterfered.add(radio);
-    destinationsNonInterfered.remove(radio);
+    memberFlags[slot] |= INTERFERED;
+    if ((memberFlags[slot] & DESTINATION_NON_INTERFERED) != 0) {
+      destinationsNonInterfered.remove(radio);
+      memberFlags[slot] &= ~DESTINATION_NON_INTERFERED;
+    }
     if (!isDestination(radio)) {
       onlyInterfered.add(radio);
+      memberFlags[slot] |= ONLY_INTERFERED;
     }
   }
 
@@ -182,7 +217,8 @@ public class RadioConnection {
    * @return True if radio is a non-interfered destination in this connection
    */
   public boolean isDestination(Radio radio) {
-    return destinationsNonInterfered.contains(radio);
+    int slot = findMember(radio);
+    return slot >= 0 && (memberFlags[slot] & DESTINATION_NON_INTERFERED) != 0;
   }
 
   /**
@@ -190,7 +226,8 @@ public class RadioConnection {
    * @return True if radio is interfered in this connection
    */
   public boolean isInterfered(Radio radio) {
-    return allInterfered.contains(radio);
+    int slot = findMember(radio);
+    return slot >= 0 && (memberFlags[slot] & INTERFERED) != 0;
   }
 
   /**
@@ -205,7 +242,7 @@ public class RadioConnection {
    * @return All non-interfered destinations
    */
   public Radio[] getDestinations() {
-    return destinationsNonInterfered.toArray(new Radio[0]);
+    return destinationsNonInterfered.toArray();
   }
 
   /**
@@ -214,30 +251,133 @@ public class RadioConnection {
    * interfered after the connection started.
    */
   public Radio[] getAllDestinations() {
-    return allDestinations.toArray(new Radio[0]);
+    return allDestinations.toArray();
   }
 
   /**
    * @return All radios interfered by this connection, including destinations
    */
   public Radio[] getInterfered() {
-    return allInterfered.toArray(new Radio[0]);
+    return allInterfered.toArray();
   }
 
   public Radio[] getInterferedNonDestinations() {
-    return onlyInterfered.toArray(new Radio[0]);
+    return onlyInterfered.toArray();
   }
 
   public String toString() {
-    if (destinationsNonInterfered.size() == 0) {
+    Radio[] destinations = getDestinations();
+    if (destinations.length == 0) {
       return id + ": Radio connection: " + source.getMote() + " -> none";
     }
-    if (destinationsNonInterfered.size() == 1) {
-      return id + ": Radio connection: " + source.getMote() + " -> " + destinationsNonInterfered.get(0).getMote();
+    if (destinations.length == 1) {
+      return id + ": Radio connection: " + source.getMote() + " -> " + destinations[0].getMote();
+    }
+
+    return id + ": Radio connection: " + source.getMote() + " -> " + destinations.length + " motes";
+
+  }
+
+  private static int hash(Radio radio, int mask) {
+    int h = System.identityHashCode(radio);
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+  /**
+   * @return Slot of radio in member table, or -1
+   */
+  private int findMember(Radio radio) {
+    if (members == null) {
+      return -1;
+    }
+    int mask = members.length - 1;
+    for (int i = hash(radio, mask); members[i] != null; i = (i + 1) & mask) {
+      if (members[i] == radio) {
+        return i;
+      }
     }
+    return -1;
+  }
 
-    return id + ": Radio connection: " + source.getMote() + " -> " + destinationsNonInterfered.size() + " motes";
+  /**
+   * @return Slot of radio in member table, added with no flags if needed
+   */
+  private int addMember(Radio radio) {
+    if (members == null) {
+      members = new Radio[8];
+      memberFlags = new byte[8];
+      memberDelays = new long[8];
+    } else if (2 * (memberCount + 1) > members.length) {
+      /* Keep table at most half full */
+      Radio[] oldMembers = members;
+      byte[] oldFlags = memberFlags;
+      long[] oldDelays = memberDelays;
+      members = new Radio[2 * oldMembers.length];
+      memberFlags = new byte[members.length];
+      memberDelays = new long[members.length];
+      int mask = members.length - 1;
+      for (int j = 0; j < oldMembers.length; j++) {
+        if (oldMembers[j] == null) {
+          continue;
+        }
+        int i = hash(oldMembers[j], mask);
+        while (members[i] != null) {
+          i = (i + 1) & mask;
+        }
+        members[i] = oldMembers[j];
+        memberFlags[i] = oldFlags[j];
+        memberDelays[i] = oldDelays[j];
+      }
+    }
 
+    int mask = members.length - 1;
+    int i = hash(radio, mask);
+    while (members[i] != null) {
+      if (members[i] == radio) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    members[i] = radio;
+    memberCount++;
+    return i;
   }
 
+  /**
+   * Ordered list of radios. The array returned by toArray() is cached until
+   * the list changes, and is never modified.
+   */
+  private static class RadioList {
+    private static final Radio[] EMPTY = new Radio[0];
+
+    private Radio[] radios = EMPTY;
+    private int size = 0;
+    private Radio[] array = EMPTY;
+
+    void add(Radio radio) {
+      if (size == radios.length) {
+        radios = Arrays.copyOf(radios, Math.max(4, 2 * size));
+      }
+      radios[size++] = radio;
+      array = null;
+    }
+
+    void remove(Radio radio) {
+      for (int i = 0; i < size; i++) {
+        if (radios[i] == radio) {
+          System.arraycopy(radios, i + 1, radios, i, size - i - 1);
+          radios[--size] = null;
+          array = null;
+          return;
+        }
+      }
+    }
+
+    Radio[] toArray() {
+      if (array == null) {
+        array = size == 0 ? EMPTY : Arrays.copyOf(radios, size);
+      }
+      return array;
+    }
+  }
 }
@@ -30,6 +30,9 @@
 
 package org.contikios.cooja;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Random;
 
 /**
@@ -40,12 +43,24 @@ import java.util.Random;
  * generator concurrency is introduced, thus it can not be guaranteed
  * that simulations are reproducible.
  *
+ * The generator state is kept here, using the same algorithm as
+ * java.util.Random, so that it can be saved in simulation snapshots.
+ *
  */
 public class SafeRandom extends Random {
   
   Simulation sim = null;
   Thread initThread = null;
   Boolean simStarted = false;
+
+  private static final long MULTIPLIER = 0x5DEECE66DL;
+  private static final long ADDEND = 0xBL;
+  private static final long MASK = (1L << 48) - 1;
+
+  /* Not initialized here: setSeed() is called by the super-constructor */
+  private long seed;
+  private double nextNextGaussian;
+  private boolean haveNextNextGaussian;
   
   private void assertSimThread() {
     // sim can be null, because setSeed is called by the super-constructor.
@@ -85,16 +100,63 @@ public class SafeRandom extends Random {
   
   synchronized public void setSeed(long seed) {
     assertSimThread();
-    super.setSeed(seed);
+    this.seed = (seed ^ MULTIPLIER) & MASK;
+    haveNextNextGaussian = false;
   }
   
   /*
    * This function is called by all functions returning random numbers
    * @see java.util.Random#next(int)
    */
-  protected int next(int bits) {
+  synchronized protected int next(int bits) {
     assertSimThread();
-    return super.next(bits);
+    seed = (seed * MULTIPLIER + ADDEND) & MASK;
+    return (int)(seed >>> (48 - bits));
+  }
+
+  /*
+   * @see java.util.Random#nextGaussian()
+   */
+  synchronized public double nextGaussian() {
+    if (haveNextNextGaussian) {
+      haveNextNextGaussian = false;
+      return nextNextGaussian;
+    }
+    double v1, v2, s;
+    do {
+      v1 = 2 * nextDouble() - 1;
+      v2 = 2 * nextDouble() - 1;
+      s = v1 * v1 + v2 * v2;
+    } while (s >= 1 || s == 0);
+    double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s)/s);
+    nextNextGaussian = v2 * multiplier;
+    haveNextNextGaussian = true;
+    return v1 * multiplier;
+  }
+
+  /**
+   * Writes the generator state.
+   *
+   * @param out Output
+   * @throws IOException On write error
+   * @see #readState(DataInput)
+   */
+  synchronized public void writeState(DataOutput out) throws IOException {
+    out.writeLong(seed);
+    out.writeBoolean(haveNextNextGaussian);
+    out.writeDouble(nextNextGaussian);
+  }
+
+  /**
+   * Restores a generator state written by {@link #writeState(DataOutput)}.
+   *
+   * @param in Input
+   * @throws IOException On read error
+   */
+  synchronized public void readState(DataInput in) throws IOException {
+    seed = in.readLong() & MASK;
+    haveNextNextGaussian = in.readBoolean();
+    nextNextGaussian = in.readDouble();
   }
   
 }
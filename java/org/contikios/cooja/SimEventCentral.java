@@ -29,6 +29,7 @@
 package org.contikios.cooja;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -42,12 +43,17 @@ import org.jdom.Element;
 import org.contikios.cooja.MoteType.MoteTypeCreationException;
 import org.contikios.cooja.interfaces.Log;
 import org.contikios.cooja.util.ArrayUtils;
+import org.contikios.cooja.util.AsyncLogWriter;
 
 /**
  * Simulation event central. Simplifies implementations of plugins that observe
  * motes and mote interfaces by keeping track of added and removed motes. For a
  * selected set of interfaces, the event central also maintains an event
  * history.
+ *
+ * Log output can also be written to files by background threads, see
+ * {@link #addLogOutputWriter(AsyncLogWriter)}. The simulation config may name
+ * such a file for all log output, which is then written also without GUI.
  * 
  * @see LogOutputEvent
  * @author Fredrik Osterlind
@@ -71,6 +77,7 @@ public class SimEventCentral {
 
     /* Log output: notifications and history */
     logOutputListeners = new LogOutputListener[0];
+    logOutputWriters = new AsyncLogWriter[0];
     logOutputEvents = new ArrayDeque<LogOutputEvent>();
   }
   
@@ -203,6 +210,29 @@ public class SimEventCentral {
     public void newLogOutput(LogOutputEvent ev);
   }
   private LogOutputListener[] logOutputListeners;
+
+  /**
+   * Formats log output events as lines with the simulation time in
+   * milliseconds, the mote ID, and the message, separated by tabs.
+   */
+  public static final AsyncLogWriter.EntryFormatter LOG_OUTPUT_FORMAT = new AsyncLogWriter.EntryFormatter() {
+    public String format(Object entry) {
+      LogOutputEvent ev = (LogOutputEvent) entry;
+      return ev.getTime() / Simulation.MILLISECOND + "\tID:" + ev.getMote().getID() + "\t" + ev.msg + "\n";
+    }
+  };
+  private AsyncLogWriter[] logOutputWriters;
+  private MoteCountListener logOutputWriterMotes = new MoteCountListener() {
+    public void moteWasAdded(Mote mote) {
+    }
+    public void moteWasRemoved(Mote mote) {
+    }
+  };
+
+  /* Log output file from simulation config, or null */
+  private String logOutputFileName = null;
+  private AsyncLogWriter logOutputFile = null;
+
   private Observer logOutputObserver = new Observer() {
     public void update(Observable obs, Object obj) {
       Mote mote = (Mote) obj;
@@ -213,6 +243,15 @@ public class SimEventCentral {
       if (msg.length() > 0 && msg.charAt(msg.length() - 1) == '\n') {
         msg = msg.substring(0, msg.length() - 1);
       }
+      LogOutputEvent ev = new LogOutputEvent(mote, simulation.getSimulationTime(), msg);
+
+      /* Queue log output for writer threads */
+      for (AsyncLogWriter w: logOutputWriters) {
+        w.writeEntry(ev);
+      }
+      if (logOutputListeners.length == 0) {
+        return;
+      }
 
       /* We may have to remove some events now */
       while (logOutputEvents.size() > logOutputBufferSize-1) {
@@ -229,7 +268,6 @@ public class SimEventCentral {
       }
 
       /* Store log output, and notify listeners */
-      LogOutputEvent ev = new LogOutputEvent(mote, simulation.getSimulationTime(), msg);
       synchronized (logOutputEvents) {
         logOutputEvents.add(ev);
       }
@@ -239,16 +277,8 @@ public class SimEventCentral {
     }
   };
   public void addLogOutputListener(LogOutputListener listener) {
-    if (logOutputListeners.length == 0) {
-      /* Start observing all log interfaces */
-      Mote[] motes = simulation.getMotes();
-      for (Mote m: motes) {
-        for (MoteInterface mi: m.getInterfaces().getInterfaces()) {
-          if (mi instanceof Log) {
-            moteObservations.add(new MoteObservation(m, mi, logOutputObserver));
-          }
-        }
-      }
+    if (!isObservingLogOutput()) {
+      startObservingLogOutput();
     }
 
     logOutputListeners = ArrayUtils.add(logOutputListeners, listener);
@@ -259,13 +289,8 @@ public class SimEventCentral {
     removeMoteCountListener(listener);
 
     if (logOutputListeners.length == 0) {
-      /* Stop observing all log interfaces */
-      MoteObservation[] observations = moteObservations.toArray(new MoteObservation[0]);
-      for (MoteObservation o: observations) {
-        if (o.getObserver() == logOutputObserver) {
-          o.disconnect();
-          moteObservations.remove(o);
-        }
+      if (!isObservingLogOutput()) {
+        stopObservingLogOutput();
       }
 
       /* Clear logs (TODO config) */
@@ -273,6 +298,61 @@ public class SimEventCentral {
     }
   }
 
+  /**
+   * Writes all new log output to the given writer. Log output events are
+   * queued as entries, and formatted by the writer thread. Must be called
+   * from the simulation thread, or when the simulation is stopped.
+   *
+   * @param writer Writer
+   * @see #LOG_OUTPUT_FORMAT
+   */
+  public void addLogOutputWriter(AsyncLogWriter writer) {
+    if (!isObservingLogOutput()) {
+      startObservingLogOutput();
+    }
+    if (logOutputWriters.length == 0) {
+      addMoteCountListener(logOutputWriterMotes);
+    }
+    logOutputWriters = ArrayUtils.add(logOutputWriters, writer);
+  }
+  public void removeLogOutputWriter(AsyncLogWriter writer) {
+    if (ArrayUtils.indexOf(logOutputWriters, writer) < 0) {
+      return;
+    }
+    logOutputWriters = ArrayUtils.remove(logOutputWriters, writer);
+    if (logOutputWriters.length == 0) {
+      removeMoteCountListener(logOutputWriterMotes);
+    }
+    if (!isObservingLogOutput()) {
+      stopObservingLogOutput();
+    }
+  }
+
+  private boolean isObservingLogOutput() {
+    return logOutputListeners.length > 0 || logOutputWriters.length > 0;
+  }
+  private void startObservingLogOutput() {
+    /* Start observing all log interfaces */
+    Mote[] motes = simulation.getMotes();
+    for (Mote m: motes) {
+      for (MoteInterface mi: m.getInterfaces().getInterfaces()) {
+        if (mi instanceof Log) {
+          moteObservations.add(new MoteObservation(m, mi, logOutputObserver));
+        }
+      }
+    }
+  }
+  private void stopObservingLogOutput() {
+    /* Stop observing all log interfaces */
+    MoteObservation[] observations = moteObservations.toArray(new MoteObservation[0]);
+    for (MoteObservation o: observations) {
+      if (o.getObserver() == logOutputObserver) {
+        o.disconnect();
+        moteObservations.remove(o);
+      }
+    }
+  }
+
   public LogOutputEvent[] getLogOutputHistory() {
     synchronized (logOutputEvents) {
       return logOutputEvents.toArray(new LogOutputEvent[0]);
@@ -309,7 +389,7 @@ public class SimEventCentral {
   
   /* HELP METHODS: MAINTAIN OBSERVERS */
   private void moteWasAdded(Mote mote) {
-    if (logOutputListeners.length > 0) {
+    if (isObservingLogOutput()) {
       /* Add another log output observation.
        * (Supports multiple log interfaces per mote) */
       for (MoteInterface mi: mote.getInterfaces().getInterfaces()) {
@@ -339,6 +419,7 @@ public class SimEventCentral {
     "\nMote count listeners: " + moteCountListeners.length +
     "\n" +
     "\nLog output listeners: " + logOutputListeners.length +
+    "\nLog output writers: " + logOutputWriters.length +
     "\nLog output history: " + logOutputEvents.size()
     ;
   }
@@ -353,6 +434,13 @@ public class SimEventCentral {
     element.setText("" + logOutputBufferSize);
     config.add(element);
 
+    /* Log output file */
+    if (logOutputFileName != null) {
+      element = new Element("logfile");
+      element.setText(logOutputFileName);
+      config.add(element);
+    }
+
     return config;
   }
 
@@ -363,9 +451,52 @@ public class SimEventCentral {
       String name = element.getName();
       if (name.equals("logoutput")) {
         logOutputBufferSize = Integer.parseInt(element.getText());
+      } else if (name.equals("logfile")) {
+        setLogOutputFile(element.getText());
       }
     }
     return true;
   }
+
+  /**
+   * Writes all log output to the given file, named *.gz for gzip compression.
+   * A relative file name is relative to the test output directory.
+   *
+   * @param fileName File name, or null to stop writing
+   * @see Cooja#getLogDirectory()
+   */
+  public void setLogOutputFile(String fileName) {
+    if (logOutputFile != null) {
+      removeLogOutputWriter(logOutputFile);
+      logOutputFile.close();
+      logOutputFile = null;
+    }
+    logOutputFileName = fileName;
+    if (fileName == null) {
+      return;
+    }
+
+    File file = new File(fileName);
+    if (!file.isAbsolute()) {
+      file = new File(simulation.getCooja().getLogDirectory(), fileName);
+    }
+    try {
+      logOutputFile = new AsyncLogWriter(file, false, LOG_OUTPUT_FORMAT);
+      addLogOutputWriter(logOutputFile);
+    } catch (IOException e) {
+      logger.fatal("Could not open log output file " + file + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Called when the simulation is removed. Writes and closes the log output file.
+   */
+  public void removed() {
+    if (logOutputFile != null) {
+      removeLogOutputWriter(logOutputFile);
+      logOutputFile.close();
+      logOutputFile = null;
+    }
+  }
   
 }
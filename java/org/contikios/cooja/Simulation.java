@@ -28,6 +28,8 @@
 
 package org.contikios.cooja;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -243,6 +245,61 @@ public class Simulation extends Observable implements Runnable {
     }
   };
 
+  /**
+   * Saves a snapshot of the simulation state to the given file.
+   * The snapshot is saved between simulation events, as soon as the
+   * simulation is at a quiescent point. May be called from any thread, such
+   * as from test scripts.
+   *
+   * @param file Snapshot file
+   * @see SimulationSnapshot
+   */
+  public void saveSnapshot(final File file) {
+    final TimeEvent saveEvent = new TimeEvent(0) {
+      public void execute(long t) {
+        if (!SimulationSnapshot.isQuiescent(Simulation.this)) {
+          scheduleEvent(this, t + MILLISECOND);
+          return;
+        }
+        try {
+          SimulationSnapshot.save(Simulation.this, file);
+        } catch (IOException e) {
+          logger.error("Failed to save simulation snapshot: " + e.getMessage(), e);
+        }
+      }
+      public String toString() {
+        return "SNAPSHOT: " + file;
+      }
+    };
+
+    if (!isRunning()) {
+      saveEvent.execute(getSimulationTime());
+    } else {
+      invokeSimulationThread(new Runnable() {
+        public void run() {
+          scheduleEvent(saveEvent, getSimulationTime());
+        }
+      });
+    }
+  }
+
+  /**
+   * @param fileName Snapshot file name
+   * @see #saveSnapshot(File)
+   */
+  public void saveSnapshot(String fileName) {
+    saveSnapshot(new File(fileName));
+  }
+
+  /**
+   * Should only be called from simulation thread!
+   *
+   * @return All scheduled events, in no particular order
+   */
+  TimeEvent[] getScheduledEvents() {
+    return eventQueue.getScheduledEvents();
+  }
+
   public void clearEvents() {
     eventQueue.removeAll();
     pollRequests.clear();
@@ -291,7 +348,9 @@ public class Simulation extends Observable implements Runnable {
     	} else {
 
     		logger.fatal("Simulation stopped due to error: " + e.getMessage(), e);
-    		if (!Cooja.isVisualized()) {
+    		if (cooja.isBatchRun()) {
+    		  /* Only this run of the batch is aborted, see BatchRunner */
+    		} else if (!Cooja.isVisualized()) {
     			/* Quit simulator if in test mode */
     			System.exit(1);
     		} else {
@@ -550,6 +609,27 @@ public class Simulation extends Observable implements Runnable {
   public boolean isQuickSetup() {
       return quick;
   }
+
+  /* Reuse firmware compiled by earlier mote types, such as of earlier batch runs */
+  private boolean reuseCompiledFirmware = false;
+
+  /**
+   * Enables or disables reuse of compiled firmware by mote types of this
+   * simulation. A mote type reusing firmware loads a copy of the firmware last
+   * compiled in this JVM from the same application, compile commands and mote
+   * interfaces, instead of compiling it again.
+   *
+   * Must be set before the mote types are configured. Simulations of a batch
+   * run reuse compiled firmware.
+   *
+   * @param reuse Reuse compiled firmware
+   */
+  public void setReuseCompiledFirmware(boolean reuse) {
+    reuseCompiledFirmware = reuse;
+  }
+  public boolean isReuseCompiledFirmware() {
+    return reuseCompiledFirmware;
+  }
   
   /**
    * Sets the current simulation config depending on the given configuration.
@@ -784,15 +864,7 @@ public class Simulation extends Observable implements Runnable {
 
         /* Loop through all scheduled events.
          * Delete all events associated with deleted mote. */
-        TimeEvent ev = eventQueue.peekFirst();
-        while (ev != null) {
-          if (ev instanceof MoteTimeEvent) {
-            if (((MoteTimeEvent)ev).getMote() == mote) {
-              ev.remove();
-            }
-          }
-          ev = ev.nextEvent;
-        }
+        eventQueue.removeMoteEvents(mote);
       }
     };
 
@@ -822,6 +894,8 @@ public class Simulation extends Observable implements Runnable {
     for (Mote m: motes) {
       removeMote(m);
     }
+
+    eventCentral.removed();
   }
 
   /**
@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.log4j.Logger;
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.JDOMException;
+import org.jdom.input.SAXBuilder;
+import org.jdom.output.XMLOutputter;
+
+import org.contikios.cooja.interfaces.Clock;
+import org.contikios.cooja.motes.AbstractWakeupMote;
+import org.contikios.cooja.radiomediums.AbstractRadioMedium;
+
+/**
+ * Compressed binary snapshot of a simulation, used to continue a simulation
+ * from a given time instead of running it from the start.
+ *
+ * A snapshot contains the simulation config, the simulation time, the random
+ * generator state, and the clock drift, next wakeup time and state of every
+ * mote. All motes must implement {@link SnapshotMote}.
+ *
+ * Other scheduled events are not saved. When restored, the simulation and
+ * its plugins are created from the config at the snapshot time, and plugins
+ * and scripts schedule their events anew. Snapshots are therefore only saved
+ * at a quiescent point: no radio transmissions are in progress, and no mote
+ * events other than mote wakeups are scheduled, such as serial data or
+ * button releases still to be delivered.
+ *
+ * MspMote, and other emulated motes, do not implement SnapshotMote: the
+ * emulated CPU and peripheral state is not saved, so simulations with such
+ * motes cannot be saved.
+ *
+ * @see Simulation#saveSnapshot(File)
+ * @see Cooja#loadSimulationSnapshot(File, boolean)
+ */
+public class SimulationSnapshot {
+  private static Logger logger = Logger.getLogger(SimulationSnapshot.class);
+
+  private static final int MAGIC = 0x43534e50; /* "CSNP" */
+  private static final int VERSION = 2;
+
+  private final Element config;
+  private final long simulationTime;
+  private final byte[] randomState;
+  private final ArrayList<MoteState> moteStates;
+
+  private static class MoteState {
+    final int id;
+    final boolean hasClock;
+    final long clockDrift;
+    final long nextWakeup;
+    final byte[] state;
+
+    MoteState(int id, boolean hasClock, long clockDrift, long nextWakeup, byte[] state) {
+      this.id = id;
+      this.hasClock = hasClock;
+      this.clockDrift = clockDrift;
+      this.nextWakeup = nextWakeup;
+      this.state = state;
+    }
+  }
+
+  private SimulationSnapshot(Element config, long simulationTime, byte[] randomState,
+      ArrayList<MoteState> moteStates) {
+    this.config = config;
+    this.simulationTime = simulationTime;
+    this.randomState = randomState;
+    this.moteStates = moteStates;
+  }
+
+  /**
+   * @return Simulation config, including plugins
+   */
+  public Element getConfig() {
+    return config;
+  }
+
+  /**
+   * @return Simulation time of snapshot
+   */
+  public long getSimulationTime() {
+    return simulationTime;
+  }
+
+  /**
+   * @param sim Simulation
+   * @return True if radio transmissions are in progress
+   */
+  public static boolean hasActiveTransmissions(Simulation sim) {
+    RadioMedium radioMedium = sim.getRadioMedium();
+    return radioMedium instanceof AbstractRadioMedium
+        && ((AbstractRadioMedium) radioMedium).getActiveConnections().length > 0;
+  }
+
+  /**
+   * Returns true if the simulation is at a quiescent point, where all its
+   * state is included in a snapshot. Must be called from the simulation
+   * thread, or when the simulation is stopped.
+   *
+   * @param sim Simulation
+   * @return True if a snapshot can be saved now
+   */
+  public static boolean isQuiescent(Simulation sim) {
+    return getUnsavedState(sim) == null;
+  }
+
+  /**
+   * @param sim Simulation
+   * @return Description of state not included in a snapshot, or null
+   */
+  private static String getUnsavedState(Simulation sim) {
+    if (hasActiveTransmissions(sim)) {
+      return "Radio transmissions in progress";
+    }
+    for (TimeEvent event: sim.getScheduledEvents()) {
+      if (!(event instanceof MoteTimeEvent)) {
+        continue;
+      }
+      Mote mote = ((MoteTimeEvent) event).getMote();
+      if (!(mote instanceof AbstractWakeupMote) || !((AbstractWakeupMote) mote).isWakeupEvent(event)) {
+        return "Mote event scheduled: " + event;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Saves a snapshot of the given simulation.
+   * Must be called from the simulation thread between simulation events, or
+   * when the simulation is stopped.
+   *
+   * @param sim Simulation
+   * @param file Snapshot file
+   * @throws IOException On write error, or if the simulation cannot be saved
+   * @see #isQuiescent(Simulation)
+   */
+  public static void save(Simulation sim, File file) throws IOException {
+    for (Mote mote: sim.getMotes()) {
+      if (!(mote instanceof SnapshotMote)) {
+        throw new IOException("Mote does not support snapshots: " + mote);
+      }
+    }
+    String unsavedState = getUnsavedState(sim);
+    if (unsavedState != null) {
+      throw new IOException(unsavedState);
+    }
+
+    byte[] configData = new XMLOutputter().outputString(
+        new Document(sim.getCooja().extractSimulationConfig())).getBytes(StandardCharsets.UTF_8);
+
+    DataOutputStream out = new DataOutputStream(new GZIPOutputStream(
+        new BufferedOutputStream(new FileOutputStream(file))));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(configData.length);
+      out.write(configData);
+      out.writeLong(sim.getSimulationTime());
+
+      ByteArrayOutputStream randomData = new ByteArrayOutputStream();
+      DataOutputStream randomOut = new DataOutputStream(randomData);
+      ((SafeRandom) sim.getRandomGenerator()).writeState(randomOut);
+      randomOut.flush();
+      out.writeInt(randomData.size());
+      randomData.writeTo(out);
+
+      Mote[] motes = sim.getMotes();
+      out.writeInt(motes.length);
+      ByteArrayOutputStream moteData = new ByteArrayOutputStream();
+      for (Mote mote: motes) {
+        Clock clock = mote.getInterfaces().getClock();
+        moteData.reset();
+        DataOutputStream moteOut = new DataOutputStream(moteData);
+        ((SnapshotMote) mote).writeSnapshot(moteOut);
+        moteOut.flush();
+
+        out.writeInt(mote.getID());
+        out.writeBoolean(clock != null);
+        out.writeLong(clock != null ? clock.getDrift() : 0);
+        out.writeLong(mote instanceof AbstractWakeupMote ? ((AbstractWakeupMote) mote).getNextWakeupTime() : -1);
+        out.writeInt(moteData.size());
+        moteData.writeTo(out);
+      }
+    } finally {
+      out.close();
+    }
+    logger.info("Saved simulation snapshot at " + sim.getSimulationTimeMillis() + " ms: " + file);
+  }
+
+  /**
+   * @param file File
+   * @return True if file is a simulation snapshot
+   */
+  public static boolean isSnapshot(File file) {
+    try {
+      DataInputStream in = new DataInputStream(new GZIPInputStream(new FileInputStream(file)));
+      try {
+        return in.readInt() == MAGIC;
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Reads a snapshot from file.
+   *
+   * @param file Snapshot file
+   * @return Snapshot
+   * @throws IOException On read error, or if the file is not a snapshot
+   */
+  public static SimulationSnapshot read(File file) throws IOException {
+    DataInputStream in = new DataInputStream(new GZIPInputStream(
+        new BufferedInputStream(new FileInputStream(file))));
+    try {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Not a simulation snapshot: " + file);
+      }
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported snapshot version: " + version);
+      }
+
+      byte[] configData = new byte[in.readInt()];
+      in.readFully(configData);
+      Element config;
+      try {
+        config = new SAXBuilder().build(
+            new StringReader(new String(configData, StandardCharsets.UTF_8))).getRootElement();
+      } catch (JDOMException e) {
+        throw new IOException("Snapshot config not wellformed: " + e.getMessage(), e);
+      }
+
+      long simulationTime = in.readLong();
+      byte[] randomState = new byte[in.readInt()];
+      in.readFully(randomState);
+
+      int nrMotes = in.readInt();
+      ArrayList<MoteState> moteStates = new ArrayList<MoteState>(nrMotes);
+      for (int i=0; i < nrMotes; i++) {
+        int id = in.readInt();
+        boolean hasClock = in.readBoolean();
+        long clockDrift = in.readLong();
+        long nextWakeup = in.readLong();
+        byte[] state = new byte[in.readInt()];
+        in.readFully(state);
+        moteStates.add(new MoteState(id, hasClock, clockDrift, nextWakeup, state));
+      }
+      return new SimulationSnapshot(config, simulationTime, randomState, moteStates);
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Restores the saved state of a simulation created from the snapshot
+   * config at the snapshot time. Must be called before the simulation is
+   * started and before any plugins are started.
+   *
+   * @param sim Simulation
+   * @throws IOException If the simulation does not match the snapshot
+   */
+  public void restore(Simulation sim) throws IOException {
+    if (sim.getSimulationTime() != simulationTime) {
+      throw new IOException("Simulation not created at snapshot time");
+    }
+    ((SafeRandom) sim.getRandomGenerator()).readState(
+        new DataInputStream(new ByteArrayInputStream(randomState)));
+
+    Mote[] motes = sim.getMotes();
+    if (motes.length != moteStates.size()) {
+      throw new IOException("Snapshot has " + moteStates.size() + " motes, simulation has " + motes.length);
+    }
+    for (int i=0; i < motes.length; i++) {
+      Mote mote = motes[i];
+      MoteState state = moteStates.get(i);
+      if (mote.getID() != state.id || !(mote instanceof SnapshotMote)) {
+        throw new IOException("Snapshot mote " + state.id + " does not match " + mote);
+      }
+      Clock clock = mote.getInterfaces().getClock();
+      if (state.hasClock && clock != null) {
+        clock.setDrift(state.clockDrift);
+      }
+      ((SnapshotMote) mote).readSnapshot(new DataInputStream(new ByteArrayInputStream(state.state)));
+
+      if (mote instanceof AbstractWakeupMote) {
+        /* Replaces the immediate wakeup requested when the mote was created */
+        final AbstractWakeupMote wakeupMote = (AbstractWakeupMote) mote;
+        final long nextWakeup = state.nextWakeup;
+        sim.invokeSimulationThread(new Runnable() {
+          public void run() {
+            wakeupMote.setNextWakeupTime(nextWakeup);
+          }
+        });
+      }
+    }
+  }
+}
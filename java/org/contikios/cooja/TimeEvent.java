@@ -34,8 +34,9 @@ package org.contikios.cooja;
  * @author Joakim Eriksson (ported to COOJA by Fredrik Osterlind)
  */
 public abstract class TimeEvent {
-  TimeEvent nextEvent;
-  TimeEvent prevEvent;
+  /* Event queue bookkeeping: heap position and insertion order */
+  int queueIndex = -1;
+  long queueOrder;
 
   EventQueue queue = null;
   String name;
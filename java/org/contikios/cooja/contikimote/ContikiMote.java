@@ -30,8 +30,14 @@
 
 package org.contikios.cooja.contikimote;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.log4j.Logger;
 import org.jdom.Element;
@@ -41,7 +47,11 @@ import org.contikios.cooja.MoteInterfaceHandler;
 import org.contikios.cooja.MoteType;
 import org.contikios.cooja.mote.memory.SectionMoteMemory;
 import org.contikios.cooja.Simulation;
+import org.contikios.cooja.SnapshotMote;
 import org.contikios.cooja.mote.memory.MemoryInterface;
+import org.contikios.cooja.mote.memory.MemoryLayout;
+import org.contikios.cooja.mote.memory.UnknownVariableException;
+import org.contikios.cooja.mote.memory.VarMemory;
 import org.contikios.cooja.motes.AbstractWakeupMote;
 
 /**
@@ -59,11 +69,13 @@ import org.contikios.cooja.motes.AbstractWakeupMote;
  *
  * @author      Fredrik Osterlind
  */
-public class ContikiMote extends AbstractWakeupMote implements Mote {
+public class ContikiMote extends AbstractWakeupMote implements Mote, SnapshotMote {
   private static Logger logger = Logger.getLogger(ContikiMote.class);
 
   private ContikiMoteType myType = null;
   private SectionMoteMemory myMemory = null;
+  /* Private Contiki system, or null if sharing the mote type's */
+  private ContikiMoteType.MoteCore myCore = null;
   private MoteInterfaceHandler myInterfaceHandler = null;
 
   /**
@@ -77,12 +89,21 @@ public class ContikiMote extends AbstractWakeupMote implements Mote {
   public ContikiMote(ContikiMoteType moteType, Simulation sim) {
     setSimulation(sim);
     this.myType = moteType;
-    this.myMemory = moteType.createInitialMemory();
+    this.myCore = moteType.createMoteCore();
+    this.myMemory = moteType.createInitialMemory(myCore);
     this.myInterfaceHandler = new MoteInterfaceHandler(this, moteType.getMoteInterfaceClasses());
 
     requestImmediateWakeup();
   }
 
+  @Override
+  public void removed() {
+    if (myCore != null) {
+      myCore.removed();
+      myCore = null;
+    }
+  }
+
   @Override
   public int getID() {
     return myInterfaceHandler.getMoteID().getMoteID();
@@ -138,14 +159,22 @@ public class ContikiMote extends AbstractWakeupMote implements Mote {
       return;
     }
 
-    /* Copy mote memory to Contiki */
-    myType.setCoreMemory(myMemory);
-
-    /* Handle a single Contiki events */
-    myType.tick();
-
-    /* Copy mote memory from Contiki */
-    myType.getCoreMemory(myMemory);
+    if (myCore != null) {
+      /* Private Contiki system: copy only memory modified by Cooja,
+       * and fetch memory from Contiki when accessed */
+      myCore.setMemory(myMemory);
+      myCore.tick();
+      myCore.getMemory(myMemory);
+    } else {
+      /* Copy mote memory to Contiki */
+      myType.setCoreMemory(myMemory);
+
+      /* Handle a single Contiki events */
+      myType.tick();
+
+      /* Copy mote memory from Contiki */
+      myType.getCoreMemory(myMemory);
+    }
 
     /* Poll mote interfaces */
     myMemory.pollForMemoryChanges();
@@ -182,7 +211,10 @@ public class ContikiMote extends AbstractWakeupMote implements Mote {
   @Override
   public boolean setConfigXML(Simulation simulation, Collection<Element> configXML, boolean visAvailable) {
     setSimulation(simulation);
-    myMemory = myType.createInitialMemory();
+    if (myCore == null) {
+      myCore = myType.createMoteCore();
+    }
+    myMemory = myType.createInitialMemory(myCore);
     myInterfaceHandler = new MoteInterfaceHandler(this, myType.getMoteInterfaceClasses());
 
     for (Element element: configXML) {
@@ -219,6 +251,133 @@ public class ContikiMote extends AbstractWakeupMote implements Mote {
     return true;
   }
 
+  /**
+   * Writes the mote memory, i.e. the complete state of the Contiki system.
+   * Each section is written relative to its start address. The load address
+   * of the Contiki system and the extent of its loaded image are included,
+   * since the memory contains absolute pointers into the image.
+   */
+  @Override
+  public void writeSnapshot(DataOutputStream out) throws IOException {
+    long loadAddress = getLoadAddress();
+    out.writeLong(loadAddress);
+    out.writeLong(getImageEnd() - loadAddress);
+    Map<String, MemoryInterface> sections = new TreeMap<String, MemoryInterface>(myMemory.getSections());
+    out.writeInt(sections.size());
+    for (Map.Entry<String, MemoryInterface> entry : sections.entrySet()) {
+      MemoryInterface section = entry.getValue();
+      out.writeUTF(entry.getKey());
+      out.writeInt(section.getTotalSize());
+      out.write(section.getMemorySegment(section.getStartAddr(), section.getTotalSize()));
+    }
+  }
+
+  /**
+   * Restores the mote memory.
+   *
+   * The Contiki system is usually loaded at another address than when the
+   * snapshot was saved, as each JVM, and each private library copy, maps the
+   * library elsewhere. Pointers into the old image are then rebased by the
+   * difference between the old and new load address, as given by
+   * referenceVar. Without type information, a pointer is any aligned
+   * pointer-sized word whose value lies inside the old image. This is only
+   * done for 64-bit layouts, where ordinary integer data practically never
+   * falls inside a mapped library; other snapshots must be restored at the
+   * same load address.
+   */
+  @Override
+  public void readSnapshot(DataInputStream in) throws IOException {
+    long oldLoadAddress = in.readLong();
+    long oldImageSize = in.readLong();
+    long loadAddress = getLoadAddress();
+    long shift = loadAddress - oldLoadAddress;
+    MemoryLayout layout = myMemory.getLayout();
+    if (shift != 0 && layout.addrSize != MemoryLayout.ARCH_64BIT) {
+      throw new IOException(String.format(
+          "Contiki system loaded at 0x%x, but snapshot was saved at 0x%x: " +
+          "pointers can only be rebased for 64-bit layouts",
+          loadAddress, oldLoadAddress));
+    }
+    int nrSections = in.readInt();
+    if (nrSections != myMemory.getNumberOfSections()) {
+      throw new IOException("Memory sections do not match snapshot");
+    }
+
+    int rebased = 0;
+    for (int i = 0; i < nrSections; i++) {
+      String name = in.readUTF();
+      MemoryInterface section = myMemory.getSection(name);
+      int size = in.readInt();
+      if (section == null || section.getTotalSize() != size) {
+        throw new IOException("Memory section " + name + " does not match snapshot");
+      }
+      byte[] data = new byte[size];
+      in.readFully(data);
+      if (shift != 0) {
+        rebased += rebasePointers(data, section.getStartAddr(), layout,
+            oldLoadAddress, oldLoadAddress + oldImageSize, shift);
+      }
+      section.setMemorySegment(section.getStartAddr(), data);
+    }
+    if (shift != 0) {
+      logger.info(String.format("%s: rebased %d pointers from 0x%x to 0x%x",
+          this, rebased, oldLoadAddress, loadAddress));
+    }
+  }
+
+  /**
+   * Adds shift to all aligned pointers in data that point into [start, end).
+   *
+   * @param data Section data
+   * @param addr Current section start address
+   * @param layout Memory layout
+   * @param start Old image start address
+   * @param end Old image end address
+   * @param shift Load address difference
+   * @return Number of rebased pointers
+   */
+  private static int rebasePointers(byte[] data, long addr, MemoryLayout layout,
+      long start, long end, long shift) {
+    ByteBuffer buffer = ByteBuffer.wrap(data).order(layout.order);
+    int first = (int) ((layout.addrSize - addr % layout.addrSize) % layout.addrSize);
+    int rebased = 0;
+    for (int pos = first; pos + layout.addrSize <= data.length; pos += layout.addrSize) {
+      long value = buffer.getLong(pos);
+      if (value >= start && value < end) {
+        buffer.putLong(pos, value + shift);
+        rebased++;
+      }
+    }
+    return rebased;
+  }
+
+  /**
+   * @return Address the Contiki system is loaded at
+   */
+  private long getLoadAddress() throws IOException {
+    try {
+      /* referenceVar holds the offset between Contiki and library addresses */
+      return new VarMemory(myMemory).getAddrValueOf("referenceVar") & addressMask(myMemory.getLayout());
+    } catch (UnknownVariableException e) {
+      throw new IOException("No reference variable: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * @return End address of the loaded image, i.e. of its last data section
+   */
+  private long getImageEnd() {
+    long end = 0;
+    for (MemoryInterface section : myMemory.getSections().values()) {
+      end = Math.max(end, section.getStartAddr() + section.getTotalSize());
+    }
+    return end;
+  }
+
+  private static long addressMask(MemoryLayout layout) {
+    return layout.addrSize >= 8 ? -1L : (1L << (8 * layout.addrSize)) - 1;
+  }
+
   @Override
   public String toString() {
     return "Contiki " + getID();
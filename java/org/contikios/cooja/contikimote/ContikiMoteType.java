@@ -37,12 +37,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Random;
 import java.util.regex.Matcher;
@@ -69,8 +73,10 @@ import org.contikios.cooja.dialogs.ContikiMoteCompileDialog;
 import org.contikios.cooja.dialogs.MessageList;
 import org.contikios.cooja.dialogs.MessageContainer;
 import org.contikios.cooja.mote.memory.ArrayMemory;
+import org.contikios.cooja.mote.memory.ByteBufferMemory;
 import org.contikios.cooja.mote.memory.MemoryInterface;
 import org.contikios.cooja.mote.memory.MemoryInterface.Symbol;
+import org.contikios.cooja.mote.memory.MemoryBuffer;
 import org.contikios.cooja.mote.memory.MemoryLayout;
 import org.contikios.cooja.mote.memory.UnknownVariableException;
 import org.contikios.cooja.mote.memory.VarMemory;
@@ -113,6 +119,11 @@ public class ContikiMoteType implements MoteType {
    */
   final static public String mapSuffix = ".map";
 
+  /**
+   * Symbol cache file suffix
+   */
+  final static public String symbolsSuffix = ".symbols";
+
   /**
    * Make archive file suffix
    */
@@ -212,9 +223,142 @@ public class ContikiMoteType implements MoteType {
   // Initial memory for all motes of this type
   private SectionMoteMemory initialMemory = null;
 
+  /* Copy only modified memory pages to the Contiki system */
+  private boolean pagedMemorySwap = true;
+
+  /* Load a private copy of the library for every mote */
+  private boolean libraryPerMote = false;
+
+  /* Map private library memory via direct buffers, if supported */
+  private boolean mappedMemory = true;
+
+  /* Load a copy of firmware compiled by an earlier mote type */
+  private boolean reusedFirmware = false;
+  private File reusedFirmwareCopy = null;
+
+  /* Relative address of Contiki's referenceVar */
+  private int referenceVarAddr;
+
+  /* Memory last fetched from the Contiki system */
+  private SectionMoteMemory coreMemoryOwner = null;
+  private byte[] swapBuffer = null;
+
   /** Offset between native (cooja) and contiki address space */
   long offset;
 
+  /* Firmware compiled by earlier mote types, see Simulation.setReuseCompiledFirmware() */
+  private static final HashMap<String, CompiledFirmware> compiledFirmware = new HashMap<>();
+
+  /* Library copies not yet deleted, and the shutdown hook deleting them */
+  private static final HashSet<File> libraryCopies = new HashSet<>();
+  private static Thread libraryCopiesHook = null;
+
+  private static class CompiledFirmware {
+    final String javaClassName;
+    final File libFile;
+    final File mapFile;
+
+    CompiledFirmware(String javaClassName, File libFile, File mapFile) {
+      this.javaClassName = javaClassName;
+      this.libFile = libFile;
+      this.mapFile = mapFile;
+    }
+  }
+
+  /**
+   * Returns the firmware last compiled with the given key, if its library
+   * still exists. A mote type reusing firmware is not compiled. Instead, it
+   * loads a private copy of the earlier compiled library, and hence shares no
+   * native state with other mote types.
+   *
+   * @param key Firmware key
+   * @return Compiled firmware, or null
+   * @see Simulation#setReuseCompiledFirmware(boolean)
+   */
+  private static synchronized CompiledFirmware getCompiledFirmware(String key) {
+    CompiledFirmware firmware = compiledFirmware.get(key);
+    if (firmware == null || !firmware.libFile.exists()) {
+      return null;
+    }
+    return firmware;
+  }
+
+  private static synchronized void putCompiledFirmware(String key, CompiledFirmware firmware) {
+    compiledFirmware.put(key, firmware);
+  }
+
+  /**
+   * Registers a library copy to be deleted when the JVM exits, unless
+   * deleted earlier by {@link #deleteLibraryCopy(File)}. A single shutdown
+   * hook covers all copies, and is removed when no copies remain.
+   *
+   * @param file Library copy
+   */
+  private static synchronized void addLibraryCopy(File file) {
+    if (libraryCopiesHook == null) {
+      libraryCopiesHook = new Thread(new Runnable() {
+        public void run() {
+          synchronized (ContikiMoteType.class) {
+            for (File f: libraryCopies) {
+              f.delete();
+            }
+            libraryCopies.clear();
+          }
+        }
+      }, "delete library copies");
+      Runtime.getRuntime().addShutdownHook(libraryCopiesHook);
+    }
+    libraryCopies.add(file);
+  }
+
+  /**
+   * Deletes a library copy now.
+   *
+   * @param file Library copy
+   */
+  private static synchronized void deleteLibraryCopy(File file) {
+    if (!file.delete()) {
+      logger.warn("Could not delete Contiki library copy: " + file);
+    }
+    libraryCopies.remove(file);
+    if (libraryCopies.isEmpty() && libraryCopiesHook != null) {
+      try {
+        Runtime.getRuntime().removeShutdownHook(libraryCopiesHook);
+      } catch (IllegalStateException e) {
+        /* JVM shutting down, hook is already running */
+      }
+      libraryCopiesHook = null;
+    }
+  }
+
+  /**
+   * Called when the simulation of this mote type is removed. Deletes the
+   * library copy loaded when reusing compiled firmware.
+   */
+  public void removed() {
+    if (reusedFirmwareCopy != null) {
+      deleteLibraryCopy(reusedFirmwareCopy);
+      reusedFirmwareCopy = null;
+    }
+  }
+
+  /**
+   * @return Key identifying firmware compiled from this mote type's configuration
+   */
+  private String getFirmwareKey() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(getContikiSourceFile().getAbsolutePath()).append('\n');
+    sb.append(getCompileCommands()).append('\n');
+    sb.append(netStack.getConfig()).append('\n');
+    sb.append(hasSystemSymbols).append('\n');
+    if (moteInterfacesClasses != null) {
+      for (Class<? extends MoteInterface> moteInterface: moteInterfacesClasses) {
+        sb.append(moteInterface.getName()).append('\n');
+      }
+    }
+    return sb.toString();
+  }
+
   /**
    * Creates a new uninitialized Cooja mote type. This mote type needs to load
    * a library file and parse a map file before it can be used.
@@ -254,6 +398,24 @@ public class ContikiMoteType implements MoteType {
         throw new MoteTypeCreationException("No Contiki application specified");
       }
 
+      /* Reuse firmware compiled by an earlier mote type */
+      String firmwareKey = getFirmwareKey();
+      CompiledFirmware compiled = null;
+      if (simulation.isReuseCompiledFirmware()) {
+        compiled = getCompiledFirmware(firmwareKey);
+      }
+      if (compiled != null) {
+        logger.info("Reusing compiled Contiki firmware: " + compiled.libFile);
+        contikiApp = getContikiSourceFile();
+        libFile = compiled.libFile;
+        mapFile = compiled.mapFile;
+        javaClassName = compiled.javaClassName;
+        setContikiFirmwareFile(compiled.libFile);
+        reusedFirmware = true;
+        doInit();
+        return true;
+      }
+
       /* Create variables used for compiling Contiki */
       contikiApp = getContikiSourceFile();
       libSource = new File(
@@ -362,6 +524,10 @@ public class ContikiMoteType implements MoteType {
               || !getContikiFirmwareFile().exists()) {
         throw new MoteTypeCreationException("Contiki firmware file does not exist: " + getContikiFirmwareFile());
       }
+
+      doInit();
+      putCompiledFirmware(firmwareKey, new CompiledFirmware(javaClassName, libFile, mapFile));
+      return true;
     }
 
     /* Load compiled library */
@@ -376,6 +542,19 @@ public class ContikiMoteType implements MoteType {
     return new File(parentDir, sourceNoExtension + librarySuffix);
   }
 
+  /**
+   * @return Symbol cache file, next to the Contiki firmware
+   * @see SymbolCache
+   */
+  private File getSymbolCacheFile() {
+    File firmware = getContikiFirmwareFile();
+    String name = firmware.getName();
+    if (name.endsWith(librarySuffix)) {
+      name = name.substring(0, name.length() - librarySuffix.length());
+    }
+    return new File(firmware.getParentFile(), name + symbolsSuffix);
+  }
+
   /**
    * For internal use.
    *
@@ -404,7 +583,26 @@ public class ContikiMoteType implements MoteType {
 
     // Allocate core communicator class
     logger.debug("Creating core communicator between Java class " + javaClassName + " and Contiki library '" + getContikiFirmwareFile().getPath() + "'");
-    myCoreComm = CoreComm.createCoreComm(this.javaClassName, getContikiFirmwareFile());
+    if (reusedFirmware) {
+      /* Core communicator class already exists: load a private library copy */
+      try {
+        reusedFirmwareCopy = copyFirmware();
+        myCoreComm = CoreComm.createCoreCommInstance(this.javaClassName, reusedFirmwareCopy);
+      } catch (IOException e) {
+        throw new MoteTypeCreationException("Could not copy Contiki library: " + e.getMessage(), e);
+      }
+    } else {
+      myCoreComm = CoreComm.createCoreComm(this.javaClassName, getContikiFirmwareFile());
+    }
+
+    /* Memory swap mode: "full", "paged" (default), or "none" (private library per mote) */
+    String swapMode = Cooja.getExternalToolsSetting("CONTIKI_MEMORY_SWAP", "paged");
+    pagedMemorySwap = "paged".equals(swapMode);
+    libraryPerMote = "none".equals(swapMode);
+
+    /* Requires libraryPerMote. Libraries not implementing getMemoryBuffer fall back to copying */
+    mappedMemory = libraryPerMote
+            && Boolean.parseBoolean(Cooja.getExternalToolsSetting("CONTIKI_MEMORY_MAP", "true"));
 
     /* Parse addresses using map file
      * or output of command specified in external tools settings (e.g. nm -a )
@@ -417,7 +615,46 @@ public class ContikiMoteType implements MoteType {
     SectionParser readonlySecParser = null;
 
     HashMap<String, Symbol> variables = new HashMap<>();
-    if (useCommand) {
+
+    /* Symbols parsed earlier from the same file are cached next to the firmware */
+    File parsedFile = useCommand ? getContikiFirmwareFile() : mapFile;
+    File symbolFile = getSymbolCacheFile();
+    String symbolKey = null;
+    if (parsedFile != null && parsedFile.exists()) {
+      symbolKey = useCommand ?
+          SymbolCache.createKey(parsedFile, "command",
+              Cooja.getExternalToolsSetting("PARSE_COMMAND"),
+              Cooja.getExternalToolsSetting("COMMAND_VAR_NAME_ADDRESS_SIZE"),
+              Cooja.getExternalToolsSetting("COMMAND_DATA_START"),
+              Cooja.getExternalToolsSetting("COMMAND_DATA_END"),
+              Cooja.getExternalToolsSetting("COMMAND_VAR_SEC_DATA"),
+              Cooja.getExternalToolsSetting("COMMAND_BSS_START"),
+              Cooja.getExternalToolsSetting("COMMAND_BSS_END"),
+              Cooja.getExternalToolsSetting("COMMAND_VAR_SEC_BSS"),
+              Cooja.getExternalToolsSetting("COMMAND_COMMON_START"),
+              Cooja.getExternalToolsSetting("COMMAND_COMMON_END"),
+              Cooja.getExternalToolsSetting("COMMAND_VAR_SEC_COMMON")) :
+          SymbolCache.createKey(parsedFile, "mapfile",
+              Cooja.getExternalToolsSetting("MAPFILE_DATA_START"),
+              Cooja.getExternalToolsSetting("MAPFILE_DATA_SIZE"),
+              Cooja.getExternalToolsSetting("MAPFILE_BSS_START"),
+              Cooja.getExternalToolsSetting("MAPFILE_BSS_SIZE"),
+              Cooja.getExternalToolsSetting("MAPFILE_COMMON_START"),
+              Cooja.getExternalToolsSetting("MAPFILE_COMMON_SIZE"),
+              Cooja.getExternalToolsSetting("MAPFILE_VAR_NAME"),
+              Cooja.getExternalToolsSetting("MAPFILE_VAR_ADDRESS_1"),
+              Cooja.getExternalToolsSetting("MAPFILE_VAR_ADDRESS_2"),
+              Cooja.getExternalToolsSetting("MAPFILE_VAR_SIZE_1"),
+              Cooja.getExternalToolsSetting("MAPFILE_VAR_SIZE_2"));
+    }
+    CachedSectionParser[] cached = SymbolCache.load(symbolFile, symbolKey);
+
+    if (cached != null) {
+      logger.debug("Loaded cached symbols: " + symbolFile);
+      dataSecParser = cached[0];
+      bssSecParser = cached[1];
+      commonSecParser = cached[2];
+    } else if (useCommand) {
       /* Parse command output */
       String[] output = loadCommandData(getContikiFirmwareFile());
       if (output == null) {
@@ -458,22 +695,33 @@ public class ContikiMoteType implements MoteType {
         throw new MoteTypeCreationException("No map data could be loaded: " + mapFile);
       }
 
+      /* All sections share one pass over the map file */
+      MapFileIndex mapIndex = new MapFileIndex(mapData);
       dataSecParser = new MapSectionParser(
-              mapData,
+              mapIndex,
               Cooja.getExternalToolsSetting("MAPFILE_DATA_START"),
               Cooja.getExternalToolsSetting("MAPFILE_DATA_SIZE"));
       bssSecParser = new MapSectionParser(
-              mapData,
+              mapIndex,
               Cooja.getExternalToolsSetting("MAPFILE_BSS_START"),
               Cooja.getExternalToolsSetting("MAPFILE_BSS_SIZE"));
       commonSecParser = new MapSectionParser(
-              mapData,
+              mapIndex,
               Cooja.getExternalToolsSetting("MAPFILE_COMMON_START"),
               Cooja.getExternalToolsSetting("MAPFILE_COMMON_SIZE"));
       readonlySecParser = null;
 
     }
 
+    if (cached == null) {
+      /* Parse each section once, and cache the result */
+      cached = SymbolCache.store(symbolFile, symbolKey,
+          dataSecParser, bssSecParser, commonSecParser);
+      dataSecParser = cached[0];
+      bssSecParser = cached[1];
+      commonSecParser = cached[2];
+    }
+
     /* We first need the value of Contiki's referenceVar, which tells us the
      * memory offset between Contiki's variable and the relative addresses that
      * were calculated directly from the library file.
@@ -488,8 +736,8 @@ public class ContikiMoteType implements MoteType {
       tmp.addMemorySection("tmp.common", commonSecParser.parse(0));
 
       try {
-        int referenceVar = (int) varMem.getVariable("referenceVar").addr;
-        myCoreComm.setReferenceAddress(referenceVar);
+        referenceVarAddr = (int) varMem.getVariable("referenceVar").addr;
+        myCoreComm.setReferenceAddress(referenceVarAddr);
       } catch (UnknownVariableException e) {
         throw new MoteTypeCreationException("Error setting reference variable: " + e.getMessage(), e);
       } catch (RuntimeException e) {
@@ -605,11 +853,25 @@ public class ContikiMoteType implements MoteType {
    */
   public static class MapSectionParser extends SectionParser {
 
+    private final MapFileIndex index;
     private final String startRegExp;
     private final String sizeRegExp;
 
     public MapSectionParser(String[] mapFileData, String startRegExp, String sizeRegExp) {
-      super(mapFileData);
+      this(new MapFileIndex(mapFileData), startRegExp, sizeRegExp);
+    }
+
+    /**
+     * Creates SectionParser sharing the symbols of a map file with the parsers
+     * of other sections.
+     *
+     * @param index Map file symbols
+     * @param startRegExp Regular expression for parsing start of section
+     * @param sizeRegExp Regular expression for parsing size of section
+     */
+    public MapSectionParser(MapFileIndex index, String startRegExp, String sizeRegExp) {
+      super(index.getData());
+      this.index = index;
       this.startRegExp = startRegExp;
       this.sizeRegExp = sizeRegExp;
     }
@@ -636,24 +898,64 @@ public class ContikiMoteType implements MoteType {
     public Map<String, Symbol> parseSymbols(long offset) {
       Map<String, Symbol> varNames = new HashMap<>();
 
-      Pattern pattern = Pattern.compile(Cooja.getExternalToolsSetting("MAPFILE_VAR_NAME"));
-
-      for (String line : getData()) {
-        Matcher matcher = pattern.matcher(line);
-        if (matcher.find()) {
-          if (Integer.decode(matcher.group(1)).intValue() >= getStartAddr()
-                  && Integer.decode(matcher.group(1)).intValue() <= getStartAddr() + getSize()) {
-            String varName = matcher.group(2);
-            varNames.put(varName, new Symbol(
-                    Symbol.Type.VARIABLE,
-                    varName,
-                    getMapFileVarAddress(getData(), varName) + offset,
-                    getMapFileVarSize(getData(), varName)));
-          }
+      for (MapFileIndex.Variable var : index.getVariables()) {
+        if (var.addr >= getStartAddr()
+                && var.addr <= getStartAddr() + getSize()) {
+          varNames.put(var.name, new Symbol(
+                  Symbol.Type.VARIABLE,
+                  var.name,
+                  index.getAddress(var.name) + offset,
+                  index.getSize(var.name)));
         }
       }
       return varNames;
     }
+  }
+
+  /**
+   * Variable names, addresses and sizes of a map file.
+   *
+   * The map file is parsed once, in a single pass, with the MAPFILE_VAR_NAME,
+   * MAPFILE_VAR_ADDRESS_* and MAPFILE_VAR_SIZE_* expressions. For the latter,
+   * the variable name is matched by a capturing group inserted between the two
+   * expression parts. If the configured parts cannot be compiled separately,
+   * each variable is instead looked up in the entire map file.
+   */
+  public static class MapFileIndex {
+
+    public static class Variable {
+      public final int addr;
+      public final String name;
+
+      Variable(int addr, String name) {
+        this.addr = addr;
+        this.name = name;
+      }
+    }
+
+    private final String[] mapFileData;
+
+    private ArrayList<Variable> variables = null;
+    private HashMap<String, Integer> addresses = null;
+    private HashMap<String, Integer> sizes = null;
+
+    public MapFileIndex(String[] mapFileData) {
+      this.mapFileData = mapFileData;
+    }
+
+    public String[] getData() {
+      return mapFileData;
+    }
+
+    /**
+     * @return Variables matching MAPFILE_VAR_NAME, in map file order
+     */
+    public ArrayList<Variable> getVariables() {
+      if (variables == null) {
+        parse();
+      }
+      return variables;
+    }
 
     /**
      * Get relative address of variable with given name.
@@ -661,7 +963,106 @@ public class ContikiMoteType implements MoteType {
      * @param varName Name of variable
      * @return Relative memory address of variable or -1 if not found
      */
-    private int getMapFileVarAddress(String[] mapFileData, String varName) {
+    public int getAddress(String varName) {
+      if (variables == null) {
+        parse();
+      }
+      if (addresses == null) {
+        return getMapFileVarAddress(varName);
+      }
+      Integer addr = addresses.get(varName);
+      return addr == null ? -1 : addr;
+    }
+
+    /**
+     * @param varName Name of variable
+     * @return Size of variable or -1 if not found
+     */
+    public int getSize(String varName) {
+      if (variables == null) {
+        parse();
+      }
+      if (sizes == null) {
+        return getMapFileVarSize(varName);
+      }
+      Integer size = sizes.get(varName);
+      return size == null ? -1 : size;
+    }
+
+    private void parse() {
+      variables = new ArrayList<>();
+      Pattern varPattern = Pattern.compile(Cooja.getExternalToolsSetting("MAPFILE_VAR_NAME"));
+
+      String address1 = Cooja.getExternalToolsSetting("MAPFILE_VAR_ADDRESS_1");
+      String address2 = Cooja.getExternalToolsSetting("MAPFILE_VAR_ADDRESS_2");
+      String size1 = Cooja.getExternalToolsSetting("MAPFILE_VAR_SIZE_1");
+      String size2 = Cooja.getExternalToolsSetting("MAPFILE_VAR_SIZE_2");
+      int addressGroups = countGroups(address1);
+      int sizeGroups = countGroups(size1);
+      Pattern addressPattern = null;
+      Pattern sizePattern = null;
+      if (addressGroups >= 0) {
+        addressPattern = Pattern.compile(address1 + "(\\S+)" + address2);
+        addresses = new HashMap<>();
+      }
+      if (sizeGroups >= 0) {
+        sizePattern = Pattern.compile(size1 + "(\\S+)" + size2);
+        sizes = new HashMap<>();
+      }
+
+      for (int idx = 0; idx < mapFileData.length; idx++) {
+        String line = mapFileData[idx];
+        Matcher matcher = varPattern.matcher(line);
+        if (matcher.find()) {
+          variables.add(new Variable(Integer.decode(matcher.group(1)), matcher.group(2)));
+        }
+
+        if (addressPattern != null) {
+          matcher = addressPattern.matcher(line);
+          if (matcher.find()) {
+            String name = matcher.group(addressGroups + 1);
+            if (!addresses.containsKey(name)) {
+              addresses.put(name, Integer.parseInt(matcher.group(addressGroups > 0 ? 1 : 2).trim(), 16));
+            }
+          }
+        }
+
+        if (sizePattern != null) {
+          matcher = sizePattern.matcher(line);
+          if (matcher.find()) {
+            putSize(matcher, sizeGroups);
+          }
+          // second approach with lines joined
+          if (idx < mapFileData.length - 1) {
+            matcher = sizePattern.matcher(line + mapFileData[idx + 1]);
+            if (matcher.find()) {
+              putSize(matcher, sizeGroups);
+            }
+          }
+        }
+      }
+    }
+
+    private void putSize(Matcher matcher, int groups) {
+      String name = matcher.group(groups + 1);
+      if (!sizes.containsKey(name)) {
+        sizes.put(name, Integer.decode(matcher.group(groups > 0 ? 1 : 2)));
+      }
+    }
+
+    /**
+     * @param regExp First part of regular expression
+     * @return Number of capturing groups, or -1 if not a complete regular expression
+     */
+    private static int countGroups(String regExp) {
+      try {
+        return Pattern.compile(regExp).matcher("").groupCount();
+      } catch (RuntimeException e) {
+        return -1;
+      }
+    }
+
+    private int getMapFileVarAddress(String varName) {
 
       String regExp = Cooja.getExternalToolsSetting("MAPFILE_VAR_ADDRESS_1")
               + varName
@@ -675,7 +1076,7 @@ public class ContikiMoteType implements MoteType {
       }
     }
 
-    private int getMapFileVarSize(String[] mapFileData, String varName) {
+    private int getMapFileVarSize(String varName) {
       Pattern pattern = Pattern.compile(
               Cooja.getExternalToolsSetting("MAPFILE_VAR_SIZE_1")
               + varName
@@ -793,6 +1194,64 @@ public class ContikiMoteType implements MoteType {
     }
   }
 
+  /**
+   * Section data parsed earlier, by another section parser or from a
+   * symbol cache file.
+   *
+   * @see SymbolCache
+   */
+  public static class CachedSectionParser extends SectionParser {
+
+    private final Map<String, Symbol> symbols;
+
+    /**
+     * @param startAddr Relative start address of section, or -1
+     * @param size Size of section, or -1
+     * @param symbols Symbols with relative addresses
+     */
+    public CachedSectionParser(int startAddr, int size, Map<String, Symbol> symbols) {
+      super(null);
+      this.startAddr = startAddr;
+      this.size = size;
+      this.symbols = symbols;
+    }
+
+    /**
+     * Parses a section once, with relative addresses.
+     *
+     * @param parser Section parser
+     * @return Parsed section
+     */
+    public static CachedSectionParser parse(SectionParser parser) {
+      if (parser.parse(0) == null) {
+        return new CachedSectionParser(parser.getStartAddr(), parser.getSize(), new HashMap<String, Symbol>());
+      }
+      return new CachedSectionParser(parser.getStartAddr(), parser.getSize(), parser.getVariables());
+    }
+
+    @Override
+    protected void parseStartAddr() {
+    }
+
+    @Override
+    protected void parseSize() {
+    }
+
+    @Override
+    public Map<String, Symbol> parseSymbols(long offset) {
+      HashMap<String, Symbol> varNames = new HashMap<>();
+      for (Symbol symbol : symbols.values()) {
+        varNames.put(symbol.name, new Symbol(
+                symbol.type,
+                symbol.name,
+                symbol.section,
+                symbol.addr + offset,
+                symbol.size));
+      }
+      return varNames;
+    }
+  }
+
   /**
    * Ticks the currently loaded mote. This should not be used directly, but
    * rather via {@link ContikiMote#execute(long)}.
@@ -825,7 +1284,11 @@ public class ContikiMoteType implements MoteType {
               (int) (section.getStartAddr() - offset),
               section.getTotalSize(),
               section.getMemory());
+      if (section instanceof ArrayMemory) {
+        ((ArrayMemory) section).clearDirtyPages();
+      }
     }
+    coreMemoryOwner = mem;
   }
 
   private void getCoreMemory(int relAddr, int length, byte[] data) {
@@ -840,18 +1303,266 @@ public class ContikiMoteType implements MoteType {
    * New memory
    */
   public void setCoreMemory(SectionMoteMemory mem) {
+    /* Unless the Contiki system still holds this memory, copy all of it:
+     * comparing with the memory of another mote costs more than copying */
+    boolean inCore = pagedMemorySwap && mem == coreMemoryOwner;
     for (MemoryInterface section : mem.getSections().values()) {
-      setCoreMemory(
-              (int) (section.getStartAddr() - offset),
-              section.getTotalSize(),
-              section.getMemory());
+      int relAddr = (int) (section.getStartAddr() - offset);
+      if (inCore && section instanceof ArrayMemory) {
+        setCoreMemoryPages(myCoreComm, relAddr, (ArrayMemory) section);
+      } else {
+        setCoreMemory(relAddr, section.getTotalSize(), section.getMemory());
+      }
     }
   }
 
+  /**
+   * Copies the pages of the given section written since it was last fetched
+   * by {@link #getCoreMemory(SectionMoteMemory)}. The Contiki system must
+   * still contain the fetched memory. Adjacent pages are copied in one
+   * transfer.
+   *
+   * @param coreComm Contiki system
+   * @param relAddr Relative address of section in Contiki system
+   * @param section Section to copy to Contiki
+   */
+  private void setCoreMemoryPages(CoreComm coreComm, int relAddr, ArrayMemory section) {
+    byte[] data = section.getBackingArray();
+    int page = section.nextDirtyPage(0);
+    while (page >= 0) {
+      int end = section.nextCleanPage(page);
+      setCoreMemoryRun(coreComm, relAddr, data, page * ArrayMemory.PAGE_SIZE,
+              Math.min(end * ArrayMemory.PAGE_SIZE, data.length));
+      page = section.nextDirtyPage(end);
+    }
+  }
+
+  private void setCoreMemoryRun(CoreComm coreComm, int relAddr, byte[] data, int start, int end) {
+    if (start == 0) {
+      coreComm.setMemory(relAddr, end, data);
+      return;
+    }
+    if (swapBuffer == null || swapBuffer.length < end - start) {
+      swapBuffer = new byte[data.length];
+    }
+    System.arraycopy(data, start, swapBuffer, 0, end - start);
+    coreComm.setMemory(relAddr + start, end - start, swapBuffer);
+  }
+
   private void setCoreMemory(int relAddr, int length, byte[] mem) {
     myCoreComm.setMemory(relAddr, length, mem);
   }
 
+  /**
+   * Loads a private copy of this mote type's Contiki system for a new mote.
+   * Motes with a private Contiki system never swap memory with other motes.
+   *
+   * Returns null if motes of this type share the mote type's Contiki system,
+   * or if the library copy could not be loaded.
+   *
+   * @return Contiki system of new mote, or null
+   */
+  public MoteCore createMoteCore() {
+    if (!libraryPerMote) {
+      return null;
+    }
+    File libCopy = null;
+    try {
+      libCopy = copyFirmware();
+      CoreComm coreComm = CoreComm.createCoreCommInstance(javaClassName, libCopy);
+      coreComm.setReferenceAddress(referenceVarAddr);
+
+      byte[] referenceVar = new byte[initialMemory.getLayout().intSize];
+      coreComm.getMemory(referenceVarAddr, referenceVar.length, referenceVar);
+      long coreOffset = MemoryBuffer.wrap(initialMemory.getLayout(), referenceVar).getInt() & 0xFFFFFFFFL;
+      return new MoteCore(coreComm, coreOffset, libCopy);
+    } catch (IOException e) {
+      logger.fatal("Could not copy Contiki library, using shared library: " + e.getMessage(), e);
+    } catch (MoteTypeCreationException e) {
+      logger.fatal("Could not load Contiki library copy, using shared library: " + e.getMessage(), e);
+      deleteLibraryCopy(libCopy);
+    }
+    return null;
+  }
+
+  /**
+   * Copies this mote type's library to a new temporary file. Each copy can be
+   * loaded once, giving a Contiki system with its own native state.
+   *
+   * @return Library copy
+   * @throws IOException If library could not be copied
+   */
+  private File copyFirmware() throws IOException {
+    File libCopy = File.createTempFile(getIdentifier() + "-", librarySuffix, tempOutputDirectory);
+    addLibraryCopy(libCopy);
+    try {
+      Files.copy(getContikiFirmwareFile().toPath(), libCopy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      deleteLibraryCopy(libCopy);
+      throw e;
+    }
+    return libCopy;
+  }
+
+  /**
+   * Creates a copy of this mote type's initial memory, located at the
+   * addresses of the given Contiki system.
+   *
+   * Unless disabled via the CONTIKI_MEMORY_MAP setting, and if the
+   * Contiki system supports it, the returned memory directly maps the Contiki
+   * system's memory, and no copying is needed around ticks.
+   *
+   * @param core Private Contiki system, or null for the shared one
+   * @return Initial memory of a mote
+   */
+  public SectionMoteMemory createInitialMemory(MoteCore core) {
+    if (core == null) {
+      return createInitialMemory();
+    }
+
+    long shift = core.offset - offset;
+    SectionMoteMemory mem = new SectionMoteMemory(new HashMap<String, Symbol>());
+    for (Map.Entry<String, MemoryInterface> entry : initialMemory.getSections().entrySet()) {
+      MemoryInterface section = entry.getValue();
+      HashMap<String, Symbol> symbols = new HashMap<>();
+      for (Symbol sym : section.getSymbolMap().values()) {
+        symbols.put(sym.name, new Symbol(sym.type, sym.name, sym.section, sym.addr + shift, sym.size));
+      }
+
+      ByteBuffer buffer = null;
+      if (mappedMemory) {
+        buffer = core.getMemoryBuffer(
+                (int) (section.getStartAddr() - offset),
+                section.getTotalSize());
+      }
+      if (buffer != null) {
+        mem.addMemorySection(entry.getKey(), new ByteBufferMemory(
+                section.getStartAddr() + shift,
+                section.getLayout(),
+                buffer,
+                symbols));
+      } else {
+        mem.addMemorySection(entry.getKey(), new ArrayMemory(
+                section.getStartAddr() + shift,
+                section.getTotalSize(),
+                section.getLayout(),
+                symbols));
+      }
+    }
+    core.getMemory(mem);
+    return mem;
+  }
+
+  /**
+   * A Contiki system loaded from a private copy of the mote type library.
+   * Since the loaded system belongs to a single mote, only memory modified by
+   * Cooja is copied to it before a tick, and after a tick memory pages are
+   * only copied from it when accessed. Memory sections mapped via direct
+   * buffers are never copied.
+   */
+  public class MoteCore implements ArrayMemory.PageLoader {
+    private final CoreComm coreComm;
+    private final long offset;
+    private final File libFile;
+    private byte[] loadBuffer = null;
+
+    private MoteCore(CoreComm coreComm, long offset, File libFile) {
+      this.coreComm = coreComm;
+      this.offset = offset;
+      this.libFile = libFile;
+    }
+
+    /**
+     * Releases the Contiki system when its mote is removed. The loaded
+     * library is freed with its class loader; the library copy is deleted.
+     */
+    public void removed() {
+      deleteLibraryCopy(libFile);
+    }
+
+    /**
+     * Returns a direct buffer mapping the given memory segment.
+     *
+     * @param relAddr Relative memory start address
+     * @param length Length of segment
+     * @return Direct byte buffer, or null if not supported by the library
+     */
+    private ByteBuffer getMemoryBuffer(int relAddr, int length) {
+      try {
+        return coreComm.getMemoryBuffer(relAddr, length);
+      } catch (UnsatisfiedLinkError e) {
+        /* Contiki system compiled without getMemoryBuffer */
+        return null;
+      }
+    }
+
+    /**
+     * Ticks the loaded Contiki system.
+     */
+    public void tick() {
+      coreComm.tick();
+    }
+
+    /**
+     * Copy core memory to given memory. Array backed sections are only
+     * marked as stale, and their pages are copied when first accessed.
+     *
+     * @param mem Memory to set
+     */
+    public void getMemory(SectionMoteMemory mem) {
+      for (MemoryInterface section : mem.getSections().values()) {
+        if (section instanceof ByteBufferMemory) {
+          /* Maps Contiki memory directly */
+          continue;
+        }
+        if (section instanceof ArrayMemory) {
+          ((ArrayMemory) section).setStale(this);
+          continue;
+        }
+        coreComm.getMemory(
+                (int) (section.getStartAddr() - offset),
+                section.getTotalSize(),
+                section.getMemory());
+      }
+    }
+
+    @Override
+    public void loadPages(ArrayMemory memory, int pos, int length) {
+      int relAddr = (int) (memory.getStartAddr() - offset) + pos;
+      byte[] data = memory.getBackingArray();
+      if (pos == 0) {
+        coreComm.getMemory(relAddr, length, data);
+        return;
+      }
+      if (loadBuffer == null || loadBuffer.length < length) {
+        loadBuffer = new byte[data.length];
+      }
+      coreComm.getMemory(relAddr, length, loadBuffer);
+      System.arraycopy(loadBuffer, 0, data, pos, length);
+    }
+
+    /**
+     * Copy memory modified since the last {@link #getMemory(SectionMoteMemory)}
+     * to the Contiki system.
+     *
+     * @param mem Memory previously fetched from this Contiki system
+     */
+    public void setMemory(SectionMoteMemory mem) {
+      for (MemoryInterface section : mem.getSections().values()) {
+        int relAddr = (int) (section.getStartAddr() - offset);
+        if (section instanceof ByteBufferMemory) {
+          /* Maps Contiki memory directly */
+          continue;
+        }
+        if (section instanceof ArrayMemory) {
+          setCoreMemoryPages(coreComm, relAddr, (ArrayMemory) section);
+        } else {
+          coreComm.setMemory(relAddr, section.getTotalSize(), section.getMemory());
+        }
+      }
+    }
+  }
+
   @Override
   public String getIdentifier() {
     return identifier;
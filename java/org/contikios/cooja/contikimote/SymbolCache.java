@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.contikimote;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import org.contikios.cooja.contikimote.ContikiMoteType.CachedSectionParser;
+import org.contikios.cooja.contikimote.ContikiMoteType.SectionParser;
+import org.contikios.cooja.mote.memory.MemoryInterface.Symbol;
+
+/**
+ * On-disk cache of the sections and variables parsed from a Contiki map file
+ * or from the output of the configured parse command.
+ *
+ * The cache file is stored next to the Contiki firmware, and is only used
+ * if its key matches. The key is a checksum of the parsed file and of the
+ * external tools settings used to parse it, so reloading an unchanged
+ * firmware does not parse it again.
+ *
+ * @see ContikiMoteType
+ */
+public class SymbolCache {
+  private static Logger logger = Logger.getLogger(SymbolCache.class);
+
+  private static final int MAGIC = 0x4353594d; /* "CSYM" */
+  private static final int VERSION = 1;
+
+  /**
+   * Creates a cache key.
+   *
+   * @param file Parsed file: map file or Contiki firmware
+   * @param settings Settings affecting the parse result
+   * @return Key, or null if the file could not be read
+   */
+  public static String createKey(File file, String... settings) {
+    MessageDigest messageDigest;
+    try {
+      messageDigest = MessageDigest.getInstance("MD5");
+      InputStream in = new FileInputStream(file);
+      try {
+        byte[] buffer = new byte[64*1024];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+          messageDigest.update(buffer, 0, read);
+        }
+      } finally {
+        in.close();
+      }
+    } catch (NoSuchAlgorithmException | IOException e) {
+      return null;
+    }
+    for (String setting: settings) {
+      messageDigest.update((byte) 0);
+      if (setting != null) {
+        messageDigest.update(setting.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+
+    StringBuilder sb = new StringBuilder();
+    for (byte b: messageDigest.digest()) {
+      sb.append(String.format("%02x", b));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Loads parsed sections.
+   *
+   * @param file Cache file
+   * @param key Cache key
+   * @return Parsed sections, or null if not cached
+   */
+  public static CachedSectionParser[] load(File file, String key) {
+    if (key == null || !file.exists()) {
+      return null;
+    }
+    try {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      try {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION || !key.equals(in.readUTF())) {
+          return null;
+        }
+        CachedSectionParser[] sections = new CachedSectionParser[in.readInt()];
+        for (int i=0; i < sections.length; i++) {
+          int startAddr = in.readInt();
+          int size = in.readInt();
+          int nrSymbols = in.readInt();
+          HashMap<String, Symbol> symbols = new HashMap<>();
+          for (int j=0; j < nrSymbols; j++) {
+            String name = in.readUTF();
+            long addr = in.readLong();
+            int symbolSize = in.readInt();
+            symbols.put(name, new Symbol(Symbol.Type.VARIABLE, name, addr, symbolSize));
+          }
+          sections[i] = new CachedSectionParser(startAddr, size, symbols);
+        }
+        return sections;
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      logger.warn("Could not read symbol cache " + file + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Parses sections, and stores the result.
+   *
+   * @param file Cache file
+   * @param key Cache key, or null to not store the result
+   * @param parsers Section parsers
+   * @return Parsed sections
+   */
+  public static CachedSectionParser[] store(File file, String key, SectionParser... parsers) {
+    CachedSectionParser[] sections = new CachedSectionParser[parsers.length];
+    for (int i=0; i < parsers.length; i++) {
+      sections[i] = CachedSectionParser.parse(parsers[i]);
+    }
+    if (key == null) {
+      return sections;
+    }
+
+    /* Write to temporary file first: concurrent readers never see partial caches */
+    File tmpFile = null;
+    try {
+      tmpFile = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+      try {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(key);
+        out.writeInt(sections.length);
+        for (CachedSectionParser section: sections) {
+          Map<String, Symbol> symbols = section.parseSymbols(0);
+          out.writeInt(section.getStartAddr());
+          out.writeInt(section.getSize());
+          out.writeInt(symbols.size());
+          for (Symbol symbol: symbols.values()) {
+            out.writeUTF(symbol.name);
+            out.writeLong(symbol.addr);
+            out.writeInt(symbol.size);
+          }
+        }
+      } finally {
+        out.close();
+      }
+      Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      logger.warn("Could not write symbol cache " + file + ": " + e.getMessage());
+      if (tmpFile != null) {
+        tmpFile.delete();
+      }
+    }
+    return sections;
+  }
+}
@@ -48,6 +48,7 @@ import org.contikios.cooja.mote.memory.SectionMoteMemory;
 import org.contikios.cooja.contikimote.ContikiMoteInterface;
 import org.contikios.cooja.interfaces.Beeper;
 import org.contikios.cooja.interfaces.PolledAfterActiveTicks;
+import org.contikios.cooja.mote.memory.MemoryVariable;
 import org.contikios.cooja.mote.memory.VarMemory;
 
 /**
@@ -72,6 +73,10 @@ import org.contikios.cooja.mote.memory.VarMemory;
 public class ContikiBeeper extends Beeper implements ContikiMoteInterface, PolledAfterActiveTicks {
   private Mote mote = null;
   private VarMemory moteMem = null;
+
+  /* Contiki variables */
+  private final MemoryVariable.ByteVar simBeeped;
+
   private static Logger logger = Logger.getLogger(ContikiBeeper.class);
 
   /**
@@ -85,10 +90,11 @@ public class ContikiBeeper extends Beeper implements ContikiMoteInterface, Polle
   public ContikiBeeper(Mote mote) {
     this.mote = mote;
     this.moteMem = new VarMemory(mote.getMemory());
+    simBeeped = moteMem.byteVar("simBeeped");
   }
 
   public boolean isBeeping() {
-    return moteMem.getByteValueOf("simBeeped") == 1;
+    return simBeeped.get() == 1;
   }
 
   public static String[] getCoreInterfaceDependencies() {
@@ -96,11 +102,11 @@ public class ContikiBeeper extends Beeper implements ContikiMoteInterface, Polle
   }
 
   public void doActionsAfterTick() {
-    if (moteMem.getByteValueOf("simBeeped") == 1) {
+    if (simBeeped.get() == 1) {
       this.setChanged();
       this.notifyObservers(mote);
 
-      moteMem.setByteValueOf("simBeeped", (byte) 0);
+      simBeeped.set((byte) 0);
     }
   }
 
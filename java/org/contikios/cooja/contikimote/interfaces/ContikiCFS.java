@@ -43,6 +43,7 @@ import org.jdom.Element;
 import org.contikios.cooja.*;
 import org.contikios.cooja.contikimote.ContikiMoteInterface;
 import org.contikios.cooja.interfaces.PolledAfterActiveTicks;
+import org.contikios.cooja.mote.memory.MemoryVariable;
 import org.contikios.cooja.mote.memory.VarMemory;
 
 /**
@@ -74,6 +75,13 @@ public class ContikiCFS extends MoteInterface implements ContikiMoteInterface, P
   private Mote mote = null;
   private VarMemory moteMem = null;
 
+  /* Contiki variables */
+  private final MemoryVariable.ByteVar simCFSChanged;
+  private final MemoryVariable.IntVar simCFSRead;
+  private final MemoryVariable.IntVar simCFSWritten;
+  private final MemoryVariable.ByteArrayVar simCFSData;
+  private final MemoryVariable.IntVar simCFSSize;
+
   private int lastRead = 0;
   private int lastWritten = 0;
 
@@ -87,6 +95,11 @@ public class ContikiCFS extends MoteInterface implements ContikiMoteInterface, P
   public ContikiCFS(Mote mote) {
     this.mote = mote;
     this.moteMem = new VarMemory(mote.getMemory());
+    simCFSChanged = moteMem.byteVar("simCFSChanged");
+    simCFSRead = moteMem.intVar("simCFSRead");
+    simCFSWritten = moteMem.intVar("simCFSWritten");
+    simCFSData = moteMem.byteArrayVar("simCFSData");
+    simCFSSize = moteMem.intVar("simCFSSize");
   }
 
   public static String[] getCoreInterfaceDependencies() {
@@ -94,13 +107,13 @@ public class ContikiCFS extends MoteInterface implements ContikiMoteInterface, P
   }
 
   public void doActionsAfterTick() {
-    if (moteMem.getByteValueOf("simCFSChanged") == 1) {
-      lastRead = moteMem.getIntValueOf("simCFSRead");
-      lastWritten = moteMem.getIntValueOf("simCFSWritten");
+    if (simCFSChanged.get() == 1) {
+      lastRead = simCFSRead.get();
+      lastWritten = simCFSWritten.get();
 
-      moteMem.setIntValueOf("simCFSRead", 0);
-      moteMem.setIntValueOf("simCFSWritten", 0);
-      moteMem.setByteValueOf("simCFSChanged", (byte) 0);
+      simCFSRead.set(0);
+      simCFSWritten.set(0);
+      simCFSChanged.set((byte) 0);
 
       this.setChanged();
       this.notifyObservers(mote);
@@ -119,8 +132,8 @@ public class ContikiCFS extends MoteInterface implements ContikiMoteInterface, P
       return false;
     }
 
-    moteMem.setByteArray("simCFSData", data);
-    moteMem.setIntValueOf("simCFSSize", data.length);
+    simCFSData.set(data);
+    simCFSSize.set(data.length);
     return true;
   }
 
@@ -130,8 +143,8 @@ public class ContikiCFS extends MoteInterface implements ContikiMoteInterface, P
    * @return Filesystem data
    */
   public byte[] getFilesystemData() {
-    int size = moteMem.getIntValueOf("simCFSSize");
-    return moteMem.getByteArray("simCFSData", size);
+    int size = simCFSSize.get();
+    return simCFSData.get(size);
   }
 
   /**
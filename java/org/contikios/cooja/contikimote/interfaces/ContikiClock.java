@@ -44,6 +44,7 @@ import org.contikios.cooja.contikimote.ContikiMoteInterface;
 import org.contikios.cooja.interfaces.Clock;
 import org.contikios.cooja.interfaces.PolledAfterAllTicks;
 import org.contikios.cooja.interfaces.PolledBeforeActiveTicks;
+import org.contikios.cooja.mote.memory.MemoryVariable;
 import org.contikios.cooja.mote.memory.VarMemory;
 
 /**
@@ -77,6 +78,15 @@ public class ContikiClock extends Clock implements ContikiMoteInterface, PolledB
   private ContikiMote mote;
   private VarMemory moteMem;
 
+  /* Contiki variables */
+  private final MemoryVariable.IntVar simCurrentTime;
+  private final MemoryVariable.Int64Var simRtimerCurrentTicks;
+  private final MemoryVariable.IntVar simRtimerPending;
+  private final MemoryVariable.Int64Var simRtimerNextExpirationTime;
+  private final MemoryVariable.IntVar simProcessRunValue;
+  private final MemoryVariable.IntVar simEtimerPending;
+  private final MemoryVariable.Int32Var simEtimerNextExpirationTime;
+
   private long moteTime; /* Microseconds */
   private long timeDrift; /* Microseconds */
 
@@ -90,6 +100,13 @@ public class ContikiClock extends Clock implements ContikiMoteInterface, PolledB
     this.simulation = mote.getSimulation();
     this.mote = (ContikiMote) mote;
     this.moteMem = new VarMemory(mote.getMemory());
+    simCurrentTime = moteMem.intVar("simCurrentTime");
+    simRtimerCurrentTicks = moteMem.int64Var("simRtimerCurrentTicks");
+    simRtimerPending = moteMem.intVar("simRtimerPending");
+    simRtimerNextExpirationTime = moteMem.int64Var("simRtimerNextExpirationTime");
+    simProcessRunValue = moteMem.intVar("simProcessRunValue");
+    simEtimerPending = moteMem.intVar("simEtimerPending");
+    simEtimerNextExpirationTime = moteMem.int32Var("simEtimerNextExpirationTime");
     timeDrift = 0;
     moteTime = 0;
   }
@@ -101,7 +118,7 @@ public class ContikiClock extends Clock implements ContikiMoteInterface, PolledB
   public void setTime(long newTime) {
     moteTime = newTime;
     if (moteTime > 0) {
-      moteMem.setIntValueOf("simCurrentTime", (int)(newTime/1000));
+      simCurrentTime.set((int)(newTime/1000));
     }
   }
 
@@ -130,33 +147,33 @@ public class ContikiClock extends Clock implements ContikiMoteInterface, PolledB
     /* Update time */
     long currentSimulationTime = simulation.getSimulationTime();
     setTime(currentSimulationTime + timeDrift);
-    moteMem.setInt64ValueOf("simRtimerCurrentTicks", currentSimulationTime);
+    simRtimerCurrentTicks.set(currentSimulationTime);
   }
 
   public void doActionsAfterTick() {
     long currentSimulationTime = mote.getSimulation().getSimulationTime();
 
     /* Always schedule for Rtimer if anything pending */
-    if (moteMem.getIntValueOf("simRtimerPending") != 0) {
-      mote.scheduleNextWakeup(moteMem.getInt64ValueOf("simRtimerNextExpirationTime"));
+    if (simRtimerPending.get() != 0) {
+      mote.scheduleNextWakeup(simRtimerNextExpirationTime.get());
     }
 
     /* Request next tick for remaining events / timers */
-    int processRunValue = moteMem.getIntValueOf("simProcessRunValue");
+    int processRunValue = simProcessRunValue.get();
     if (processRunValue != 0) {
       /* Handle next Contiki event in one millisecond */
       mote.scheduleNextWakeup(currentSimulationTime + Simulation.MILLISECOND);
       return;
     }
 
-    int etimersPending = moteMem.getIntValueOf("simEtimerPending");
+    int etimersPending = simEtimerPending.get();
     if (etimersPending == 0) {
       /* No timers */
       return;
     }
 
     /* Request tick next wakeup time for Etimer */
-    long etimerNextExpirationTime = (long)moteMem.getInt32ValueOf("simEtimerNextExpirationTime") * Simulation.MILLISECOND;
+    long etimerNextExpirationTime = (long)simEtimerNextExpirationTime.get() * Simulation.MILLISECOND;
     long etimerTimeToNextExpiration = etimerNextExpirationTime - moteTime;
     if (etimerTimeToNextExpiration <= 0) {
       /* logger.warn(mote.getID() + ": Event timer already expired, but has been delayed: " + etimerTimeToNextExpiration); */
@@ -44,6 +44,7 @@ import org.jdom.Element;
 import org.contikios.cooja.*;
 import org.contikios.cooja.contikimote.ContikiMoteInterface;
 import org.contikios.cooja.interfaces.PolledAfterActiveTicks;
+import org.contikios.cooja.mote.memory.MemoryVariable;
 import org.contikios.cooja.mote.memory.VarMemory;
 
 /**
@@ -75,6 +76,12 @@ public class ContikiEEPROM extends MoteInterface implements ContikiMoteInterface
   private Mote mote = null;
   private VarMemory moteMem = null;
 
+  /* Contiki variables */
+  private final MemoryVariable.ByteVar simEEPROMChanged;
+  private final MemoryVariable.IntVar simEEPROMRead;
+  private final MemoryVariable.IntVar simEEPROMWritten;
+  private final MemoryVariable.ByteArrayVar simEEPROMData;
+
   private int lastRead = 0;
   private int lastWritten = 0;
 
@@ -88,6 +95,10 @@ public class ContikiEEPROM extends MoteInterface implements ContikiMoteInterface
   public ContikiEEPROM(Mote mote) {
     this.mote = mote;
     this.moteMem = new VarMemory(mote.getMemory());
+    simEEPROMChanged = moteMem.byteVar("simEEPROMChanged");
+    simEEPROMRead = moteMem.intVar("simEEPROMRead");
+    simEEPROMWritten = moteMem.intVar("simEEPROMWritten");
+    simEEPROMData = moteMem.byteArrayVar("simEEPROMData");
   }
 
   public static String[] getCoreInterfaceDependencies() {
@@ -95,13 +106,13 @@ public class ContikiEEPROM extends MoteInterface implements ContikiMoteInterface
   }
 
   public void doActionsAfterTick() {
-    if (moteMem.getByteValueOf("simEEPROMChanged") == 1) {
-      lastRead = moteMem.getIntValueOf("simEEPROMRead");
-      lastWritten = moteMem.getIntValueOf("simEEPROMWritten");
+    if (simEEPROMChanged.get() == 1) {
+      lastRead = simEEPROMRead.get();
+      lastWritten = simEEPROMWritten.get();
 
-      moteMem.setIntValueOf("simEEPROMRead", 0);
-      moteMem.setIntValueOf("simEEPROMWritten", 0);
-      moteMem.setByteValueOf("simEEPROMChanged", (byte) 0);
+      simEEPROMRead.set(0);
+      simEEPROMWritten.set(0);
+      simEEPROMChanged.set((byte) 0);
 
       this.setChanged();
       this.notifyObservers(mote);
@@ -120,7 +131,7 @@ public class ContikiEEPROM extends MoteInterface implements ContikiMoteInterface
       return false;
     }
 
-    moteMem.setByteArray("simEEPROMData", data);
+    simEEPROMData.set(data);
     return true;
   }
 
@@ -130,7 +141,7 @@ public class ContikiEEPROM extends MoteInterface implements ContikiMoteInterface
    * @return Filesystem data
    */
   public byte[] getEEPROMData() {
-    return moteMem.getByteArray("simEEPROMData", EEPROM_SIZE);
+    return simEEPROMData.get(EEPROM_SIZE);
   }
 
   /**
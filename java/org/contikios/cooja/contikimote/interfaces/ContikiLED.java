@@ -40,6 +40,7 @@ import org.contikios.cooja.*;
 import org.contikios.cooja.contikimote.ContikiMoteInterface;
 import org.contikios.cooja.interfaces.LED;
 import org.contikios.cooja.interfaces.PolledAfterActiveTicks;
+import org.contikios.cooja.mote.memory.MemoryVariable;
 import org.contikios.cooja.mote.memory.VarMemory;
 
 /**
@@ -66,6 +67,10 @@ public class ContikiLED extends LED implements ContikiMoteInterface, PolledAfter
 
   private Mote mote = null;
   private VarMemory moteMem = null;
+
+  /* Contiki variables */
+  private MemoryVariable.ByteVar simLedsValue = null;
+
   private byte currentLedValue = 0;
 
   private static final byte LEDS_GREEN = 1;
@@ -93,6 +98,7 @@ public class ContikiLED extends LED implements ContikiMoteInterface, PolledAfter
   public ContikiLED(Mote mote) {
     this.mote = mote;
     this.moteMem = new VarMemory(mote.getMemory());
+    simLedsValue = moteMem.byteVar("simLedsValue");
   }
 
   public static String[] getCoreInterfaceDependencies() {
@@ -118,7 +124,7 @@ public class ContikiLED extends LED implements ContikiMoteInterface, PolledAfter
   public void doActionsAfterTick() {
     boolean ledChanged;
 
-    byte newLedsValue = moteMem.getByteValueOf("simLedsValue");
+    byte newLedsValue = simLedsValue.get();
     if (newLedsValue != currentLedValue) {
       ledChanged = true;
     } else {
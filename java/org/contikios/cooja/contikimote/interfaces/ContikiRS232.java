@@ -38,6 +38,7 @@ import org.contikios.cooja.contikimote.ContikiMote;
 import org.contikios.cooja.contikimote.ContikiMoteInterface;
 import org.contikios.cooja.dialogs.SerialUI;
 import org.contikios.cooja.interfaces.PolledAfterActiveTicks;
+import org.contikios.cooja.mote.memory.MemoryVariable;
 import org.contikios.cooja.mote.memory.VarMemory;
 
 /**
@@ -71,6 +72,14 @@ public class ContikiRS232 extends SerialUI implements ContikiMoteInterface, Poll
   private ContikiMote mote = null;
   private VarMemory moteMem = null;
 
+  /* Contiki variables */
+  private final MemoryVariable.ByteVar simLoggedFlag;
+  private final MemoryVariable.IntVar simLoggedLength;
+  private final MemoryVariable.ByteArrayVar simLoggedData;
+  private final MemoryVariable.IntVar simSerialReceivingLength;
+  private final MemoryVariable.ByteArrayVar simSerialReceivingData;
+  private final MemoryVariable.ByteVar simSerialReceivingFlag;
+
   static final int SERIAL_BUF_SIZE = 16 * 1024; /* rs232.c:40 */
 
   /**
@@ -84,6 +93,12 @@ public class ContikiRS232 extends SerialUI implements ContikiMoteInterface, Poll
   public ContikiRS232(Mote mote) {
     this.mote = (ContikiMote) mote;
     this.moteMem = new VarMemory(mote.getMemory());
+    simLoggedFlag = moteMem.byteVar("simLoggedFlag");
+    simLoggedLength = moteMem.intVar("simLoggedLength");
+    simLoggedData = moteMem.byteArrayVar("simLoggedData");
+    simSerialReceivingLength = moteMem.intVar("simSerialReceivingLength");
+    simSerialReceivingData = moteMem.byteArrayVar("simSerialReceivingData");
+    simSerialReceivingFlag = moteMem.byteVar("simSerialReceivingFlag");
   }
 
   public static String[] getCoreInterfaceDependencies() {
@@ -91,12 +106,12 @@ public class ContikiRS232 extends SerialUI implements ContikiMoteInterface, Poll
   }
 
   public void doActionsAfterTick() {
-    if (moteMem.getByteValueOf("simLoggedFlag") == 1) {
-      int len = moteMem.getIntValueOf("simLoggedLength");
-      byte[] bytes = moteMem.getByteArray("simLoggedData", len);
+    if (simLoggedFlag.get() == 1) {
+      int len = simLoggedLength.get();
+      byte[] bytes = simLoggedData.get(len);
 
-      moteMem.setByteValueOf("simLoggedFlag", (byte) 0);
-      moteMem.setIntValueOf("simLoggedLength", 0);
+      simLoggedFlag.set((byte) 0);
+      simLoggedLength.set(0);
 
       for (byte b: bytes) {
         dataReceived(b);
@@ -110,24 +125,24 @@ public class ContikiRS232 extends SerialUI implements ContikiMoteInterface, Poll
     mote.getSimulation().invokeSimulationThread(new Runnable() {
       public void run() {
         /* Append to existing buffer */
-        int oldSize = moteMem.getIntValueOf("simSerialReceivingLength");
+        int oldSize = simSerialReceivingLength.get();
         int newSize = oldSize + dataToAppend.length;
         if (newSize > SERIAL_BUF_SIZE) {
         	logger.fatal("ContikiRS232: dropping rs232 data #1, buffer full: " + oldSize + " -> " + newSize);
         	mote.requestImmediateWakeup();
         	return;
         }
-        moteMem.setIntValueOf("simSerialReceivingLength", newSize);
+        simSerialReceivingLength.set(newSize);
 
-        byte[] oldData = moteMem.getByteArray("simSerialReceivingData", oldSize);
+        byte[] oldData = simSerialReceivingData.get(oldSize);
         byte[] newData = new byte[newSize];
 
         System.arraycopy(oldData, 0, newData, 0, oldData.length);
         System.arraycopy(dataToAppend, 0, newData, oldSize, dataToAppend.length);
 
-        moteMem.setByteArray("simSerialReceivingData", newData);
+        simSerialReceivingData.set(newData);
 
-        moteMem.setByteValueOf("simSerialReceivingFlag", (byte) 1);
+        simSerialReceivingFlag.set((byte) 1);
         mote.requestImmediateWakeup();
       }
     });
@@ -165,24 +180,24 @@ public class ContikiRS232 extends SerialUI implements ContikiMoteInterface, Poll
         }
 
         /* Append to existing buffer */
-        int oldSize = moteMem.getIntValueOf("simSerialReceivingLength");
+        int oldSize = simSerialReceivingLength.get();
         int newSize = oldSize + dataToAppend.length;
         if (newSize > SERIAL_BUF_SIZE) {
         	logger.fatal("ContikiRS232: dropping rs232 data #2, buffer full: " + oldSize + " -> " + newSize);
         	mote.requestImmediateWakeup();
         	return;
         }
-        moteMem.setIntValueOf("simSerialReceivingLength", newSize);
+        simSerialReceivingLength.set(newSize);
 
-        byte[] oldData = moteMem.getByteArray("simSerialReceivingData", oldSize);
+        byte[] oldData = simSerialReceivingData.get(oldSize);
         byte[] newData = new byte[newSize];
 
         System.arraycopy(oldData, 0, newData, 0, oldData.length);
         System.arraycopy(dataToAppend, 0, newData, oldSize, dataToAppend.length);
 
-        moteMem.setByteArray("simSerialReceivingData", newData);
+        simSerialReceivingData.set(newData);
 
-        moteMem.setByteValueOf("simSerialReceivingFlag", (byte) 1);
+        simSerialReceivingFlag.set((byte) 1);
 
         /* Reschedule us if more bytes are available */
         mote.getSimulation().scheduleEvent(this, t);
@@ -223,24 +238,24 @@ public class ContikiRS232 extends SerialUI implements ContikiMoteInterface, Poll
         }
 
         /* Append to existing buffer */
-        int oldSize = moteMem.getIntValueOf("simSerialReceivingLength");
+        int oldSize = simSerialReceivingLength.get();
         int newSize = oldSize + dataToAppend.length;
         if (newSize > SERIAL_BUF_SIZE) {
         	logger.fatal("ContikiRS232: dropping rs232 data #3, buffer full: " + oldSize + " -> " + newSize);
         	mote.requestImmediateWakeup();
         	return;
         }
-        moteMem.setIntValueOf("simSerialReceivingLength", newSize);
+        simSerialReceivingLength.set(newSize);
 
-        byte[] oldData = moteMem.getByteArray("simSerialReceivingData", oldSize);
+        byte[] oldData = simSerialReceivingData.get(oldSize);
         byte[] newData = new byte[newSize];
 
         System.arraycopy(oldData, 0, newData, 0, oldData.length);
         System.arraycopy(dataToAppend, 0, newData, oldSize, dataToAppend.length);
 
-        moteMem.setByteArray("simSerialReceivingData", newData);
+        simSerialReceivingData.set(newData);
 
-        moteMem.setByteValueOf("simSerialReceivingFlag", (byte) 1);
+        simSerialReceivingFlag.set((byte) 1);
 
         /* Reschedule us if more bytes are available */
         mote.getSimulation().scheduleEvent(this, t);
@@ -46,6 +46,7 @@ import org.contikios.cooja.contikimote.ContikiMoteInterface;
 import org.contikios.cooja.interfaces.PolledAfterActiveTicks;
 import org.contikios.cooja.interfaces.Position;
 import org.contikios.cooja.interfaces.Radio;
+import org.contikios.cooja.mote.memory.MemoryVariable;
 import org.contikios.cooja.mote.memory.VarMemory;
 import org.contikios.cooja.radiomediums.UDGM;
 import org.contikios.cooja.util.CCITT_CRC;
@@ -93,6 +94,19 @@ public class ContikiRadio extends Radio implements ContikiMoteInterface, PolledA
 
   private VarMemory myMoteMemory;
 
+  /* Contiki variables */
+  private final MemoryVariable.ByteVar simReceiving;
+  private final MemoryVariable.IntVar simInSize;
+  private final MemoryVariable.ByteArrayVar simInDataBuffer;
+  private final MemoryVariable.Int64Var simLastPacketTimestamp;
+  private final MemoryVariable.IntVar simOutSize;
+  private final MemoryVariable.ByteArrayVar simOutDataBuffer;
+  private final MemoryVariable.ByteVar simRadioHWOn;
+  private final MemoryVariable.IntVar simSignalStrength;
+  private final MemoryVariable.ByteVar simPower;
+  private final MemoryVariable.IntVar simRadioChannel;
+  private final MemoryVariable.IntVar simLQI;
+
   private static Logger logger = Logger.getLogger(ContikiRadio.class);
 
   /**
@@ -136,7 +150,19 @@ public class ContikiRadio extends Radio implements ContikiMoteInterface, PolledA
     this.mote = (ContikiMote) mote;
     this.myMoteMemory = new VarMemory(mote.getMemory());
 
-    radioOn = myMoteMemory.getByteValueOf("simRadioHWOn") == 1;
+    simReceiving = myMoteMemory.byteVar("simReceiving");
+    simInSize = myMoteMemory.intVar("simInSize");
+    simInDataBuffer = myMoteMemory.byteArrayVar("simInDataBuffer");
+    simLastPacketTimestamp = myMoteMemory.int64Var("simLastPacketTimestamp");
+    simOutSize = myMoteMemory.intVar("simOutSize");
+    simOutDataBuffer = myMoteMemory.byteArrayVar("simOutDataBuffer");
+    simRadioHWOn = myMoteMemory.byteVar("simRadioHWOn");
+    simSignalStrength = myMoteMemory.intVar("simSignalStrength");
+    simPower = myMoteMemory.byteVar("simPower");
+    simRadioChannel = myMoteMemory.intVar("simRadioChannel");
+    simLQI = myMoteMemory.intVar("simLQI");
+
+    radioOn = simRadioHWOn.get() == 1;
   }
 
   /* Contiki mote interface support */
@@ -167,7 +193,7 @@ public class ContikiRadio extends Radio implements ContikiMoteInterface, PolledA
   }
 
   public boolean isReceiving() {
-    return myMoteMemory.getByteValueOf("simReceiving") == 1;
+    return simReceiving.get() == 1;
   }
 
   public boolean isInterfered() {
@@ -175,7 +201,7 @@ public class ContikiRadio extends Radio implements ContikiMoteInterface, PolledA
   }
 
   public int getChannel() {
-    return myMoteMemory.getIntValueOf("simRadioChannel");
+    return simRadioChannel.get();
   }
 
   public void signalReceptionStart() {
@@ -185,13 +211,13 @@ public class ContikiRadio extends Radio implements ContikiMoteInterface, PolledA
       return;
     }
 
-    myMoteMemory.setByteValueOf("simReceiving", (byte) 1);
+    simReceiving.set((byte) 1);
     mote.requestImmediateWakeup();
 
     lastEventTime = mote.getSimulation().getSimulationTime();
     lastEvent = RadioEvent.RECEPTION_STARTED;
 
-    myMoteMemory.setInt64ValueOf("simLastPacketTimestamp", lastEventTime);
+    simLastPacketTimestamp.set(lastEventTime);
 
     this.setChanged();
     this.notifyObservers();
@@ -201,13 +227,13 @@ public class ContikiRadio extends Radio implements ContikiMoteInterface, PolledA
     if (isInterfered || packetToMote == null) {
       isInterfered = false;
       packetToMote = null;
-      myMoteMemory.setIntValueOf("simInSize", 0);
+      simInSize.set(0);
     } else {
-      myMoteMemory.setIntValueOf("simInSize", packetToMote.getPacketData().length - 2);
-      myMoteMemory.setByteArray("simInDataBuffer", packetToMote.getPacketData());
+      simInSize.set(packetToMote.getPacketData().length - 2);
+      simInDataBuffer.set(packetToMote.getPacketData());
     }
 
-    myMoteMemory.setByteValueOf("simReceiving", (byte) 0);
+    simReceiving.set((byte) 0);
     mote.requestImmediateWakeup();
     lastEventTime = mote.getSimulation().getSimulationTime();
     lastEvent = RadioEvent.RECEPTION_FINISHED;
@@ -243,15 +269,15 @@ public class ContikiRadio extends Radio implements ContikiMoteInterface, PolledA
   }
 
   public int getCurrentOutputPowerIndicator() {
-    return myMoteMemory.getByteValueOf("simPower");
+    return simPower.get();
   }
 
   public double getCurrentSignalStrength() {
-    return myMoteMemory.getIntValueOf("simSignalStrength");
+    return simSignalStrength.get();
   }
 
   public void setCurrentSignalStrength(double signalStrength) {
-    myMoteMemory.setIntValueOf("simSignalStrength", (int) signalStrength);
+    simSignalStrength.set((int) signalStrength);
   }
 
   /** Set LQI to a value between 0 and 255.
@@ -265,11 +291,11 @@ public class ContikiRadio extends Radio implements ContikiMoteInterface, PolledA
     else if(lqi>0xff) {
       lqi=0xff;
     }
-    myMoteMemory.setIntValueOf("simLQI", lqi);
+    simLQI.set(lqi);
   }
 
   public int getLQI(){
-    return myMoteMemory.getIntValueOf("simLQI");
+    return simLQI.get();
   }
 
   public Position getPosition() {
@@ -280,13 +306,13 @@ public class ContikiRadio extends Radio implements ContikiMoteInterface, PolledA
     long now = mote.getSimulation().getSimulationTime();
 
     /* Check if radio hardware status changed */
-    if (radioOn != (myMoteMemory.getByteValueOf("simRadioHWOn") == 1)) {
+    if (radioOn != (simRadioHWOn.get() == 1)) {
       radioOn = !radioOn;
 
       if (!radioOn) {
-        myMoteMemory.setByteValueOf("simReceiving", (byte) 0);
-        myMoteMemory.setIntValueOf("simInSize", 0);
-        myMoteMemory.setIntValueOf("simOutSize", 0);
+        simReceiving.set((byte) 0);
+        simInSize.set(0);
+        simOutSize.set(0);
         isTransmitting = false;
         lastEvent = RadioEvent.HW_OFF;
       } else {
@@ -302,8 +328,8 @@ public class ContikiRadio extends Radio implements ContikiMoteInterface, PolledA
     }
 
     /* Check if radio output power changed */
-    if (myMoteMemory.getByteValueOf("simPower") != oldOutputPowerIndicator) {
-      oldOutputPowerIndicator = myMoteMemory.getByteValueOf("simPower");
+    if (simPower.get() != oldOutputPowerIndicator) {
+      oldOutputPowerIndicator = simPower.get();
       lastEvent = RadioEvent.UNKNOWN;
       this.setChanged();
       this.notifyObservers();
@@ -319,7 +345,7 @@ public class ContikiRadio extends Radio implements ContikiMoteInterface, PolledA
 
     /* Ongoing transmission */
     if (isTransmitting && now >= transmissionEndTime) {
-      myMoteMemory.setIntValueOf("simOutSize", 0);
+      simOutSize.set(0);
       isTransmitting = false;
       mote.requestImmediateWakeup();
 
@@ -331,13 +357,13 @@ public class ContikiRadio extends Radio implements ContikiMoteInterface, PolledA
     }
 
     /* New transmission */
-    int size = myMoteMemory.getIntValueOf("simOutSize");
+    int size = simOutSize.get();
     if (!isTransmitting && size > 0) {
-      packetFromMote = new COOJARadioPacket(myMoteMemory.getByteArray("simOutDataBuffer", size + 2));
+      packetFromMote = new COOJARadioPacket(simOutDataBuffer.get(size + 2));
 
       if (packetFromMote.getPacketData() == null || packetFromMote.getPacketData().length == 0) {
         logger.warn("Skipping zero sized Contiki packet (no buffer)");
-        myMoteMemory.setIntValueOf("simOutSize", 0);
+        simOutSize.set(0);
         mote.requestImmediateWakeup();
         return;
       }
@@ -33,6 +33,8 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.Timer;
 
@@ -43,6 +45,10 @@ import org.contikios.cooja.plugins.LogListener;
  * 
  * To be used by plugins et. al. that receive updates at a high rate 
  * (such as new Log Output messages), and must handle them from the Event thread.
+ *
+ * Events are added to a lock-free queue, and all pending events are handled
+ * in one batch by a timer, at most once per interval. The producer is only
+ * delayed if the event thread falls far behind.
  * 
  * @author Fredrik Osterlind, Niclas Finne
  *
@@ -50,10 +56,11 @@ import org.contikios.cooja.plugins.LogListener;
  * @see LogListener
  */
 public abstract class UpdateAggregator<A> {
-  private static final int DEFAULT_MAX_PENDING = 256;
+  private static final int DEFAULT_MAX_PENDING = 16384;
   private int maxPending;
   
-  private ArrayList<A> pending;
+  private final ConcurrentLinkedQueue<A> pending = new ConcurrentLinkedQueue<A>();
+  private final AtomicInteger nrPending = new AtomicInteger();
   private Timer t;
 
   /**
@@ -64,11 +71,10 @@ public abstract class UpdateAggregator<A> {
   }
   /**
    * @param delay Max interval (ms)
-   * @param maxEvents Max pending events (default 256)
+   * @param maxEvents Max pending events before delaying producer (default 16384)
    */
   public UpdateAggregator(int interval, int maxEvents) {
     this.maxPending = maxEvents;
-    pending = new ArrayList<A>();
     t = new Timer(interval, new ActionListener() {
       public void actionPerformed(ActionEvent e) {
         consume.run();
@@ -84,15 +90,12 @@ public abstract class UpdateAggregator<A> {
    */
   private Runnable consume = new Runnable() {
     public void run() {
-      if (pending.isEmpty()) {
+      if (nrPending.get() == 0) {
         return;
       };
 
-      List<A> q = getPending();
-      if (q != null) {
-        /* Handle objects */
-        handle(q);
-      }
+      /* Handle objects */
+      handle(getPending());
 
       synchronized (UpdateAggregator.this) {
         UpdateAggregator.this.notifyAll();
@@ -105,26 +108,37 @@ public abstract class UpdateAggregator<A> {
    */
   protected abstract void handle(List<A> l);
   
-  private synchronized List<A> getPending() {
-    /* Queue pending packets */
-    ArrayList<A> tmp = pending;
-    pending = new ArrayList<A>();
+  private List<A> getPending() {
+    ArrayList<A> tmp = new ArrayList<A>(nrPending.get());
+    A a;
+    while ((a = pending.poll()) != null) {
+      tmp.add(a);
+    }
+    nrPending.addAndGet(-tmp.size());
     return tmp;
   }
 
   /**
    * @param a Add new event (any thread). May block.
    */
-  public synchronized void add(A a) {
-    try {
-      while (pending.size() > maxPending) {
-        /* Delay producer thread; events are coming in too fast */
-        EventQueue.invokeLater(consume); /* Request immediate consume */
-        wait(t.getDelay());
+  public void add(A a) {
+    pending.add(a);
+    if (nrPending.incrementAndGet() > maxPending) {
+      /* Delay producer thread; events are coming in too fast */
+      if (EventQueue.isDispatchThread()) {
+        consume.run();
+        return;
+      }
+      synchronized (this) {
+        try {
+          while (nrPending.get() > maxPending) {
+            EventQueue.invokeLater(consume); /* Request immediate consume */
+            wait(t.getDelay());
+          }
+        } catch (InterruptedException e) {
+        }
       }
-    } catch (InterruptedException e) {
     }
-    pending.add(a);
   }
 
   public void start() {
@@ -70,6 +70,64 @@ public abstract class Radio extends MoteInterface {
     PACKET_TRANSMITTED, CUSTOM_DATA_TRANSMITTED
   }
 
+  /**
+   * Listener for radio events.
+   *
+   * @see Radio#addRadioEventListener(RadioEventListener)
+   */
+  public interface RadioEventListener {
+    /**
+     * Called when the radio notifies a change.
+     *
+     * @param radio Radio
+     * @param event Last radio event, see {@link Radio#getLastEvent()}
+     */
+    public void radioEventOccurred(Radio radio, RadioEvent event);
+  }
+
+  /**
+   * Adds a listener notified on all radio events.
+   *
+   * @param listener Listener
+   */
+  public void addRadioEventListener(RadioEventListener listener) {
+    addInterfaceListener(new RadioEventAdapter(listener));
+  }
+
+  /**
+   * @param listener Listener to remove
+   */
+  public void removeRadioEventListener(RadioEventListener listener) {
+    removeInterfaceListener(new RadioEventAdapter(listener));
+  }
+
+  private static final class RadioEventAdapter implements InterfaceListener {
+    private final RadioEventListener listener;
+
+    RadioEventAdapter(RadioEventListener listener) {
+      if (listener == null) {
+        throw new NullPointerException();
+      }
+      this.listener = listener;
+    }
+
+    public void interfaceChanged(MoteInterface moteInterface, Object arg) {
+      Radio radio = (Radio) moteInterface;
+      listener.radioEventOccurred(radio, radio.getLastEvent());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof RadioEventAdapter
+          && ((RadioEventAdapter) obj).listener.equals(listener);
+    }
+
+    @Override
+    public int hashCode() {
+      return listener.hashCode();
+    }
+  }
+
   /**
    * Register the radio packet that is being received during a connection. This
    * packet should be supplied to the radio medium as soon as possible.
@@ -29,7 +29,9 @@
 
 package org.contikios.cooja.mote.memory;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Map;
 
 /**
@@ -39,11 +41,37 @@ import java.util.Map;
  */
 public class ArrayMemory implements MemoryInterface {
 
+  /**
+   * Granularity of write tracking [bytes].
+   */
+  public static final int PAGE_SIZE = 256;
+
   private final byte memory[];
   private final long startAddress;
   private final MemoryLayout layout;
   private final boolean readonly;
   private final Map<String, Symbol> symbols;// XXX Allow to set symbols
+  /* Pages possibly written since last clearDirtyPages() */
+  private final BitSet dirtyPages = new BitSet();
+  /* Pages not yet fetched from pageLoader, see setStale() */
+  private final BitSet stalePages = new BitSet();
+  private PageLoader pageLoader = null;
+
+  /**
+   * Source of memory pages that are fetched on first access.
+   *
+   * @see ArrayMemory#setStale(PageLoader)
+   */
+  public interface PageLoader {
+    /**
+     * Fetches a memory segment into the array backing the given memory.
+     *
+     * @param memory Memory
+     * @param offset Offset of segment relative to start of memory
+     * @param length Length of segment
+     */
+    void loadPages(ArrayMemory memory, int offset, int length);
+  }
 
   public ArrayMemory(long address, int size, MemoryLayout layout, Map<String, Symbol> symbols) {
     this(address, layout, new byte[size], symbols);
@@ -61,11 +89,66 @@ public class ArrayMemory implements MemoryInterface {
     this.symbols = symbols;
   }
 
+  /**
+   * Returns the array backing this memory. Since the caller may write to the
+   * array, all pages are marked as dirty.
+   *
+   * @return Backing array
+   * @see #getBackingArray()
+   */
   @Override
   public byte[] getMemory() {
+    loadPages(0, memory.length);
+    setDirty(0, memory.length);
+    return memory;
+  }
+
+  /**
+   * Returns the array backing this memory, for reading only. Writes to the
+   * returned array are not tracked; use
+   * {@link #setMemorySegment(long, byte[])} to write.
+   * Stale pages, see {@link #setStale(PageLoader)}, are not fetched.
+   *
+   * @return Backing array
+   */
+  public byte[] getBackingArray() {
     return memory;
   }
 
+  /**
+   * Marks all pages as stale. Stale pages are fetched from the given loader
+   * when first accessed, instead of all at once. Written pages are always
+   * fetched first, so stale and dirty pages never overlap.
+   *
+   * @param loader Source of stale pages
+   */
+  public void setStale(PageLoader loader) {
+    pageLoader = loader;
+    dirtyPages.clear();
+    stalePages.set(0, (memory.length + PAGE_SIZE - 1) / PAGE_SIZE);
+  }
+
+  /**
+   * Fetches all stale pages overlapping the given segment.
+   *
+   * @param offset Offset relative to start of memory
+   * @param length Length of segment
+   */
+  void loadPages(int offset, int length) {
+    if (stalePages.isEmpty() || length <= 0) {
+      return;
+    }
+    int endPage = (offset + length - 1) / PAGE_SIZE + 1;
+    int page = stalePages.nextSetBit(offset / PAGE_SIZE);
+    while (page >= 0 && page < endPage) {
+      int end = Math.min(stalePages.nextClearBit(page), endPage);
+      int start = page * PAGE_SIZE;
+      pageLoader.loadPages(this, start, Math.min(end * PAGE_SIZE, memory.length) - start);
+      stalePages.clear(page, end);
+      page = stalePages.nextSetBit(end);
+    }
+  }
+
   /**
    * XXX Should addr be the relative or the absolute address of this section?
    * @param addr
@@ -76,21 +159,76 @@ public class ArrayMemory implements MemoryInterface {
   @Override
   public byte[] getMemorySegment(long addr, int size) throws MoteMemoryException {
     byte[] ret = new byte[size];
+    loadPages((int) (addr - startAddress), size);
     System.arraycopy(memory, (int) (addr - startAddress), ret, 0, size);
     return ret;
   }
 
+  @Override
+  public ByteBuffer getMemorySegmentBuffer(long addr, int size) throws MoteMemoryException {
+    int offset = (int) (addr - startAddress);
+    loadPages(offset, size);
+    return ByteBuffer.wrap(memory, offset, size).slice().asReadOnlyBuffer();
+  }
+
   @Override
   public void setMemorySegment(long addr, byte[] data) throws MoteMemoryException {
     if (readonly) {
       throw new MoteMemoryException("Invalid write access for readonly memory");
     }
-    System.arraycopy(data, 0, memory, (int) (addr - startAddress), data.length);
+    int offset = (int) (addr - startAddress);
+    loadPages(offset, data.length);
+    System.arraycopy(data, 0, memory, offset, data.length);
+    setDirty(offset, data.length);
+  }
+
+  /**
+   * Marks memory as written, for writes made to the array returned by
+   * {@link #getBackingArray()}.
+   *
+   * @param offset Offset relative to start of memory
+   * @param length Length of written segment
+   */
+  void setDirty(int offset, int length) {
+    if (length > 0) {
+      dirtyPages.set(offset / PAGE_SIZE, (offset + length - 1) / PAGE_SIZE + 1);
+    }
+  }
+
+  /**
+   * Returns the first page at or after the given page that may have been
+   * written since the last call to {@link #clearDirtyPages()}.
+   *
+   * @param page Page index, relative to start of memory
+   * @return Page index, or -1 if there is no such page
+   */
+  public int nextDirtyPage(int page) {
+    return dirtyPages.nextSetBit(page);
+  }
+
+  /**
+   * Returns the first page at or after the given page that has not been
+   * written since the last call to {@link #clearDirtyPages()}.
+   *
+   * @param page Page index, relative to start of memory
+   * @return Page index, possibly past the end of memory
+   */
+  public int nextCleanPage(int page) {
+    return dirtyPages.nextClearBit(page);
+  }
+
+  /**
+   * Clears the write tracking of all pages.
+   */
+  public void clearDirtyPages() {
+    dirtyPages.clear();
   }
 
   @Override
   public void clearMemory() {
     Arrays.fill(memory, (byte) 0x00);
+    stalePages.clear();
+    dirtyPages.set(0, (memory.length + PAGE_SIZE - 1) / PAGE_SIZE);
   }
 
   @Override
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.mote.memory;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * A memory that is backed by a byte buffer.
+ *
+ * When backed by a direct buffer mapping native memory, for example a
+ * section of a loaded Contiki system, reads and writes access the native
+ * memory in place.
+ *
+ * Segment monitors are notified of reads and writes made through this
+ * interface. Writes made by the native system are not seen here, but are
+ * detected by the polling in {@link SectionMoteMemory}.
+ */
+public class ByteBufferMemory implements MemoryInterface {
+
+  private final ByteBuffer buffer;
+  private final long startAddress;
+  private final MemoryLayout layout;
+  private final Map<String, Symbol> symbols;
+  private final SegmentMonitorTable monitors = new SegmentMonitorTable();
+
+  public ByteBufferMemory(long address, MemoryLayout layout, ByteBuffer buffer, Map<String, Symbol> symbols) {
+    this.startAddress = address;
+    this.layout = layout;
+    this.buffer = buffer;
+    this.symbols = symbols;
+  }
+
+  /**
+   * Returns the entire memory, i.e. the backing array of a heap buffer.
+   *
+   * A direct buffer has no Java array to return. Use {@link #getBuffer()},
+   * {@link #getMemorySegmentBuffer(long, int)} or
+   * {@link #setMemorySegment(long, byte[])} to access direct memory in place.
+   *
+   * @return Memory byte array
+   * @throws MoteMemoryException If memory is not backed by an array
+   */
+  @Override
+  public byte[] getMemory() throws MoteMemoryException {
+    if (buffer.hasArray() && buffer.arrayOffset() == 0
+            && buffer.array().length == buffer.capacity()) {
+      return buffer.array();
+    }
+    throw new MoteMemoryException(
+            "Memory at 0x%x is not backed by an array", startAddress);
+  }
+
+  /**
+   * Returns a view of the backing buffer.
+   * The view has its own position and limit, but shares the buffer contents.
+   *
+   * @return Buffer view
+   */
+  public ByteBuffer getBuffer() {
+    ByteBuffer dup = buffer.duplicate();
+    dup.clear();
+    return dup;
+  }
+
+  /**
+   * Reads a segment from memory into a new array.
+   * Use {@link #getMemorySegmentBuffer(long, int)} to read without copying.
+   */
+  @Override
+  public byte[] getMemorySegment(long addr, int size) throws MoteMemoryException {
+    byte[] ret = new byte[size];
+    getMemorySegmentBuffer(addr, size).get(ret);
+    return ret;
+  }
+
+  /**
+   * Returns a read-only view of a segment of the backing buffer. The segment
+   * is not copied, and the view reflects later changes, also those made by
+   * the native system.
+   */
+  @Override
+  public ByteBuffer getMemorySegmentBuffer(long addr, int size) throws MoteMemoryException {
+    ByteBuffer dup = buffer.duplicate();
+    dup.clear();
+    dup.position((int) (addr - startAddress));
+    dup.limit((int) (addr - startAddress) + size);
+    monitors.notify(this, SegmentMonitor.EventType.READ, addr, size);
+    return dup.slice().asReadOnlyBuffer();
+  }
+
+  @Override
+  public void setMemorySegment(long addr, byte[] data) throws MoteMemoryException {
+    ByteBuffer dup = buffer.duplicate();
+    dup.clear();
+    dup.position((int) (addr - startAddress));
+    dup.put(data);
+    monitors.notify(this, SegmentMonitor.EventType.WRITE, addr, data.length);
+  }
+
+  @Override
+  public void clearMemory() {
+    for (int i = 0; i < buffer.capacity(); i++) {
+      buffer.put(i, (byte) 0x00);
+    }
+  }
+
+  @Override
+  public long getStartAddr() {
+    return startAddress;
+  }
+
+  @Override
+  public int getTotalSize() {
+    return buffer.capacity();
+  }
+
+  @Override
+  public Map<String, Symbol> getSymbolMap() {
+    return symbols;
+  }
+
+  @Override
+  public MemoryLayout getLayout() {
+    return layout;
+  }
+
+  @Override
+  public boolean addSegmentMonitor(SegmentMonitor.EventType flag, long address, int size, SegmentMonitor monitor) {
+    if (address < startAddress || address + size > startAddress + buffer.capacity()) {
+      return false;
+    }
+    monitors.add(flag, address, size, monitor);
+    return true;
+  }
+
+  @Override
+  public boolean removeSegmentMonitor(long address, int size, SegmentMonitor monitor) {
+    return monitors.remove(address, size, monitor);
+  }
+
+}
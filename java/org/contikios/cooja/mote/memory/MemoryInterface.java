@@ -28,6 +28,7 @@
  */
 package org.contikios.cooja.mote.memory;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 /**
@@ -105,6 +106,19 @@ public interface MemoryInterface {
    */
   public byte[] getMemorySegment(long addr, int size) throws MoteMemoryException;
 
+  /**
+   * Returns a read-only view of a segment of memory. Memories that can map
+   * the segment in place return a view without copying it; the view then
+   * reflects later changes of the memory.
+   *
+   * @param addr Start address of segment
+   * @param size Size of segment [bytes]
+   * @return Read-only buffer, positioned at segment start
+   */
+  default ByteBuffer getMemorySegmentBuffer(long addr, int size) throws MoteMemoryException {
+    return ByteBuffer.wrap(getMemorySegment(addr, size)).asReadOnlyBuffer();
+  }
+
   /**
    * Sets a segment of memory.
    *
@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.mote.memory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.contikios.cooja.mote.memory.MemoryInterface.Symbol;
+
+/**
+ * Handle to a variable in mote memory.
+ *
+ * The variable's address, size, memory layout and memory section are
+ * resolved on first access, and again whenever the memory associated with
+ * the {@link VarMemory} changes. Reads and writes of array or byte buffer
+ * backed sections then access the section's current storage directly,
+ * without symbol lookups or temporary arrays.
+ *
+ * A handle to a variable missing in memory can be created, but accessing
+ * it throws {@link UnknownVariableException}.
+ *
+ * Handles are obtained from {@link VarMemory}, for example
+ * {@link VarMemory#intVar(String)}.
+ */
+public abstract class MemoryVariable {
+
+  private final VarMemory varMemory;
+  private final String name;
+
+  /* Resolved for memory, see resolve() */
+  private MemoryInterface memory = null;
+  private Symbol symbol = null;
+  private MemoryLayout layout = null;
+  private ArrayMemory arrayMemory = null;
+  private ByteBuffer buffer = null;
+  private int offset = 0;
+
+  protected MemoryVariable(VarMemory varMemory, String name) {
+    this.varMemory = varMemory;
+    this.name = name;
+  }
+
+  /**
+   * Resolves the variable in the memory currently associated with the
+   * VarMemory, unless already done.
+   *
+   * @throws UnknownVariableException If variable not found
+   */
+  private void resolve() throws UnknownVariableException {
+    MemoryInterface intf = varMemory.getMemoryInterface();
+    if (intf == memory) {
+      return;
+    }
+
+    Symbol sym = intf.getSymbolMap().get(name);
+    if (sym == null) {
+      throw new UnknownVariableException(name);
+    }
+
+    MemoryInterface section = intf;
+    if (intf instanceof SectionMoteMemory) {
+      section = null;
+      for (MemoryInterface sec : ((SectionMoteMemory) intf).getSections().values()) {
+        if (SectionMoteMemory.includesAddr(sec, sym.addr)) {
+          section = sec;
+          break;
+        }
+      }
+    }
+
+    symbol = sym;
+    arrayMemory = section instanceof ArrayMemory ? (ArrayMemory) section : null;
+    buffer = section instanceof ByteBufferMemory ? ((ByteBufferMemory) section).getBuffer() : null;
+    offset = section == null ? 0 : (int) (sym.addr - section.getStartAddr());
+    layout = section != null && section.getLayout() != null ? section.getLayout() : intf.getLayout();
+    memory = intf;
+  }
+
+  /**
+   * @return True if variable exists in memory
+   */
+  public boolean exists() {
+    return varMemory.variableExists(name);
+  }
+
+  /**
+   * @return Symbol of variable
+   * @throws UnknownVariableException If variable not found
+   */
+  public Symbol getSymbol() throws UnknownVariableException {
+    resolve();
+    return symbol;
+  }
+
+  /**
+   * @return Memory layout of variable
+   * @throws UnknownVariableException If variable not found
+   */
+  public MemoryLayout getLayout() throws UnknownVariableException {
+    resolve();
+    return layout;
+  }
+
+  /**
+   * Reads signed integer of given size.
+   *
+   * @param pos Position relative to variable start
+   * @param size Size [bytes]
+   * @return Sign extended value
+   */
+  protected long readValue(int pos, int size) {
+    resolve();
+    byte[] data;
+    int dataOffset = offset + pos;
+    if (arrayMemory != null) {
+      arrayMemory.loadPages(dataOffset, size);
+      data = arrayMemory.getBackingArray();
+    } else if (buffer != null) {
+      data = null;
+    } else {
+      data = memory.getMemorySegment(symbol.addr + pos, size);
+      dataOffset = 0;
+    }
+
+    boolean littleEndian = layout.order == ByteOrder.LITTLE_ENDIAN;
+    long value = 0;
+    for (int i = 0; i < size; i++) {
+      int idx = dataOffset + (littleEndian ? size - 1 - i : i);
+      byte b = data != null ? data[idx] : buffer.get(idx);
+      value = (value << 8) | (b & 0xFF);
+    }
+    int shift = 64 - 8*size;
+    return (value << shift) >> shift;
+  }
+
+  /**
+   * Writes integer of given size.
+   *
+   * @param pos Position relative to variable start
+   * @param size Size [bytes]
+   * @param value Value to write
+   */
+  protected void writeValue(int pos, int size, long value) {
+    resolve();
+    byte[] data;
+    int dataOffset = offset + pos;
+    if (arrayMemory != null) {
+      arrayMemory.loadPages(dataOffset, size);
+      data = arrayMemory.getBackingArray();
+    } else if (buffer != null) {
+      data = null;
+    } else {
+      data = new byte[size];
+      dataOffset = 0;
+    }
+
+    boolean littleEndian = layout.order == ByteOrder.LITTLE_ENDIAN;
+    for (int i = 0; i < size; i++) {
+      int idx = dataOffset + (littleEndian ? i : size - 1 - i);
+      byte b = (byte) (value >> 8*i);
+      if (data != null) {
+        data[idx] = b;
+      } else {
+        buffer.put(idx, b);
+      }
+    }
+
+    if (arrayMemory != null) {
+      arrayMemory.setDirty(dataOffset, size);
+    } else if (buffer == null) {
+      memory.setMemorySegment(symbol.addr + pos, data);
+    }
+  }
+
+  /**
+   * Reads bytes into given array.
+   *
+   * @param dst Destination array
+   * @param length Number of bytes to read
+   */
+  protected void readBytes(byte[] dst, int length) {
+    resolve();
+    if (arrayMemory != null) {
+      arrayMemory.loadPages(offset, length);
+      System.arraycopy(arrayMemory.getBackingArray(), offset, dst, 0, length);
+    } else if (buffer != null) {
+      for (int i = 0; i < length; i++) {
+        dst[i] = buffer.get(offset + i);
+      }
+    } else {
+      System.arraycopy(memory.getMemorySegment(symbol.addr, length), 0, dst, 0, length);
+    }
+  }
+
+  /**
+   * Writes bytes from given array.
+   *
+   * @param src Source array
+   * @param length Number of bytes to write
+   */
+  protected void writeBytes(byte[] src, int length) {
+    resolve();
+    if (arrayMemory != null) {
+      arrayMemory.loadPages(offset, length);
+      System.arraycopy(src, 0, arrayMemory.getBackingArray(), offset, length);
+      arrayMemory.setDirty(offset, length);
+    } else if (buffer != null) {
+      for (int i = 0; i < length; i++) {
+        buffer.put(offset + i, src[i]);
+      }
+    } else {
+      byte[] data = src;
+      if (src.length != length) {
+        data = new byte[length];
+        System.arraycopy(src, 0, data, 0, length);
+      }
+      memory.setMemorySegment(symbol.addr, data);
+    }
+  }
+
+  /**
+   * Byte variable (char).
+   */
+  public static class ByteVar extends MemoryVariable {
+    ByteVar(VarMemory varMemory, String name) {
+      super(varMemory, name);
+    }
+
+    public byte get() {
+      return (byte) readValue(0, 1);
+    }
+
+    public void set(byte value) {
+      writeValue(0, 1, value);
+    }
+  }
+
+  /**
+   * Integer variable, of platform dependent size.
+   */
+  public static class IntVar extends MemoryVariable {
+    IntVar(VarMemory varMemory, String name) {
+      super(varMemory, name);
+    }
+
+    private int size() {
+      return getLayout().intSize == 2 ? 2 : 4;
+    }
+
+    public int get() {
+      return (int) readValue(0, size());
+    }
+
+    public void set(int value) {
+      writeValue(0, size(), value);
+    }
+  }
+
+  /**
+   * 32 bit integer variable.
+   */
+  public static class Int32Var extends MemoryVariable {
+    Int32Var(VarMemory varMemory, String name) {
+      super(varMemory, name);
+    }
+
+    public int get() {
+      return (int) readValue(0, 4);
+    }
+
+    public void set(int value) {
+      writeValue(0, 4, value);
+    }
+  }
+
+  /**
+   * 64 bit integer variable.
+   */
+  public static class Int64Var extends MemoryVariable {
+    Int64Var(VarMemory varMemory, String name) {
+      super(varMemory, name);
+    }
+
+    public long get() {
+      return readValue(0, 8);
+    }
+
+    public void set(long value) {
+      writeValue(0, 8, value);
+    }
+  }
+
+  /**
+   * Byte array variable.
+   */
+  public static class ByteArrayVar extends MemoryVariable {
+    ByteArrayVar(VarMemory varMemory, String name) {
+      super(varMemory, name);
+    }
+
+    /**
+     * Reads the first bytes of the array.
+     *
+     * @param length Number of bytes to read
+     * @return New byte array
+     */
+    public byte[] get(int length) {
+      byte[] data = new byte[length];
+      readBytes(data, length);
+      return data;
+    }
+
+    /**
+     * Reads the first bytes of the array into given array.
+     *
+     * @param dst Destination
+     * @param length Number of bytes to read
+     */
+    public void get(byte[] dst, int length) {
+      readBytes(dst, length);
+    }
+
+    /**
+     * Writes given data to the start of the array.
+     *
+     * @param data Data
+     */
+    public void set(byte[] data) {
+      writeBytes(data, data.length);
+    }
+  }
+}
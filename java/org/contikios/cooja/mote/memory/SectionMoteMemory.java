@@ -28,8 +28,8 @@
 
 package org.contikios.cooja.mote.memory;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -217,6 +217,28 @@ public class SectionMoteMemory implements MemoryInterface {
             address, address + size - 1);
   }
 
+  /**
+   * Returns a read-only view of the memory segment from section matching
+   * segment given by address and size.
+   * @param address start address of segment to get
+   * @param size size of segment to get
+   * @return Buffer containing data of segment
+   * @throws MoteMemoryException if no single section containing the given address range was found
+   */
+  @Override
+  public ByteBuffer getMemorySegmentBuffer(long address, int size) throws MoteMemoryException {
+
+    for (MemoryInterface section : sections.values()) {
+      if (includesAddr(section, address) && includesAddr(section, address + size - 1)) {
+        return section.getMemorySegmentBuffer(address, size);
+      }
+    }
+
+    throw new MoteMemoryException(
+            "Getting memory segment [0x%x,0x%x] failed: No section available",
+            address, address + size - 1);
+  }
+
   /**
    * Sets memory segment of section matching segment given by address and size.
    * @param address start address of segment to set
@@ -288,7 +310,8 @@ public class SectionMoteMemory implements MemoryInterface {
     for (String secname : sections.keySet()) {
       // Copy section memory to new ArrayMemory
       MemoryInterface section = sections.get(secname);
-      MemoryInterface cpmem = new ArrayMemory(section.getStartAddr(), section.getLayout(), section.getMemory().clone(), section.getSymbolMap());
+      MemoryInterface cpmem = new ArrayMemory(section.getStartAddr(), section.getLayout(),
+              section.getMemorySegment(section.getStartAddr(), section.getTotalSize()), section.getSymbolMap());
       clone.addMemorySection(secname, cpmem);
     }
 
@@ -306,7 +329,8 @@ public class SectionMoteMemory implements MemoryInterface {
     public final SegmentMonitor mm;
     public final long address;
     public final int size;
-    private byte[] oldMem;
+    private final byte[] oldMem;
+    private final ByteBuffer oldBuffer;
 
     public PolledMemorySegments(SegmentMonitor mm, long address, int size) {
       this.mm = mm;
@@ -314,16 +338,18 @@ public class SectionMoteMemory implements MemoryInterface {
       this.size = size;
       
       oldMem = getMemorySegment(address, size);
+      oldBuffer = ByteBuffer.wrap(oldMem);
     }
 
     private void notifyIfChanged() {
-      byte[] newMem = getMemorySegment(address, size);
-      if (Arrays.equals(oldMem, newMem)) {
+      /* Compare without copying, and only copy changed memory */
+      ByteBuffer newMem = getMemorySegmentBuffer(address, size);
+      if (newMem.equals(oldBuffer)) {
         return;
       }
       
       mm.memoryChanged(SectionMoteMemory.this, SegmentMonitor.EventType.WRITE, address);
-      oldMem = newMem;
+      newMem.get(oldMem);
     }
   }
 
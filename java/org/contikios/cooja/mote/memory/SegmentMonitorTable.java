@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.mote.memory;
+
+import org.contikios.cooja.mote.memory.MemoryInterface.SegmentMonitor;
+import org.contikios.cooja.mote.memory.MemoryInterface.SegmentMonitor.EventType;
+
+/**
+ * Segment monitors of a memory, ordered by segment start address.
+ *
+ * A memory access is dispatched once to every monitor whose segment overlaps
+ * the accessed range, found by binary search instead of by testing all
+ * monitors. Monitors may be added or removed while dispatching: the
+ * monitors are kept in arrays that are replaced, never modified.
+ */
+public class SegmentMonitorTable {
+
+  private static final Entry[] NO_ENTRIES = new Entry[0];
+
+  private static class Entry {
+    final EventType flag;
+    final long address;
+    final int size;
+    final SegmentMonitor monitor;
+
+    Entry(EventType flag, long address, int size, SegmentMonitor monitor) {
+      this.flag = flag;
+      this.address = address;
+      this.size = size;
+      this.monitor = monitor;
+    }
+  }
+
+  private Entry[] entries = NO_ENTRIES;
+  /* Size of largest segment, bounds the search for overlapping segments */
+  private int maxSize = 0;
+
+  /**
+   * @return True if no monitors are added
+   */
+  public boolean isEmpty() {
+    return entries.length == 0;
+  }
+
+  /**
+   * Adds a monitor.
+   *
+   * @param flag Memory operation(s) to monitor
+   * @param address Segment start address
+   * @param size Segment size
+   * @param monitor Monitor
+   */
+  public void add(EventType flag, long address, int size, SegmentMonitor monitor) {
+    Entry[] old = entries;
+    int pos = firstStartingAfter(old, address);
+    Entry[] added = new Entry[old.length + 1];
+    System.arraycopy(old, 0, added, 0, pos);
+    added[pos] = new Entry(flag, address, size, monitor);
+    System.arraycopy(old, pos, added, pos + 1, old.length - pos);
+    entries = added;
+    maxSize = Math.max(maxSize, size);
+  }
+
+  /**
+   * Removes a monitor.
+   *
+   * @param address Segment start address
+   * @param size Segment size
+   * @param monitor Monitor
+   * @return True if monitor was removed
+   */
+  public boolean remove(long address, int size, SegmentMonitor monitor) {
+    Entry[] old = entries;
+    for (int i = firstStartingAfter(old, address) - 1; i >= 0 && old[i].address == address; i--) {
+      if (old[i].monitor != monitor || old[i].size != size) {
+        continue;
+      }
+      Entry[] removed = old.length == 1 ? NO_ENTRIES : new Entry[old.length - 1];
+      System.arraycopy(old, 0, removed, 0, i);
+      System.arraycopy(old, i + 1, removed, i, old.length - i - 1);
+      entries = removed;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns true if any monitored segment contains the given address.
+   *
+   * @param address Address
+   * @return True if address is monitored
+   */
+  public boolean isMonitored(long address) {
+    Entry[] current = entries;
+    for (int i = firstStartingAfter(current, address) - 1;
+         i >= 0 && current[i].address > address - maxSize; i--) {
+      if (address < current[i].address + current[i].size) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Notifies all monitors of segments overlapping the accessed range, in
+   * order of segment start address.
+   *
+   * @param memory Accessed memory
+   * @param type Access type, READ or WRITE
+   * @param address Start address of access
+   * @param size Size of access
+   */
+  public void notify(MemoryInterface memory, EventType type, long address, int size) {
+    Entry[] current = entries;
+    if (current.length == 0) {
+      return;
+    }
+    int end = firstStartingAfter(current, address + size - 1);
+    int start = end;
+    while (start > 0 && current[start - 1].address > address - maxSize) {
+      start--;
+    }
+    for (int i = start; i < end; i++) {
+      Entry e = current[i];
+      if (address >= e.address + e.size) {
+        continue;
+      }
+      if (e.flag != type && e.flag != EventType.READWRITE) {
+        continue;
+      }
+      e.monitor.memoryChanged(memory, type, Math.max(address, e.address));
+    }
+  }
+
+  /**
+   * @return Index of first entry with start address after the given address
+   */
+  private static int firstStartingAfter(Entry[] entries, long address) {
+    int low = 0;
+    int high = entries.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (entries[mid].address <= address) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
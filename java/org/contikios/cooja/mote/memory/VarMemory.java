@@ -64,6 +64,13 @@ public class VarMemory extends Memory {
     memIntf = intf;
   }
 
+  /**
+   * @return Memory interface associated with this access class
+   */
+  MemoryInterface getMemoryInterface() {
+    return memIntf;
+  }
+
   /**
    * Generates and returns an array of all variables in this memory
    *
@@ -359,6 +366,66 @@ public class VarMemory extends Memory {
     setByteArray(getVariable(varName).addr, data);
   }
 
+  /**
+   * Returns a handle to a byte variable.
+   * The variable is resolved on first access, and again if another memory
+   * is associated. Accessing a handle to a missing variable throws
+   * {@link UnknownVariableException}; use {@link MemoryVariable#exists()}
+   * for optional variables.
+   *
+   * @param varName Variable name
+   * @return Variable handle
+   */
+  public MemoryVariable.ByteVar byteVar(String varName) {
+    return new MemoryVariable.ByteVar(this, varName);
+  }
+
+  /**
+   * Returns a handle to an integer variable.
+   * <p>
+   * Note: Size of integer depends on platform type.
+   *
+   * @see #byteVar(String)
+   * @param varName Variable name
+   * @return Variable handle
+   */
+  public MemoryVariable.IntVar intVar(String varName) {
+    return new MemoryVariable.IntVar(this, varName);
+  }
+
+  /**
+   * Returns a handle to a 32 bit integer variable.
+   *
+   * @see #byteVar(String)
+   * @param varName Variable name
+   * @return Variable handle
+   */
+  public MemoryVariable.Int32Var int32Var(String varName) {
+    return new MemoryVariable.Int32Var(this, varName);
+  }
+
+  /**
+   * Returns a handle to a 64 bit integer variable.
+   *
+   * @see #byteVar(String)
+   * @param varName Variable name
+   * @return Variable handle
+   */
+  public MemoryVariable.Int64Var int64Var(String varName) {
+    return new MemoryVariable.Int64Var(this, varName);
+  }
+
+  /**
+   * Returns a handle to a byte array variable.
+   *
+   * @see #byteVar(String)
+   * @param varName Variable name
+   * @return Variable handle
+   */
+  public MemoryVariable.ByteArrayVar byteArrayVar(String varName) {
+    return new MemoryVariable.ByteArrayVar(this, varName);
+  }
+
   /**
    * Adds a monitor for the specified address region.
    *
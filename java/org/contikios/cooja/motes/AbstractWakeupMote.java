@@ -105,6 +105,32 @@ public abstract class AbstractWakeupMote implements Mote {
 	  }
 	  return executeMoteEvent.getTime();
   }
+
+  /**
+   * Sets the next time the mote software executes, also if a wakeup is
+   * already scheduled earlier. Used when restoring a mote's saved state.
+   *
+   * This method must be called from the simulation thread.
+   *
+   * @param time Simulation time, or -1 to not wake up
+   * @see #getNextWakeupTime()
+   */
+  public void setNextWakeupTime(long time) {
+    if (executeMoteEvent.isScheduled()) {
+      executeMoteEvent.remove();
+    }
+    if (time >= 0) {
+      simulation.scheduleEvent(executeMoteEvent, time);
+    }
+  }
+
+  /**
+   * @param event Event
+   * @return True if event is the wakeup event of this mote
+   */
+  public boolean isWakeupEvent(TimeEvent event) {
+    return event == executeMoteEvent;
+  }
   
   /**
    * Execute mote software at given time, or earlier.
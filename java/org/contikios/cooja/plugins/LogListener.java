@@ -47,7 +47,6 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
 import java.io.FileWriter;
-import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -95,6 +94,7 @@ import org.contikios.cooja.VisPlugin;
 import org.contikios.cooja.dialogs.TableColumnAdjuster;
 import org.contikios.cooja.dialogs.UpdateAggregator;
 import org.contikios.cooja.util.ArrayQueue;
+import org.contikios.cooja.util.AsyncLogWriter;
 
 /**
  * A simple mote log listener.
@@ -181,6 +181,12 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
         }
       }
 
+      /* Skip messages that would be removed directly */
+      int bufferSize = simulation.getEventCentral().getLogOutputBufferSize();
+      if (ls.size() > bufferSize) {
+        ls = ls.subList(ls.size() - bufferSize, ls.size());
+      }
+
       /* Add */
       int index = logs.size();
       logs.addAll(ls);
@@ -188,7 +194,7 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
 
       /* Remove old */
       int removed = 0;
-      while (logs.size() > simulation.getEventCentral().getLogOutputBufferSize()) {
+      while (logs.size() > bufferSize) {
         logs.remove(0);
         removed++;
       }
@@ -551,6 +557,10 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
   public void registerNewLogOutput(Mote mote, long time, String msg) {
     LogOutputEvent ev = new LogOutputEvent(mote, time, msg);
     registerNewLogOutput(ev);
+    if (appendStream != null) {
+      /* Not observed by the event central */
+      appendStream.writeEntry(ev);
+    }
   }
 
   private void registerNewLogOutput(LogOutputEvent ev) {
@@ -561,13 +571,6 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
     }
     LogData data = new LogData(ev);
     logUpdateAggregator.add(data);
-    if (appendToFile) {
-      appendToFile(appendStreamFile,
-          data.getTime() + "\t" +
-          data.getID() + "\t" +
-          data.ev.getMessage() + "\n"
-      );
-    }
   }
 
   private void repaintTimeColumn() {
@@ -583,7 +586,7 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
 
   public void closePlugin() {
     /* Stop observing motes */
-    appendToFile(null, null);
+    appendToFile(null);
     logUpdateAggregator.stop();
     simulation.getEventCentral().removeLogOutputListener(logOutputListener);
   }
@@ -643,15 +646,9 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
       	formatTimeString = true;
       	repaintTimeColumn();
       } else if ("append".equals(name)) {
-        appendToFile = true;
         appendStreamFile = simulation.getCooja().restorePortablePath(new File(element.getText()));
-        appendCheckBox.setSelected(true);
-        if (!appendStreamFile.exists()) {
-          try {
-            appendStreamFile.createNewFile();
-          } catch (IOException e) {
-          }
-        }
+        appendToFile = appendToFile(appendStreamFile);
+        appendCheckBox.setSelected(appendToFile);
       }
     }
 
@@ -791,41 +788,41 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
 
   private boolean appendToFile = false;
   private File appendStreamFile = null;
-  private boolean appendToFileWroteHeader = false;
-  private PrintWriter appendStream = null;
-  public boolean appendToFile(File file, String text) {
+  private AsyncLogWriter appendStream = null;
+  private AsyncLogWriter.EntryFormatter appendFormat = new AsyncLogWriter.EntryFormatter() {
+    public String format(Object entry) {
+      LogData data = new LogData((LogOutputEvent) entry);
+      return data.getTime() + "\t" + data.getID() + "\t" + data.ev.getMessage() + "\n";
+    }
+  };
+
+  /**
+   * Appends all new log output to the given file. The event central queues
+   * the log output events, and the file writer thread formats them.
+   *
+   * @param file File, or null to stop appending
+   * @return True if appending to file
+   */
+  public boolean appendToFile(File file) {
     /* Close stream */
+    if (appendStream != null) {
+      simulation.getEventCentral().removeLogOutputWriter(appendStream);
+      appendStream.close();
+      appendStream = null;
+    }
     if (file == null) {
-      if (appendStream != null) {
-        appendStream.close();
-        appendStream = null;
-      }
       return false;
     }
 
     /* Open stream */
-    if (appendStream == null || file != appendStreamFile) {
-      try {
-        if (appendStream != null) {
-          appendStream.close();
-          appendStream = null;
-        }
-        appendStream = new PrintWriter(new FileWriter(file,true));
-        appendStreamFile = file;
-        appendToFileWroteHeader = false;
-      } catch (Exception ex) {
-        logger.fatal("Append file failed: " + ex.getMessage(), ex);
-        return false;
-      }
-    }
-
-    /* Append to file */
-    if (!appendToFileWroteHeader) {
-      appendStream.println("-- Log Listener [" + simulation.getTitle() + "]: Started at " + (new Date()).toString());
-      appendToFileWroteHeader = true;
+    try {
+      appendStream = new AsyncLogWriter(file, true, appendFormat);
+    } catch (Exception ex) {
+      logger.fatal("Append file failed: " + ex.getMessage(), ex);
+      return false;
     }
-    appendStream.print(text);
-    appendStream.flush();
+    appendStream.write("-- Log Listener [" + simulation.getTitle() + "]: Started at " + (new Date()).toString() + "\n");
+    simulation.getEventCentral().addLogOutputWriter(appendStream);
     return true;
   }
 
@@ -835,7 +832,7 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
       JCheckBoxMenuItem cb = (JCheckBoxMenuItem) e.getSource();
       appendToFile = cb.isSelected();
       if (!appendToFile) {
-        appendToFile(null, null);
+        appendToFile(null);
         appendStreamFile = null;
         return;
       }
@@ -858,14 +855,9 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
         cb.setSelected(appendToFile);
         return;
       }
-      appendToFile = true;
-      appendStreamFile = saveFile;
-      if (!appendStreamFile.exists()) {
-        try {
-          appendStreamFile.createNewFile();
-        } catch (IOException ex) {
-        }
-      }
+      appendToFile = appendToFile(saveFile);
+      appendStreamFile = appendToFile ? saveFile : null;
+      cb.setSelected(appendToFile);
     }
   };
 
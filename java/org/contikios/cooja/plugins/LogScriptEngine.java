@@ -31,11 +31,17 @@
 package org.contikios.cooja.plugins;
 
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileWriter;
 import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.Map;
 import java.util.Observer;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
 
 import javax.script.Invocable;
 import javax.script.ScriptEngine;
@@ -87,7 +93,10 @@ public class LogScriptEngine {
   private Semaphore semaphoreScript = null; /* Semaphores blocking script/simulation */
   private Semaphore semaphoreSim = null;
   private Thread scriptThread = null; /* Script thread */
+  private final AtomicBoolean scriptWaiting = new AtomicBoolean(); /* Script is in WAIT_UNTIL */
+  private LogFilter logFilter = new LogFilter(); /* Log output the script is woken for */
   private Observer scriptLogObserver = null;
+  private Runnable scriptLogFlush = null;
   private ScriptMote scriptMote;
 
   private boolean stopSimulation = false, quitCooja = false;
@@ -148,12 +157,22 @@ public class LogScriptEngine {
         return;
       }
 
+      /* Script is not interested in this output */
+      if (!logFilter.accepts(msg)) {
+        return;
+      }
+
       /* Update script variables */
       engine.put("mote", mote);
       engine.put("id", id);
       engine.put("time", time);
       engine.put("msg", msg);
 
+      /* Script waits for a condition: only switch to script if it holds */
+      if (scriptWaiting.get() && !waitConditionHolds()) {
+        return;
+      }
+
       stepScript();
     } catch (UndeclaredThrowableException e) {
       logger.fatal("Exception: " + e.getMessage(), e);
@@ -166,6 +185,22 @@ public class LogScriptEngine {
     }
   }
 
+  /**
+   * Evaluates the condition of the script's current WAIT_UNTIL on the
+   * simulation thread, while the script thread is blocked. This avoids
+   * switching threads for mote output the script is not waiting for.
+   *
+   * @return True if the script should continue
+   */
+  private boolean waitConditionHolds() {
+    try {
+      return Boolean.TRUE.equals(((Invocable)engine).invokeFunction("SCRIPT_CHECK_CONDITION"));
+    } catch (Exception e) {
+      /* Script re-evaluates condition, and reports any errors */
+      return true;
+    }
+  }
+
   /**
    * Inject faked mote log output.
    * Should only be used for debugging!
@@ -190,6 +225,21 @@ public class LogScriptEngine {
     scriptLogObserver = observer;
   }
 
+  /**
+   * @param flush Writes buffered script log output, called when a test fails
+   * and before Cooja quits
+   */
+  public void setScriptLogFlush(Runnable flush) {
+    scriptLogFlush = flush;
+  }
+
+  private void flushScriptLog() {
+    Runnable flush = scriptLogFlush;
+    if (flush != null) {
+      flush.run();
+    }
+  }
+
   /**
    * Deactivate script
    */
@@ -274,6 +324,9 @@ public class LogScriptEngine {
     engine.put("SHUTDOWN", false);
     engine.put("SEMAPHORE_SCRIPT", semaphoreScript);
     engine.put("SEMAPHORE_SIM", semaphoreSim);
+    scriptWaiting.set(false);
+    engine.put("SCRIPT_WAITING", scriptWaiting);
+    logFilter = new LogFilter();
 
     try {
       semaphoreScript.acquire();
@@ -311,6 +364,12 @@ public class LogScriptEngine {
             if (!Cooja.isVisualized()) {
               logger.fatal("Test script error, terminating Cooja.");
               logger.fatal("Script error:", e);
+              if (simulation.getCooja().isBatchRun()) {
+                exitCode = 1;
+                quitRunnable.run();
+                return;
+              }
+              flushScriptLog();
               System.exit(1);
             }
 
@@ -398,12 +457,17 @@ public class LogScriptEngine {
   private Runnable quitRunnable = new Runnable() {
     public void run() {
       simulation.stopSimulation();
+      flushScriptLog();
       new Thread() {
         public void run() {
           try { Thread.sleep(500); } catch (InterruptedException e) { }
           simulation.getCooja().doQuit(false, exitCode);
         };
       }.start();
+      if (simulation.getCooja().isBatchRun()) {
+        /* Only this run quits, the JVM continues */
+        return;
+      }
       new Thread() {
         public void run() {
           try { Thread.sleep(2000); } catch (InterruptedException e) { }
@@ -420,9 +484,17 @@ public class LogScriptEngine {
         scriptLogObserver.update(null, msg);
       }
     }
+    /* Relative file names are in the log directory of batch runs */
+    private File getOutputFile(String filename) {
+      File file = new File(filename);
+      if (file.isAbsolute()) {
+        return file;
+      }
+      return new File(simulation.getCooja().getLogDirectory(), filename);
+    }
     public void append(String filename, String msg) {
       try{
-        FileWriter fstream = new FileWriter(filename, true);
+        FileWriter fstream = new FileWriter(getOutputFile(filename), true);
         BufferedWriter out = new BufferedWriter(fstream);
         out.write(msg);
         out.close();
@@ -432,7 +504,7 @@ public class LogScriptEngine {
     }
     public void writeFile(String filename, String msg) {
       try{
-        FileWriter fstream = new FileWriter(filename, false);
+        FileWriter fstream = new FileWriter(getOutputFile(filename), false);
         BufferedWriter out = new BufferedWriter(fstream);
         out.write(msg);
         out.close();
@@ -449,6 +521,7 @@ public class LogScriptEngine {
     public void testFailed() {
       exitCode = 1;
       log("TEST FAILED\n");
+      flushScriptLog();
       deactive();
     }
     private void deactive() {
@@ -466,6 +539,37 @@ public class LogScriptEngine {
       throw new RuntimeException("test script killed");
     }
 
+    public void filter(Object filter) {
+      if (filter instanceof String) {
+        filterPrefix((String) filter);
+        return;
+      }
+
+      /* JavaScript RegExp, e.g. log.filter(/^DATA recv/i) */
+      Object source = filter instanceof Map ? ((Map<?, ?>) filter).get("source") : null;
+      if (!(source instanceof String)) {
+        throw new IllegalArgumentException("Log filter must be a string prefix or a RegExp: " + filter);
+      }
+      Map<?, ?> regexp = (Map<?, ?>) filter;
+      String flags = "";
+      if (Boolean.TRUE.equals(regexp.get("ignoreCase"))) {
+        flags += "i";
+      }
+      if (Boolean.TRUE.equals(regexp.get("multiline"))) {
+        flags += "m";
+      }
+      filterRegex((flags.length() > 0 ? "(?" + flags + ")" : "") + source);
+    }
+    public void filterPrefix(String prefix) {
+      logFilter.addPrefix(prefix);
+    }
+    public void filterRegex(String regex) {
+      logFilter.addRegex(regex);
+    }
+    public void clearFilters() {
+      logFilter = new LogFilter();
+    }
+
     public void generateMessage(final long delay, final String msg) {
       final Mote currentMote = (Mote) engine.get("mote");
       final TimeEvent generateEvent = new TimeEvent(0) {
@@ -495,4 +599,84 @@ public class LogScriptEngine {
       });
     }
   };
+
+  /**
+   * Log output filters registered by the test script via log.filterPrefix()
+   * and log.filterRegex(), or log.filter() with a string prefix or a
+   * JavaScript RegExp. Without filters, the script is woken for all log
+   * output.
+   *
+   * A prefix filter matches log output starting with it. A regex filter is a
+   * Java regular expression, matching if it is found in the log output; flags
+   * are given inline, e.g. "(?i)data recv".
+   *
+   * Only modified by the script thread while the simulation thread is
+   * blocked, and only read by the simulation thread.
+   */
+  private static class LogFilter {
+    private static class PrefixNode {
+      HashMap<Character, PrefixNode> children = new HashMap<Character, PrefixNode>();
+      boolean terminal = false;
+    }
+
+    private final PrefixNode prefixes = new PrefixNode();
+    private final ArrayList<Pattern> patterns = new ArrayList<Pattern>();
+    private boolean empty = true;
+
+    public void addPrefix(String prefix) {
+      if (prefix == null) {
+        throw new IllegalArgumentException("No log filter prefix");
+      }
+      PrefixNode node = prefixes;
+      for (int i=0; i < prefix.length(); i++) {
+        PrefixNode child = node.children.get(prefix.charAt(i));
+        if (child == null) {
+          child = new PrefixNode();
+          node.children.put(prefix.charAt(i), child);
+        }
+        node = child;
+      }
+      node.terminal = true;
+      empty = false;
+    }
+
+    public void addRegex(String regex) {
+      if (regex == null) {
+        throw new IllegalArgumentException("No log filter regex");
+      }
+      patterns.add(Pattern.compile(regex));
+      empty = false;
+    }
+
+    public boolean accepts(String msg) {
+      if (empty) {
+        return true;
+      }
+      if (msg == null) {
+        msg = "";
+      }
+
+      PrefixNode node = prefixes;
+      for (int i=0; !node.terminal; i++) {
+        if (i >= msg.length()) {
+          node = null;
+          break;
+        }
+        node = node.children.get(msg.charAt(i));
+        if (node == null) {
+          break;
+        }
+      }
+      if (node != null) {
+        return true;
+      }
+
+      for (Pattern pattern: patterns) {
+        if (pattern.matcher(msg).find()) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
 }
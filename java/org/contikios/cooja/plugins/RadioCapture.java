@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.plugins;
+
+import java.awt.BorderLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Observable;
+import java.util.Observer;
+
+import javax.swing.JLabel;
+import javax.swing.Timer;
+
+import org.apache.log4j.Logger;
+import org.jdom.Element;
+
+import org.contikios.cooja.ClassDescription;
+import org.contikios.cooja.Cooja;
+import org.contikios.cooja.Mote;
+import org.contikios.cooja.PluginType;
+import org.contikios.cooja.RadioConnection;
+import org.contikios.cooja.RadioMedium;
+import org.contikios.cooja.RadioPacket;
+import org.contikios.cooja.Simulation;
+import org.contikios.cooja.VisPlugin;
+import org.contikios.cooja.interfaces.Radio;
+import org.contikios.cooja.plugins.analyzers.PcapngWriter;
+import org.contikios.cooja.radiomediums.AbstractRadioMedium;
+
+/**
+ * Captures all radio transmissions to pcapng files, also without
+ * visualization.
+ *
+ * Each transmitting mote gets its own pcapng interface. Every packet is
+ * commented with the radio channel, and with the signal strength and LQI of
+ * each destination when the transmission started.
+ *
+ * Example configuration:
+ * <pre>
+ * &lt;plugin&gt;
+ *   org.contikios.cooja.plugins.RadioCapture
+ *   &lt;plugin_config&gt;
+ *     &lt;file&gt;radio.pcapng&lt;/file&gt;
+ *     &lt;rotate_size&gt;104857600&lt;/rotate_size&gt;
+ *   &lt;/plugin_config&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ *
+ * Relative files are placed in the log directory of batch runs.
+ * Files are rotated when larger than rotate_size bytes, if given.
+ *
+ * @see PcapngWriter
+ * @see RadioLogger
+ */
+@ClassDescription("Radio capture (pcapng)")
+@PluginType(PluginType.SIM_PLUGIN)
+public class RadioCapture extends VisPlugin {
+  private static Logger logger = Logger.getLogger(RadioCapture.class);
+
+  private final Simulation simulation;
+  private final RadioMedium radioMedium;
+  private final Observer radioMediumObserver;
+  private final Observer simulationObserver;
+
+  private File file = null;
+  private long rotateSize = 0;
+  private PcapngWriter writer = null;
+  private boolean failed = false;
+  private final HashMap<Mote, Integer> interfaces = new HashMap<Mote, Integer>();
+
+  /* Destination signal strengths of active connections, when they started */
+  private HashMap<RadioConnection, String> destinations = new HashMap<RadioConnection, String>();
+
+  private JLabel statusLabel = null;
+  private Timer updateTimer = null;
+
+  public RadioCapture(final Simulation simulation, final Cooja gui) {
+    super("Radio capture", gui, false);
+    this.simulation = simulation;
+    this.radioMedium = simulation.getRadioMedium();
+
+    radioMedium.addRadioTransmissionObserver(radioMediumObserver = new Observer() {
+      public void update(Observable obs, Object obj) {
+        RadioConnection conn = radioMedium.getLastConnection();
+        if (conn == null) {
+          transmissionStarted();
+        } else {
+          transmissionFinished(conn);
+        }
+      }
+    });
+
+    /* Write buffered packets whenever the simulation stops */
+    simulation.addObserver(simulationObserver = new Observer() {
+      public void update(Observable obs, Object obj) {
+        if (!simulation.isRunning()) {
+          flush();
+        }
+      }
+    });
+
+    if (!Cooja.isVisualized()) {
+      return;
+    }
+
+    statusLabel = new JLabel();
+    add(BorderLayout.CENTER, statusLabel);
+    updateTimer = new Timer(1000, new ActionListener() {
+      public void actionPerformed(ActionEvent e) {
+        updateStatus();
+      }
+    });
+    updateTimer.start();
+    updateStatus();
+    setSize(400, 80);
+  }
+
+  private void updateStatus() {
+    PcapngWriter w = writer;
+    if (w == null || w.getFile() == null) {
+      statusLabel.setText(" No packets captured");
+      return;
+    }
+    statusLabel.setText(" " + w.getPacketCount() + " packets captured to " + w.getFile().getName());
+  }
+
+  private void transmissionStarted() {
+    if (!(radioMedium instanceof AbstractRadioMedium)) {
+      return;
+    }
+
+    /* Connections no longer active were finished or aborted */
+    HashMap<RadioConnection, String> active = new HashMap<RadioConnection, String>();
+    for (RadioConnection conn: ((AbstractRadioMedium) radioMedium).getActiveConnections()) {
+      String info = destinations.get(conn);
+      if (info == null) {
+        StringBuilder sb = new StringBuilder();
+        for (Radio radio: conn.getAllDestinations()) {
+          sb.append("; mote ").append(radio.getMote().getID());
+          sb.append(String.format(" RSSI %.1f", radio.getCurrentSignalStrength()));
+          try {
+            int lqi = radio.getLQI();
+            sb.append(" LQI ").append(lqi);
+          } catch (UnsupportedOperationException e) {
+          }
+        }
+        info = sb.toString();
+      }
+      active.put(conn, info);
+    }
+    destinations = active;
+  }
+
+  private void transmissionFinished(RadioConnection conn) {
+    if (failed) {
+      return;
+    }
+    Radio source = conn.getSource();
+    RadioPacket packet = source.getLastPacketTransmitted();
+    if (packet == null) {
+      return;
+    }
+
+    StringBuilder comment = new StringBuilder();
+    if (source.getChannel() >= 0) {
+      comment.append("; channel ").append(source.getChannel());
+    }
+    String info = destinations.remove(conn);
+    if (info != null) {
+      comment.append(info);
+    }
+    Radio[] interfered = conn.getInterfered();
+    if (interfered.length > 0) {
+      comment.append("; interfered");
+      for (Radio radio: interfered) {
+        comment.append(" ").append(radio.getMote().getID());
+      }
+    }
+
+    try {
+      if (writer == null) {
+        writer = new PcapngWriter(getCaptureFile(), rotateSize, PcapngWriter.LINKTYPE_IEEE802_15_4);
+      }
+      Mote mote = source.getMote();
+      Integer iface = interfaces.get(mote);
+      if (iface == null) {
+        iface = writer.addInterface("mote " + mote.getID());
+        interfaces.put(mote, iface);
+      }
+      writer.writePacket(iface, conn.getStartTime(), packet.getPacketData(),
+          comment.length() == 0 ? null : comment.substring(2));
+    } catch (IOException e) {
+      logger.error("Radio capture failed: " + e.getMessage(), e);
+      failed = true;
+    }
+  }
+
+  private File getCaptureFile() {
+    File captureFile = file;
+    if (captureFile == null) {
+      captureFile = new File("radiolog-" + System.currentTimeMillis() + ".pcapng");
+    }
+    File logDirectory = simulation.getCooja().getLogDirectory();
+    if (!captureFile.isAbsolute() && logDirectory != null) {
+      captureFile = new File(logDirectory, captureFile.getPath());
+    }
+    return captureFile;
+  }
+
+  private void flush() {
+    if (writer == null) {
+      return;
+    }
+    try {
+      writer.flush();
+    } catch (IOException e) {
+      logger.error("Radio capture failed: " + e.getMessage(), e);
+    }
+  }
+
+  public void closePlugin() {
+    if (updateTimer != null) {
+      updateTimer.stop();
+    }
+    radioMedium.deleteRadioTransmissionObserver(radioMediumObserver);
+    simulation.deleteObserver(simulationObserver);
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        logger.error("Radio capture failed: " + e.getMessage(), e);
+      }
+    }
+  }
+
+  public Collection<Element> getConfigXML() {
+    ArrayList<Element> config = new ArrayList<Element>();
+    Element element;
+
+    if (file != null) {
+      element = new Element("file");
+      element.setText(simulation.getCooja().createPortablePath(file).getPath().replace('\\', '/'));
+      config.add(element);
+    }
+    if (rotateSize > 0) {
+      element = new Element("rotate_size");
+      element.setText(Long.toString(rotateSize));
+      config.add(element);
+    }
+    return config;
+  }
+
+  public boolean setConfigXML(Collection<Element> configXML, boolean visAvailable) {
+    for (Element element : configXML) {
+      String name = element.getName();
+      if ("file".equals(name)) {
+        file = simulation.getCooja().restorePortablePath(new File(element.getText().trim()));
+      } else if ("rotate_size".equals(name)) {
+        rotateSize = Long.parseLong(element.getText().trim());
+      }
+    }
+    return true;
+  }
+}
@@ -48,6 +48,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Properties;
@@ -84,6 +87,7 @@ import org.jdom.Element;
 import org.contikios.cooja.ClassDescription;
 import org.contikios.cooja.ConvertedRadioPacket;
 import org.contikios.cooja.Cooja;
+import org.contikios.cooja.Mote;
 import org.contikios.cooja.Plugin;
 import org.contikios.cooja.PluginType;
 import org.contikios.cooja.RadioConnection;
@@ -92,6 +96,7 @@ import org.contikios.cooja.RadioPacket;
 import org.contikios.cooja.Simulation;
 import org.contikios.cooja.VisPlugin;
 import org.contikios.cooja.dialogs.TableColumnAdjuster;
+import org.contikios.cooja.dialogs.UpdateAggregator;
 import org.contikios.cooja.interfaces.Radio;
 import org.contikios.cooja.plugins.analyzers.FragHeadPacketAnalyzer;
 import org.contikios.cooja.plugins.analyzers.ICMPv6Analyzer;
@@ -137,7 +142,55 @@ public class RadioLogger extends VisPlugin {
   private final Simulation simulation;
   private final JTable dataTable;
   private TableRowSorter<TableModel> logFilter;
-  private ArrayList<RadioConnectionLog> connections = new ArrayList<RadioConnectionLog>();
+  private final RadioPacketStore connections = new RadioPacketStore();
+
+  /* Data column: brief dissection of each packet, computed once per analyzer */
+  private String[] dataColumn = new String[0];
+
+  /* Recently dissected packets, with verbose dissections */
+  private static final int DISSECTION_CACHE_SIZE = 1024;
+  private final LinkedHashMap<Integer, PacketDissection> dissections =
+      new LinkedHashMap<Integer, PacketDissection>(DISSECTION_CACHE_SIZE, 0.75f, true) {
+    private static final long serialVersionUID = -2722484585282591329L;
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Integer, PacketDissection> eldest) {
+      return size() > DISSECTION_CACHE_SIZE;
+    }
+  };
+
+  /* Duplicate packets, set by the row filter */
+  private int[] hiddenBy = new int[0];
+  private int[] hides = new int[0];
+
+  /* Aggregate new connections, and add them to the table once per interval */
+  private static final int UPDATE_INTERVAL = 250;
+  private UpdateAggregator<RadioConnectionLog> connectionAggregator = new UpdateAggregator<RadioConnectionLog>(UPDATE_INTERVAL) {
+    @Override
+    protected void handle(List<RadioConnectionLog> newConnections) {
+      int lastSize = connections.size();
+      // Check if the last row is visible
+      boolean isVisible = false;
+      int rowCount = dataTable.getRowCount();
+      if (rowCount > 0) {
+        Rectangle lastRow = dataTable.getCellRect(rowCount - 1, 0, true);
+        Rectangle visible = dataTable.getVisibleRect();
+        isVisible = visible.y <= lastRow.y && visible.y + visible.height >= lastRow.y + lastRow.height;
+      }
+      synchronized (connections) {
+        for (RadioConnectionLog c: newConnections) {
+          connections.add(c.startTime, c.endTime, c.source,
+              c.destinations, c.interfered, c.packetData, c.originalData);
+        }
+      }
+      if (connections.size() > lastSize) {
+        model.fireTableRowsInserted(lastSize, connections.size() - 1);
+      }
+      if (isVisible) {
+        dataTable.scrollRectToVisible(dataTable.getCellRect(dataTable.getRowCount() - 1, 0, true));
+      }
+      setTitle("Radio messages: showing " + dataTable.getRowCount() + "/" + connections.size() + " packets");
+    }
+  };
   private RadioMedium radioMedium;
   private Observer radioMediumObserver;
   private AbstractTableModel model;
@@ -213,43 +266,41 @@ public class RadioLogger extends VisPlugin {
         if (row < 0 || row >= connections.size()) {
           return "";
         }
-        RadioConnectionLog conn = connections.get(row);
         if (col == COLUMN_NO) {
-          if (!showDuplicates && conn.hides > 0) {
-            return (String) "" + (row + 1) + "+" + conn.hides;
+          if (!showDuplicates && row < hides.length && hides[row] > 0) {
+            return (String) "" + (row + 1) + "+" + hides[row];
           }
           return (String) "" + (row + 1);
         } else if (col == COLUMN_TIME) {
+          long startTime = connections.getStartTime(row);
           if (formatTimeString) {
-            return LogListener.getFormattedTime(conn.startTime);
+            return LogListener.getFormattedTime(startTime);
           }
-          return Long.toString(conn.startTime / Simulation.MILLISECOND);
+          return Long.toString(startTime / Simulation.MILLISECOND);
         } else if (col == COLUMN_FROM) {
-          return "" + conn.connection.getSource().getMote().getID();
+          return "" + connections.getSource(row);
         } else if (col == COLUMN_TO) {
-          Radio[] dests = conn.connection.getDestinations();
+          int[] dests = connections.getDestinations(row);
           if (dests.length == 0) {
             return "-";
           }
           if (dests.length == 1) {
-            return "" + dests[0].getMote().getID();
+            return "" + dests[0];
           }
           if (dests.length == 2) {
-            return "" + dests[0].getMote().getID() + ',' + dests[1].getMote().getID();
+            return "" + dests[0] + ',' + dests[1];
           }
           return "[" + dests.length + " d]";
         } else if (col == COLUMN_DATA) {
-          if (conn.data == null) {
-            prepareDataString(connections.get(row));
-          }
+          String data = getData(row);
           if (aliases != null) {
             /* Check if alias exists */
-            String alias = (String) aliases.get(conn.data);
+            String alias = (String) aliases.get(data);
             if (alias != null) {
               return alias;
             }
           }
-          return conn.data;
+          return data;
         }
         return null;
       }
@@ -258,15 +309,20 @@ public class RadioLogger extends VisPlugin {
       public boolean isCellEditable(int row, int col) {
         if (col == COLUMN_FROM) {
           /* Highlight source */
-          gui.signalMoteHighlight(connections.get(row).connection.getSource().getMote());
+          Mote source = simulation.getMoteWithID(connections.getSource(row));
+          if (source != null) {
+            gui.signalMoteHighlight(source);
+          }
           return false;
         }
 
         if (col == COLUMN_TO) {
           /* Highlight all destinations */
-          Radio dests[] = connections.get(row).connection.getDestinations();
-          for (Radio dest: dests) {
-            gui.signalMoteHighlight(dest.getMote());
+          for (int id: connections.getDestinations(row)) {
+            Mote dest = simulation.getMoteWithID(id);
+            if (dest != null) {
+              gui.signalMoteHighlight(dest);
+            }
           }
           return false;
         }
@@ -298,19 +354,20 @@ public class RadioLogger extends VisPlugin {
         }
 
         /* TODO This entry may represent several hidden connections */
-        RadioConnectionLog conn = connections.get(modelRowIndex);
         if (modelColumnIndex == COLUMN_TIME) {
+          long startTime = connections.getStartTime(modelRowIndex);
+          long endTime = connections.getEndTime(modelRowIndex);
           return "<html>"
-                  + "Start time (us): " + conn.startTime
+                  + "Start time (us): " + startTime
                   + "<br>"
-                  + "End time (us): " + conn.endTime
+                  + "End time (us): " + endTime
                   + "<br><br>"
-                  + "Duration (us): " + (conn.endTime - conn.startTime)
+                  + "Duration (us): " + (endTime - startTime)
                   + "</html>";
         } else if (modelColumnIndex == COLUMN_FROM) {
-          return conn.connection.getSource().getMote().toString();
+          return getMoteString(connections.getSource(modelRowIndex));
         } else if (modelColumnIndex == COLUMN_TO) {
-          Radio[] dests = conn.connection.getDestinations();
+          int[] dests = connections.getDestinations(modelRowIndex);
           if (dests.length == 0) {
             return "No destinations";
           }
@@ -321,16 +378,13 @@ public class RadioLogger extends VisPlugin {
           } else {
             tip.append(dests.length).append(" destinations:<br>");
           }
-          for (Radio radio: dests) {
-            tip.append(radio.getMote()).append("<br>");
+          for (int id: dests) {
+            tip.append(getMoteString(id)).append("<br>");
           }
           tip.append("</html>");
           return tip.toString();
         } else if (modelColumnIndex == COLUMN_DATA) {
-          if (conn.tooltip == null) {
-            prepareTooltipString(conn);
-          }
-          return conn.tooltip;
+          return getTooltipString(modelRowIndex);
         }
         return super.getToolTipText(e);
       }
@@ -386,11 +440,7 @@ public class RadioLogger extends VisPlugin {
         }
         int modelRowIndex = dataTable.convertRowIndexToModel(row);
         if (modelRowIndex >= 0) {
-          RadioConnectionLog conn = connections.get(modelRowIndex);
-          if (conn.tooltip == null) {
-            prepareTooltipString(conn);
-          }
-          verboseBox.setText(conn.tooltip);
+          verboseBox.setText(getTooltipString(modelRowIndex));
           verboseBox.setCaretPosition(0);
         }
       }
@@ -516,37 +566,23 @@ public class RadioLogger extends VisPlugin {
         if (conn == null) {
           return;
         }
-        final RadioConnectionLog loggedConn = new RadioConnectionLog();
-        loggedConn.packet = conn.getSource().getLastPacketTransmitted();
-        if (loggedConn.packet == null)
+        RadioPacket packet = conn.getSource().getLastPacketTransmitted();
+        if (packet == null)
           return;
+        RadioConnectionLog loggedConn = new RadioConnectionLog();
         loggedConn.startTime = conn.getStartTime();
         loggedConn.endTime = simulation.getSimulationTime();
-        loggedConn.connection = conn;
-        java.awt.EventQueue.invokeLater(new Runnable() {
-          @Override
-          public void run() {
-            int lastSize = connections.size();
-            // Check if the last row is visible
-            boolean isVisible = false;
-            int rowCount = dataTable.getRowCount();
-            if (rowCount > 0) {
-              Rectangle lastRow = dataTable.getCellRect(rowCount - 1, 0, true);
-              Rectangle visible = dataTable.getVisibleRect();
-              isVisible = visible.y <= lastRow.y && visible.y + visible.height >= lastRow.y + lastRow.height;
-            }
-            connections.add(loggedConn);
-            if (connections.size() > lastSize) {
-              model.fireTableRowsInserted(lastSize, connections.size() - 1);
-            }
-            if (isVisible) {
-              dataTable.scrollRectToVisible(dataTable.getCellRect(dataTable.getRowCount() - 1, 0, true));
-            }
-            setTitle("Radio messages: showing " + dataTable.getRowCount() + "/" + connections.size() + " packets");
-          }
-        });
+        loggedConn.source = conn.getSource().getMote().getID();
+        loggedConn.destinations = getMoteIDs(conn.getDestinations());
+        loggedConn.interfered = getMoteIDs(conn.getInterfered());
+        loggedConn.packetData = packet.getPacketData();
+        if (packet instanceof ConvertedRadioPacket) {
+          loggedConn.originalData = ((ConvertedRadioPacket) packet).getOriginalPacketData();
+        }
+        connectionAggregator.add(loggedConn);
       }
     });
+    connectionAggregator.start();
 
     setSize(500, 300);
     try {
@@ -611,7 +647,7 @@ public class RadioLogger extends VisPlugin {
         }
         for (int ai = 0; ai < model.getRowCount(); ai++) {
           int index = dataTable.convertRowIndexToModel(ai);
-          if (connections.get(index).endTime < time) {
+          if (connections.getEndTime(index) < time) {
             continue;
           }
 
@@ -626,12 +662,8 @@ public class RadioLogger extends VisPlugin {
   }
 
   private void applyFilter() {
-    for (RadioConnectionLog conn: connections) {
-      conn.data = null;
-      conn.tooltip = null;
-      conn.hides = 0;
-      conn.hiddenBy = null;
-    }
+    hiddenBy = new int[connections.size()];
+    hides = new int[connections.size()];
 
     try {
       logFilter.setRowFilter(null);
@@ -639,29 +671,26 @@ public class RadioLogger extends VisPlugin {
         @Override
         public boolean include(RowFilter.Entry<? extends Object, ? extends Object> entry) {
           int row = (Integer) entry.getIdentifier();
-          RadioConnectionLog current = connections.get(row);
-          byte[] currentData = current.packet.getPacketData();
+          if (row >= hides.length) {
+            int length = Math.max(connections.size(), 2 * hides.length);
+            hiddenBy = Arrays.copyOf(hiddenBy, length);
+            hides = Arrays.copyOf(hides, length);
+          }
+          hiddenBy[row] = row;
+          hides[row] = 0;
 
           if (!showDuplicates && row > 0) {
-            RadioConnectionLog previous = connections.get(row - 1);
-            byte[] previousData = previous.packet.getPacketData();
-            if (!showDuplicates
-                    && Arrays.equals(previousData, currentData)
-                    && previous.connection.getSource() == current.connection.getSource()
-                    && Arrays.equals(previous.connection.getAllDestinations(), current.connection.getAllDestinations())) {
-              if (connections.get(row - 1).hiddenBy == null) {
-                connections.get(row - 1).hides++;
-                connections.get(row).hiddenBy = connections.get(row - 1);
-              } else {
-                connections.get(row - 1).hiddenBy.hides++;
-                connections.get(row).hiddenBy = connections.get(row - 1).hiddenBy;
-              }
+            if (connections.isSamePacket(row - 1, row)) {
+              /* Hidden by the first packet of the duplicates */
+              int first = hiddenBy[row - 1];
+              hides[first]++;
+              hiddenBy[row] = first;
               return false;
             }
           }
 
           if (hideNoDestinationPackets) {
-            if (current.connection.getDestinations().length == 0) {
+            if (connections.getDestinations(row).length == 0) {
               return false;
             }
           }
@@ -676,18 +705,46 @@ public class RadioLogger extends VisPlugin {
     }
   }
 
-  private void prepareDataString(RadioConnectionLog conn) {
+  private PacketDissection getDissection(int row) {
+    PacketDissection dissection = dissections.get(row);
+    if (dissection == null) {
+      dissection = dissectPacket(row);
+      dissections.put(row, dissection);
+      if (row >= dataColumn.length) {
+        dataColumn = Arrays.copyOf(dataColumn, Math.max(connections.size(), 2 * dataColumn.length));
+      }
+      dataColumn[row] = dissection.data;
+    }
+    return dissection;
+  }
+
+  /**
+   * Returns the data column of a packet. Unlike the verbose dissections,
+   * the data column is kept for all dissected packets, so searching through
+   * the log dissects each packet only once.
+   *
+   * @param row Packet index
+   * @return Brief dissection
+   */
+  private String getData(int row) {
+    if (row < dataColumn.length && dataColumn[row] != null) {
+      return dataColumn[row];
+    }
+    return getDissection(row).data;
+  }
+
+  private void clearDissections() {
+    dissections.clear();
+    dataColumn = new String[0];
+  }
+
+  private PacketDissection dissectPacket(int row) {
+    PacketDissection dissection = new PacketDissection();
     byte[] data;
-    if (conn.packet == null) {
-      data = null;
-    } else if (conn.packet instanceof ConvertedRadioPacket) {
-      data = ((ConvertedRadioPacket) conn.packet).getOriginalPacketData();
+    if (connections.isConverted(row)) {
+      data = connections.getOriginalPacketData(row);
     } else {
-      data = conn.packet.getPacketData();
-    }
-    if (data == null) {
-      conn.data = "[unknown data]";
-      return;
+      data = connections.getPacketData(row);
     }
 
     StringBuilder brief = new StringBuilder();
@@ -695,7 +752,7 @@ public class RadioLogger extends VisPlugin {
 
     /* default analyzer */
     PacketAnalyzer.Packet packet = new PacketAnalyzer.Packet(data, PacketAnalyzer.MAC_LEVEL,
-                                                             simulation.convertSimTimeToActualTime(conn.startTime));
+                                                             simulation.convertSimTimeToActualTime(connections.getStartTime(row)));
     if (analyzePacket(packet, brief, verbose)) {
       if (packet.hasMoreData()) {
         byte[] payload = packet.getPayload();
@@ -708,14 +765,15 @@ public class RadioLogger extends VisPlugin {
                 .append(StringUtils.hexDump(payload))
                 .append("</pre>");
       }
-      conn.data = (data.length < 100 ? (data.length < 10 ? "  " : " ") : "")
+      dissection.data = (data.length < 100 ? (data.length < 10 ? "  " : " ") : "")
               + data.length + ": " + brief;
       if (verbose.length() > 0) {
-        conn.tooltip = verbose.toString();
+        dissection.verbose = verbose.toString();
       }
     } else {
-      conn.data = data.length + ": 0x" + StringUtils.toHex(data, 4);
+      dissection.data = data.length + ": 0x" + StringUtils.toHex(data, 4);
     }
+    return dissection;
   }
 
   private boolean analyzePacket(PacketAnalyzer.Packet packet, StringBuilder brief, StringBuilder verbose) {
@@ -749,34 +807,33 @@ public class RadioLogger extends VisPlugin {
     return brief.length() > 0;
   }
 
-  private void prepareTooltipString(RadioConnectionLog conn) {
-    RadioPacket packet = conn.packet;
-    if (packet == null) {
-      conn.tooltip = "";
-      return;
+  private String getTooltipString(int row) {
+    String verbose = getDissection(row).verbose;
+    if (verbose != null) {
+      return verbose;
     }
 
-    if (packet instanceof ConvertedRadioPacket && packet.getPacketData().length > 0) {
-      byte[] original = ((ConvertedRadioPacket) packet).getOriginalPacketData();
-      byte[] converted = ((ConvertedRadioPacket) packet).getPacketData();
-      conn.tooltip = "<html><font face=\"Monospaced\">"
+    if (connections.isConverted(row) && connections.getPacketData(row).length > 0) {
+      byte[] original = connections.getOriginalPacketData(row);
+      byte[] converted = connections.getPacketData(row);
+      return "<html><font face=\"Monospaced\">"
               + "<b>Packet data (" + original.length + " bytes)</b><br>"
               + "<pre>" + StringUtils.hexDump(original) + "</pre>"
               + "</font><font face=\"Monospaced\">"
               + "<b>Cross-level packet data (" + converted.length + " bytes)</b><br>"
               + "<pre>" + StringUtils.hexDump(converted) + "</pre>"
               + "</font></html>";
-    } else if (packet instanceof ConvertedRadioPacket) {
-      byte[] original = ((ConvertedRadioPacket) packet).getOriginalPacketData();
-      conn.tooltip = "<html><font face=\"Monospaced\">"
+    } else if (connections.isConverted(row)) {
+      byte[] original = connections.getOriginalPacketData(row);
+      return "<html><font face=\"Monospaced\">"
               + "<b>Packet data (" + original.length + " bytes)</b><br>"
               + "<pre>" + StringUtils.hexDump(original) + "</pre>"
               + "</font><font face=\"Monospaced\">"
               + "<b>No cross-level conversion available</b><br>"
               + "</font></html>";
     } else {
-      byte[] data = packet.getPacketData();
-      conn.tooltip = "<html><font face=\"Monospaced\">"
+      byte[] data = connections.getPacketData(row);
+      return "<html><font face=\"Monospaced\">"
               + "<b>Packet data (" + data.length + " bytes)</b><br>"
               + "<pre>" + StringUtils.hexDump(data) + "</pre>"
               + "</font></html>";
@@ -788,6 +845,10 @@ public class RadioLogger extends VisPlugin {
     if (radioMediumObserver != null) {
       radioMedium.deleteRadioTransmissionObserver(radioMediumObserver);
     }
+    connectionAggregator.stop();
+    synchronized (connections) {
+      connections.clear();
+    }
   }
 
   @Override
@@ -876,44 +937,60 @@ public class RadioLogger extends VisPlugin {
     return true;
   }
 
-  private class RadioConnectionLog {
-
+  /**
+   * Packet transmitted since the last table update.
+   */
+  private static class RadioConnectionLog {
     long startTime;
     long endTime;
-    RadioConnection connection;
-    RadioPacket packet;
-
-    RadioConnectionLog hiddenBy = null;
-    int hides = 0;
+    int source;
+    int[] destinations;
+    int[] interfered;
+    byte[] packetData;
+    byte[] originalData;
+  }
 
+  private static class PacketDissection {
     String data = null;
-    String tooltip = null;
+    String verbose = null;
+  }
 
-    @Override
-    public String toString() {
-      if (data == null) {
-        RadioLogger.this.prepareDataString(this);
-      }
-      return Long.toString(startTime / Simulation.MILLISECOND) + "\t"
-              + connection.getSource().getMote().getID() + "\t"
-              + getDestString(this) + "\t"
-              + data;
+  private static int[] getMoteIDs(Radio[] radios) {
+    int[] ids = new int[radios.length];
+    for (int i = 0; i < radios.length; i++) {
+      ids[i] = radios[i].getMote().getID();
     }
+    return ids;
   }
 
-  private static String getDestString(RadioConnectionLog c) {
-    Radio[] dests = c.connection.getDestinations();
-    if (dests.length == 0) {
-      return "-";
-    }
-    if (dests.length == 1) {
-      return "" + dests[0].getMote().getID();
+  private String getMoteString(int id) {
+    Mote mote = simulation.getMoteWithID(id);
+    if (mote == null) {
+      return "Mote " + id;
     }
+    return mote.toString();
+  }
+
+  private String getConnectionString(int row) {
+    return getConnectionString(row, getData(row));
+  }
+
+  private String getConnectionString(int row, String data) {
+    int[] dests = connections.getDestinations(row);
     StringBuilder sb = new StringBuilder();
-    for (Radio dest: dests) {
-      sb.append(dest.getMote().getID()).append(',');
+    sb.append(connections.getStartTime(row) / Simulation.MILLISECOND).append('\t');
+    sb.append(connections.getSource(row)).append('\t');
+    if (dests.length == 0) {
+      sb.append('-');
+    } else {
+      for (int i = 0; i < dests.length; i++) {
+        if (i > 0) {
+          sb.append(',');
+        }
+        sb.append(dests[i]);
+      }
     }
-    sb.setLength(sb.length() - 1);
+    sb.append('\t').append(data);
     return sb.toString();
   }
 
@@ -939,6 +1016,7 @@ public class RadioLogger extends VisPlugin {
         if (analyzers != analyzerList) {
           analyzers = analyzerList;
           analyzerName = actionName;
+          clearDissections();
           rebuildAllEntries();
         }
       }
@@ -955,7 +1033,10 @@ public class RadioLogger extends VisPlugin {
     public void actionPerformed(ActionEvent e) {
       int size = connections.size();
       if (size > 0) {
-        connections.clear();
+        synchronized (connections) {
+          connections.clear();
+        }
+        clearDissections();
         model.fireTableRowsDeleted(0, size - 1);
         setTitle("Radio messages: showing " + dataTable.getRowCount() + "/" + connections.size() + " packets");
       }
@@ -974,7 +1055,7 @@ public class RadioLogger extends VisPlugin {
       StringBuilder sb = new StringBuilder();
       for (int i: selectedRows) {
         int iModel = dataTable.convertRowIndexToModel(i);
-        sb.append(connections.get(iModel).toString() + "\n");
+        sb.append(getConnectionString(iModel) + "\n");
       }
 
       StringSelection stringSelection = new StringSelection(sb.toString());
@@ -991,7 +1072,7 @@ public class RadioLogger extends VisPlugin {
 
       StringBuilder sb = new StringBuilder();
       for (int i = 0; i < connections.size(); i++) {
-        sb.append(connections.get(i).toString() + "\n");
+        sb.append(getConnectionString(i) + "\n");
       }
 
       StringSelection stringSelection = new StringSelection(sb.toString());
@@ -1033,7 +1114,7 @@ public class RadioLogger extends VisPlugin {
       try {
         PrintWriter outStream = new PrintWriter(new FileWriter(saveFile));
         for (int i = 0; i < connections.size(); i++) {
-          outStream.print(connections.get(i).toString() + "\n");
+          outStream.print(getConnectionString(i) + "\n");
         }
         outStream.close();
       } catch (Exception ex) {
@@ -1054,7 +1135,7 @@ public class RadioLogger extends VisPlugin {
       selectedRow = dataTable.convertRowIndexToModel(selectedRow);
       if (selectedRow < 0) return;
 
-      long time = connections.get(selectedRow).startTime;
+      long time = connections.getStartTime(selectedRow);
 
       Plugin[] plugins = simulation.getCooja().getStartedPlugins();
       for (Plugin p: plugins) {
@@ -1079,7 +1160,7 @@ public class RadioLogger extends VisPlugin {
       selectedRow = dataTable.convertRowIndexToModel(selectedRow);
       if (selectedRow < 0) return;
 
-      long time = connections.get(selectedRow).startTime;
+      long time = connections.getStartTime(selectedRow);
 
       Plugin[] plugins = simulation.getCooja().getStartedPlugins();
       for (Plugin p: plugins) {
@@ -1120,15 +1201,16 @@ public class RadioLogger extends VisPlugin {
       if (selectedRow < 0) return;
 
       String current = "";
-      if (aliases != null && aliases.get(connections.get(selectedRow).data) != null) {
-        current = (String) aliases.get(connections.get(selectedRow).data);
+      String data = getData(selectedRow);
+      if (aliases != null && aliases.get(data) != null) {
+        current = (String) aliases.get(data);
       }
 
       String alias = (String) JOptionPane.showInputDialog(
               Cooja.getTopParentContainer(),
               "Enter alias for all packets with identical payload.\n"
               + "An empty string removes the current alias.\n\n"
-              + connections.get(selectedRow).data + "\n",
+              + data + "\n",
               "Create packet payload alias",
               JOptionPane.QUESTION_MESSAGE,
               null,
@@ -1146,7 +1228,7 @@ public class RadioLogger extends VisPlugin {
 
       /* Remove current alias */
       if (alias.equals("")) {
-        aliases.remove(connections.get(selectedRow).data);
+        aliases.remove(data);
 
         /* Should be null if empty */
         if (aliases.isEmpty()) {
@@ -1157,7 +1239,7 @@ public class RadioLogger extends VisPlugin {
       }
 
       /* (Re)define alias */
-      aliases.put(connections.get(selectedRow).data, alias);
+      aliases.put(data, alias);
       repaint();
     }
   };
@@ -1182,9 +1264,11 @@ public class RadioLogger extends VisPlugin {
 
   public String getConnectionsString() {
     StringBuilder sb = new StringBuilder();
-    RadioConnectionLog[] cs = connections.toArray(new RadioConnectionLog[0]);
-    for (RadioConnectionLog c : cs) {
-      sb.append(c.toString() + "\n");
+    synchronized (connections) {
+      for (int i = 0; i < connections.size(); i++) {
+        /* Not cached: may be called outside the event thread */
+        sb.append(getConnectionString(i, dissectPacket(i).data) + "\n");
+      }
     }
     return sb.toString();
   }
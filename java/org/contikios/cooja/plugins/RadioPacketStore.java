@@ -0,0 +1,469 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.plugins;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Compact storage of logged radio packets.
+ *
+ * Packets are appended to segments of fixed size, where each packet field is
+ * stored in a primitive column. Full segments are sealed into a single buffer,
+ * and when the sealed segments use too much heap the oldest ones are moved to a
+ * memory-mapped spill file. Only raw frames and metadata are stored: packets
+ * are dissected on demand by the user of the store.
+ *
+ * Access must be synchronized externally if the store is used by several
+ * threads.
+ *
+ * @see RadioLogger
+ */
+public class RadioPacketStore {
+  private static Logger logger = Logger.getLogger(RadioPacketStore.class);
+
+  private static final int SEGMENT_BITS = 12;
+  private static final int SEGMENT_ROWS = 1 << SEGMENT_BITS;
+  private static final long DEFAULT_MAX_HEAP_BYTES = 8 * 1024 * 1024;
+
+  private static final int[] NO_IDS = new int[0];
+  private static final byte[] NO_DATA = new byte[0];
+
+  private final long maxHeapBytes;
+  private final ArrayList<Segment> segments = new ArrayList<Segment>();
+  private ActiveSegment active = null;
+  private int size = 0;
+
+  /* Sealed segments before firstHeapSegment are stored in the spill file */
+  private int firstHeapSegment = 0;
+  private long heapBytes = 0;
+
+  private File spillFile = null;
+  private RandomAccessFile spillAccess = null;
+  private long spillSize = 0;
+  private boolean spillFailed = false;
+
+  public RadioPacketStore() {
+    this(DEFAULT_MAX_HEAP_BYTES);
+  }
+
+  /**
+   * @param maxHeapBytes Max size of sealed segments kept on heap (bytes)
+   */
+  public RadioPacketStore(long maxHeapBytes) {
+    this.maxHeapBytes = maxHeapBytes;
+  }
+
+  /**
+   * @return Number of stored packets
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Appends a packet.
+   *
+   * @param startTime Transmission start time
+   * @param endTime Transmission end time
+   * @param source Source mote ID
+   * @param destinations Non-interfered destination mote IDs
+   * @param interfered Interfered mote IDs
+   * @param packetData Packet data
+   * @param originalData Original packet data of a cross-level packet, or null
+   */
+  public void add(long startTime, long endTime, int source,
+      int[] destinations, int[] interfered, byte[] packetData, byte[] originalData) {
+    if (active == null || active.rows == SEGMENT_ROWS) {
+      if (active != null) {
+        seal();
+      }
+      active = new ActiveSegment();
+      segments.add(active);
+    }
+    active.add(startTime, endTime, source,
+        destinations == null ? NO_IDS : destinations,
+        interfered == null ? NO_IDS : interfered,
+        packetData == null ? NO_DATA : packetData, originalData);
+    size++;
+  }
+
+  public long getStartTime(int row) {
+    return segment(row).startTime(row & (SEGMENT_ROWS - 1));
+  }
+
+  public long getEndTime(int row) {
+    return segment(row).endTime(row & (SEGMENT_ROWS - 1));
+  }
+
+  /**
+   * @param row Row
+   * @return Source mote ID
+   */
+  public int getSource(int row) {
+    return segment(row).source(row & (SEGMENT_ROWS - 1));
+  }
+
+  /**
+   * @param row Row
+   * @return Non-interfered destination mote IDs
+   */
+  public int[] getDestinations(int row) {
+    Segment s = segment(row);
+    int i = row & (SEGMENT_ROWS - 1);
+    return s.ids(s.idStart(i), s.destinationCount(i));
+  }
+
+  /**
+   * @param row Row
+   * @return Interfered mote IDs
+   */
+  public int[] getInterfered(int row) {
+    Segment s = segment(row);
+    int i = row & (SEGMENT_ROWS - 1);
+    int start = s.idStart(i) + s.destinationCount(i);
+    return s.ids(start, s.idStart(i + 1) - start);
+  }
+
+  /**
+   * @param row Row
+   * @return True if packet is a cross-level packet
+   */
+  public boolean isConverted(int row) {
+    return segment(row).originalLength(row & (SEGMENT_ROWS - 1)) >= 0;
+  }
+
+  /**
+   * @param row Row
+   * @return Packet data
+   */
+  public byte[] getPacketData(int row) {
+    Segment s = segment(row);
+    int i = row & (SEGMENT_ROWS - 1);
+    int start = s.dataStart(i) + Math.max(0, s.originalLength(i));
+    return s.data(start, s.dataStart(i + 1) - start);
+  }
+
+  /**
+   * @param row Row
+   * @return Original packet data of a cross-level packet, or null
+   */
+  public byte[] getOriginalPacketData(int row) {
+    Segment s = segment(row);
+    int i = row & (SEGMENT_ROWS - 1);
+    int length = s.originalLength(i);
+    if (length < 0) {
+      return null;
+    }
+    return s.data(s.dataStart(i), length);
+  }
+
+  /**
+   * @param row1 Row
+   * @param row2 Row
+   * @return True if both packets have the same source, destinations,
+   * interfered motes and packet data
+   */
+  public boolean isSamePacket(int row1, int row2) {
+    return getSource(row1) == getSource(row2)
+        && Arrays.equals(getPacketData(row1), getPacketData(row2))
+        && Arrays.equals(getDestinations(row1), getDestinations(row2))
+        && Arrays.equals(getInterfered(row1), getInterfered(row2));
+  }
+
+  /**
+   * Removes all packets, and deletes the spill file.
+   */
+  public void clear() {
+    segments.clear();
+    active = null;
+    size = 0;
+    firstHeapSegment = 0;
+    heapBytes = 0;
+    spillSize = 0;
+    spillFailed = false;
+
+    if (spillAccess != null) {
+      try {
+        spillAccess.close();
+      } catch (IOException e) {
+      }
+      spillAccess = null;
+    }
+    if (spillFile != null) {
+      /* Mapped regions may still be open on some platforms */
+      if (!spillFile.delete()) {
+        spillFile.deleteOnExit();
+      }
+      spillFile = null;
+    }
+  }
+
+  private Segment segment(int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row: " + row + ", size: " + size);
+    }
+    return segments.get(row >> SEGMENT_BITS);
+  }
+
+  private void seal() {
+    SealedSegment sealed = new SealedSegment(active);
+    segments.set(segments.size() - 1, sealed);
+    active = null;
+    heapBytes += sealed.buffer.capacity();
+
+    /* Move oldest sealed segments to spill file */
+    while (heapBytes > maxHeapBytes && !spillFailed
+        && firstHeapSegment < segments.size() - 1) {
+      SealedSegment s = (SealedSegment) segments.get(firstHeapSegment);
+      try {
+        s.spill();
+      } catch (IOException e) {
+        logger.warn("Could not spill radio packets to file, keeping all packets in memory: " + e.getMessage());
+        spillFailed = true;
+        break;
+      }
+      heapBytes -= s.buffer.capacity();
+      firstHeapSegment++;
+    }
+  }
+
+  private FileChannel getSpillChannel() throws IOException {
+    if (spillAccess == null) {
+      spillFile = File.createTempFile("cooja-radiolog-", ".tmp");
+      spillFile.deleteOnExit();
+      spillAccess = new RandomAccessFile(spillFile, "rw");
+      spillSize = 0;
+    }
+    return spillAccess.getChannel();
+  }
+
+  private static abstract class Segment {
+    abstract long startTime(int i);
+    abstract long endTime(int i);
+    abstract int source(int i);
+    abstract int destinationCount(int i);
+    /* Index of the row's first ID. The row's IDs end at idStart(i + 1) */
+    abstract int idStart(int i);
+    abstract int id(int index);
+    /* -1 if not a cross-level packet */
+    abstract int originalLength(int i);
+    /* Index of the row's first data byte. The row's data ends at dataStart(i + 1) */
+    abstract int dataStart(int i);
+    abstract void data(int index, byte[] dst, int len);
+
+    int[] ids(int start, int count) {
+      if (count == 0) {
+        return NO_IDS;
+      }
+      int[] ids = new int[count];
+      for (int k = 0; k < count; k++) {
+        ids[k] = id(start + k);
+      }
+      return ids;
+    }
+
+    byte[] data(int start, int length) {
+      byte[] data = new byte[length];
+      data(start, data, length);
+      return data;
+    }
+  }
+
+  /**
+   * Segment being appended to: one array per column.
+   */
+  private static class ActiveSegment extends Segment {
+    int rows = 0;
+    final long[] startTimes = new long[SEGMENT_ROWS];
+    final long[] endTimes = new long[SEGMENT_ROWS];
+    final int[] sources = new int[SEGMENT_ROWS];
+    final int[] destinationCounts = new int[SEGMENT_ROWS];
+    final int[] originalLengths = new int[SEGMENT_ROWS];
+    final int[] idStarts = new int[SEGMENT_ROWS + 1];
+    final int[] dataStarts = new int[SEGMENT_ROWS + 1];
+    int[] ids = new int[SEGMENT_ROWS];
+    byte[] data = new byte[SEGMENT_ROWS * 32];
+
+    void add(long startTime, long endTime, int source,
+        int[] destinations, int[] interfered, byte[] packetData, byte[] originalData) {
+      startTimes[rows] = startTime;
+      endTimes[rows] = endTime;
+      sources[rows] = source;
+      destinationCounts[rows] = destinations.length;
+
+      int idEnd = idStarts[rows] + destinations.length + interfered.length;
+      if (idEnd > ids.length) {
+        ids = Arrays.copyOf(ids, Math.max(idEnd, ids.length * 2));
+      }
+      System.arraycopy(destinations, 0, ids, idStarts[rows], destinations.length);
+      System.arraycopy(interfered, 0, ids, idStarts[rows] + destinations.length, interfered.length);
+      idStarts[rows + 1] = idEnd;
+
+      int originalLength = originalData == null ? 0 : originalData.length;
+      int dataEnd = dataStarts[rows] + originalLength + packetData.length;
+      if (dataEnd > data.length) {
+        data = Arrays.copyOf(data, Math.max(dataEnd, data.length * 2));
+      }
+      if (originalData != null) {
+        System.arraycopy(originalData, 0, data, dataStarts[rows], originalLength);
+      }
+      System.arraycopy(packetData, 0, data, dataStarts[rows] + originalLength, packetData.length);
+      originalLengths[rows] = originalData == null ? -1 : originalLength;
+      dataStarts[rows + 1] = dataEnd;
+
+      rows++;
+    }
+
+    long startTime(int i) {
+      return startTimes[i];
+    }
+    long endTime(int i) {
+      return endTimes[i];
+    }
+    int source(int i) {
+      return sources[i];
+    }
+    int destinationCount(int i) {
+      return destinationCounts[i];
+    }
+    int idStart(int i) {
+      return idStarts[i];
+    }
+    int id(int index) {
+      return ids[index];
+    }
+    int originalLength(int i) {
+      return originalLengths[i];
+    }
+    int dataStart(int i) {
+      return dataStarts[i];
+    }
+    void data(int index, byte[] dst, int len) {
+      System.arraycopy(data, index, dst, 0, len);
+    }
+  }
+
+  /**
+   * Full segment: all columns are stored after each other in one buffer,
+   * either on heap or mapped from the spill file.
+   */
+  private class SealedSegment extends Segment {
+    ByteBuffer buffer;
+    final int startTimePos;
+    final int endTimePos;
+    final int sourcePos;
+    final int destinationCountPos;
+    final int originalLengthPos;
+    final int idStartPos;
+    final int dataStartPos;
+    final int idPos;
+    final int dataPos;
+
+    SealedSegment(ActiveSegment a) {
+      int rows = a.rows;
+      int nrIDs = a.idStarts[rows];
+      int nrBytes = a.dataStarts[rows];
+      startTimePos = 0;
+      endTimePos = startTimePos + 8 * rows;
+      sourcePos = endTimePos + 8 * rows;
+      destinationCountPos = sourcePos + 4 * rows;
+      originalLengthPos = destinationCountPos + 4 * rows;
+      idStartPos = originalLengthPos + 4 * rows;
+      dataStartPos = idStartPos + 4 * (rows + 1);
+      idPos = dataStartPos + 4 * (rows + 1);
+      dataPos = idPos + 4 * nrIDs;
+
+      buffer = ByteBuffer.allocate(dataPos + nrBytes);
+      buffer.asLongBuffer().put(a.startTimes, 0, rows).put(a.endTimes, 0, rows);
+      buffer.position(sourcePos);
+      buffer.asIntBuffer()
+          .put(a.sources, 0, rows)
+          .put(a.destinationCounts, 0, rows)
+          .put(a.originalLengths, 0, rows)
+          .put(a.idStarts, 0, rows + 1)
+          .put(a.dataStarts, 0, rows + 1)
+          .put(a.ids, 0, nrIDs);
+      buffer.position(dataPos);
+      buffer.put(a.data, 0, nrBytes);
+      buffer.clear();
+    }
+
+    void spill() throws IOException {
+      FileChannel channel = getSpillChannel();
+      long pos = spillSize;
+      ByteBuffer src = buffer.duplicate();
+      src.clear();
+      while (src.hasRemaining()) {
+        channel.write(src, pos + src.position());
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos, buffer.capacity());
+      spillSize = pos + buffer.capacity();
+    }
+
+    long startTime(int i) {
+      return buffer.getLong(startTimePos + 8 * i);
+    }
+    long endTime(int i) {
+      return buffer.getLong(endTimePos + 8 * i);
+    }
+    int source(int i) {
+      return buffer.getInt(sourcePos + 4 * i);
+    }
+    int destinationCount(int i) {
+      return buffer.getInt(destinationCountPos + 4 * i);
+    }
+    int idStart(int i) {
+      return buffer.getInt(idStartPos + 4 * i);
+    }
+    int id(int index) {
+      return buffer.getInt(idPos + 4 * index);
+    }
+    int originalLength(int i) {
+      return buffer.getInt(originalLengthPos + 4 * i);
+    }
+    int dataStart(int i) {
+      return buffer.getInt(dataStartPos + 4 * i);
+    }
+    void data(int index, byte[] dst, int len) {
+      ByteBuffer b = buffer.duplicate();
+      b.position(dataPos + index);
+      b.get(dst, 0, len);
+    }
+  }
+}
@@ -38,6 +38,10 @@ public interface ScriptLog {
     public void testOK();
     public void testFailed();
     public void generateMessage(long delay, String msg);
+    public void filter(Object filter);
+    public void filterPrefix(String prefix);
+    public void filterRegex(String regex);
+    public void clearFilters();
     public void append(String filename, String msg);
     public void writeFile(String filename, String msg);
 }
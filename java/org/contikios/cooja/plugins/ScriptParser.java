@@ -206,10 +206,11 @@ public class ScriptParser {
     Matcher matcher = pattern.matcher(code);
 
     while (matcher.find()) {
-      code = matcher.replaceFirst(
-          "while (!(" + matcher.group(1) + ")) { " +
-          " SCRIPT_SWITCH(); " +
-      "}");
+      /* The condition is re-evaluated by the simulation thread, see SCRIPT_WAIT */
+      code = matcher.replaceFirst(Matcher.quoteReplacement(
+          "if (!(" + matcher.group(1) + ")) { " +
+          " SCRIPT_WAIT(function() { return (" + matcher.group(1) + "); }); " +
+      "}"));
       matcher.reset(code);
     }
 
@@ -223,6 +224,8 @@ public class ScriptParser {
   public static String getJSCode(String code, String timeoutCode) {
     return
     "timeout_function = null; " +
+    "wait_condition = null; " +
+    "wait_result = false; " +
     "function run() { " +
     "SEMAPHORE_SIM.acquire(); " +
     "SEMAPHORE_SCRIPT.acquire(); " + /* STARTUP BLOCKS HERE! */
@@ -246,6 +249,7 @@ public class ScriptParser {
     "};\n" +
     "\n" +
     "function SCRIPT_TIMEOUT() { " +
+    " SCRIPT_WAITING.set(false); " +
     timeoutCode + "; " +
     " if (timeout_function != null) { timeout_function(); } " +
     " log.log('TEST TIMEOUT\\n'); " +
@@ -266,6 +270,23 @@ public class ScriptParser {
     " node.setMoteMsg(mote, msg); " +
     "};\n" +
     "\n" +
+    "function SCRIPT_WAIT(condition) { " +
+    " wait_condition = condition; " +
+    " wait_result = false; " +
+    " SCRIPT_WAITING.set(true); " + /* Simulation thread now checks condition */
+    " do { SCRIPT_SWITCH(); } while (!wait_result && !condition()); " +
+    " SCRIPT_WAITING.set(false); " +
+    " wait_condition = null; " +
+    "};\n" +
+    "\n" +
+    "function SCRIPT_CHECK_CONDITION() { " + /* Called by simulation thread */
+    " msg = new java.lang.String(msg); " +
+    " node.setMoteMsg(mote, msg); " +
+    " wait_result = false; " +
+    " if (wait_condition()) { wait_result = true; } " +
+    " return wait_result; " +
+    "};\n" +
+    "\n" +
     "function write(mote,msg) { " +
     " mote.getInterfaces().getLog().writeString(msg); " +
     "};\n";
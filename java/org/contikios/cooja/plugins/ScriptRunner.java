@@ -40,10 +40,8 @@ import java.awt.event.ActionListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
@@ -86,6 +84,7 @@ import org.contikios.cooja.Simulation;
 import org.contikios.cooja.VisPlugin;
 import org.contikios.cooja.dialogs.MessageList;
 import org.contikios.cooja.dialogs.MessageListUI;
+import org.contikios.cooja.util.AsyncLogWriter;
 import org.contikios.cooja.util.StringUtils;
 
 @ClassDescription("Simulation script editor")
@@ -113,7 +112,7 @@ public class ScriptRunner extends VisPlugin {
   private Simulation simulation;
   private LogScriptEngine engine;
 
-  private static BufferedWriter logWriter = null; /* For non-GUI tests */
+  private AsyncLogWriter logWriter = null; /* For non-GUI tests */
 
   private JEditorPane codeEditor;
   private JTextArea logTextArea;
@@ -342,26 +341,24 @@ public class ScriptRunner extends VisPlugin {
         try {
           /* Continously write test output to file */
           if (logWriter == null) {
-            /* Warning: static variable, used by all active test editor plugins */
-            File logFile = new File("COOJA.testlog");
-            if (logFile.exists()) {
-              logFile.delete();
-            }
-            logWriter = new BufferedWriter(new FileWriter(logFile));
+            File logFile = new File(simulation.getCooja().getLogDirectory(), "COOJA.testlog");
+            logWriter = new AsyncLogWriter(logFile, false);
             logWriter.write("Random seed: " + simulation.getRandomSeed() + "\n");
-            logWriter.flush();
           }
           engine.setScriptLogObserver(new Observer() {
             public void update(Observable obs, Object obj) {
-              try {
-                if (logWriter != null) {
-                  logWriter.write((String) obj);
-                  logWriter.flush();
-                } else {
-                  logger.fatal("No log writer: " + obj);
-                }
-              } catch (IOException e) {
-                logger.fatal("Error when writing to test log file: " + obj, e);
+              if (logWriter != null) {
+                logWriter.write((String) obj);
+              } else {
+                logger.fatal("No log writer: " + obj);
+              }
+            }
+          });
+          engine.setScriptLogFlush(new Runnable() {
+            public void run() {
+              AsyncLogWriter writer = logWriter;
+              if (writer != null) {
+                writer.flush();
               }
             }
           });
@@ -405,18 +402,15 @@ public class ScriptRunner extends VisPlugin {
         /* Deactivate script */
         engine.deactivateScript();
         engine.setScriptLogObserver(null);
+        engine.setScriptLogFlush(null);
         engine = null;
       }
 
       if (logWriter != null) {
-        try {
-          logWriter.write(
-              "Test ended at simulation time: " +
-              (simulation!=null?simulation.getSimulationTime():"?") + "\n");
-          logWriter.flush();
-          logWriter.close();
-        } catch (IOException e) {
-        }
+        logWriter.write(
+            "Test ended at simulation time: " +
+            (simulation!=null?simulation.getSimulationTime():"?") + "\n");
+        logWriter.close();
         logWriter = null;
       }
 
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.plugins.analyzers;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Writes radio packets to pcapng files.
+ *
+ * Each interface, typically one per mote, gets its own Interface Description
+ * Block. Packets are written as Enhanced Packet Blocks with microsecond
+ * timestamps and an optional comment.
+ *
+ * Blocks are collected in a large buffer and written with a single system
+ * call when the buffer is full, and when flushed or closed.
+ *
+ * When a maximum file size is given, captures are rotated into several
+ * files: capture.pcapng, capture-1.pcapng, capture-2.pcapng etc. Each file
+ * is a complete pcapng file with its own interface blocks.
+ *
+ * @see PcapExporter
+ */
+public class PcapngWriter {
+  private static final Logger logger = Logger.getLogger(PcapngWriter.class);
+
+  public static final int LINKTYPE_IEEE802_15_4 = 195;
+
+  private static final int BUFFER_SIZE = 1024*1024;
+
+  private static final int BLOCK_SHB = 0x0A0D0D0A;
+  private static final int BLOCK_IDB = 0x00000001;
+  private static final int BLOCK_EPB = 0x00000006;
+  private static final int BYTE_ORDER_MAGIC = 0x1A2B3C4D;
+
+  private static final int OPT_ENDOFOPT = 0;
+  private static final int OPT_COMMENT = 1;
+  private static final int OPT_SHB_USERAPPL = 4;
+  private static final int OPT_IF_NAME = 2;
+  private static final int OPT_IF_TSRESOL = 9;
+
+  private final File baseFile;
+  private final long maxFileSize;
+  private final int linkType;
+
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+  private FileChannel channel = null;
+  private File currentFile = null;
+  private int fileIndex = 0;
+  private long fileSize = 0;
+  private long filePackets = 0;
+  private long packets = 0;
+
+  /* Interface names, and their interface IDs in the current file (-1: not yet written) */
+  private final ArrayList<String> interfaceNames = new ArrayList<String>();
+  private final ArrayList<Integer> fileInterfaceIDs = new ArrayList<Integer>();
+  private int fileInterfaces = 0;
+
+  /**
+   * @param file Capture file
+   * @param maxFileSize Maximum file size in bytes, or 0 to never rotate
+   * @param linkType Link type of all interfaces, e.g. {@link #LINKTYPE_IEEE802_15_4}
+   */
+  public PcapngWriter(File file, long maxFileSize, int linkType) {
+    this.baseFile = file;
+    this.maxFileSize = maxFileSize;
+    this.linkType = linkType;
+  }
+
+  /**
+   * Adds an interface. Interface blocks are only written to files with
+   * packets on the interface.
+   *
+   * @param name Interface name, e.g. "mote 1"
+   * @return Interface index
+   */
+  public synchronized int addInterface(String name) {
+    interfaceNames.add(name);
+    fileInterfaceIDs.add(-1);
+    return interfaceNames.size() - 1;
+  }
+
+  /**
+   * Writes a packet.
+   *
+   * @param iface Interface index
+   * @param timestamp Timestamp in microseconds
+   * @param data Packet data
+   * @param comment Packet comment, or null
+   * @throws IOException On write errors
+   */
+  public synchronized void writePacket(int iface, long timestamp, byte[] data, String comment)
+      throws IOException {
+    byte[] commentBytes = comment == null ? null : comment.getBytes(StandardCharsets.UTF_8);
+    int optionsLength = commentBytes == null ? 0 : optionLength(commentBytes.length) + 4;
+    int blockLength = 32 + pad(data.length) + optionsLength;
+
+    if (channel == null) {
+      openFile();
+    } else if (maxFileSize > 0 && filePackets > 0 && fileSize + blockLength > maxFileSize) {
+      closeFile();
+      fileIndex++;
+      openFile();
+    }
+
+    int id = fileInterfaceIDs.get(iface);
+    if (id < 0) {
+      id = writeInterfaceBlock(iface);
+    }
+
+    ByteBuffer out = reserve(blockLength);
+    out.putInt(BLOCK_EPB);
+    out.putInt(blockLength);
+    out.putInt(id);
+    out.putInt((int) (timestamp >>> 32));
+    out.putInt((int) timestamp);
+    out.putInt(data.length);
+    out.putInt(data.length);
+    putPadded(out, data);
+    if (commentBytes != null) {
+      putOption(out, OPT_COMMENT, commentBytes);
+      putOption(out, OPT_ENDOFOPT, new byte[0]);
+    }
+    out.putInt(blockLength);
+    written(out, blockLength);
+
+    filePackets++;
+    packets++;
+  }
+
+  /**
+   * Writes all buffered blocks to the current file.
+   *
+   * @throws IOException On write errors
+   */
+  public synchronized void flush() throws IOException {
+    if (channel == null) {
+      return;
+    }
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Writes all buffered blocks, and closes the current file.
+   *
+   * @throws IOException On write errors
+   */
+  public synchronized void close() throws IOException {
+    closeFile();
+  }
+
+  /**
+   * @return Current file, or null if no packets written
+   */
+  public synchronized File getFile() {
+    return currentFile;
+  }
+
+  /**
+   * @return Number of packets written to all files
+   */
+  public synchronized long getPacketCount() {
+    return packets;
+  }
+
+  private void openFile() throws IOException {
+    currentFile = getRotatedFile(fileIndex);
+    channel = new FileOutputStream(currentFile).getChannel();
+    fileSize = 0;
+    filePackets = 0;
+    fileInterfaces = 0;
+    for (int i=0; i < fileInterfaceIDs.size(); i++) {
+      fileInterfaceIDs.set(i, -1);
+    }
+
+    /* Section Header Block */
+    byte[] application = "Cooja".getBytes(StandardCharsets.UTF_8);
+    int blockLength = 28 + optionLength(application.length) + 4;
+    ByteBuffer out = reserve(blockLength);
+    out.putInt(BLOCK_SHB);
+    out.putInt(blockLength);
+    out.putInt(BYTE_ORDER_MAGIC);
+    out.putShort((short) 1);
+    out.putShort((short) 0);
+    out.putLong(-1); /* Section length not specified */
+    putOption(out, OPT_SHB_USERAPPL, application);
+    putOption(out, OPT_ENDOFOPT, new byte[0]);
+    out.putInt(blockLength);
+    written(out, blockLength);
+    logger.info("Opened pcapng file " + currentFile);
+  }
+
+  private void closeFile() throws IOException {
+    if (channel == null) {
+      return;
+    }
+    try {
+      flush();
+    } finally {
+      channel.close();
+      channel = null;
+    }
+  }
+
+  private File getRotatedFile(int index) {
+    if (index == 0) {
+      return baseFile;
+    }
+    String name = baseFile.getName();
+    int dot = name.lastIndexOf('.');
+    if (dot > 0) {
+      name = name.substring(0, dot) + "-" + index + name.substring(dot);
+    } else {
+      name = name + "-" + index;
+    }
+    return new File(baseFile.getParentFile(), name);
+  }
+
+  private int writeInterfaceBlock(int iface) throws IOException {
+    byte[] name = interfaceNames.get(iface).getBytes(StandardCharsets.UTF_8);
+    int blockLength = 20 + optionLength(name.length) + optionLength(1) + 4;
+    ByteBuffer out = reserve(blockLength);
+    out.putInt(BLOCK_IDB);
+    out.putInt(blockLength);
+    out.putShort((short) linkType);
+    out.putShort((short) 0);
+    out.putInt(0); /* No snapshot length */
+    putOption(out, OPT_IF_NAME, name);
+    putOption(out, OPT_IF_TSRESOL, new byte[] { 6 }); /* Microseconds */
+    putOption(out, OPT_ENDOFOPT, new byte[0]);
+    out.putInt(blockLength);
+    written(out, blockLength);
+
+    int id = fileInterfaces++;
+    fileInterfaceIDs.set(iface, id);
+    return id;
+  }
+
+  /**
+   * @return Buffer with room for a block of given length
+   */
+  private ByteBuffer reserve(int length) throws IOException {
+    if (buffer.remaining() < length) {
+      flush();
+    }
+    if (buffer.remaining() < length) {
+      /* Larger than buffer */
+      return ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    return buffer;
+  }
+
+  private void written(ByteBuffer out, int length) throws IOException {
+    if (out != buffer) {
+      out.flip();
+      while (out.hasRemaining()) {
+        channel.write(out);
+      }
+    }
+    fileSize += length;
+  }
+
+  private static int pad(int length) {
+    return (length + 3) & ~3;
+  }
+
+  private static int optionLength(int valueLength) {
+    return 4 + pad(valueLength);
+  }
+
+  private static void putOption(ByteBuffer out, int code, byte[] value) {
+    out.putShort((short) code);
+    out.putShort((short) value.length);
+    putPadded(out, value);
+  }
+
+  private static void putPadded(ByteBuffer out, byte[] data) {
+    out.put(data);
+    for (int i=data.length; i < pad(data.length); i++) {
+      out.put((byte) 0);
+    }
+  }
+}
@@ -33,6 +33,7 @@ package org.contikios.cooja.radiomediums;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Observable;
@@ -83,6 +84,9 @@ public abstract class AbstractRadioMedium extends RadioMedium {
 	
 	private ArrayList<RadioConnection> activeConnections = new ArrayList<RadioConnection>();
 	
+	/* Radios whose signal strengths may differ from their base RSSI */
+	private LinkedHashSet<Radio> signalRadios = new LinkedHashSet<Radio>();
+	
 	private RadioConnection lastConnection = null;
 	
 	private Simulation simulation = null;
@@ -141,9 +145,7 @@ public abstract class AbstractRadioMedium extends RadioMedium {
 	public void updateSignalStrengths() {
 		
 		/* Reset signal strengths */
-		for (Radio radio : getRegisteredRadios()) {
-			radio.setCurrentSignalStrength(getBaseRssi(radio));
-		}
+		resetSignalStrengths();
 		
 		/* Set signal strength to strong on destinations */
 		RadioConnection[] conns = getActiveConnections();
@@ -183,6 +185,48 @@ public abstract class AbstractRadioMedium extends RadioMedium {
 	}
 	
 	
+	/**
+	 * Resets signal strengths to the base RSSI before they are updated
+	 * according to the current active connections.
+	 *
+	 * Only radios that were part of an active connection at the previous reset,
+	 * that are part of a current active connection, or whose base RSSI changed
+	 * are reset: all other radios already have their base RSSI.
+	 *
+	 * @see #addSignalRadios(RadioConnection, Collection)
+	 */
+	protected void resetSignalStrengths() {
+		for (RadioConnection conn : activeConnections) {
+			addSignalRadios(conn, signalRadios);
+		}
+		for (Radio radio : signalRadios) {
+			radio.setCurrentSignalStrength(getBaseRssi(radio));
+		}
+		signalRadios.clear();
+		for (RadioConnection conn : activeConnections) {
+			addSignalRadios(conn, signalRadios);
+		}
+	}
+	
+	/**
+	 * Adds all radios whose signal strengths may be changed by given active
+	 * connection when signal strengths are updated.
+	 * Radio mediums that change the signal strengths of any other radios should
+	 * override this method.
+	 *
+	 * @param conn Active connection
+	 * @param radios Radios
+	 */
+	protected void addSignalRadios(RadioConnection conn, Collection<Radio> radios) {
+		radios.add(conn.getSource());
+		for (Radio radio : conn.getAllDestinations()) {
+			radios.add(radio);
+		}
+		for (Radio radio : conn.getInterfered()) {
+			radios.add(radio);
+		}
+	}
+	
 	/**
 	 * Remove given radio from any active connections.
 	 * This method can be called if a radio node falls asleep or is removed.
@@ -217,19 +261,11 @@ public abstract class AbstractRadioMedium extends RadioMedium {
 	}
 	
 	/**
-	 * This observer is responsible for detecting radio interface events, for example
+	 * This listener is responsible for detecting radio interface events, for example
 	 * new transmissions.
 	 */
-	private Observer radioEventsObserver = new Observer() {
-		public void update(Observable obs, Object obj) {
-			if (!(obs instanceof Radio)) {
-				logger.fatal("Radio event dispatched by non-radio object");
-				return;
-			}
-			Radio radio = (Radio) obs;
-			
-			final Radio.RadioEvent event = radio.getLastEvent();
-			
+	private Radio.RadioEventListener radioEventsListener = new Radio.RadioEventListener() {
+		public void radioEventOccurred(Radio radio, Radio.RadioEvent event) {
 			switch (event) {
 				case RECEPTION_STARTED:
 				case RECEPTION_INTERFERED:
@@ -443,7 +479,8 @@ public abstract class AbstractRadioMedium extends RadioMedium {
 		}
 		
 		registeredRadios.add(radio);
-		radio.addObserver(radioEventsObserver);
+		signalRadios.add(radio);
+		radio.addRadioEventListener(radioEventsListener);
 		radioMediumObservable.setChangedAndNotify();
 		
 		/* Update signal strengths */
@@ -456,8 +493,9 @@ public abstract class AbstractRadioMedium extends RadioMedium {
 			return;
 		}
 		
-		radio.deleteObserver(radioEventsObserver);
+		radio.removeRadioEventListener(radioEventsListener);
 		registeredRadios.remove(radio);
+		signalRadios.remove(radio);
 		
 		removeFromActiveConnections(radio);
 		
@@ -490,11 +528,12 @@ public abstract class AbstractRadioMedium extends RadioMedium {
 	* @param rssi
 	*          The RSSI value to set during silence
 	*/
-	public void setBaseRssi(Radio radio, double rssi) {
+	public void setBaseRssi(final Radio radio, double rssi) {
 		baseRssi.put(radio, rssi);
 		simulation.invokeSimulationThread(new Runnable() {				
 			@Override
 			public void run() {
+				signalRadios.add(radio);
 				updateSignalStrengths();
 			}
 		});
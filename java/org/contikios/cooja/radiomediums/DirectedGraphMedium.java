@@ -147,9 +147,7 @@ public class DirectedGraphMedium extends AbstractRadioMedium {
   public void updateSignalStrengths() {
 
     /* Reset signal strengths (Default: SS_NOTHING) */
-    for (Radio radio : getRegisteredRadios()) {
-      radio.setCurrentSignalStrength(getBaseRssi(radio));
-    }
+    resetSignalStrengths();
 
     /* Set signal strengths */
     RadioConnection[] conns = getActiveConnections();
@@ -191,6 +189,19 @@ public class DirectedGraphMedium extends AbstractRadioMedium {
   }
 
 
+  protected void addSignalRadios(RadioConnection conn, Collection<Radio> radios) {
+    super.addSignalRadios(conn, radios);
+
+    /* Signal strengths are set on all potential destinations */
+    DGRMDestinationRadio dstRadios[] = getPotentialDestinations(conn.getSource());
+    if (dstRadios == null) {
+      return;
+    }
+    for (DGRMDestinationRadio dstRadio : dstRadios) {
+      radios.add(dstRadio.radio);
+    }
+  }
+
   /**
    * Generates hash table using current edges for efficient lookup.
    */
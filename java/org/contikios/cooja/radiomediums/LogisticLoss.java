@@ -154,7 +154,7 @@ public class LogisticLoss extends AbstractRadioMedium {
 
     private long lastTimeVariationUpdatePeriod = 0;
 
-    private DirectedGraphMedium dgrm; /* Used only for efficient destination lookup */
+    private RadioNeighborIndex neighbors; /* Used only for efficient destination lookup */
 
     private Random random = null;
 
@@ -164,67 +164,47 @@ public class LogisticLoss extends AbstractRadioMedium {
         super(simulation);
         random = simulation.getRandomGenerator();
         sim = simulation;
-        dgrm = new DirectedGraphMedium() {
-                protected void analyzeEdges() {
-                    /* Create edges according to distances.
-                     * XXX May be slow for mobile networks */
-                    clearEdges();
-                    /* XXX: do not remove the time-varying edges to preserve their evolution */
-
-                    for (Radio source: LogisticLoss.this.getRegisteredRadios()) {
-                        Position sourcePos = source.getPosition();
+        neighbors = new RadioNeighborIndex(this) {
+                protected double getRange() {
+                    return TRANSMITTING_RANGE;
+                }
+                protected void linkAdded(Radio source, Radio dest) {
+                    /* XXX: time-varying edges are never removed, to preserve their evolution */
+                    if (ENABLE_TIME_VARIATION) {
                         int sourceID = source.getMote().getID();
-                        for (Radio dest: LogisticLoss.this.getRegisteredRadios()) {
-                            Position destPos = dest.getPosition();
-                            /* Ignore ourselves */
-                            if (source == dest) {
-                                continue;
-                            }
-                            double distance = sourcePos.getDistanceTo(destPos);
-                            if (distance < TRANSMITTING_RANGE) {
-                                /* Add potential destination */
-                                addEdge(
-                                        new DirectedGraphMedium.Edge(source, 
-                                                new DGRMDestinationRadio(dest)));
-
-                                if (ENABLE_TIME_VARIATION) {
-                                    int destID = dest.getMote().getID();
-                                    if (sourceID < destID) {
-                                        Index key = new Index(sourceID, destID);
-                                        if (!edgesTable.containsKey(key)) {
-                                            edgesTable.put(key, new TimeVaryingEdge());
-                                        }
-                                    }
-                                }
+                        int destID = dest.getMote().getID();
+                        if (sourceID < destID) {
+                            Index key = new Index(sourceID, destID);
+                            if (!edgesTable.containsKey(key)) {
+                                edgesTable.put(key, new TimeVaryingEdge());
                             }
                         }
                     }
-                    super.analyzeEdges();
                 }
             };
 
         /* Register as position observer.
-         * If any positions change, re-analyze potential receivers. */
+         * If any positions change, re-analyze potential receivers of moved motes. */
         final Observer positionObserver = new Observer() {
                 public void update(Observable o, Object arg) {
-                    dgrm.requestEdgeAnalysis();
+                    neighbors.moteMoved((Mote) arg);
                 }
             };
         /* Re-analyze potential receivers if radios are added/removed. */
         simulation.getEventCentral().addMoteCountListener(new MoteCountListener() {
                 public void moteWasAdded(Mote mote) {
                     mote.getInterfaces().getPosition().addObserver(positionObserver);
-                    dgrm.requestEdgeAnalysis();
+                    neighbors.requestRebuild();
                 }
                 public void moteWasRemoved(Mote mote) {
                     mote.getInterfaces().getPosition().deleteObserver(positionObserver);
-                    dgrm.requestEdgeAnalysis();
+                    neighbors.requestRebuild();
                 }
             });
         for (Mote mote: simulation.getMotes()) {
             mote.getInterfaces().getPosition().addObserver(positionObserver);
         }
-        dgrm.requestEdgeAnalysis();
+        neighbors.requestRebuild();
 
         /* Register visualizer skin */
         Visualizer.registerVisualizerSkin(LogisticLossVisualizerSkin.class);
@@ -245,7 +225,7 @@ public class LogisticLoss extends AbstractRadioMedium {
         }
 
         /* Get all potential destination radios */
-        DestinationRadio[] potentialDestinations = dgrm.getPotentialDestinations(sender);
+        DestinationRadio[] potentialDestinations = neighbors.getPotentialDestinations(sender);
         if (potentialDestinations == null) {
             return newConnection;
         }
@@ -391,9 +371,7 @@ public class LogisticLoss extends AbstractRadioMedium {
     private void updateTimeVariationComponent() {
         long period = (long)(sim.getSimulationTimeMillis() / (1000.0 * TIME_VARIATION_STEP_SEC));
 
-        if (dgrm.needsEdgeAnalysis()) {
-            dgrm.analyzeEdges();
-        }
+        neighbors.update();
 
         while (period > lastTimeVariationUpdatePeriod) {
             for (Map.Entry<Index, TimeVaryingEdge> entry : edgesTable.entrySet()) {
@@ -412,9 +390,7 @@ public class LogisticLoss extends AbstractRadioMedium {
         }
     
         /* Reset signal strengths */
-        for (Radio radio : getRegisteredRadios()) {
-            radio.setCurrentSignalStrength(getBaseRssi(radio));
-        }
+        resetSignalStrengths();
 
         /* Set signal strength to below strong on destinations */
         RadioConnection[] conns = getActiveConnections();
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.radiomediums;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+
+import org.contikios.cooja.Mote;
+import org.contikios.cooja.interfaces.Position;
+import org.contikios.cooja.interfaces.Radio;
+
+/**
+ * Potential destination lookup for radio mediums with a single, symmetric
+ * radio range, such as UDGM and LogisticLoss.
+ *
+ * Radios are kept in a uniform grid with cells slightly larger than the radio
+ * range, so finding all radios within range only visits the adjacent cells.
+ * When radios move, only the links of the moved radios are updated.
+ *
+ * Potential destinations are ordered as the radio medium's registered radios,
+ * i.e. in the same order as when comparing all pairs of radios.
+ *
+ * @see UDGM
+ * @see LogisticLoss
+ */
+public abstract class RadioNeighborIndex {
+  private static final DGRMDestinationRadio[] NO_DESTINATIONS = new DGRMDestinationRadio[0];
+
+  private final AbstractRadioMedium radioMedium;
+
+  private double range = Double.NaN;
+  private double cellSize = 1;
+  private boolean rebuild = true;
+  private final LinkedHashSet<Radio> movedRadios = new LinkedHashSet<Radio>();
+
+  private final HashMap<Radio, Integer> radioOrder = new HashMap<Radio, Integer>();
+  private final HashMap<Radio, DGRMDestinationRadio[]> destinations = new HashMap<Radio, DGRMDestinationRadio[]>();
+  private final HashMap<Long, ArrayList<Radio>> cells = new HashMap<Long, ArrayList<Radio>>();
+  private final HashMap<Radio, Long> radioCells = new HashMap<Radio, Long>();
+
+  private final ArrayList<Radio> found = new ArrayList<Radio>();
+  private final Comparator<Radio> registrationOrder = new Comparator<Radio>() {
+    public int compare(Radio r1, Radio r2) {
+      return Integer.compare(radioOrder.get(r1), radioOrder.get(r2));
+    }
+  };
+
+  public RadioNeighborIndex(AbstractRadioMedium radioMedium) {
+    this.radioMedium = radioMedium;
+  }
+
+  /**
+   * @return Radio range. Radios closer than this are potential destinations.
+   */
+  protected abstract double getRange();
+
+  /**
+   * Called when a link from source to destination is created.
+   *
+   * @param source Source radio
+   * @param dest Destination radio
+   */
+  protected void linkAdded(Radio source, Radio dest) {
+  }
+
+  /**
+   * Signal that radios were added or removed, and that all links must be
+   * re-analyzed before used.
+   */
+  public void requestRebuild() {
+    rebuild = true;
+    movedRadios.clear();
+  }
+
+  /**
+   * Signal that given mote moved, and that its links must be re-analyzed
+   * before used.
+   *
+   * @param mote Mote
+   */
+  public void moteMoved(Mote mote) {
+    if (rebuild) {
+      return;
+    }
+    Radio radio = mote.getInterfaces().getRadio();
+    if (radio != null && radioOrder.containsKey(radio)) {
+      movedRadios.add(radio);
+    }
+  }
+
+  /**
+   * Updates all links affected by added, removed or moved radios,
+   * or by a changed radio range.
+   */
+  public void update() {
+    double newRange = getRange();
+    if (Double.compare(newRange, range) != 0) {
+      range = newRange;
+      rebuild = true;
+    }
+
+    if (rebuild) {
+      rebuildAll();
+    } else if (!movedRadios.isEmpty()) {
+      /* Place all moved radios before re-analyzing any links */
+      for (Radio radio: movedRadios) {
+        removeFromCell(radio);
+        addToCell(radio);
+      }
+      for (Radio radio: movedRadios) {
+        updateLinks(radio);
+      }
+      movedRadios.clear();
+    }
+  }
+
+  /**
+   * Returns all potential destination radios, i.e. all radios "within reach".
+   * Does not consider radio channels, transmission success ratios etc.
+   *
+   * @param source Source radio
+   * @return All potential destination radios
+   */
+  public DGRMDestinationRadio[] getPotentialDestinations(Radio source) {
+    update();
+    return destinations.get(source);
+  }
+
+  private void rebuildAll() {
+    radioOrder.clear();
+    destinations.clear();
+    cells.clear();
+    radioCells.clear();
+    movedRadios.clear();
+
+    /* Slightly larger than the range: radios in range are always in adjacent cells */
+    cellSize = range * 1.001;
+
+    Radio[] radios = radioMedium.getRegisteredRadios();
+    for (int i=0; i < radios.length; i++) {
+      radioOrder.put(radios[i], i);
+      addToCell(radios[i]);
+    }
+    for (Radio source: radios) {
+      findInRange(source);
+      destinations.put(source, toDestinations(found));
+      for (Radio dest: found) {
+        linkAdded(source, dest);
+      }
+    }
+    rebuild = false;
+  }
+
+  /**
+   * Re-analyzes the links of a moved radio.
+   * Since ranges are symmetric, the radios within range of the moved radio
+   * are both its destinations and its sources.
+   */
+  private void updateLinks(Radio radio) {
+    DGRMDestinationRadio[] oldDestinations = destinations.get(radio);
+    HashSet<Radio> oldRadios = new HashSet<Radio>();
+    for (DGRMDestinationRadio dest: oldDestinations) {
+      oldRadios.add(dest.radio);
+    }
+
+    findInRange(radio);
+    HashSet<Radio> newRadios = new HashSet<Radio>(found);
+    for (DGRMDestinationRadio dest: oldDestinations) {
+      if (!newRadios.contains(dest.radio)) {
+        removeDestination(dest.radio, radio);
+      }
+    }
+    for (Radio other: found) {
+      if (!oldRadios.contains(other)) {
+        addDestination(other, radio);
+        linkAdded(radio, other);
+        linkAdded(other, radio);
+      }
+    }
+    destinations.put(radio, toDestinations(found));
+  }
+
+  private void addDestination(Radio source, Radio dest) {
+    DGRMDestinationRadio[] old = destinations.get(source);
+    DGRMDestinationRadio[] arr = new DGRMDestinationRadio[old.length + 1];
+    int order = radioOrder.get(dest);
+    int pos = 0;
+    while (pos < old.length && radioOrder.get(old[pos].radio) < order) {
+      pos++;
+    }
+    System.arraycopy(old, 0, arr, 0, pos);
+    arr[pos] = new DGRMDestinationRadio(dest);
+    System.arraycopy(old, pos, arr, pos + 1, old.length - pos);
+    destinations.put(source, arr);
+  }
+
+  private void removeDestination(Radio source, Radio dest) {
+    DGRMDestinationRadio[] old = destinations.get(source);
+    ArrayList<DGRMDestinationRadio> list = new ArrayList<DGRMDestinationRadio>(old.length);
+    for (DGRMDestinationRadio d: old) {
+      if (d.radio != dest) {
+        list.add(d);
+      }
+    }
+    destinations.put(source, list.toArray(NO_DESTINATIONS));
+  }
+
+  private static DGRMDestinationRadio[] toDestinations(Collection<Radio> radios) {
+    if (radios.isEmpty()) {
+      return NO_DESTINATIONS;
+    }
+    DGRMDestinationRadio[] arr = new DGRMDestinationRadio[radios.size()];
+    int i = 0;
+    for (Radio radio: radios) {
+      arr[i++] = new DGRMDestinationRadio(radio);
+    }
+    return arr;
+  }
+
+  /**
+   * Collects all other radios within range of given radio, in registration
+   * order.
+   */
+  private void findInRange(Radio source) {
+    found.clear();
+    if (!(range > 0)) {
+      return;
+    }
+
+    Position pos = source.getPosition();
+    int cx = cellIndex(pos.getXCoordinate());
+    int cy = cellIndex(pos.getYCoordinate());
+    for (int x = cx - 1; x <= cx + 1; x++) {
+      for (int y = cy - 1; y <= cy + 1; y++) {
+        ArrayList<Radio> cell = cells.get(cellKey(x, y));
+        if (cell == null) {
+          continue;
+        }
+        for (Radio radio: cell) {
+          if (radio != source && pos.getDistanceTo(radio.getPosition()) < range) {
+            found.add(radio);
+          }
+        }
+      }
+    }
+    Collections.sort(found, registrationOrder);
+  }
+
+  private void addToCell(Radio radio) {
+    Position pos = radio.getPosition();
+    Long key = cellKey(cellIndex(pos.getXCoordinate()), cellIndex(pos.getYCoordinate()));
+    ArrayList<Radio> cell = cells.get(key);
+    if (cell == null) {
+      cell = new ArrayList<Radio>();
+      cells.put(key, cell);
+    }
+    cell.add(radio);
+    radioCells.put(radio, key);
+  }
+
+  private void removeFromCell(Radio radio) {
+    Long key = radioCells.remove(radio);
+    if (key == null) {
+      return;
+    }
+    ArrayList<Radio> cell = cells.get(key);
+    cell.remove(radio);
+    if (cell.isEmpty()) {
+      cells.remove(key);
+    }
+  }
+
+  private int cellIndex(double coordinate) {
+    return (int) Math.floor(coordinate / cellSize);
+  }
+
+  private static Long cellKey(int x, int y) {
+    return ((long) x << 32) | (y & 0xffffffffL);
+  }
+}
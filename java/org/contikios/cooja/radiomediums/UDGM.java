@@ -74,7 +74,7 @@ import org.contikios.cooja.plugins.skins.UDGMVisualizerSkin;
  * @see #SS_WEAK
  * @see #SS_NOTHING
  *
- * @see DirectedGraphMedium
+ * @see RadioNeighborIndex
  * @see UDGMVisualizerSkin
  * @author Fredrik Osterlind
  */
@@ -87,61 +87,41 @@ public class UDGM extends AbstractRadioMedium {
   public double TRANSMITTING_RANGE = 50; /* Transmission range. */
   public double INTERFERENCE_RANGE = 100; /* Interference range. Ignored if below transmission range. */
 
-  private DirectedGraphMedium dgrm; /* Used only for efficient destination lookup */
+  private RadioNeighborIndex neighbors; /* Used only for efficient destination lookup */
 
   private Random random = null;
 
   public UDGM(Simulation simulation) {
     super(simulation);
     random = simulation.getRandomGenerator();
-    dgrm = new DirectedGraphMedium() {
-      protected void analyzeEdges() {
-        /* Create edges according to distances.
-         * XXX May be slow for mobile networks */
-        clearEdges();
-        for (Radio source: UDGM.this.getRegisteredRadios()) {
-          Position sourcePos = source.getPosition();
-          for (Radio dest: UDGM.this.getRegisteredRadios()) {
-            Position destPos = dest.getPosition();
-            /* Ignore ourselves */
-            if (source == dest) {
-              continue;
-            }
-            double distance = sourcePos.getDistanceTo(destPos);
-            if (distance < Math.max(TRANSMITTING_RANGE, INTERFERENCE_RANGE)) {
-              /* Add potential destination */
-              addEdge(
-                  new DirectedGraphMedium.Edge(source, 
-                      new DGRMDestinationRadio(dest)));
-            }
-          }
-        }
-        super.analyzeEdges();
+    neighbors = new RadioNeighborIndex(this) {
+      protected double getRange() {
+        return Math.max(TRANSMITTING_RANGE, INTERFERENCE_RANGE);
       }
     };
 
     /* Register as position observer.
-     * If any positions change, re-analyze potential receivers. */
+     * If any positions change, re-analyze potential receivers of moved motes. */
     final Observer positionObserver = new Observer() {
       public void update(Observable o, Object arg) {
-        dgrm.requestEdgeAnalysis();
+        neighbors.moteMoved((Mote) arg);
       }
     };
     /* Re-analyze potential receivers if radios are added/removed. */
     simulation.getEventCentral().addMoteCountListener(new MoteCountListener() {
       public void moteWasAdded(Mote mote) {
         mote.getInterfaces().getPosition().addObserver(positionObserver);
-        dgrm.requestEdgeAnalysis();
+        neighbors.requestRebuild();
       }
       public void moteWasRemoved(Mote mote) {
         mote.getInterfaces().getPosition().deleteObserver(positionObserver);
-        dgrm.requestEdgeAnalysis();
+        neighbors.requestRebuild();
       }
     });
     for (Mote mote: simulation.getMotes()) {
       mote.getInterfaces().getPosition().addObserver(positionObserver);
     }
-    dgrm.requestEdgeAnalysis();
+    neighbors.requestRebuild();
 
     /* Register visualizer skin */
     Visualizer.registerVisualizerSkin(UDGMVisualizerSkin.class);
@@ -155,12 +135,10 @@ public class UDGM extends AbstractRadioMedium {
   
   public void setTxRange(double r) {
     TRANSMITTING_RANGE = r;
-    dgrm.requestEdgeAnalysis();
   }
 
   public void setInterferenceRange(double r) {
     INTERFERENCE_RANGE = r;
-    dgrm.requestEdgeAnalysis();
   }
 
   public RadioConnection createConnections(Radio sender) {
@@ -178,7 +156,7 @@ public class UDGM extends AbstractRadioMedium {
     * ((double) sender.getCurrentOutputPowerIndicator() / (double) sender.getOutputPowerIndicatorMax());
 
     /* Get all potential destination radios */
-    DestinationRadio[] potentialDestinations = dgrm.getPotentialDestinations(sender);
+    DestinationRadio[] potentialDestinations = neighbors.getPotentialDestinations(sender);
     if (potentialDestinations == null) {
       return newConnection;
     }
@@ -282,9 +260,7 @@ public class UDGM extends AbstractRadioMedium {
     /* Override: uses distance as signal strength factor */
     
     /* Reset signal strengths */
-    for (Radio radio : getRegisteredRadios()) {
-      radio.setCurrentSignalStrength(getBaseRssi(radio));
-    }
+    resetSignalStrengths();
 
     /* Set signal strength to below strong on destinations */
     RadioConnection[] conns = getActiveConnections();
@@ -0,0 +1,364 @@
+/*
+ * Copyright (c) 2026, Cooja contributors.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS ``AS IS''
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+
+package org.contikios.cooja.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Text file written by a background thread.
+ *
+ * Writing only stores the text, or an entry to be formatted as text, in a
+ * preallocated lock-free ring, so the simulation thread never waits for the
+ * disk. The writer thread formats queued entries, and collects the text in a
+ * large buffer, which is written to the file channel when full, and at the
+ * latest 50 ms after the oldest text in it was collected, also while text
+ * keeps being queued. Files named *.gz are gzip compressed.
+ *
+ * Only if the ring is full, writing waits for the writer thread to catch up.
+ * {@link #flush()} waits until all text queued so far has been written.
+ * Text written after {@link #close()} is ignored.
+ */
+public class AsyncLogWriter {
+  private static final Logger logger = Logger.getLogger(AsyncLogWriter.class);
+
+  private static final int BUFFER_SIZE = 1024*1024;
+  private static final int RING_SIZE = 64*1024; /* Power of two */
+  private static final long WRITE_DELAY_NANOS = 50*1000*1000;
+
+  /**
+   * Formats queued entries other than strings. Called from the writer thread.
+   */
+  public interface EntryFormatter {
+    public String format(Object entry);
+  }
+
+  private final File file;
+  private final EntryFormatter formatter;
+  private final FileChannel channel;
+  private final OutputStream gzipStream;
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+  private boolean unflushed = false;
+  private long unwrittenSince;
+
+  /* Ring of queued entries. Writers claim positions at the tail, and store
+   * their entry in the claimed slot. The writer thread takes entries at the
+   * head, and clears their slots. */
+  private final AtomicReferenceArray<Object> ring = new AtomicReferenceArray<Object>(RING_SIZE);
+  private final AtomicLong tail = new AtomicLong();
+  private volatile long head = 0;
+  private volatile boolean writerWaiting = false;
+  private volatile boolean closed = false;
+
+  /* Ring positions up to which text is requested to be, and has been, written */
+  private final AtomicLong flushRequest = new AtomicLong();
+  private final Object flushLock = new Object();
+  private volatile long writtenPosition = 0;
+
+  private final Thread writerThread;
+  private final Thread shutdownHook;
+
+  /**
+   * @param file File
+   * @param append Append to file instead of replacing it
+   * @throws IOException If file could not be opened
+   */
+  public AsyncLogWriter(File file, boolean append) throws IOException {
+    this(file, append, null);
+  }
+
+  /**
+   * @param file File
+   * @param append Append to file instead of replacing it
+   * @param formatter Formats entries queued by {@link #writeEntry(Object)}
+   * @throws IOException If file could not be opened
+   */
+  public AsyncLogWriter(File file, boolean append, EntryFormatter formatter) throws IOException {
+    this.file = file;
+    this.formatter = formatter;
+    channel = FileChannel.open(file.toPath(),
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+    if (file.getName().endsWith(".gz")) {
+      gzipStream = new GZIPOutputStream(Channels.newOutputStream(channel), 64*1024, true);
+    } else {
+      gzipStream = null;
+    }
+
+    writerThread = new Thread(new Runnable() {
+      public void run() {
+        writeQueued();
+      }
+    }, "log writer: " + file.getName());
+    writerThread.setDaemon(true);
+    writerThread.start();
+
+    /* Write queued text also when exiting without closing */
+    shutdownHook = new Thread() {
+      public void run() {
+        close();
+      }
+    };
+    Runtime.getRuntime().addShutdownHook(shutdownHook);
+  }
+
+  /**
+   * @return File
+   */
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Queues text for writing.
+   *
+   * @param text Text
+   */
+  public void write(String text) {
+    queue(text);
+  }
+
+  /**
+   * Queues an entry for writing. The entry is formatted by the writer thread,
+   * using the formatter given when this writer was created, and must not be
+   * modified after being queued.
+   *
+   * @param entry Entry
+   */
+  public void writeEntry(Object entry) {
+    queue(entry);
+  }
+
+  private void queue(Object entry) {
+    if (closed) {
+      return;
+    }
+    long position = tail.getAndIncrement();
+    while (position - head >= RING_SIZE) {
+      /* Writer thread can't keep up: wait until it has made room */
+      if (!writerThread.isAlive()) {
+        return;
+      }
+      LockSupport.unpark(writerThread);
+      LockSupport.parkNanos(100*1000);
+    }
+    ring.set((int) position & (RING_SIZE - 1), entry);
+    if (writerWaiting) {
+      LockSupport.unpark(writerThread);
+    }
+  }
+
+  /**
+   * Writes all queued text to the file, and waits until it has been written.
+   * Used before Cooja may exit, for example when a test fails.
+   */
+  public void flush() {
+    if (closed || Thread.currentThread() == writerThread) {
+      return;
+    }
+    long target = tail.get();
+    long request = flushRequest.get();
+    while (request < target && !flushRequest.compareAndSet(request, target)) {
+      request = flushRequest.get();
+    }
+    LockSupport.unpark(writerThread);
+    synchronized (flushLock) {
+      while (writtenPosition < target && writerThread.isAlive()) {
+        try {
+          flushLock.wait(100);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes all queued text, and closes the file.
+   */
+  public synchronized void close() {
+    if (!closed) {
+      closed = true;
+      LockSupport.unpark(writerThread);
+    }
+    try {
+      writerThread.join();
+    } catch (InterruptedException e) {
+    }
+    try {
+      Runtime.getRuntime().removeShutdownHook(shutdownHook);
+    } catch (IllegalStateException e) {
+      /* Already shutting down */
+    }
+  }
+
+  private void writeQueued() {
+    try {
+      while (true) {
+        int index = (int) head & (RING_SIZE - 1);
+        Object entry = ring.get(index);
+        if (entry != null) {
+          put(entry);
+          ring.lazySet(index, null);
+          head = head + 1;
+          if (System.nanoTime() - unwrittenSince >= WRITE_DELAY_NANOS) {
+            /* Busy ring: still write at least every WRITE_DELAY_NANOS */
+            writeBuffer();
+          }
+          if (writtenPosition < flushRequest.get() && head >= flushRequest.get()) {
+            writeBuffer();
+            flushed();
+          }
+          continue;
+        }
+
+        if (head != tail.get()) {
+          /* Next position claimed, but its entry is not yet stored */
+          Thread.yield();
+          continue;
+        }
+
+        if (writtenPosition < flushRequest.get()) {
+          writeBuffer();
+          flushed();
+          continue;
+        }
+
+        if (closed) {
+          writeBuffer();
+          break;
+        }
+
+        if (buffer.position() > 0 || unflushed) {
+          /* Collect more text until the oldest collected text is due */
+          long delay = unwrittenSince + WRITE_DELAY_NANOS - System.nanoTime();
+          if (delay > 0) {
+            LockSupport.parkNanos(this, delay);
+          } else {
+            writeBuffer();
+          }
+          continue;
+        }
+
+        writerWaiting = true;
+        if (head == tail.get() && !closed && writtenPosition >= flushRequest.get()) {
+          LockSupport.park(this);
+        }
+        writerWaiting = false;
+      }
+      flushed();
+
+      if (gzipStream != null) {
+        gzipStream.close();
+      }
+      channel.close();
+    } catch (IOException e) {
+      logger.fatal("Error when writing to " + file + ": " + e.getMessage(), e);
+      closed = true;
+      writtenPosition = Long.MAX_VALUE;
+      flushed();
+      try {
+        channel.close();
+      } catch (IOException e1) {
+      }
+    }
+  }
+
+  private void flushed() {
+    synchronized (flushLock) {
+      flushLock.notifyAll();
+    }
+  }
+
+  private void put(Object entry) throws IOException {
+    if (buffer.position() == 0 && !unflushed) {
+      unwrittenSince = System.nanoTime();
+    }
+    String text;
+    if (entry instanceof String) {
+      text = (String) entry;
+    } else if (formatter != null) {
+      text = formatter.format(entry);
+    } else {
+      text = String.valueOf(entry);
+    }
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > buffer.remaining()) {
+      writeBuffer();
+    }
+    if (bytes.length > buffer.capacity()) {
+      write(ByteBuffer.wrap(bytes));
+    } else {
+      buffer.put(bytes);
+    }
+  }
+
+  /* Writes all collected text, i.e. all entries before the ring head */
+  private void writeBuffer() throws IOException {
+    if (buffer.position() > 0) {
+      buffer.flip();
+      write(buffer);
+      buffer.clear();
+    }
+    if (unflushed && gzipStream != null) {
+      /* Make written text readable before the file is closed */
+      gzipStream.flush();
+    }
+    unflushed = false;
+    writtenPosition = head;
+  }
+
+  private void write(ByteBuffer bytes) throws IOException {
+    unflushed = true;
+    if (gzipStream != null) {
+      gzipStream.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+      bytes.position(bytes.limit());
+      return;
+    }
+    while (bytes.hasRemaining()) {
+      channel.write(bytes);
+    }
+  }
+}